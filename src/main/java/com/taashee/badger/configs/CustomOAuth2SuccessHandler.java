@@ -43,7 +43,7 @@ public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler
             user.setEnabled(true);
             userRepository.save(user);
         }
-        String jwt = jwtUtil.generateToken(email);
+        String jwt = jwtUtil.generateToken(user);
         String redirectUrl = uiBaseUrl + "/oauth-success?token=" + jwt;
         response.sendRedirect(redirectUrl);
     }
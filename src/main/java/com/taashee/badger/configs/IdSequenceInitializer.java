@@ -0,0 +1,48 @@
+package com.taashee.badger.configs;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the pooled id sequences past ids already handed out by the IDENTITY columns these
+ * tables used before. Runs once the schema is updated and before the web server accepts
+ * requests, so the first pooled block never overlaps existing rows.
+ */
+@Component
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    // Sequence -> table whose ids it allocates
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "badge_instance_seq", "badge_instance",
+            "evidence_seq", "evidence",
+            "step_version_seq", "step_version",
+            "requirement_version_seq", "requirement_version");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Depends on the EntityManagerFactory so that ddl-auto has created the sequences
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Map.Entry<String, String> entry : SEQUENCES.entrySet()) {
+            // A pooled block ends at the value nextval returns, so the sequence must sit at or past max(id)
+            Long moved = jdbcTemplate.query(
+                    "SELECT setval('" + entry.getKey() + "', m) FROM (SELECT MAX(id) AS m FROM " + entry.getValue() + ") t " +
+                    "WHERE m IS NOT NULL AND m > (SELECT last_value FROM " + entry.getKey() + ")",
+                    rs -> rs.next() ? rs.getLong(1) : null);
+            if (moved != null) {
+                logger.info("Moved id sequence {} to {}", entry.getKey(), moved);
+            }
+        }
+    }
+}
@@ -1,24 +1,35 @@
 package com.taashee.badger.configs;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import com.taashee.badger.services.TokenVersionService;
 import com.taashee.badger.services.UserService;
 import com.taashee.badger.models.User;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Authenticates requests from the badger_jwt cookie. The token is parsed once and the principal
+ * is built from its claims; only the cached token version is checked, so the common path makes
+ * no database round-trip. Tokens whose claims are stale (roles or memberships changed since they
+ * were issued) or that predate claims are rebuilt from the database and re-issued with their
+ * original expiry, after the same revocation and disabled-user checks.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
@@ -26,6 +37,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
     public JwtAuthenticationFilter(JwtUtil jwtUtil) {
         this.jwtUtil = jwtUtil;
     }
@@ -42,21 +56,70 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
             }
         }
-        if (jwt != null && jwtUtil.validateToken(jwt)) {
-            String email = jwtUtil.getSubject(jwt);
-            User user = userService.findByEmail(email);
-            if (user != null) {
-                List<String> roles = user.getRoles().stream()
-                    .map(role -> "ROLE_" + role.toUpperCase())
+        Claims claims = jwt != null ? jwtUtil.parseClaims(jwt) : null;
+        if (claims != null) {
+            JwtPrincipal principal = resolvePrincipal(claims, response);
+            if (principal != null) {
+                List<SimpleGrantedAuthority> authorities = principal.roles().stream()
+                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
                     .collect(Collectors.toList());
                 UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                        email, null, roles.stream()
-                            .map(role -> new org.springframework.security.core.authority.SimpleGrantedAuthority(role))
-                            .collect(Collectors.toList()));
-                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        principal.email(), null, authorities);
+                auth.setDetails(principal);
                 SecurityContextHolder.getContext().setAuthentication(auth);
             }
         }
         filterChain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+
+    private JwtPrincipal resolvePrincipal(Claims claims, HttpServletResponse response) {
+        JwtPrincipal principal = jwtUtil.toPrincipal(claims);
+        if (principal != null) {
+            TokenVersionService.TokenState state = tokenVersionService.getState(principal.userId());
+            if (state == null || isRevoked(claims, state)) {
+                return null;
+            }
+            if (state.authVersion() == jwtUtil.getVersion(claims)) {
+                return principal;
+            }
+        }
+
+        // Stale claims or a token issued before claims were embedded: rebuild from the database
+        User user = userService.findByEmail(claims.getSubject());
+        if (user == null || !user.isEnabled() || (principal != null && !user.getId().equals(principal.userId()))) {
+            return null;
+        }
+        if (principal == null) {
+            // Legacy tokens get the same revocation checks as tokens with claims
+            TokenVersionService.TokenState state = tokenVersionService.getState(user.getId());
+            if (state == null || isRevoked(claims, state)) {
+                return null;
+            }
+        }
+        Date expiresAt = claims.getExpiration();
+        if (expiresAt == null) {
+            return null;
+        }
+        JwtPrincipal refreshed = jwtUtil.principalFor(user);
+        response.addCookie(tokenCookie(jwtUtil.generateToken(refreshed, user.getAuthVersion(), expiresAt), expiresAt));
+        return refreshed;
+    }
+
+    private boolean isRevoked(Claims claims, TokenVersionService.TokenState state) {
+        if (state.tokensValidAfter() == null || claims.getIssuedAt() == null) {
+            return false;
+        }
+        LocalDateTime issuedAt = LocalDateTime.ofInstant(claims.getIssuedAt().toInstant(), ZoneId.systemDefault());
+        return issuedAt.isBefore(state.tokensValidAfter());
+    }
+
+    private Cookie tokenCookie(String jwt, Date expiresAt) {
+        Cookie cookie = new Cookie("badger_jwt", jwt);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(false); // Set to false for development (HTTP)
+        cookie.setPath("/");
+        // Lives as long as the token it carries
+        cookie.setMaxAge((int) Math.max(0, (expiresAt.getTime() - System.currentTimeMillis()) / 1000));
+        return cookie;
+    }
+}
@@ -0,0 +1,31 @@
+package com.taashee.badger.configs;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+/**
+ * Identity carried in the JWT claims: user id, application roles and organization memberships.
+ * Set as the details of the request's Authentication; the principal itself stays the email.
+ */
+public record JwtPrincipal(Long userId, String email, List<String> roles, List<Membership> memberships) {
+
+    public record Membership(Long organizationId, String staffRole, boolean signer) {
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    /**
+     * Principal of the current request, or null if it was not authenticated by JWT
+     */
+    public static JwtPrincipal current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getDetails() instanceof JwtPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+}
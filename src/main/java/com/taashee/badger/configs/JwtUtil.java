@@ -1,39 +1,131 @@
 package com.taashee.badger.configs;
 
+import com.taashee.badger.models.User;
+import com.taashee.badger.repositories.OrganizationStaffRepository;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class JwtUtil {
     private static final String SECRET_KEY = "badger-management-super-secret-key-should-be-long";
     private static final long EXPIRATION_MS = 60 * 60 * 1000; // 1 hour
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLES = "roles";
+    private static final String CLAIM_ORGANIZATIONS = "orgs";
+    private static final String CLAIM_VERSION = "ver";
     private final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // Parsers are immutable and thread-safe, so one is shared by all requests
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+    private final OrganizationStaffRepository organizationStaffRepository;
 
-    public String generateToken(String subject) {
+    public JwtUtil(OrganizationStaffRepository organizationStaffRepository) {
+        this.organizationStaffRepository = organizationStaffRepository;
+    }
+
+    /**
+     * Issues a token carrying the user's id, roles and organization memberships
+     */
+    public String generateToken(User user) {
+        return generateToken(principalFor(user), user.getAuthVersion());
+    }
+
+    public String generateToken(JwtPrincipal principal, long authVersion) {
+        return generateToken(principal, authVersion, new Date(System.currentTimeMillis() + EXPIRATION_MS));
+    }
+
+    /**
+     * Issues a token expiring at the given time, used when re-issuing so a refresh never extends a session
+     */
+    public String generateToken(JwtPrincipal principal, long authVersion, Date expiresAt) {
+        List<Map<String, Object>> organizations = new ArrayList<>();
+        for (JwtPrincipal.Membership membership : principal.memberships()) {
+            Map<String, Object> organization = new LinkedHashMap<>();
+            organization.put("id", membership.organizationId());
+            organization.put("role", membership.staffRole());
+            organization.put("signer", membership.signer());
+            organizations.add(organization);
+        }
         return Jwts.builder()
-                .setSubject(subject)
+                .setSubject(principal.email())
+                .claim(CLAIM_USER_ID, principal.userId())
+                .claim(CLAIM_ROLES, principal.roles())
+                .claim(CLAIM_ORGANIZATIONS, organizations)
+                .claim(CLAIM_VERSION, authVersion)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+                .setExpiration(expiresAt)
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getSubject(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token)
-                .getBody().getSubject();
+    /**
+     * Loads the claims of a user from the database, for issuing or refreshing a token
+     */
+    public JwtPrincipal principalFor(User user) {
+        List<JwtPrincipal.Membership> memberships = organizationStaffRepository.findByUserId(user.getId()).stream()
+                .map(staff -> new JwtPrincipal.Membership(
+                        staff.getOrganization().getId(), staff.getStaffRole(), staff.isSigner()))
+                .toList();
+        return new JwtPrincipal(user.getId(), user.getEmail(), List.copyOf(user.getRoles()), memberships);
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies and parses a token in one pass; returns null if it is invalid or expired
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * Principal embedded in verified claims, or null for tokens issued before claims were embedded
+     */
+    public JwtPrincipal toPrincipal(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        if (userId == null) {
+            return null;
+        }
+        List<String> roles = new ArrayList<>();
+        Object rawRoles = claims.get(CLAIM_ROLES);
+        if (rawRoles instanceof List<?> list) {
+            list.forEach(role -> roles.add(String.valueOf(role)));
+        }
+        List<JwtPrincipal.Membership> memberships = new ArrayList<>();
+        Object rawOrganizations = claims.get(CLAIM_ORGANIZATIONS);
+        if (rawOrganizations instanceof List<?> list) {
+            for (Object entry : list) {
+                if (entry instanceof Map<?, ?> organization && organization.get("id") instanceof Number id) {
+                    memberships.add(new JwtPrincipal.Membership(id.longValue(),
+                            (String) organization.get("role"), Boolean.TRUE.equals(organization.get("signer"))));
+                }
+            }
         }
+        return new JwtPrincipal(userId.longValue(), claims.getSubject(), List.copyOf(roles), List.copyOf(memberships));
+    }
+
+    /**
+     * Token version the claims were issued at; -1 for tokens without one
+     */
+    public long getVersion(Claims claims) {
+        Number version = claims.get(CLAIM_VERSION, Number.class);
+        return version != null ? version.longValue() : -1L;
+    }
+
+    public String getSubject(String token) {
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
     }
-} 
\ No newline at end of file
+}
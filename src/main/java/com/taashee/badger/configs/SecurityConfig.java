@@ -2,6 +2,7 @@ package com.taashee.badger.configs;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -51,6 +52,15 @@ public class SecurityConfig {
                     "/oauth2/**",
                     "/login/oauth2/**"
                 ).permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/images/*").permitAll()
+                .requestMatchers(HttpMethod.GET,
+                    "/api/public/assertions/**",
+                    "/api/public/keys/*",
+                    "/api/public/badge-classes/*",
+                    "/api/public/issuers/*",
+                    "/api/public/status/*",
+                    "/api/public/badges/*/validate"
+                ).permitAll()
                 .anyRequest().authenticated()
             .and()
             .oauth2Login()
@@ -0,0 +1,48 @@
+package com.taashee.badger.configs;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Creates the pg_trgm GIN indexes behind substring searches (LIKE '%term%'), which btree
+ * indexes cannot serve and ddl-auto cannot declare. Each expression must match the one the
+ * search query lowers its column with, or the planner will not use the index.
+ */
+@Component
+public class TrigramIndexInitializer implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(TrigramIndexInitializer.class);
+
+    // Index name -> table and indexed expression
+    private static final Map<String, String> INDEXES = Map.of(
+            "idx_users_email_trgm", "users USING gin (lower(email) gin_trgm_ops)",
+            "idx_users_full_name_trgm", "users USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops)",
+            "idx_badge_class_name_trgm", "badge_class USING gin (lower(name) gin_trgm_ops)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Depends on the EntityManagerFactory so that ddl-auto has created the tables
+    public TrigramIndexInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        } catch (DataAccessException e) {
+            // Searches still work without the extension, only through sequential scans
+            logger.warn("pg_trgm is not available, substring searches will not be indexed: {}", e.getMessage());
+            return;
+        }
+        for (Map.Entry<String, String> index : INDEXES.entrySet()) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + index.getKey() + " ON " + index.getValue());
+        }
+    }
+}
@@ -127,7 +127,7 @@ public class AuthController {
                 HttpStatus.FORBIDDEN.value(), "Account not verified. Please check your email.", null, "Account not verified."
             ));
         }
-        String jwt = jwtUtil.generateToken(user.getEmail());
+        String jwt = jwtUtil.generateToken(user);
         Cookie cookie = new Cookie("badger_jwt", jwt);
         cookie.setHttpOnly(true);
         cookie.setSecure(false); // Set to false for development (HTTP)
@@ -1,15 +1,24 @@
 package com.taashee.badger.controllers;
 
+import com.taashee.badger.exceptions.ApiException;
 import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeClassSummaryDTO;
 import com.taashee.badger.models.ApiResponse;
+import com.taashee.badger.services.BadgeClassExportService;
 import com.taashee.badger.services.BadgeClassService;
+import com.taashee.badger.services.BulkIssuanceService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -28,6 +37,10 @@ import java.util.Optional;
 public class BadgeClassController {
     @Autowired
     private BadgeClassService badgeClassService;
+    @Autowired
+    private BadgeClassExportService badgeClassExportService;
+    @Autowired
+    private BulkIssuanceService bulkIssuanceService;
 
     private BadgeClassResponseDTO toResponseDTO(BadgeClass badgeClass) {
         BadgeClassResponseDTO dto = new BadgeClassResponseDTO();
@@ -135,34 +148,24 @@ public class BadgeClassController {
             @RequestParam(defaultValue = "5") int size,
             @RequestParam(required = false) String search) {
         
-        List<BadgeClass> allBadgeClasses = badgeClassService.getAllBadgeClasses();
-        
-        // Apply search filter if provided
-        if (search != null && !search.trim().isEmpty()) {
-            allBadgeClasses = allBadgeClasses.stream()
-                .filter(bc -> bc.getName() != null && bc.getName().toLowerCase().contains(search.toLowerCase()))
-                .toList();
+        try {
+            // Filtering and paging run in the database; only the list columns are selected
+            Page<BadgeClassSummaryDTO> result = badgeClassService.getBadgeClassSummaries(page, size, search);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("content", result.getContent());
+            response.put("totalElements", result.getTotalElements());
+            response.put("totalPages", result.getTotalPages());
+            response.put("currentPage", page);
+            response.put("size", size);
+            response.put("first", result.isFirst());
+            response.put("last", result.isLast());
+
+            return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Success", response, null));
+        } catch (ApiException e) {
+            return ResponseEntity.status(e.getStatus())
+                .body(new ApiResponse<>(e.getStatus(), e.getMessage(), null, e.getMessage()));
         }
-        
-        // Calculate pagination
-        int total = allBadgeClasses.size();
-        int totalPages = (int) Math.ceil((double) total / size);
-        int startIndex = page * size;
-        int endIndex = Math.min(startIndex + size, total);
-        
-        List<BadgeClass> paginatedBadgeClasses = allBadgeClasses.subList(startIndex, endIndex);
-        List<BadgeClassResponseDTO> dtos = paginatedBadgeClasses.stream().map(this::toResponseDTO).toList();
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("content", dtos);
-        response.put("totalElements", total);
-        response.put("totalPages", totalPages);
-        response.put("currentPage", page);
-        response.put("size", size);
-        response.put("first", page == 0);
-        response.put("last", page >= totalPages - 1);
-        
-        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Success", response, null));
     }
 
     @Operation(summary = "Get badge class by ID", description = "Get badge class details by ID.")
@@ -207,20 +210,43 @@ public class BadgeClassController {
         try {
             Map<String, Object> result = badgeClassService.getBadgeRecipients(id, page, size, search, status, sortBy, sortOrder, startDate, endDate);
             return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Badge recipients retrieved", result, null));
+        } catch (ApiException e) {
+            return ResponseEntity.status(e.getStatus())
+                .body(new ApiResponse<>(e.getStatus(), e.getMessage(), null, e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse<>(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Error retrieving badge recipients", null, e.getMessage()));
         }
     }
 
-    @Operation(summary = "Export badge class", description = "Export badge class as JSON with optional assertions.")
+    @Operation(summary = "Export badge class", description = "Export badge class as JSON with optional assertions. With a format (json or ndjson) or compression (gzip or zip) the export is streamed as a file download.")
     @PreAuthorize("hasAnyRole('ADMIN','ORGANIZATION')")
     @GetMapping("/{id}/export")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> exportBadgeClass(
+    public ResponseEntity<?> exportBadgeClass(
             @PathVariable Long id,
             @RequestParam(defaultValue = "false") boolean includeAssertions,
-            @RequestParam(defaultValue = "false") boolean compressOutput) {
+            @RequestParam(defaultValue = "false") boolean compressOutput,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String compression) {
         
+        if (format != null || compression != null || compressOutput) {
+            try {
+                BadgeClassExportService.ExportPlan plan = badgeClassExportService.plan(id, includeAssertions,
+                    format != null ? BadgeClassExportService.parseFormat(format) : BadgeClassExportService.Format.JSON,
+                    compression != null ? BadgeClassExportService.parseCompression(compression)
+                        : compressOutput ? BadgeClassExportService.Compression.GZIP : BadgeClassExportService.Compression.NONE);
+                StreamingResponseBody body = out -> badgeClassExportService.write(plan, out);
+                return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(plan.contentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(plan.fileName()).build().toString())
+                    .body(body);
+            } catch (ApiException e) {
+                return ResponseEntity.status(e.getStatus())
+                    .body(new ApiResponse<>(e.getStatus(), e.getMessage(), null, e.getMessage()));
+            }
+        }
+
         try {
             Map<String, Object> result = badgeClassService.exportBadgeClass(id, includeAssertions, compressOutput);
             return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Badge class exported", result, null));
@@ -367,6 +393,31 @@ public class BadgeClassController {
         return ResponseEntity.status(HttpStatus.CREATED).body(new ApiResponse<>(HttpStatus.CREATED.value(), "Badges awarded", awarded, null));
     }
 
+    @Operation(summary = "Issue a badge to many recipients", description = "ADMIN/ORGANIZATION only: Queue a bulk issuance of a badge class. Poll the returned job for per-row results.")
+    @PreAuthorize("hasAnyRole('ADMIN','ORGANIZATION')")
+    @PostMapping("/{id}/bulk-issuance")
+    public ResponseEntity<ApiResponse<BulkIssuanceService.IssuanceJob>> bulkIssue(@PathVariable Long id, @RequestBody List<BadgeInstanceAwardRequest> requests) {
+        try {
+            BulkIssuanceService.IssuanceJob job = bulkIssuanceService.submit(id, requests);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ApiResponse<>(HttpStatus.ACCEPTED.value(), "Bulk issuance queued", job, null));
+        } catch (ApiException e) {
+            return ResponseEntity.status(e.getStatus())
+                .body(new ApiResponse<>(e.getStatus(), e.getMessage(), null, e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Get bulk issuance status", description = "ADMIN/ORGANIZATION only: Progress and per-row results of a bulk issuance job.")
+    @PreAuthorize("hasAnyRole('ADMIN','ORGANIZATION')")
+    @GetMapping("/{id}/bulk-issuance/{jobId}")
+    public ResponseEntity<ApiResponse<BulkIssuanceService.IssuanceJob>> getBulkIssuance(@PathVariable Long id, @PathVariable String jobId) {
+        BulkIssuanceService.IssuanceJob job = bulkIssuanceService.getJob(jobId);
+        if (job == null || !job.getBadgeClassId().equals(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>(HttpStatus.NOT_FOUND.value(), "Bulk issuance job not found", null, "Bulk issuance job not found"));
+        }
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Bulk issuance status", job, null));
+    }
+
     @Operation(summary = "Bulk archive/unarchive badge classes", description = "ADMIN/ORGANIZATION only: Bulk archive or unarchive badge classes. Author: Lokya Naik")
     @PreAuthorize("hasAnyRole('ADMIN','ORGANIZATION')")
     @PostMapping("/bulk-archive")
@@ -1,5 +1,6 @@
 package com.taashee.badger.controllers;
 
+import com.taashee.badger.exceptions.ApiException;
 import com.taashee.badger.models.BadgeInstance;
 import com.taashee.badger.models.ApiResponse;
 import com.taashee.badger.models.BadgeInstanceDTO;
@@ -110,16 +111,22 @@ public class BadgeInstanceController {
         }
     }
 
-    @Operation(summary = "Get user badges", description = "Get badges for the current user.")
+    @Operation(summary = "Get user badges", description = "Get badges for the current user. Pass cursor (empty for the first page) to page by continuation token instead of page number.")
     @PreAuthorize("hasRole('USER')")
     @GetMapping("/user")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getUserBadges(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor) {
         try {
-            Map<String, Object> result = badgeInstanceService.getUserBadges(page, size, search);
+            Map<String, Object> result = cursor != null
+                ? badgeInstanceService.getUserBadgesByCursor(cursor, size, search)
+                : badgeInstanceService.getUserBadges(page, size, search);
             return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Success", result, null));
+        } catch (ApiException e) {
+            return ResponseEntity.status(e.getStatus())
+                .body(new ApiResponse<>(e.getStatus(), e.getMessage(), null, e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse<>(
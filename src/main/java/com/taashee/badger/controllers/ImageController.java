@@ -0,0 +1,67 @@
+package com.taashee.badger.controllers;
+
+import com.taashee.badger.models.ApiResponse;
+import com.taashee.badger.services.ImageMigrationService;
+import com.taashee.badger.services.ImageStorageService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+@Tag(name = "Images", description = "Stored badge and organization images")
+@RestController
+@RequestMapping("/api")
+public class ImageController {
+    @Autowired
+    private ImageStorageService imageStorageService;
+    @Autowired
+    private ImageMigrationService imageMigrationService;
+
+    @Operation(summary = "Get image", description = "Public: image bytes by content hash. Supports ETag revalidation and Range requests.")
+    @GetMapping("/images/{hash}")
+    public ResponseEntity<Resource> getImage(@PathVariable String hash) {
+        if (!ImageStorageService.isHash(hash)) {
+            return ResponseEntity.notFound().build();
+        }
+        // Content never changes for a hash, so the hash is the ETag and clients may cache forever.
+        // Range requests on a Resource body are answered with 206 by Spring MVC.
+        return imageStorageService.find(hash)
+            .map(image -> ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(image.blob().getContentType()))
+                .eTag(hash)
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .header("X-Content-Type-Options", "nosniff")
+                .header("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'; sandbox")
+                .body(image.content()))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Migrate inline images", description = "ADMIN only: Move images stored inline as data URLs into the image store.")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/admin/images/migration")
+    public ResponseEntity<ApiResponse<ImageMigrationService.MigrationJob>> startMigration() {
+        ImageMigrationService.MigrationJob job = imageMigrationService.start();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(new ApiResponse<>(HttpStatus.ACCEPTED.value(), "Image migration started", job, null));
+    }
+
+    @Operation(summary = "Image migration status", description = "ADMIN only: Status of the latest image migration.")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/images/migration")
+    public ResponseEntity<ApiResponse<ImageMigrationService.MigrationJob>> getMigrationStatus() {
+        ImageMigrationService.MigrationJob job = imageMigrationService.getLatestJob();
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>(HttpStatus.NOT_FOUND.value(), "No image migration has run", null, "No image migration has run"));
+        }
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Success", job, null));
+    }
+}
@@ -2,7 +2,9 @@ package com.taashee.badger.controllers;
 
 import com.taashee.badger.models.Organization;
 import com.taashee.badger.models.ApiResponse;
+import com.taashee.badger.models.StatusList;
 import com.taashee.badger.services.OrganizationService;
+import com.taashee.badger.services.StatusListService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +22,24 @@ import java.util.stream.Collectors;
 public class OrganizationController {
     @Autowired
     private OrganizationService organizationService;
+    @Autowired
+    private StatusListService statusListService;
+
+    @Operation(summary = "Rebuild revocation status list", description = "ADMIN only: Index badges issued before status lists existed and recompute the organization's revocation bitstring.")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/{id}/status-list/rebuild")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildStatusList(@PathVariable Long id) {
+        if (organizationService.getOrganizationById(id).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse<>(HttpStatus.NOT_FOUND.value(), "Organization not found", null, "Organization not found"));
+        }
+        StatusList list = statusListService.rebuild(id);
+        Map<String, Object> result = Map.of(
+            "organizationId", id,
+            "indexedBadges", list.getNextIndex(),
+            "revision", list.getRevision(),
+            "statusListUrl", statusListService.statusListUrl(id));
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Status list rebuilt", result, null));
+    }
 
     @Operation(summary = "Create organization", description = "ADMIN/ORGANIZATION only: Create a new organization.")
     @PreAuthorize("hasRole('ADMIN')")
@@ -9,15 +9,24 @@ import com.taashee.badger.models.AuditLog;
 import com.taashee.badger.models.User;
 import com.taashee.badger.repositories.OrganizationRepository;
 import com.taashee.badger.services.PathwayService;
+import com.taashee.badger.services.PathwayVersionDiffService;
+import com.taashee.badger.services.PathwayVersionDocumentService;
 import com.taashee.badger.services.PathwayVersioningService;
+import com.taashee.badger.services.StepTreeLoader;
 import com.taashee.badger.services.UserService;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.time.LocalDateTime;
 
 @RestController
@@ -49,13 +58,17 @@ public class PathwayController {
     }
 
     private StepDto toStepDto(PathwayStep step) {
-        List<StepRequirementDto> requirements = step.getRequirements().stream()
+        return toStepDto(step, step.getRequirements());
+    }
+
+    private StepDto toStepDto(PathwayStep step, List<StepRequirement> stepRequirements) {
+        List<StepRequirementDto> requirements = stepRequirements.stream()
             .map(this::toStepRequirementDto)
             .collect(Collectors.toList());
             
         return new StepDto(
             step.getId(), 
-            step.getParentStep() != null ? step.getParentStep().getId() : null, 
+            step.getParentStepId(), 
             step.getName(), 
             step.getDescription(),
             step.getShortCode(),
@@ -140,13 +153,43 @@ public class PathwayController {
 
     @GetMapping("/{pathwayId}/steps")
     public List<StepDto> listSteps(@PathVariable Long orgId, @PathVariable Long pathwayId) {
-        return pathwayService
-            .listSteps(pathwayId)
+        StepTreeLoader.StepTree tree = pathwayService.getStepTree(pathwayId);
+        return tree.steps()
             .stream()
-            .map(this::toStepDto)
+            .map(step -> toStepDto(step, tree.requirements(step.getId())))
             .collect(Collectors.toList());
     }
 
+    public static record StepTreeNodeDto(StepDto step, List<StepTreeNodeDto> children) {}
+
+    @GetMapping("/{pathwayId}/steps/tree")
+    public List<StepTreeNodeDto> stepTree(@PathVariable Long orgId, @PathVariable Long pathwayId) {
+        StepTreeLoader.StepTree tree = pathwayService.getStepTree(pathwayId);
+        Set<Long> visited = new HashSet<>();
+        List<StepTreeNodeDto> nodes = new ArrayList<>();
+        for (PathwayStep root : tree.roots()) {
+            nodes.add(toStepTreeNode(tree, root, visited));
+        }
+        // Steps caught in a parent cycle are not reachable from a root; list them at the top
+        for (PathwayStep step : tree.steps()) {
+            if (!visited.contains(step.getId())) {
+                nodes.add(toStepTreeNode(tree, step, visited));
+            }
+        }
+        return nodes;
+    }
+
+    private StepTreeNodeDto toStepTreeNode(StepTreeLoader.StepTree tree, PathwayStep step, Set<Long> visited) {
+        visited.add(step.getId());
+        List<StepTreeNodeDto> children = new ArrayList<>();
+        for (PathwayStep child : tree.children(step.getId())) {
+            if (!visited.contains(child.getId())) {
+                children.add(toStepTreeNode(tree, child, visited));
+            }
+        }
+        return new StepTreeNodeDto(toStepDto(step, tree.requirements(step.getId())), children);
+    }
+
     @GetMapping("/{pathwayId}/steps/{stepId}")
     public StepDto getStep(@PathVariable Long orgId, @PathVariable Long pathwayId, @PathVariable Long stepId) {
         var step = pathwayService.getStep(pathwayId, stepId);
@@ -207,6 +250,12 @@ public class PathwayController {
     // Pathway Versioning Endpoints
     @Autowired
     private PathwayVersioningService pathwayVersioningService;
+
+    @Autowired
+    private PathwayVersionDocumentService pathwayVersionDocumentService;
+
+    @Autowired
+    private PathwayVersionDiffService pathwayVersionDiffService;
     
 
     public static record PublishPathwayResponse(Integer version, String status, String publishedAt) {}
@@ -231,16 +280,34 @@ public class PathwayController {
         return pathwayVersioningService.getPathwayVersions(pathwayId);
     }
 
+    // Version documents are rendered once and served from cache; If-None-Match is answered with 304
     @GetMapping("/{pathwayId}/versions/{version}")
-    public PathwayVersion getPathwayVersion(@PathVariable Long orgId, @PathVariable Long pathwayId, @PathVariable Integer version) {
-        return pathwayVersioningService.getPathwayVersion(pathwayId, version)
+    public ResponseEntity<byte[]> getPathwayVersion(@PathVariable Long orgId, @PathVariable Long pathwayId, @PathVariable Integer version) {
+        PathwayVersionDocumentService.VersionDocument document = pathwayVersionDocumentService.byVersion(pathwayId, version)
             .orElseThrow(() -> new RuntimeException("Version not found: " + version));
+        return versionDocumentResponse(document);
     }
 
     @GetMapping("/{pathwayId}/versions/latest/published")
-    public PathwayVersion getLatestPublishedVersion(@PathVariable Long orgId, @PathVariable Long pathwayId) {
-        return pathwayVersioningService.getLatestPublishedVersion(pathwayId)
+    public ResponseEntity<byte[]> getLatestPublishedVersion(@PathVariable Long orgId, @PathVariable Long pathwayId) {
+        PathwayVersionDocumentService.VersionDocument document = pathwayVersionDocumentService.latestPublished(pathwayId)
             .orElseThrow(() -> new RuntimeException("No published version found"));
+        return versionDocumentResponse(document);
+    }
+
+    @GetMapping("/{pathwayId}/versions/{fromVersion}/diff/{toVersion}")
+    public PathwayVersionDiffService.VersionDiff diffPathwayVersions(@PathVariable Long orgId, @PathVariable Long pathwayId,
+                                                                    @PathVariable Integer fromVersion, @PathVariable Integer toVersion) {
+        return pathwayVersionDiffService.diff(pathwayId, fromVersion, toVersion)
+            .orElseThrow(() -> new RuntimeException("Version not found: " + fromVersion + " or " + toVersion));
+    }
+
+    private ResponseEntity<byte[]> versionDocumentResponse(PathwayVersionDocumentService.VersionDocument document) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(document.etag())
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .body(document.json());
     }
 
     @PostMapping("/{pathwayId}/versions/draft")
@@ -2,6 +2,8 @@ package com.taashee.badger.controllers;
 
 import com.taashee.badger.models.*;
 import com.taashee.badger.repositories.*;
+import com.taashee.badger.services.GroupProgressRollupService;
+import com.taashee.badger.services.ProgressRecalculationService;
 import com.taashee.badger.services.ProgressTrackingService;
 import com.taashee.badger.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,22 +25,34 @@ public class ProgressTrackingController {
     private final OrganizationStaffRepository organizationStaffRepository;
     private final OrganizationUserRepository organizationUserRepository;
     private final GroupMemberRepository groupMemberRepository;
+    private final GroupRepository groupRepository;
+    private final PathwayRepository pathwayRepository;
 
     public ProgressTrackingController(ProgressTrackingService progressService, 
                                     OrganizationRepository organizationRepository,
                                     OrganizationStaffRepository organizationStaffRepository,
                                     OrganizationUserRepository organizationUserRepository,
-                                    GroupMemberRepository groupMemberRepository) {
+                                    GroupMemberRepository groupMemberRepository,
+                                    GroupRepository groupRepository,
+                                    PathwayRepository pathwayRepository) {
         this.progressService = progressService;
         this.organizationRepository = organizationRepository;
         this.organizationStaffRepository = organizationStaffRepository;
         this.organizationUserRepository = organizationUserRepository;
         this.groupMemberRepository = groupMemberRepository;
+        this.groupRepository = groupRepository;
+        this.pathwayRepository = pathwayRepository;
     }
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private GroupProgressRollupService groupProgressRollupService;
+
+    @Autowired
+    private ProgressRecalculationService progressRecalculationService;
+
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || auth.getPrincipal() == null) {
@@ -83,6 +97,9 @@ public class ProgressTrackingController {
             if (currentUser.getRoles() == null || !currentUser.getRoles().contains("ISSUER")) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
+            if (!groupRepository.existsByIdAndOrganizationId(groupId, orgId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
             
             Map<String, Object> summary = progressService.getGroupProgressSummary(groupId, pathwayId);
             return ResponseEntity.ok(summary);
@@ -91,6 +108,82 @@ public class ProgressTrackingController {
         }
     }
 
+    @PostMapping("/groups/{groupId}/progress/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildGroupProgress(@PathVariable Long orgId, 
+                                                                   @PathVariable Long groupId,
+                                                                   @RequestParam Long pathwayId) {
+        try {
+            Organization organization = organizationRepository.findById(orgId)
+                    .orElseThrow(() -> new RuntimeException("Organization not found"));
+            
+            User currentUser = getCurrentUser();
+            if (currentUser.getRoles() == null || !currentUser.getRoles().contains("ISSUER")) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (!groupRepository.existsByIdAndOrganizationId(groupId, orgId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            
+            // Recompute the materialized rollup from step progress to repair drift
+            groupProgressRollupService.rebuild(groupId, pathwayId);
+            return ResponseEntity.ok(groupProgressRollupService.getSummary(groupId, pathwayId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/pathways/{pathwayId}/progress/recalculate")
+    public ResponseEntity<ProgressRecalculationService.RecalculationJob> recalculatePathwayProgress(@PathVariable Long orgId, 
+                                                                                                 @PathVariable Long pathwayId) {
+        try {
+            Organization organization = organizationRepository.findById(orgId)
+                    .orElseThrow(() -> new RuntimeException("Organization not found"));
+            
+            User currentUser = getCurrentUser();
+            if (currentUser.getRoles() == null || !currentUser.getRoles().contains("ISSUER")) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (!pathwayRepository.existsByIdAndOrganizationId(pathwayId, orgId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            
+            // Queued in the background; poll the status endpoint for progress
+            ProgressRecalculationService.RecalculationJob job = progressService.recalculateAllProgressForPathway(pathwayId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/pathways/{pathwayId}/progress/recalculate/status")
+    public ResponseEntity<ProgressRecalculationService.RecalculationJob> getRecalculationStatus(@PathVariable Long orgId, 
+                                                                                              @PathVariable Long pathwayId,
+                                                                                              @RequestParam(required = false) String jobId) {
+        try {
+            Organization organization = organizationRepository.findById(orgId)
+                    .orElseThrow(() -> new RuntimeException("Organization not found"));
+            
+            User currentUser = getCurrentUser();
+            if (currentUser.getRoles() == null || !currentUser.getRoles().contains("ISSUER")) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (!pathwayRepository.existsByIdAndOrganizationId(pathwayId, orgId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            
+            // Jobs are only visible through the pathway they belong to
+            ProgressRecalculationService.RecalculationJob job = jobId != null
+                    ? progressRecalculationService.getJob(jobId)
+                    : progressRecalculationService.getLatestJob(pathwayId);
+            if (job == null || !job.getPathwayId().equals(pathwayId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            return ResponseEntity.ok(job);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping("/pathways/{pathwayId}/steps/{stepId}/complete/{userId}")
     public ResponseEntity<StepProgressDto> completeStep(@PathVariable Long orgId, 
                                                       @PathVariable Long pathwayId,
@@ -111,11 +204,8 @@ public class ProgressTrackingController {
             // In a full implementation, you'd need to find the correct step version
             Long stepVersionId = stepId; // This assumes stepId is actually stepVersionId
             
-            progressService.completeStep(stepVersionId, userId, groupId);
-            
-            // Return the updated step progress
-            StepProgress stepProgress = progressService.updateStepProgress(
-                    stepVersionId, userId, groupId, StepProgress.ProgressStatus.COMPLETED);
+            // Pathway progress is updated asynchronously once the completion is committed
+            StepProgress stepProgress = progressService.completeStep(stepVersionId, userId, groupId);
             
             return ResponseEntity.ok(toStepProgressDto(stepProgress));
         } catch (Exception e) {
@@ -123,6 +213,32 @@ public class ProgressTrackingController {
         }
     }
 
+    @PostMapping("/pathways/{pathwayId}/steps/complete-bulk")
+    public ResponseEntity<Map<String, Object>> completeStepsInBulk(@PathVariable Long orgId, 
+                                                                  @PathVariable Long pathwayId,
+                                                                  @RequestParam Long groupId,
+                                                                  @RequestBody List<StepCompletionRequest> requests) {
+        try {
+            Organization organization = organizationRepository.findById(orgId)
+                    .orElseThrow(() -> new RuntimeException("Organization not found"));
+            
+            User currentUser = getCurrentUser();
+            // Allow ISSUERs to mark steps as complete for a whole group
+            if (currentUser.getRoles() == null || !currentUser.getRoles().contains("ISSUER")) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (!groupRepository.existsByIdAndOrganizationId(groupId, orgId)
+                    || !pathwayRepository.existsByIdAndOrganizationId(pathwayId, orgId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+
+            Map<String, Object> result = progressService.completeStepsInBulk(pathwayId, groupId, requests);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // Individual Progress APIs
     @GetMapping("/users/{userId}/pathways")
     public ResponseEntity<List<PathwayProgressDto>> getUserPathwayProgress(@PathVariable Long orgId, 
@@ -172,6 +288,29 @@ public class ProgressTrackingController {
         }
     }
 
+    @GetMapping("/pathways/{pathwayId}/users/{userId}/unlocked-steps")
+    public ResponseEntity<List<Long>> getUnlockedSteps(@PathVariable Long orgId, 
+                                                       @PathVariable Long pathwayId,
+                                                       @PathVariable Long userId,
+                                                       @RequestParam Long groupId) {
+        try {
+            Organization organization = organizationRepository.findById(orgId)
+                    .orElseThrow(() -> new RuntimeException("Organization not found"));
+            
+            User currentUser = getCurrentUser();
+            
+            // Users can only view their own progress, ISSUERs can view any user's progress
+            if (!currentUser.getId().equals(userId) && 
+                (currentUser.getRoles() == null || !currentUser.getRoles().contains("ISSUER"))) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            
+            return ResponseEntity.ok(progressService.getUnlockedSteps(pathwayId, userId, groupId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/users/{userId}/progress-summary")
     public ResponseEntity<Map<String, Object>> getIndividualProgressSummary(@PathVariable Long orgId, 
                                                                           @PathVariable Long userId) {
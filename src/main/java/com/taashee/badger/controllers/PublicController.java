@@ -8,6 +8,7 @@ import com.taashee.badger.models.BadgeInstanceCollection;
 import com.taashee.badger.models.TermsOfService;
 import com.taashee.badger.models.UserTermsAgreement;
 import com.taashee.badger.models.User;
+import com.taashee.badger.repositories.BadgeClassRepository;
 import com.taashee.badger.repositories.TermsOfServiceRepository;
 import com.taashee.badger.repositories.UserTermsAgreementRepository;
 import com.taashee.badger.repositories.UserRepository;
@@ -15,15 +16,24 @@ import com.taashee.badger.services.BadgeClassService;
 import com.taashee.badger.services.OrganizationService;
 import com.taashee.badger.services.BadgeInstanceService;
 import com.taashee.badger.services.BadgeInstanceCollectionService;
+import com.taashee.badger.services.PublicAssertionService;
+import com.taashee.badger.services.StatusListService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 @Tag(name = "Public APIs", description = "Public APIs for badge, organization, assertion, and collection discovery/validation. Author: Lokya Naik")
 @RestController
 @RequestMapping("/api/public")
@@ -42,6 +52,12 @@ public class PublicController {
     private UserTermsAgreementRepository userTermsAgreementRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private BadgeClassRepository badgeClassRepository;
+    @Autowired
+    private PublicAssertionService publicAssertionService;
+    @Autowired
+    private StatusListService statusListService;
 
     @Operation(summary = "Get public badge info", description = "Get public info for a badge class.")
     @GetMapping("/badges/{id}")
@@ -51,12 +67,75 @@ public class PublicController {
             .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse<>(HttpStatus.NOT_FOUND.value(), "Badge not found", null, "Badge not found")));
     }
 
-    @Operation(summary = "Get public assertion info", description = "Get public info for a badge assertion.")
+    @Operation(summary = "Get public assertion", description = "Public: Open Badges assertion of a badge instance. version=2 (default) renders an OB 2.0 hosted assertion, version=3 an OB 3.0 OpenBadgeCredential. Revoked assertions answer 410.")
     @GetMapping("/assertions/{id}")
-    public ResponseEntity<ApiResponse<BadgeInstance>> getPublicAssertion(@PathVariable Long id) {
-        return badgeInstanceService.getBadgeInstanceById(id)
-            .map(bi -> ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Success", bi, null)))
-            .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse<>(HttpStatus.NOT_FOUND.value(), "Assertion not found", null, "Assertion not found")));
+    public ResponseEntity<byte[]> getPublicAssertion(@PathVariable Long id, @RequestParam(defaultValue = "2") String version) {
+        PublicAssertionService.Format format = "3".equals(version) ? PublicAssertionService.Format.OB3 : PublicAssertionService.Format.OB2;
+        return assertionResponse(id, format);
+    }
+
+    @Operation(summary = "Get signed public assertion", description = "Public: assertion signed with the server key. version=2 (default) returns an OB 2.0 signed badge (JWS), version=3 an OB 3.0 VC-JWT.")
+    @GetMapping("/assertions/{id}/signed")
+    public ResponseEntity<byte[]> getSignedPublicAssertion(@PathVariable Long id, @RequestParam(defaultValue = "2") String version) {
+        PublicAssertionService.Format format = "3".equals(version) ? PublicAssertionService.Format.OB3_SIGNED : PublicAssertionService.Format.OB2_SIGNED;
+        return assertionResponse(id, format);
+    }
+
+    @Operation(summary = "Get hosted badge class", description = "Public: OB 2.0 BadgeClass that hosted assertions link to as their badge.")
+    @GetMapping("/badge-classes/{id}")
+    public ResponseEntity<Map<String, Object>> getHostedBadgeClass(@PathVariable Long id) {
+        return hostedDocument(publicAssertionService.badgeClass(id));
+    }
+
+    @Operation(summary = "Get hosted issuer", description = "Public: OB 2.0 Issuer profile of an organization, linking the key its signed assertions verify against.")
+    @GetMapping("/issuers/{organizationId}")
+    public ResponseEntity<Map<String, Object>> getHostedIssuer(@PathVariable Long organizationId) {
+        return hostedDocument(publicAssertionService.issuer(organizationId));
+    }
+
+    @Operation(summary = "Get assertion signing key", description = "Public: OB 2.0 CryptographicKey, owned by the issuer, used to verify its signed assertions.")
+    @GetMapping("/keys/{organizationId}")
+    public ResponseEntity<Map<String, Object>> getAssertionSigningKey(@PathVariable Long organizationId) {
+        return hostedDocument(publicAssertionService.cryptographicKey(organizationId));
+    }
+
+    private ResponseEntity<Map<String, Object>> hostedDocument(Optional<Map<String, Object>> document) {
+        return document
+            .map(body -> ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/ld+json"))
+                .cacheControl(CacheControl.maxAge(publicAssertionService.cacheTtlSeconds(), TimeUnit.SECONDS).cachePublic())
+                .body(body))
+            .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @Operation(summary = "Get revocation status list", description = "Public: StatusList2021 revocation list of an issuing organization. Sent gzip-encoded when the client accepts it.")
+    @GetMapping("/status/{organizationId}")
+    public ResponseEntity<byte[]> getStatusList(@PathVariable Long organizationId,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        return statusListService.publish(organizationId)
+            .map(list -> {
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .cacheControl(CacheControl.maxAge(statusListService.cacheTtlSeconds(), TimeUnit.SECONDS).cachePublic());
+                if (gzip) {
+                    return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").eTag(list.gzipEtag()).body(list.gzip());
+                }
+                return response.eTag(list.etag()).body(list.json());
+            })
+            .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    // Served from the rendered payload cache; a matching If-None-Match is answered with 304
+    private ResponseEntity<byte[]> assertionResponse(Long id, PublicAssertionService.Format format) {
+        return publicAssertionService.render(id, format)
+            .map(rendered -> ResponseEntity.status(rendered.status())
+                .contentType(rendered.contentType())
+                .eTag(rendered.etag())
+                .cacheControl(CacheControl.maxAge(publicAssertionService.cacheTtlSeconds(), TimeUnit.SECONDS).cachePublic())
+                .body(rendered.body()))
+            .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
     // Placeholder for collections (implement if collection entity exists)
@@ -69,11 +148,14 @@ public class PublicController {
             .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse<>(HttpStatus.NOT_FOUND.value(), "Collection not found or not public", null, "Collection not found or not public")));
     }
 
-    @Operation(summary = "Validate public badge", description = "Validate a badge class (dummy implementation).")
+    @Operation(summary = "Validate public badge", description = "Public: whether a badge class exists and is still active.")
     @GetMapping("/badges/{id}/validate")
     public ResponseEntity<ApiResponse<String>> validatePublicBadge(@PathVariable Long id) {
-        // Implement real validation logic as needed
-        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Badge is valid", "VALID", null));
+        return badgeClassRepository.findById(id)
+            .map(bc -> bc.getArchived()
+                ? ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Badge is archived", "ARCHIVED", null))
+                : ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Badge is valid", "VALID", null)))
+            .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse<>(HttpStatus.NOT_FOUND.value(), "Badge not found", null, "Badge not found")));
     }
 
     @Operation(summary = "Get share URL for a badge", description = "Get a provider-specific share URL for a badge public page (Facebook, LinkedIn supported).")
@@ -2,6 +2,7 @@ package com.taashee.badger.controllers;
 
 import com.taashee.badger.models.User;
 import com.taashee.badger.models.ApiResponse;
+import com.taashee.badger.services.TokenVersionService;
 import com.taashee.badger.services.UserService;
 import com.taashee.badger.repositories.OrganizationStaffRepository;
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,6 +28,9 @@ public class UserManagementController {
     @Autowired
     private OrganizationStaffRepository organizationStaffRepository;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
     @Operation(summary = "List all users", description = "ADMIN only: Get a list of all users.")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "List of users", content = @Content(schema = @Schema(implementation = User.class)))
@@ -54,6 +58,7 @@ public class UserManagementController {
         }
         user.setRoles(roles);
         userService.saveUser(user);
+        tokenVersionService.bumpVersion(userId);
         return ResponseEntity.ok(new com.taashee.badger.models.ApiResponse<>(HttpStatus.OK.value(), "Roles assigned", null, null));
     }
 
@@ -0,0 +1,28 @@
+package com.taashee.badger.models;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One badge of a learner's backpack, projected directly by the backpack query
+ */
+public record BackpackBadgeDTO(Long id, String badgeClassName, String description, String image,
+                               String organizationName, LocalDateTime issuedOn, String status, boolean revoked,
+                               LocalDateTime expiresAt, String narrative, List<EvidenceItem> evidenceItems) {
+
+    // Used by the JPQL constructor expression; evidence is attached afterwards
+    public BackpackBadgeDTO(Long id, String badgeClassName, String description, String image,
+                            String organizationName, LocalDateTime issuedOn, String status, boolean revoked,
+                            LocalDateTime expiresAt, String narrative) {
+        this(id, badgeClassName, description, image, organizationName, issuedOn, status, revoked,
+             expiresAt, narrative, List.of());
+    }
+
+    public BackpackBadgeDTO withEvidence(List<EvidenceItem> items) {
+        return new BackpackBadgeDTO(id, badgeClassName, description, image, organizationName, issuedOn, status,
+                                    revoked, expiresAt, narrative, items);
+    }
+
+    public record EvidenceItem(Long badgeInstanceId, String narrative, String url, String name, String description) {
+    }
+}
@@ -1,14 +1,19 @@
 package com.taashee.badger.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.LazyGroup;
 import org.hibernate.annotations.UpdateTimestamp;
 import java.util.List;
 import java.util.Set;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_badge_class_org", columnList = "organization_id, id")
+})
 public class BadgeClass {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,8 +27,17 @@ public class BadgeClass {
     private String name;
     @Column(columnDefinition = "TEXT")
     private String image;
+    // Hash of the image in the blob store; when set, image is null and served from /api/images
+    @JsonIgnore
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+    // Long text fields are loaded on first access, together, so list and permission checks skip them
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String description;
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String criteriaText;
     @Column(length = 500)
@@ -46,6 +60,8 @@ public class BadgeClass {
     private String qualityAssuranceName;
     @Column(length = 500)
     private String qualityAssuranceUrl;
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String qualityAssuranceDescription;
     private boolean gradeAchievedRequired;
@@ -53,6 +69,8 @@ public class BadgeClass {
     private boolean eqfNlqfLevelVerified;
     @Column(length = 100)
     private String badgeClassType;
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String oldJson; // For legacy/compatibility
     private Duration expirationPeriod;
@@ -81,6 +99,8 @@ public class BadgeClass {
     @OneToMany(mappedBy = "badgeClass", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Alignment> alignments;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String extensions; // Store as JSON string for flexibility
 
@@ -105,6 +125,7 @@ public class BadgeClass {
 
     public void setName(String name) { this.name = name; }
     public void setImage(String image) { this.image = image; }
+    public void setImageHash(String imageHash) { this.imageHash = imageHash; }
     public void setDescription(String description) { this.description = description; }
     public void setCriteriaText(String criteriaText) { this.criteriaText = criteriaText; }
     public void setCriteriaUrl(String criteriaUrl) { this.criteriaUrl = criteriaUrl; }
@@ -137,7 +158,8 @@ public class BadgeClass {
 
     public Long getId() { return this.id; }
     public String getName() { return this.name; }
-    public String getImage() { return this.image; }
+    public String getImage() { return this.imageHash != null ? ImageBlob.urlFor(this.imageHash) : this.image; }
+    public String getImageHash() { return this.imageHash; }
     public String getDescription() { return this.description; }
     public String getCriteriaText() { return this.criteriaText; }
     public String getCriteriaUrl() { return this.criteriaUrl; }
@@ -0,0 +1,14 @@
+package com.taashee.badger.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of the paginated badge class list, projected directly by the list query.
+ * Long text columns are left out; they are only needed on the detail view. image is the blob
+ * store URL, or the external URL, and null while the row still holds an inline data URL.
+ */
+public record BadgeClassSummaryDTO(Long id, String name, String badgeClassType, boolean isPrivate,
+                                   boolean isMicroCredentials, boolean archived, LocalDateTime expirationDate,
+                                   LocalDateTime createdAt, LocalDateTime updatedAt, Long organizationId,
+                                   String organizationName, String image, Long activeAwardsCount) {
+}
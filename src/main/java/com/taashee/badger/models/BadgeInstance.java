@@ -1,14 +1,23 @@
 package com.taashee.badger.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.hibernate.annotations.LazyGroup;
 import org.hibernate.annotations.Type;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_badge_instance_class_issued", columnList = "badge_class_id, issued_on"),
+    @Index(name = "idx_badge_instance_recipient_issued", columnList = "recipient_id, issued_on, id"),
+    @Index(name = "idx_badge_instance_org_issued", columnList = "organization_id, issued_on")
+})
 public class BadgeInstance {
+    // Pooled sequence ids let Hibernate batch inserts; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "badge_instance_seq")
+    @SequenceGenerator(name = "badge_instance_seq", sequenceName = "badge_instance_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,6 +40,10 @@ public class BadgeInstance {
     private String directAwardBundle; // For now, as String; can be changed to entity if needed
     private String recipientIdentifier;
     private String image;
+    // Hash of the image in the blob store; when set, image is null and served from /api/images
+    @JsonIgnore
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
     private boolean revoked;
     private String revocationReason;
     private LocalDateTime expiresAt;
@@ -40,6 +53,8 @@ public class BadgeInstance {
     private String salt;
     private boolean archived;
     // Make fields private and use getters
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     private String oldJson;
     private String signature;
     private boolean isPublic;
@@ -47,16 +62,37 @@ public class BadgeInstance {
     private String gradeAchieved;
     private boolean includeGradeAchieved;
     private Status status;
+    // Long text fields are loaded on first access, together, so list and permission checks skip them
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String description;
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String learningOutcomes;
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String extensions;
 
     @OneToMany(mappedBy = "badgeInstance", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Evidence> evidenceItems;
 
+    // Bumped on every update; rendered public assertions are cached per revision
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private long revision;
+
+    // Position of this instance in its organization's revocation status list
+    @JsonIgnore
+    private Integer statusListIndex;
+
+    @PreUpdate
+    void bumpRevision() {
+        revision++;
+    }
+
     public enum Status {
         ACTIVE, REVOKED, EXPIRED
     }
@@ -81,6 +117,7 @@ public class BadgeInstance {
     public void setRevocationReason(String revocationReason) { this.revocationReason = revocationReason; }
     public Long getId() { return id; }
     public void setImage(String image) { this.image = image; }
+    public void setImageHash(String imageHash) { this.imageHash = imageHash; }
     public void setExpiresAt(java.time.LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
     public void setAcceptance(String acceptance) { this.acceptance = acceptance; }
     public void setHashed(boolean hashed) { this.hashed = hashed; }
@@ -107,7 +144,8 @@ public class BadgeInstance {
     public String getAwardType() { return this.awardType; }
     public String getDirectAwardBundle() { return this.directAwardBundle; }
     public String getRecipientIdentifier() { return this.recipientIdentifier; }
-    public String getImage() { return this.image; }
+    public String getImage() { return this.imageHash != null ? ImageBlob.urlFor(this.imageHash) : this.image; }
+    public String getImageHash() { return this.imageHash; }
     public LocalDateTime getExpiresAt() { return this.expiresAt; }
     public String getAcceptance() { return this.acceptance; }
     public String getNarrative() { return this.narrative; }
@@ -123,6 +161,9 @@ public class BadgeInstance {
     public String getDescription() { return this.description; }
     public String getLearningOutcomes() { return this.learningOutcomes; }
     public List<Evidence> getEvidenceItems() { return this.evidenceItems; }
+    public long getRevision() { return this.revision; }
+    public Integer getStatusListIndex() { return this.statusListIndex; }
+    public void setStatusListIndex(Integer statusListIndex) { this.statusListIndex = statusListIndex; }
     public String getExtensions() { return this.extensions; }
     
     // Method to dynamically determine the current status
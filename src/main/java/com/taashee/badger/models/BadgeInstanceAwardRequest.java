@@ -1,11 +1,14 @@
 package com.taashee.badger.models;
 
+import java.util.List;
+
 public class BadgeInstanceAwardRequest {
     private String recipientIdentifier;
     private String recipientType;
     private String awardType;
     private String narrative;
     private String email;
+    private List<BadgeInstanceDTO.EvidenceDTO> evidenceItems;
 
     public String getRecipientIdentifier() { return recipientIdentifier; }
     public void setRecipientIdentifier(String recipientIdentifier) { this.recipientIdentifier = recipientIdentifier; }
@@ -21,4 +24,7 @@ public class BadgeInstanceAwardRequest {
 
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
+
+    public List<BadgeInstanceDTO.EvidenceDTO> getEvidenceItems() { return evidenceItems; }
+    public void setEvidenceItems(List<BadgeInstanceDTO.EvidenceDTO> evidenceItems) { this.evidenceItems = evidenceItems; }
 } 
\ No newline at end of file
@@ -10,7 +10,9 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
-@Table(name = "groups")
+@Table(name = "groups", indexes = {
+    @Index(name = "idx_groups_org_name", columnList = "organization_id, name")
+})
 public class Group {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,53 @@
+package com.taashee.badger.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Progress of one member within a group progress rollup. One row per learner, so a completion
+ * only touches its own row plus the aggregate counters on GroupProgressRollup.
+ */
+@Entity
+@Table(name = "group_progress_member",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"group_id", "pathway_id", "user_id"}),
+       indexes = @Index(name = "idx_group_progress_member_pathway", columnList = "pathway_id"))
+public class GroupProgressMember {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    @Column(name = "pathway_id", nullable = false)
+    private Long pathwayId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "progress_percentage", nullable = false)
+    private int progressPercentage;
+
+    @Column(name = "completed_steps", nullable = false)
+    private int completedSteps;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public Long getId() { return id; }
+    public Long getGroupId() { return groupId; }
+    public Long getPathwayId() { return pathwayId; }
+    public Long getUserId() { return userId; }
+    public int getProgressPercentage() { return progressPercentage; }
+    public int getCompletedSteps() { return completedSteps; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+    public void setId(Long id) { this.id = id; }
+    public void setGroupId(Long groupId) { this.groupId = groupId; }
+    public void setPathwayId(Long pathwayId) { this.pathwayId = pathwayId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public void setProgressPercentage(int progressPercentage) { this.progressPercentage = progressPercentage; }
+    public void setCompletedSteps(int completedSteps) { this.completedSteps = completedSteps; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,72 @@
+package com.taashee.badger.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Materialized progress totals of one group on one pathway; per-member entries live in
+ * GroupProgressMember. Kept up to date from step completions and rebuilt by GroupProgressRollupService.
+ */
+@Entity
+@Table(name = "group_progress_rollup",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"group_id", "pathway_id"}),
+       indexes = @Index(name = "idx_group_progress_rollup_pathway", columnList = "pathway_id"))
+public class GroupProgressRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    @Column(name = "pathway_id", nullable = false)
+    private Long pathwayId;
+
+    @Column(nullable = false)
+    private Integer totalMembers = 0;
+
+    @Column(nullable = false)
+    private Integer totalSteps = 0;
+
+    @Column(nullable = false)
+    private Integer completedSteps = 0;
+
+    @Column(nullable = false)
+    private Integer overallProgress = 0;
+
+    // Sum of the members' progress percentages, so overallProgress can be kept by increments
+    @Column(name = "progress_sum", columnDefinition = "integer not null default 0")
+    private Integer progressSum = 0;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getGroupId() { return groupId; }
+    public void setGroupId(Long groupId) { this.groupId = groupId; }
+
+    public Long getPathwayId() { return pathwayId; }
+    public void setPathwayId(Long pathwayId) { this.pathwayId = pathwayId; }
+
+    public Integer getTotalMembers() { return totalMembers; }
+    public void setTotalMembers(Integer totalMembers) { this.totalMembers = totalMembers; }
+
+    public Integer getTotalSteps() { return totalSteps; }
+    public void setTotalSteps(Integer totalSteps) { this.totalSteps = totalSteps; }
+
+    public Integer getCompletedSteps() { return completedSteps; }
+    public void setCompletedSteps(Integer completedSteps) { this.completedSteps = completedSteps; }
+
+    public Integer getOverallProgress() { return overallProgress; }
+    public void setOverallProgress(Integer overallProgress) { this.overallProgress = overallProgress; }
+
+    public Integer getProgressSum() { return progressSum; }
+    public void setProgressSum(Integer progressSum) { this.progressSum = progressSum; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,50 @@
+package com.taashee.badger.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * Metadata of one stored image. The bytes live in the ImageBlobStore under the
+ * SHA-256 hash of their content, so identical images are stored once.
+ */
+@Entity
+@Table(name = "image_blob")
+public class ImageBlob {
+    public static final String URL_PREFIX = "/api/images/";
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    public ImageBlob() {}
+
+    public ImageBlob(String hash, String contentType, Long size) {
+        this.hash = hash;
+        this.contentType = contentType;
+        this.size = size;
+    }
+
+    /** Public URL an image reference is served from */
+    public static String urlFor(String hash) {
+        return URL_PREFIX + hash;
+    }
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
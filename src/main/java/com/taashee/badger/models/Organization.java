@@ -1,5 +1,6 @@
 package com.taashee.badger.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,6 +25,11 @@ public class Organization {
     
     @Column(columnDefinition = "TEXT")
     private String imageEnglish;
+
+    // Hash of the image in the blob store; when set, imageEnglish is null and served from /api/images
+    @JsonIgnore
+    @Column(name = "image_english_hash", length = 64)
+    private String imageEnglishHash;
     
     @Column(length = 1000)
     private String urlEnglish;
@@ -70,8 +76,10 @@ public class Organization {
     public void setNameEnglish(String nameEnglish) { this.nameEnglish = nameEnglish; }
     public String getDescriptionEnglish() { return descriptionEnglish; }
     public void setDescriptionEnglish(String descriptionEnglish) { this.descriptionEnglish = descriptionEnglish; }
-    public String getImageEnglish() { return imageEnglish; }
+    public String getImageEnglish() { return imageEnglishHash != null ? ImageBlob.urlFor(imageEnglishHash) : imageEnglish; }
     public void setImageEnglish(String imageEnglish) { this.imageEnglish = imageEnglish; }
+    public String getImageEnglishHash() { return imageEnglishHash; }
+    public void setImageEnglishHash(String imageEnglishHash) { this.imageEnglishHash = imageEnglishHash; }
     public String getUrlEnglish() { return urlEnglish; }
     public void setUrlEnglish(String urlEnglish) { this.urlEnglish = urlEnglish; }
     public String getEmail() { return email; }
@@ -13,6 +13,9 @@ import com.taashee.badger.models.PathwayStep;
 import com.taashee.badger.models.PathwayStatus;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_pathway_org_name", columnList = "organization_id, name")
+})
 public class Pathway {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
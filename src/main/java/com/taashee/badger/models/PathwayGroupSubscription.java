@@ -27,6 +27,11 @@ public class PathwayGroupSubscription {
     @CreationTimestamp
     private LocalDateTime subscribedAt;
 
+    // Published version the group progresses against; null means the latest published version
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "pathway_version_id")
+    private PathwayVersion pathwayVersion;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "subscribed_by", nullable = false)
     @JsonBackReference
@@ -42,6 +47,9 @@ public class PathwayGroupSubscription {
     public Group getGroup() { return group; }
     public void setGroup(Group group) { this.group = group; }
 
+    public PathwayVersion getPathwayVersion() { return pathwayVersion; }
+    public void setPathwayVersion(PathwayVersion pathwayVersion) { this.pathwayVersion = pathwayVersion; }
+
     public LocalDateTime getSubscribedAt() { return subscribedAt; }
     public void setSubscribedAt(LocalDateTime subscribedAt) { this.subscribedAt = subscribedAt; }
 
@@ -0,0 +1,36 @@
+package com.taashee.badger.models;
+
+import jakarta.persistence.*;
+
+/**
+ * Last " vN" suffix handed out to a duplicate of a pathway name within an organization.
+ * Allocated with a single upsert so concurrent duplications never get the same suffix.
+ */
+@Entity
+@Table(name = "pathway_name_counter",
+       uniqueConstraints = @UniqueConstraint(name = "uk_pathway_name_counter", columnNames = {"organization_id", "base_name"}))
+public class PathwayNameCounter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    // Pathway name without its version suffix
+    @Column(name = "base_name", nullable = false)
+    private String baseName;
+
+    @Column(name = "last_suffix", nullable = false)
+    private int lastSuffix;
+
+    public Long getId() { return id; }
+    public Long getOrganizationId() { return organizationId; }
+    public String getBaseName() { return baseName; }
+    public int getLastSuffix() { return lastSuffix; }
+
+    public void setId(Long id) { this.id = id; }
+    public void setOrganizationId(Long organizationId) { this.organizationId = organizationId; }
+    public void setBaseName(String baseName) { this.baseName = baseName; }
+    public void setLastSuffix(int lastSuffix) { this.lastSuffix = lastSuffix; }
+}
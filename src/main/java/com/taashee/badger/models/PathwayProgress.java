@@ -35,6 +35,14 @@ public class PathwayProgress {
     @Column(nullable = false)
     private Boolean completed = false;
 
+    // Pathway version the completion bits below are indexed against
+    @Column(name = "pathway_version_id")
+    private Long pathwayVersionId;
+
+    // One bit per step manifest position, set when the step is completed
+    @Column(columnDefinition = "bytea")
+    private byte[] completionBits;
+
     @Column(updatable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -61,6 +69,12 @@ public class PathwayProgress {
     public Boolean getCompleted() { return completed; }
     public void setCompleted(Boolean completed) { this.completed = completed; }
 
+    public Long getPathwayVersionId() { return pathwayVersionId; }
+    public void setPathwayVersionId(Long pathwayVersionId) { this.pathwayVersionId = pathwayVersionId; }
+
+    public byte[] getCompletionBits() { return completionBits; }
+    public void setCompletionBits(byte[] completionBits) { this.completionBits = completionBits; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
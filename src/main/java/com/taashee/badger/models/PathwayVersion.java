@@ -5,7 +5,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import org.hibernate.annotations.LazyGroup;
 
 @Entity
 public class PathwayVersion {
@@ -51,6 +53,17 @@ public class PathwayVersion {
     @JsonManagedReference
     private List<StepVersion> stepVersions = new ArrayList<>();
 
+    // Canonical JSON of a published version, rendered once; served by PathwayVersionDocumentService
+    @JsonIgnore
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("snapshot")
+    @Column(columnDefinition = "TEXT")
+    private String snapshotJson;
+
+    @JsonIgnore
+    @Column(length = 64)
+    private String snapshotEtag;
+
     public enum VersionStatus {
         DRAFT, PUBLISHED, ARCHIVED
     }
@@ -129,4 +142,10 @@ public class PathwayVersion {
 
     public List<StepVersion> getStepVersions() { return stepVersions; }
     public void setStepVersions(List<StepVersion> stepVersions) { this.stepVersions = stepVersions; }
+
+    public String getSnapshotJson() { return snapshotJson; }
+    public void setSnapshotJson(String snapshotJson) { this.snapshotJson = snapshotJson; }
+
+    public String getSnapshotEtag() { return snapshotEtag; }
+    public void setSnapshotEtag(String snapshotEtag) { this.snapshotEtag = snapshotEtag; }
 }
\ No newline at end of file
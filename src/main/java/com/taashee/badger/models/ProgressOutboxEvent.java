@@ -0,0 +1,93 @@
+package com.taashee.badger.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * Transactional outbox row written together with a step completion.
+ * Processed asynchronously by StepCompletionProcessor.
+ */
+@Entity
+@Table(name = "progress_outbox",
+       indexes = @Index(name = "idx_progress_outbox_status", columnList = "status, id"))
+public class ProgressOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false)
+    private Long stepVersionId;
+
+    @Column(nullable = false)
+    private Long pathwayId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long groupId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(length = 1024)
+    private String lastError;
+
+    @Column(updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private LocalDateTime claimedAt;
+    private LocalDateTime processedAt;
+
+    public enum OutboxStatus {
+        PENDING, PROCESSING, PROCESSED, FAILED
+    }
+
+    public static final String STEP_COMPLETED = "STEP_COMPLETED";
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+
+    public Long getStepVersionId() { return stepVersionId; }
+    public void setStepVersionId(Long stepVersionId) { this.stepVersionId = stepVersionId; }
+
+    public Long getPathwayId() { return pathwayId; }
+    public void setPathwayId(Long pathwayId) { this.pathwayId = pathwayId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getGroupId() { return groupId; }
+    public void setGroupId(Long groupId) { this.groupId = groupId; }
+
+    public OutboxStatus getStatus() { return status; }
+    public void setStatus(OutboxStatus status) { this.status = status; }
+
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(LocalDateTime claimedAt) { this.claimedAt = claimedAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+}
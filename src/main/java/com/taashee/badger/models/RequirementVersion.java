@@ -8,7 +8,8 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 @Entity
 public class RequirementVersion {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "requirement_version_seq")
+    @SequenceGenerator(name = "requirement_version_seq", sequenceName = "requirement_version_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,74 @@
+package com.taashee.badger.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Revocation bitstring of one issuing organization, in the layout of W3C StatusList2021:
+ * the badge instance with statusListIndex i is revoked when bit i is set, where bit 0 is the
+ * most significant bit of the first byte.
+ */
+@Entity
+@Table(name = "status_list",
+       uniqueConstraints = @UniqueConstraint(name = "uk_status_list_organization", columnNames = "organization_id"))
+public class StatusList {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "organization_id", nullable = false)
+    private Long organizationId;
+
+    // Next index handed out to a newly issued badge instance
+    @Column(nullable = false)
+    private int nextIndex;
+
+    // Bumped whenever a bit changes; published documents are cached per revision
+    @Column(nullable = false)
+    private long revision;
+
+    @Column(columnDefinition = "bytea")
+    private byte[] bits;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public boolean isSet(int index) {
+        int byteIndex = index >>> 3;
+        return bits != null && byteIndex < bits.length && (bits[byteIndex] & (0x80 >>> (index & 7))) != 0;
+    }
+
+    /**
+     * Sets or clears one bit, growing the bitstring as needed. Returns true if the bit changed.
+     */
+    public boolean set(int index, boolean value) {
+        if (isSet(index) == value) {
+            return false;
+        }
+        int byteIndex = index >>> 3;
+        if (bits == null || byteIndex >= bits.length) {
+            bits = Arrays.copyOf(bits != null ? bits : new byte[0], byteIndex + 1);
+        }
+        if (value) {
+            bits[byteIndex] |= (byte) (0x80 >>> (index & 7));
+        } else {
+            bits[byteIndex] &= (byte) ~(0x80 >>> (index & 7));
+        }
+        return true;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getOrganizationId() { return organizationId; }
+    public void setOrganizationId(Long organizationId) { this.organizationId = organizationId; }
+    public int getNextIndex() { return nextIndex; }
+    public void setNextIndex(int nextIndex) { this.nextIndex = nextIndex; }
+    public long getRevision() { return revision; }
+    public void setRevision(long revision) { this.revision = revision; }
+    public byte[] getBits() { return bits; }
+    public void setBits(byte[] bits) { this.bits = bits; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
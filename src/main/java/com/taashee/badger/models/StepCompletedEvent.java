@@ -0,0 +1,8 @@
+package com.taashee.badger.models;
+
+/**
+ * Application event published when a learner completes a step.
+ * Carries the id of the outbox row written in the same transaction.
+ */
+public record StepCompletedEvent(Long outboxId, Long stepVersionId, Long pathwayId, Long userId, Long groupId) {
+}
@@ -0,0 +1,15 @@
+package com.taashee.badger.models;
+
+/**
+ * One (user, step version) pair of a bulk step completion
+ */
+public class StepCompletionRequest {
+    private Long userId;
+    private Long stepVersionId;
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getStepVersionId() { return stepVersionId; }
+    public void setStepVersionId(Long stepVersionId) { this.stepVersionId = stepVersionId; }
+}
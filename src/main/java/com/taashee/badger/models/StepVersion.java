@@ -10,8 +10,10 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
 public class StepVersion {
+    // Pooled sequence ids so that publish snapshots are inserted in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "step_version_seq")
+    @SequenceGenerator(name = "step_version_seq", sequenceName = "step_version_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
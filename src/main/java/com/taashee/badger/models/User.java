@@ -1,11 +1,14 @@
 package com.taashee.badger.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+       indexes = @Index(name = "idx_users_name", columnList = "first_name, last_name"))
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,6 +37,16 @@ public class User {
     @Column(name = "role")
     private Set<String> roles = new HashSet<>();
 
+    // Bumped whenever the roles or organization memberships carried in issued JWTs change
+    @JsonIgnore
+    @Column(name = "auth_version", columnDefinition = "bigint not null default 0")
+    private long authVersion = 0;
+
+    // JWTs issued before this instant are rejected
+    @JsonIgnore
+    @Column(name = "tokens_valid_after")
+    private LocalDateTime tokensValidAfter;
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -58,4 +71,10 @@ public class User {
 
     public Set<String> getRoles() { return roles; }
     public void setRoles(Set<String> roles) { this.roles = roles; }
-} 
\ No newline at end of file
+
+    public long getAuthVersion() { return authVersion; }
+    public void setAuthVersion(long authVersion) { this.authVersion = authVersion; }
+
+    public LocalDateTime getTokensValidAfter() { return tokensValidAfter; }
+    public void setTokensValidAfter(LocalDateTime tokensValidAfter) { this.tokensValidAfter = tokensValidAfter; }
+}
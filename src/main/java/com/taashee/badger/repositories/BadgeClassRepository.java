@@ -1,17 +1,82 @@
 package com.taashee.badger.repositories;
 
 import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeClassSummaryDTO;
+import com.taashee.badger.models.ImageBlob;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface BadgeClassRepository extends JpaRepository<BadgeClass, Long> {
     // Add custom queries if needed
-    
+    List<BadgeClass> findByOrganizationIdIn(Collection<Long> organizationIds);
+
+    // Paginated badge class list. search matches the start of the name or of any word in it:
+    // pass the lower-cased, LIKE-escaped term as prefix ("term%") and wordPrefix ("% term%"); null
+    // matches all. Both patterns are served by the trigram index on lower(name).
+    String SUMMARY_SELECT =
+            "SELECT new com.taashee.badger.models.BadgeClassSummaryDTO(bc.id, bc.name, bc.badgeClassType, " +
+            "bc.isPrivate, bc.isMicroCredentials, bc.archived, bc.expirationDate, bc.createdAt, bc.updatedAt, " +
+            "o.id, o.nameEnglish, " +
+            "CASE WHEN bc.imageHash IS NOT NULL THEN CONCAT('" + ImageBlob.URL_PREFIX + "', bc.imageHash) " +
+            "     WHEN bc.image LIKE 'data:%' THEN NULL ELSE bc.image END, " +
+            "(SELECT COUNT(bi.id) FROM BadgeInstance bi WHERE bi.badgeClass = bc AND bi.revoked = false)) " +
+            "FROM BadgeClass bc LEFT JOIN bc.organization o ";
+    String SUMMARY_SEARCH_FILTER =
+            "(:prefix IS NULL OR LOWER(bc.name) LIKE :prefix ESCAPE '\\' OR LOWER(bc.name) LIKE :wordPrefix ESCAPE '\\')";
+
+    @Query(value = SUMMARY_SELECT + "WHERE " + SUMMARY_SEARCH_FILTER,
+           countQuery = "SELECT COUNT(bc.id) FROM BadgeClass bc WHERE " + SUMMARY_SEARCH_FILTER)
+    Page<BadgeClassSummaryDTO> findSummaries(@Param("prefix") String prefix,
+                                             @Param("wordPrefix") String wordPrefix,
+                                             Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE bc.organization.id IN :organizationIds AND " + SUMMARY_SEARCH_FILTER,
+           countQuery = "SELECT COUNT(bc.id) FROM BadgeClass bc " +
+                        "WHERE bc.organization.id IN :organizationIds AND " + SUMMARY_SEARCH_FILTER)
+    Page<BadgeClassSummaryDTO> findSummariesByOrganizationIds(@Param("organizationIds") Collection<Long> organizationIds,
+                                                              @Param("prefix") String prefix,
+                                                              @Param("wordPrefix") String wordPrefix,
+                                                              Pageable pageable);
+
+    // Owning organization of a badge class, for access checks that must not load the entity
+    @Query("SELECT bc.id AS id, bc.organization.id AS organizationId FROM BadgeClass bc WHERE bc.id = :id")
+    Optional<OwnerRow> findOwnerById(@Param("id") Long id);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BadgeClass bc SET bc.archived = :archived, bc.updatedAt = LOCAL_DATETIME WHERE bc.id = :id")
+    int updateArchived(@Param("id") Long id, @Param("archived") boolean archived);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BadgeClass bc SET bc.isPrivate = CASE WHEN bc.isPrivate = true THEN false ELSE true END, bc.updatedAt = LOCAL_DATETIME WHERE bc.id = :id")
+    int togglePrivate(@Param("id") Long id);
+
     @Modifying
     @Query("DELETE FROM BadgeClass bc WHERE bc.organization.id = :organizationId")
     void deleteByOrganizationId(@Param("organizationId") Long organizationId);
-} 
\ No newline at end of file
+
+    // Rows whose image is still an inline data URL, for the image migration
+    @Query("SELECT bc.id AS id, bc.image AS image FROM BadgeClass bc " +
+           "WHERE bc.id > :afterId AND bc.image LIKE 'data:%' ORDER BY bc.id")
+    List<ImageBlobRepository.InlineImageRow> findInlineImages(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Only rows still holding a data URL are switched over, so a concurrent update is never overwritten
+    @Modifying
+    @Query("UPDATE BadgeClass bc SET bc.imageHash = :hash, bc.image = NULL " +
+           "WHERE bc.id = :id AND bc.image LIKE 'data:%'")
+    int moveImageToBlob(@Param("id") Long id, @Param("hash") String hash);
+
+    interface OwnerRow {
+        Long getId();
+        Long getOrganizationId();
+    }
+}
@@ -1,12 +1,18 @@
 package com.taashee.badger.repositories;
 
+import com.taashee.badger.models.BackpackBadgeDTO;
 import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.models.ImageBlob;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +22,7 @@ public interface BadgeInstanceRepository extends JpaRepository<BadgeInstance, Lo
     List<BadgeInstance> findByRecipientId(Long userId);
     Optional<BadgeInstance> findByIdAndRecipientId(Long badgeInstanceId, Long userId);
     List<BadgeInstance> findByBadgeClassId(Long badgeClassId);
+    List<BadgeInstance> findByOrganizationIdIn(Collection<Long> organizationIds);
     
     @Modifying
     @Query("DELETE FROM BadgeInstance bi WHERE bi.badgeClass.organization.id = :organizationId")
@@ -26,4 +33,130 @@ public interface BadgeInstanceRepository extends JpaRepository<BadgeInstance, Lo
     void deleteByRecipientId(@Param("recipientId") Long recipientId);
     
     List<BadgeInstance> findByBadgeClassIdAndRevokedFalse(Long badgeClassId);
-} 
\ No newline at end of file
+    boolean existsByBadgeClassIdAndRevokedFalse(Long badgeClassId);
+
+    boolean existsByBadgeClassIdAndRecipientIdAndRevokedFalse(Long badgeClassId, Long recipientId);
+
+    // Which of the given lower-cased identifiers already hold an active instance of the badge class
+    @Query("SELECT DISTINCT LOWER(bi.recipientIdentifier) FROM BadgeInstance bi " +
+           "WHERE bi.badgeClass.id = :badgeClassId AND bi.revoked = false " +
+           "AND LOWER(bi.recipientIdentifier) IN :identifiers")
+    List<String> findActiveRecipientIdentifiers(@Param("badgeClassId") Long badgeClassId,
+                                                @Param("identifiers") Collection<String> identifiers);
+
+    // Which of the given users already hold an active instance of the badge class
+    @Query("SELECT DISTINCT bi.recipient.id FROM BadgeInstance bi " +
+           "WHERE bi.badgeClass.id = :badgeClassId AND bi.revoked = false AND bi.recipient.id IN :recipientIds")
+    List<Long> findActiveRecipientIds(@Param("badgeClassId") Long badgeClassId,
+                                      @Param("recipientIds") Collection<Long> recipientIds);
+
+    // Rows whose image is still an inline data URL, for the image migration
+    @Query("SELECT bi.id AS id, bi.image AS image FROM BadgeInstance bi " +
+           "WHERE bi.id > :afterId AND bi.image LIKE 'data:%' ORDER BY bi.id")
+    List<ImageBlobRepository.InlineImageRow> findInlineImages(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Only rows still holding a data URL are switched over, so a concurrent update is never overwritten
+    @Modifying
+    @Query("UPDATE BadgeInstance bi SET bi.imageHash = :hash, bi.image = NULL, bi.revision = bi.revision + 1 " +
+           "WHERE bi.id = :id AND bi.image LIKE 'data:%'")
+    int moveImageToBlob(@Param("id") Long id, @Param("hash") String hash);
+
+    // Recipient search of a badge class: filtering, status, sorting and paging all run in the database.
+    // search is a lower-cased LIKE pattern escaped with \, status one of ACTIVE/REVOKED/EXPIRED; null parameters are ignored.
+    // The search expressions match the trigram indexes created by TrigramIndexInitializer.
+    @Query(value = "SELECT bi.id AS id, u.id AS recipientId, u.email AS email, u.firstName AS firstName, " +
+                   "u.lastName AS lastName, bi.issuedOn AS issuedOn, bi.revoked AS revoked, bi.expiresAt AS expiresAt, " +
+                   "CASE WHEN bi.revoked = true THEN 'REVOKED' " +
+                   "WHEN bi.expiresAt IS NOT NULL AND bi.expiresAt < :now THEN 'EXPIRED' ELSE 'ACTIVE' END AS status " +
+                   "FROM BadgeInstance bi JOIN bi.recipient u " +
+                   RECIPIENT_SEARCH_FILTER,
+           countQuery = "SELECT COUNT(bi.id) FROM BadgeInstance bi JOIN bi.recipient u " + RECIPIENT_SEARCH_FILTER)
+    Page<RecipientRow> searchRecipients(@Param("badgeClassId") Long badgeClassId,
+                                        @Param("search") String search,
+                                        @Param("status") String status,
+                                        @Param("issuedFrom") LocalDateTime issuedFrom,
+                                        @Param("issuedBefore") LocalDateTime issuedBefore,
+                                        @Param("now") LocalDateTime now,
+                                        Pageable pageable);
+
+    String RECIPIENT_SEARCH_FILTER =
+            "WHERE bi.badgeClass.id = :badgeClassId " +
+            "AND (:search IS NULL OR LOWER(u.email) LIKE :search ESCAPE '\\' " +
+            "     OR LOWER(u.firstName || ' ' || u.lastName) LIKE :search ESCAPE '\\') " +
+            "AND (:status IS NULL " +
+            "     OR (:status = 'REVOKED' AND bi.revoked = true) " +
+            "     OR (:status = 'EXPIRED' AND bi.revoked = false AND bi.expiresAt IS NOT NULL AND bi.expiresAt < :now) " +
+            "     OR (:status = 'ACTIVE' AND bi.revoked = false AND (bi.expiresAt IS NULL OR bi.expiresAt >= :now))) " +
+            "AND (:issuedFrom IS NULL OR bi.issuedOn >= :issuedFrom) " +
+            "AND (:issuedBefore IS NULL OR bi.issuedOn < :issuedBefore)";
+
+    // Instances of an organization that have no status list index yet, oldest first
+    @Query("SELECT bi.id FROM BadgeInstance bi LEFT JOIN bi.badgeClass bc " +
+           "WHERE bi.statusListIndex IS NULL AND COALESCE(bi.organization.id, bc.organization.id) = :organizationId " +
+           "ORDER BY bi.id")
+    List<Long> findIdsWithoutStatusListIndex(@Param("organizationId") Long organizationId);
+
+    @Modifying
+    @Query("UPDATE BadgeInstance bi SET bi.statusListIndex = :index, bi.revision = bi.revision + 1 " +
+           "WHERE bi.id = :id AND bi.statusListIndex IS NULL")
+    int assignStatusListIndex(@Param("id") Long id, @Param("index") Integer index);
+
+    @Query("SELECT bi.statusListIndex FROM BadgeInstance bi LEFT JOIN bi.badgeClass bc " +
+           "WHERE bi.revoked = true AND bi.statusListIndex IS NOT NULL " +
+           "AND COALESCE(bi.organization.id, bc.organization.id) = :organizationId")
+    List<Integer> findRevokedStatusListIndexes(@Param("organizationId") Long organizationId);
+
+    // Everything a rendered public assertion depends on changes one of these
+    @Query("SELECT bi.revision AS revision, bc.updatedAt AS badgeClassUpdatedAt, o.updatedAt AS organizationUpdatedAt " +
+           "FROM BadgeInstance bi LEFT JOIN bi.badgeClass bc LEFT JOIN bi.organization o WHERE bi.id = :id")
+    Optional<AssertionRevision> findAssertionRevision(@Param("id") Long id);
+
+    interface AssertionRevision {
+        Long getRevision();
+        LocalDateTime getBadgeClassUpdatedAt();
+        LocalDateTime getOrganizationUpdatedAt();
+    }
+
+    interface RecipientRow {
+        Long getId();
+        Long getRecipientId();
+        String getEmail();
+        String getFirstName();
+        String getLastName();
+        LocalDateTime getIssuedOn();
+        Boolean getRevoked();
+        LocalDateTime getExpiresAt();
+        String getStatus();
+    }
+
+    // Learner backpack, newest first, keyset-paginated on (issuedOn, id); instances without an
+    // issue date sort last. cursorId null starts from the top. search is a lower-cased LIKE pattern escaped with \.
+    // Images are returned as blob URLs like the badge class summaries; inline data: URIs are left out.
+    @Query("SELECT new com.taashee.badger.models.BackpackBadgeDTO(bi.id, COALESCE(bc.name, 'Unknown Badge'), " +
+           "bc.description, " +
+           "CASE WHEN bc.imageHash IS NOT NULL THEN CONCAT('" + ImageBlob.URL_PREFIX + "', bc.imageHash) " +
+           "     WHEN bc.image LIKE 'data:%' THEN NULL ELSE bc.image END, " +
+           "COALESCE(o.nameEnglish, 'Unknown Organization'), bi.issuedOn, " +
+           "CASE WHEN bi.revoked = true THEN 'REVOKED' " +
+           "WHEN bi.expiresAt IS NOT NULL AND bi.expiresAt < :now THEN 'EXPIRED' ELSE 'ACTIVE' END, " +
+           "bi.revoked, bi.expiresAt, bi.narrative) " +
+           "FROM BadgeInstance bi LEFT JOIN bi.badgeClass bc LEFT JOIN bi.organization o " +
+           "WHERE bi.recipient.id = :recipientId " +
+           "AND (:search IS NULL OR LOWER(bc.name) LIKE :search ESCAPE '\\' OR LOWER(o.nameEnglish) LIKE :search ESCAPE '\\') " +
+           "AND (:cursorId IS NULL " +
+           "     OR (:cursorIssuedOn IS NOT NULL AND (bi.issuedOn < :cursorIssuedOn " +
+           "         OR (bi.issuedOn = :cursorIssuedOn AND bi.id < :cursorId) OR bi.issuedOn IS NULL)) " +
+           "     OR (:cursorIssuedOn IS NULL AND bi.issuedOn IS NULL AND bi.id < :cursorId)) " +
+           "ORDER BY bi.issuedOn DESC NULLS LAST, bi.id DESC")
+    List<BackpackBadgeDTO> findBackpackPage(@Param("recipientId") Long recipientId,
+                                            @Param("search") String search,
+                                            @Param("cursorIssuedOn") LocalDateTime cursorIssuedOn,
+                                            @Param("cursorId") Long cursorId,
+                                            @Param("now") LocalDateTime now,
+                                            Pageable pageable);
+
+    @Query("SELECT new com.taashee.badger.models.BackpackBadgeDTO$EvidenceItem(e.badgeInstance.id, e.narrative, " +
+           "e.evidenceUrl, e.name, e.description) FROM Evidence e WHERE e.badgeInstance.id IN :badgeInstanceIds " +
+           "ORDER BY e.id")
+    List<BackpackBadgeDTO.EvidenceItem> findEvidenceItems(@Param("badgeInstanceIds") Collection<Long> badgeInstanceIds);
+}
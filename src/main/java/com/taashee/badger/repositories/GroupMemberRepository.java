@@ -3,9 +3,12 @@ package com.taashee.badger.repositories;
 import com.taashee.badger.models.GroupMember;
 import com.taashee.badger.models.Group;
 import com.taashee.badger.models.User;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -17,4 +20,13 @@ public interface GroupMemberRepository extends JpaRepository<GroupMember, Long>
     Optional<GroupMember> findByGroupAndUser(Group group, User user);
     Optional<GroupMember> findByGroupIdAndUserId(Long groupId, Long userId);
     boolean existsByGroupIdAndUserId(Long groupId, Long userId);
+
+    @Query("SELECT gm FROM GroupMember gm JOIN FETCH gm.user WHERE gm.group.id = :groupId")
+    List<GroupMember> findByGroupIdWithUser(@Param("groupId") Long groupId);
+
+    @Query("SELECT gm FROM GroupMember gm JOIN FETCH gm.group WHERE gm.user.id = :userId")
+    List<GroupMember> findByUserIdWithGroup(@Param("userId") Long userId);
+
+    @Query("SELECT gm.user.id FROM GroupMember gm WHERE gm.group.id = :groupId AND gm.user.id IN :userIds")
+    List<Long> findMemberUserIds(@Param("groupId") Long groupId, @Param("userIds") Collection<Long> userIds);
 }
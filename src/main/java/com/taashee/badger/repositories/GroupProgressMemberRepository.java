@@ -0,0 +1,56 @@
+package com.taashee.badger.repositories;
+
+import com.taashee.badger.models.GroupProgressMember;
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GroupProgressMemberRepository extends JpaRepository<GroupProgressMember, Long> {
+    // Inserts an empty entry unless one exists; returns 1 if the member is new to the rollup
+    @Modifying
+    @Query(value = "INSERT INTO group_progress_member (group_id, pathway_id, user_id, progress_percentage, completed_steps, updated_at) " +
+                   "VALUES (:groupId, :pathwayId, :userId, 0, 0, now()) ON CONFLICT (group_id, pathway_id, user_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("groupId") Long groupId, @Param("pathwayId") Long pathwayId, @Param("userId") Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM GroupProgressMember m WHERE m.groupId = :groupId AND m.pathwayId = :pathwayId AND m.userId = :userId")
+    Optional<GroupProgressMember> findForUpdate(@Param("groupId") Long groupId,
+                                                @Param("pathwayId") Long pathwayId,
+                                                @Param("userId") Long userId);
+
+    // Dashboard rows with the member's name and email, in the order members were added to the rollup
+    @Query("SELECT m.userId AS userId, u.firstName AS firstName, u.lastName AS lastName, u.email AS email, " +
+           "m.progressPercentage AS progressPercentage, m.completedSteps AS completedSteps " +
+           "FROM GroupProgressMember m JOIN User u ON u.id = m.userId " +
+           "WHERE m.groupId = :groupId AND m.pathwayId = :pathwayId ORDER BY m.id")
+    List<MemberRow> findMemberRows(@Param("groupId") Long groupId, @Param("pathwayId") Long pathwayId);
+
+    @Modifying
+    @Query("DELETE FROM GroupProgressMember m WHERE m.groupId = :groupId AND m.pathwayId = :pathwayId")
+    void deleteByGroupIdAndPathwayId(@Param("groupId") Long groupId, @Param("pathwayId") Long pathwayId);
+
+    @Modifying
+    @Query("DELETE FROM GroupProgressMember m WHERE m.groupId = :groupId")
+    void deleteByGroupId(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query("DELETE FROM GroupProgressMember m WHERE m.pathwayId = :pathwayId")
+    void deleteByPathwayId(@Param("pathwayId") Long pathwayId);
+
+    interface MemberRow {
+        Long getUserId();
+        String getFirstName();
+        String getLastName();
+        String getEmail();
+        int getProgressPercentage();
+        int getCompletedSteps();
+    }
+}
@@ -0,0 +1,52 @@
+package com.taashee.badger.repositories;
+
+import com.taashee.badger.models.GroupProgressRollup;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GroupProgressRollupRepository extends JpaRepository<GroupProgressRollup, Long> {
+    Optional<GroupProgressRollup> findByGroupIdAndPathwayId(Long groupId, Long pathwayId);
+
+    boolean existsByGroupIdAndPathwayId(Long groupId, Long pathwayId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM GroupProgressRollup r WHERE r.groupId = :groupId AND r.pathwayId = :pathwayId")
+    Optional<GroupProgressRollup> findForUpdate(@Param("groupId") Long groupId, @Param("pathwayId") Long pathwayId);
+
+    // Creates an empty rollup unless one exists; concurrent first updates of a group do not collide
+    @Modifying
+    @Query(value = "INSERT INTO group_progress_rollup (group_id, pathway_id, total_members, total_steps, completed_steps, overall_progress, progress_sum, updated_at) " +
+                   "VALUES (:groupId, :pathwayId, 0, 0, 0, 0, 0, now()) ON CONFLICT (group_id, pathway_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("groupId") Long groupId, @Param("pathwayId") Long pathwayId);
+
+    // Applies one member's change to the totals by increments, without reading or rewriting the other members
+    @Modifying
+    @Query(value = "UPDATE group_progress_rollup SET " +
+                   "total_members = total_members + :members, " +
+                   "completed_steps = completed_steps + :completedSteps, " +
+                   "progress_sum = progress_sum + :progress, " +
+                   "overall_progress = CASE WHEN total_members + :members > 0 " +
+                   "THEN CAST(ROUND(CAST(progress_sum + :progress AS numeric) / (total_members + :members)) AS integer) ELSE 0 END, " +
+                   "total_steps = :totalSteps, updated_at = now() " +
+                   "WHERE group_id = :groupId AND pathway_id = :pathwayId",
+           nativeQuery = true)
+    int addMemberDelta(@Param("groupId") Long groupId, @Param("pathwayId") Long pathwayId,
+                       @Param("members") int members, @Param("completedSteps") int completedSteps,
+                       @Param("progress") int progress, @Param("totalSteps") int totalSteps);
+
+    @Modifying
+    @Query("DELETE FROM GroupProgressRollup r WHERE r.groupId = :groupId")
+    void deleteByGroupId(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query("DELETE FROM GroupProgressRollup r WHERE r.pathwayId = :pathwayId")
+    void deleteByPathwayId(@Param("pathwayId") Long pathwayId);
+}
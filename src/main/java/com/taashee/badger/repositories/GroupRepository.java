@@ -11,4 +11,5 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
     List<Group> findByOrganization(Organization organization);
     List<Group> findByOrganizationId(Long organizationId);
     List<Group> findByOrganizationIdAndNameContaining(Long organizationId, String name);
+    boolean existsByIdAndOrganizationId(Long id, Long organizationId);
 }
@@ -0,0 +1,27 @@
+package com.taashee.badger.repositories;
+
+import com.taashee.badger.models.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    // Records a blob unless its hash is already known; simultaneous uploads of one image both succeed
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO image_blob (hash, content_type, size, created_at) " +
+                   "VALUES (:hash, :contentType, :size, now()) ON CONFLICT (hash) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String hash, @Param("contentType") String contentType, @Param("size") long size);
+
+    // Row still holding its image inline, read by the image migration
+    interface InlineImageRow {
+        Long getId();
+        String getImage();
+    }
+}
@@ -1,8 +1,25 @@
 package com.taashee.badger.repositories;
 
 import com.taashee.badger.models.Organization;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface OrganizationRepository extends JpaRepository<Organization, Long> {
     // Add custom queries if needed
-} 
\ No newline at end of file
+
+    // Rows whose image is still an inline data URL, for the image migration
+    @Query("SELECT o.id AS id, o.imageEnglish AS image FROM Organization o " +
+           "WHERE o.id > :afterId AND o.imageEnglish LIKE 'data:%' ORDER BY o.id")
+    List<ImageBlobRepository.InlineImageRow> findInlineImages(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Only rows still holding a data URL are switched over, so a concurrent update is never overwritten
+    @Modifying
+    @Query("UPDATE Organization o SET o.imageEnglishHash = :hash, o.imageEnglish = NULL " +
+           "WHERE o.id = :id AND o.imageEnglish LIKE 'data:%'")
+    int moveImageToBlob(@Param("id") Long id, @Param("hash") String hash);
+}
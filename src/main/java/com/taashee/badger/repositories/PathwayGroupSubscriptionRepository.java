@@ -3,9 +3,12 @@ package com.taashee.badger.repositories;
 import com.taashee.badger.models.PathwayGroupSubscription;
 import com.taashee.badger.models.Pathway;
 import com.taashee.badger.models.Group;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -17,4 +20,29 @@ public interface PathwayGroupSubscriptionRepository extends JpaRepository<Pathwa
     Optional<PathwayGroupSubscription> findByPathwayAndGroup(Pathway pathway, Group group);
     Optional<PathwayGroupSubscription> findByPathwayIdAndGroupId(Long pathwayId, Long groupId);
     boolean existsByPathwayIdAndGroupId(Long pathwayId, Long groupId);
+    boolean existsByPathwayIdAndPathwayVersionIsNull(Long pathwayId);
+
+    @Query("SELECT s FROM PathwayGroupSubscription s JOIN FETCH s.pathway WHERE s.group.id IN :groupIds")
+    List<PathwayGroupSubscription> findByGroupIdInWithPathway(@Param("groupIds") Collection<Long> groupIds);
+
+    @Query("SELECT s.pathway.id AS pathwayId, s.group.id AS groupId, pv.id AS pathwayVersionId " +
+           "FROM PathwayGroupSubscription s LEFT JOIN s.pathwayVersion pv " +
+           "WHERE s.pathway.id IN :pathwayIds AND s.group.id IN :groupIds")
+    List<PinnedVersion> findPinnedVersions(@Param("pathwayIds") Collection<Long> pathwayIds,
+                                           @Param("groupIds") Collection<Long> groupIds);
+
+    // Rollup rebuild: only the (group, pathway) pairs, not the subscription entities
+    @Query("SELECT s.group.id AS groupId, s.pathway.id AS pathwayId FROM PathwayGroupSubscription s ORDER BY s.id")
+    List<SubscriptionKey> findAllKeys();
+
+    interface SubscriptionKey {
+        Long getGroupId();
+        Long getPathwayId();
+    }
+
+    interface PinnedVersion {
+        Long getPathwayId();
+        Long getGroupId();
+        Long getPathwayVersionId();
+    }
 }
@@ -4,13 +4,20 @@ import com.taashee.badger.models.PathwayProgress;
 import com.taashee.badger.models.Pathway;
 import com.taashee.badger.models.User;
 import com.taashee.badger.models.Group;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PathwayProgressRepository extends JpaRepository<PathwayProgress, Long> {
+    boolean existsByPathwayIdAndGroupId(Long pathwayId, Long groupId);
     List<PathwayProgress> findByPathway(Pathway pathway);
     List<PathwayProgress> findByPathwayId(Long pathwayId);
     List<PathwayProgress> findByUser(User user);
@@ -21,4 +28,33 @@ public interface PathwayProgressRepository extends JpaRepository<PathwayProgress
     List<PathwayProgress> findByPathwayIdAndGroupId(Long pathwayId, Long groupId);
     Optional<PathwayProgress> findByPathwayAndUserAndGroup(Pathway pathway, User user, Group group);
     Optional<PathwayProgress> findByPathwayIdAndUserIdAndGroupId(Long pathwayId, Long userId, Long groupId);
+
+    List<PathwayProgress> findByUserIdAndPathwayIdIn(Long userId, Collection<Long> pathwayIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PathwayProgress p WHERE p.pathway.id = :pathwayId AND p.user.id = :userId AND p.group.id = :groupId")
+    Optional<PathwayProgress> findForUpdate(@Param("pathwayId") Long pathwayId,
+                                            @Param("userId") Long userId,
+                                            @Param("groupId") Long groupId);
+
+    List<PathwayProgress> findByPathwayIdAndGroupIdAndUserIdIn(Long pathwayId, Long groupId, Collection<Long> userIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PathwayProgress p WHERE p.pathway.id = :pathwayId AND p.group.id = :groupId AND p.user.id IN :userIds ORDER BY p.id")
+    List<PathwayProgress> findForUpdateByPathwayIdAndGroupIdAndUserIdIn(@Param("pathwayId") Long pathwayId,
+                                                                       @Param("groupId") Long groupId,
+                                                                       @Param("userIds") Collection<Long> userIds);
+
+    long countByPathwayId(Long pathwayId);
+
+    // Keyset chunk of a pathway's progress rows, ordered by id and locked like findForUpdate,
+    // so a recalculation serializes with concurrent completions of the same learners
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PathwayProgress p WHERE p.pathway.id = :pathwayId AND p.id > :afterId ORDER BY p.id")
+    List<PathwayProgress> findChunkForUpdate(@Param("pathwayId") Long pathwayId,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Query("SELECT DISTINCT p.group.id FROM PathwayProgress p WHERE p.pathway.id = :pathwayId")
+    List<Long> findGroupIdsByPathwayId(@Param("pathwayId") Long pathwayId);
 }
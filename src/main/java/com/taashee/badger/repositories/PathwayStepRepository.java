@@ -4,9 +4,15 @@ import com.taashee.badger.models.Pathway;
 import com.taashee.badger.models.PathwayStep;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface PathwayStepRepository extends JpaRepository<PathwayStep, Long> {
     List<PathwayStep> findByPathwayOrderByOrderIndexAsc(Pathway pathway);
+
+    // Publish snapshot and step tree: every step of the pathway in one query, parents fetched along
+    @Query("SELECT s FROM PathwayStep s LEFT JOIN FETCH s.parentStep WHERE s.pathway.id = :pathwayId ORDER BY s.orderIndex ASC, s.id ASC")
+    List<PathwayStep> findSnapshotSteps(@Param("pathwayId") Long pathwayId);
 }
 
 
@@ -2,10 +2,13 @@ package com.taashee.badger.repositories;
 
 import com.taashee.badger.models.PathwayVersion;
 import com.taashee.badger.models.Pathway;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,4 +32,38 @@ public interface PathwayVersionRepository extends JpaRepository<PathwayVersion,
     
     @Query("SELECT COUNT(pv) FROM PathwayVersion pv WHERE pv.pathway = :pathway AND pv.status = 'PUBLISHED'")
     Long countPublishedVersionsByPathway(@Param("pathway") Pathway pathway);
-}
\ No newline at end of file
+
+    @Query("SELECT pv.pathway.id AS pathwayId, pv.id AS pathwayVersionId FROM PathwayVersion pv " +
+           "WHERE pv.pathway.id IN :pathwayIds AND pv.status = 'PUBLISHED' AND pv.version = " +
+           "(SELECT MAX(p2.version) FROM PathwayVersion p2 WHERE p2.pathway = pv.pathway AND p2.status = 'PUBLISHED')")
+    List<LatestVersion> findLatestPublishedVersionIds(@Param("pathwayIds") Collection<Long> pathwayIds);
+
+    // Version document lookups of PathwayVersionDocumentService
+    @Query("SELECT pv.id FROM PathwayVersion pv WHERE pv.pathway.id = :pathwayId AND pv.version = :version")
+    Optional<Long> findIdByPathwayIdAndVersion(@Param("pathwayId") Long pathwayId, @Param("version") Integer version);
+
+    @Query("SELECT pv.id FROM PathwayVersion pv WHERE pv.pathway.id = :pathwayId AND pv.status = 'PUBLISHED' ORDER BY pv.version DESC")
+    List<Long> findPublishedIdsByPathwayId(@Param("pathwayId") Long pathwayId, Pageable pageable);
+
+    @Query("SELECT pv.id AS id, pv.pathway.id AS pathwayId, pv.status AS status, " +
+           "pv.snapshotJson AS snapshotJson, pv.snapshotEtag AS snapshotEtag FROM PathwayVersion pv WHERE pv.id = :id")
+    Optional<SnapshotRow> findSnapshotRow(@Param("id") Long id);
+
+    // Versions published before snapshots existed get theirs on first read
+    @Modifying
+    @Query("UPDATE PathwayVersion pv SET pv.snapshotJson = :json, pv.snapshotEtag = :etag WHERE pv.id = :id AND pv.snapshotJson IS NULL")
+    int storeSnapshot(@Param("id") Long id, @Param("json") String json, @Param("etag") String etag);
+
+    interface SnapshotRow {
+        Long getId();
+        Long getPathwayId();
+        PathwayVersion.VersionStatus getStatus();
+        String getSnapshotJson();
+        String getSnapshotEtag();
+    }
+
+    interface LatestVersion {
+        Long getPathwayId();
+        Long getPathwayVersionId();
+    }
+}
@@ -0,0 +1,33 @@
+package com.taashee.badger.repositories;
+
+import com.taashee.badger.models.ProgressOutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProgressOutboxEventRepository extends JpaRepository<ProgressOutboxEvent, Long> {
+
+    // Rows other workers hold are skipped rather than waited on (lock timeout -2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM ProgressOutboxEvent e WHERE e.id IN :ids AND e.status = 'PENDING'")
+    List<ProgressOutboxEvent> lockPendingByIds(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM ProgressOutboxEvent e WHERE (e.status = 'PENDING' AND e.createdAt < :createdBefore) " +
+           "OR (e.status = 'PROCESSING' AND e.claimedAt < :claimedBefore) ORDER BY e.id")
+    List<ProgressOutboxEvent> lockStale(@Param("createdBefore") LocalDateTime createdBefore,
+                                        @Param("claimedBefore") LocalDateTime claimedBefore,
+                                        Pageable pageable);
+}
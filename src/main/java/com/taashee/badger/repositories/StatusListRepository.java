@@ -0,0 +1,31 @@
+package com.taashee.badger.repositories;
+
+import com.taashee.badger.models.StatusList;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StatusListRepository extends JpaRepository<StatusList, Long> {
+
+    Optional<StatusList> findByOrganizationId(Long organizationId);
+
+    @Query("SELECT s.revision FROM StatusList s WHERE s.organizationId = :organizationId")
+    Optional<Long> findRevision(@Param("organizationId") Long organizationId);
+
+    // Creates the organization's list if it does not exist yet, without racing concurrent creators
+    @Modifying
+    @Query(value = "INSERT INTO status_list (organization_id, next_index, revision) VALUES (:organizationId, 0, 0) " +
+                   "ON CONFLICT (organization_id) DO NOTHING", nativeQuery = true)
+    void createIfAbsent(@Param("organizationId") Long organizationId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StatusList s WHERE s.organizationId = :organizationId")
+    Optional<StatusList> findForUpdate(@Param("organizationId") Long organizationId);
+}
@@ -4,9 +4,19 @@ import com.taashee.badger.models.StepPrerequisite;
 import com.taashee.badger.models.PathwayStep;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface StepPrerequisiteRepository extends JpaRepository<StepPrerequisite, Long> {
     List<StepPrerequisite> findByStep(PathwayStep step);
-}
 
+    // Step tree: prerequisite links of every step of a pathway in one query, ids only
+    @Query("SELECT p.step.id AS stepId, p.prerequisiteStep.id AS prerequisiteStepId FROM StepPrerequisite p " +
+           "WHERE p.step.pathway.id = :pathwayId ORDER BY p.id ASC")
+    List<PrerequisiteLinkRow> findPrerequisiteLinks(@Param("pathwayId") Long pathwayId);
 
+    interface PrerequisiteLinkRow {
+        Long getStepId();
+        Long getPrerequisiteStepId();
+    }
+}
@@ -4,9 +4,12 @@ import com.taashee.badger.models.StepProgress;
 import com.taashee.badger.models.StepVersion;
 import com.taashee.badger.models.User;
 import com.taashee.badger.models.Group;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -21,4 +24,19 @@ public interface StepProgressRepository extends JpaRepository<StepProgress, Long
     List<StepProgress> findByStepVersionIdAndGroupId(Long stepVersionId, Long groupId);
     Optional<StepProgress> findByStepVersionAndUserAndGroup(StepVersion stepVersion, User user, Group group);
     Optional<StepProgress> findByStepVersionIdAndUserIdAndGroupId(Long stepVersionId, Long userId, Long groupId);
+
+    // Completed steps used to (re)build completion bitsets of pinned version manifests
+
+    @Query("SELECT sp.user.id AS userId, sp.stepVersion.id AS stepVersionId FROM StepProgress sp " +
+           "WHERE sp.group.id = :groupId AND sp.user.id IN :userIds AND sp.status = :status " +
+           "AND sp.stepVersion.id IN :stepVersionIds")
+    List<UserCompletedStep> findCompletedStepsForUsers(@Param("groupId") Long groupId,
+                                                       @Param("userIds") Collection<Long> userIds,
+                                                       @Param("stepVersionIds") Collection<Long> stepVersionIds,
+                                                       @Param("status") StepProgress.ProgressStatus status);
+
+    interface UserCompletedStep {
+        Long getUserId();
+        Long getStepVersionId();
+    }
 }
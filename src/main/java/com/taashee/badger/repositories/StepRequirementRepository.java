@@ -4,9 +4,15 @@ import com.taashee.badger.models.StepRequirement;
 import com.taashee.badger.models.PathwayStep;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface StepRequirementRepository extends JpaRepository<StepRequirement, Long> {
     List<StepRequirement> findByStep(PathwayStep step);
+
+    // Publish snapshot and step tree: all requirements of a pathway's steps in one query
+    @Query("SELECT r FROM StepRequirement r JOIN FETCH r.step s WHERE s.pathway.id = :pathwayId ORDER BY r.id ASC")
+    List<StepRequirement> findSnapshotRequirements(@Param("pathwayId") Long pathwayId);
 }
 
 
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,4 +21,39 @@ public interface StepVersionRepository extends JpaRepository<StepVersion, Long>
     
     @Query("SELECT sv FROM StepVersion sv WHERE sv.pathwayVersion IN (SELECT pv FROM PathwayVersion pv WHERE pv.pathway = :pathway)")
     List<StepVersion> findByPathway(@Param("pathway") Pathway pathway);
-}
\ No newline at end of file
+
+    // Version document: steps with their requirement versions in one query
+    @Query("SELECT sv FROM StepVersion sv LEFT JOIN FETCH sv.requirementVersions " +
+           "WHERE sv.pathwayVersion.id = :pathwayVersionId ORDER BY sv.orderIndex, sv.id")
+    List<StepVersion> findWithRequirementsByPathwayVersionId(@Param("pathwayVersionId") Long pathwayVersionId);
+
+    @Query("SELECT sv.id AS stepVersionId, sv.optionalStep AS optionalStep, sv.milestone AS milestone, " +
+           "sv.orderIndex AS orderIndex FROM StepVersion sv WHERE sv.pathwayVersion.id = :pathwayVersionId " +
+           "ORDER BY sv.orderIndex, sv.id")
+    List<ManifestRow> findManifestRows(@Param("pathwayVersionId") Long pathwayVersionId);
+
+    @Query("SELECT sv.id AS stepVersionId, sv.optionalStep AS optionalStep, sv.milestone AS milestone, " +
+           "sv.orderIndex AS orderIndex FROM StepVersion sv " +
+           "WHERE sv.pathwayVersion.pathway.id = :pathwayId AND sv.id IN :stepVersionIds")
+    List<ManifestRow> findManifestRowsByPathwayIdAndIdIn(@Param("pathwayId") Long pathwayId,
+                                                         @Param("stepVersionIds") Collection<Long> stepVersionIds);
+
+    @Query("SELECT sv.id AS stepVersionId, sv.originalStep.id AS originalStepId, " +
+           "sv.prerequisiteRule AS prerequisiteRule, sv.prerequisiteSteps AS prerequisiteSteps " +
+           "FROM StepVersion sv WHERE sv.pathwayVersion.id = :pathwayVersionId")
+    List<PrerequisiteRow> findPrerequisiteRows(@Param("pathwayVersionId") Long pathwayVersionId);
+
+    interface ManifestRow {
+        Long getStepVersionId();
+        Boolean getOptionalStep();
+        Boolean getMilestone();
+        Integer getOrderIndex();
+    }
+
+    interface PrerequisiteRow {
+        Long getStepVersionId();
+        Long getOriginalStepId();
+        String getPrerequisiteRule();
+        String getPrerequisiteSteps();
+    }
+}
@@ -2,9 +2,43 @@ package com.taashee.badger.repositories;
 
 import com.taashee.badger.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
  
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
-} 
\ No newline at end of file
+
+    // Token checks of the JWT filter, without loading roles
+    @Query("SELECT u.authVersion AS authVersion, u.tokensValidAfter AS tokensValidAfter, u.enabled AS enabled " +
+           "FROM User u WHERE u.id = :userId")
+    Optional<AuthState> findAuthState(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.authVersion = u.authVersion + 1 WHERE u.id IN :userIds")
+    int incrementAuthVersion(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query("UPDATE User u SET u.authVersion = u.authVersion + 1, u.tokensValidAfter = :validAfter WHERE u.id = :userId")
+    int revokeTokens(@Param("userId") Long userId, @Param("validAfter") LocalDateTime validAfter);
+
+    // Bulk issuance: resolves a chunk of recipient emails in one query on the unique email index, without loading roles
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.email IN :emails")
+    List<RecipientRow> findRecipientsByEmails(@Param("emails") Collection<String> emails);
+
+    interface RecipientRow {
+        Long getId();
+        String getEmail();
+    }
+
+    interface AuthState {
+        long getAuthVersion();
+        LocalDateTime getTokensValidAfter();
+        boolean isEnabled();
+    }
+}
@@ -3,14 +3,25 @@ package com.taashee.badger.serviceimpl;
 import com.taashee.badger.models.BadgeClass;
 import com.taashee.badger.models.User;
 import com.taashee.badger.repositories.BadgeClassRepository;
+import com.taashee.badger.services.AccessContext;
+import com.taashee.badger.services.AccessContextService;
 import com.taashee.badger.services.BadgeClassService;
+import com.taashee.badger.services.ImageStorageService;
+import com.taashee.badger.services.StatusListService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import com.taashee.badger.models.BadgeInstance;
 import com.taashee.badger.models.BadgeInstanceAwardRequest;
 import com.taashee.badger.repositories.BadgeInstanceRepository;
 import com.taashee.badger.models.BadgeClassDTO;
+import com.taashee.badger.models.BadgeClassSummaryDTO;
+import com.taashee.badger.exceptions.ApiException;
 import com.taashee.badger.models.Tag;
 import com.taashee.badger.models.Alignment;
 import com.taashee.badger.models.Institution;
@@ -24,15 +35,13 @@ import java.util.List;
 import java.util.Optional;
 import java.util.ArrayList;
 import java.util.Set;
-import org.springframework.security.core.context.SecurityContextHolder;
-import com.taashee.badger.repositories.OrganizationStaffRepository;
-import com.taashee.badger.repositories.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Service
 public class BadgeClassServiceImpl implements BadgeClassService {
     private static final Logger logger = LoggerFactory.getLogger(BadgeClassServiceImpl.class);
+    private static final int MAX_LIST_PAGE_SIZE = 100;
     @Autowired
     private BadgeClassRepository badgeClassRepository;
 
@@ -46,9 +55,11 @@ public class BadgeClassServiceImpl implements BadgeClassService {
     @Autowired
     private ObjectMapper objectMapper;
     @Autowired
-    private OrganizationStaffRepository organizationStaffRepository;
+    private AccessContextService accessContextService;
     @Autowired
-    private UserRepository userRepository;
+    private ImageStorageService imageStorageService;
+    @Autowired
+    private StatusListService statusListService;
 
     @Override
     public BadgeClass createBadgeClass(BadgeClass badgeClass) {
@@ -71,22 +82,15 @@ public class BadgeClassServiceImpl implements BadgeClassService {
         // Enforce role-based and organization-based access control for all badge class operations
         // ADMINs: full access
         // ORGANIZATION role: only their own organization's data
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
-        boolean isAdmin = roles.contains("ROLE_ADMIN");
-        boolean isIssuer = roles.contains("ROLE_ISSUER");
-        Optional<BadgeClass> badgeClassOpt = badgeClassRepository.findById(id);
-        if (isAdmin) return badgeClassOpt;
-        if (isIssuer) {
-            com.taashee.badger.models.User user = userRepository.findByEmail(email).orElse(null);
-            if (user == null || badgeClassOpt.isEmpty()) return Optional.empty();
-            List<com.taashee.badger.models.OrganizationStaff> staffList = organizationStaffRepository.findByUserId(user.getId());
-            if (staffList.isEmpty()) return Optional.empty();
-            List<Long> organizationIds = staffList.stream().map(s -> s.getOrganization().getId()).toList();
-            if (badgeClassOpt.get().getOrganization() != null && organizationIds.contains(badgeClassOpt.get().getOrganization().getId())) {
-                return badgeClassOpt;
+        AccessContext access = accessContextService.current();
+        if (access.isAdmin()) return badgeClassRepository.findById(id);
+        if (access.isIssuer()) {
+            // Checked on the owner projection, so missing or foreign badge classes are never loaded
+            Long organizationId = badgeClassRepository.findOwnerById(id)
+                .map(BadgeClassRepository.OwnerRow::getOrganizationId)
+                .orElse(null);
+            if (organizationId != null && access.isStaffOf(organizationId)) {
+                return badgeClassRepository.findById(id);
             } else {
                 return Optional.empty();
             }
@@ -96,122 +100,109 @@ public class BadgeClassServiceImpl implements BadgeClassService {
 
     @Override
     public List<BadgeClass> getAllBadgeClasses() {
-        // Get current user email and roles
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
-        boolean isAdmin = roles.contains("ROLE_ADMIN");
-        boolean isIssuer = roles.contains("ROLE_ISSUER");
-        if (isAdmin) {
-            logger.info("[getAllBadgeClasses] ADMIN user: {} roles: {} - returning all badge classes", email, roles);
+        // Get current user and roles
+        AccessContext access = accessContextService.current();
+        if (access.isAdmin()) {
+            logger.debug("[getAllBadgeClasses] ADMIN user: {} - returning all badge classes", access.email());
             return badgeClassRepository.findAll();
-        } else if (isIssuer) {
-            com.taashee.badger.models.User user = userRepository.findByEmail(email).orElse(null);
-            if (user == null) {
-                logger.warn("[getAllBadgeClasses] ISSUER user not found: {}", email);
-                return List.of();
-            }
-            List<com.taashee.badger.models.OrganizationStaff> staffList = organizationStaffRepository.findByUserId(user.getId());
-            if (staffList.isEmpty()) {
-                logger.warn("[getAllBadgeClasses] ISSUER user {} has no organization staff records", email);
+        } else if (access.isIssuer()) {
+            if (!access.hasOrganizations()) {
+                logger.warn("[getAllBadgeClasses] ISSUER user {} has no organization staff records", access.email());
                 return List.of();
             }
-            List<Long> organizationIds = staffList.stream().map(s -> s.getOrganization().getId()).toList();
-            List<BadgeClass> filtered = badgeClassRepository.findAll().stream().filter(bc -> bc.getOrganization() != null && organizationIds.contains(bc.getOrganization().getId())).toList();
-            logger.info("[getAllBadgeClasses] ISSUER user: {} roles: {} organizationIds: {} - returning {} badge classes", email, roles, organizationIds, filtered.size());
+            List<BadgeClass> filtered = badgeClassRepository.findByOrganizationIdIn(access.organizationIdList());
+            logger.debug("[getAllBadgeClasses] ISSUER user: {} - returning {} badge classes", access.email(), filtered.size());
             return filtered;
         } else {
-            logger.info("[getAllBadgeClasses] Non-admin/non-issuer user: {} roles: {} - returning empty list", email, roles);
+            logger.debug("[getAllBadgeClasses] Non-admin/non-issuer user: {} roles: {} - returning empty list", access.email(), access.roles());
             return List.of();
         }
     }
 
     @Override
+    public Page<BadgeClassSummaryDTO> getBadgeClassSummaries(int page, int size, String search) {
+        if (page < 0) {
+            throw new ApiException("page must not be negative", 400);
+        }
+        if (size < 1 || size > MAX_LIST_PAGE_SIZE) {
+            throw new ApiException("size must be between 1 and " + MAX_LIST_PAGE_SIZE, 400);
+        }
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        String term = search != null && !search.trim().isEmpty() ? escapeLike(search.trim().toLowerCase()) : null;
+        String prefix = term != null ? term + "%" : null;
+        String wordPrefix = term != null ? "% " + term + "%" : null;
+
+        // Same visibility rules as getAllBadgeClasses, applied in the query
+        AccessContext access = accessContextService.current();
+        if (access.isAdmin()) {
+            return badgeClassRepository.findSummaries(prefix, wordPrefix, pageable);
+        } else if (access.isIssuer() && access.hasOrganizations()) {
+            return badgeClassRepository.findSummariesByOrganizationIds(access.organizationIdList(), prefix, wordPrefix, pageable);
+        }
+        return Page.empty(pageable);
+    }
+
+    // Makes % and _ in a user's search term match literally; the queries declare \ as the escape character
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Override
+    @Transactional
     public BadgeClass archiveBadgeClass(Long id, boolean archive) {
-        BadgeClass badgeClass = badgeClassRepository.findById(id)
+        BadgeClassRepository.OwnerRow owner = badgeClassRepository.findOwnerById(id)
             .orElseThrow(() -> new RuntimeException("Badge class not found"));
         
         // Check if user has permission to archive this badge class
-        if (!hasPermissionToModifyBadgeClass(badgeClass)) {
+        if (!hasPermissionToModifyBadgeClass(owner.getOrganizationId())) {
             throw new IllegalStateException("You don't have permission to modify this badge class");
         }
         
         // If trying to archive, check if it can be archived
-        if (archive && !canArchiveBadgeClass(badgeClass)) {
+        if (archive && !canArchiveBadgeClass(id)) {
             throw new IllegalStateException("Cannot archive badge class: There are active (non-revoked) badge instances. Please revoke all instances first.");
         }
         
-        badgeClass.setArchived(archive);
-        return badgeClassRepository.save(badgeClass);
+        // Updated in place; the entity is loaded only for the response, after the update
+        badgeClassRepository.updateArchived(id, archive);
+        return badgeClassRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Badge class not found"));
     }
 
     @Override
+    @Transactional
     public BadgeClass togglePrivacy(Long badgeClassId) {
-        BadgeClass badgeClass = badgeClassRepository.findById(badgeClassId)
+        BadgeClassRepository.OwnerRow owner = badgeClassRepository.findOwnerById(badgeClassId)
             .orElseThrow(() -> new RuntimeException("Badge class not found"));
         
         // Check if user has permission to modify this badge class
-        if (!hasPermissionToModifyBadgeClass(badgeClass)) {
+        if (!hasPermissionToModifyBadgeClass(owner.getOrganizationId())) {
             throw new IllegalStateException("You don't have permission to modify this badge class");
         }
         
         // Toggle the privacy status
-        badgeClass.setIsPrivate(!badgeClass.isPrivate());
-        return badgeClassRepository.save(badgeClass);
+        badgeClassRepository.togglePrivate(badgeClassId);
+        return badgeClassRepository.findById(badgeClassId)
+            .orElseThrow(() -> new RuntimeException("Badge class not found"));
     }
 
     /**
      * Check if the current user has permission to modify the badge class
      * Only badge class owners (ISSUER with OWNER permission) can modify
      */
-    private boolean hasPermissionToModifyBadgeClass(BadgeClass badgeClass) {
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
-        
-        logger.info("[hasPermissionToModifyBadgeClass] Checking permissions for user: {} with roles: {}", email, roles);
+    private boolean hasPermissionToModifyBadgeClass(Long organizationId) {
+        AccessContext access = accessContextService.current();
         
         // Only ISSUER role can modify badge classes
-        if (!roles.contains("ROLE_ISSUER")) {
-            logger.warn("[hasPermissionToModifyBadgeClass] User {} does not have ROLE_ISSUER", email);
-            return false;
-        }
-        
-        // Check if user belongs to the badge class organization and has OWNER permission
-        User user = userRepository.findByEmail(email).orElse(null);
-        if (user == null || badgeClass.getOrganization() == null) {
-            logger.warn("[hasPermissionToModifyBadgeClass] User {} not found or badge class has no organization", email);
+        if (!access.isIssuer() || organizationId == null) {
+            logger.debug("[hasPermissionToModifyBadgeClass] User {} is not an issuer or badge class has no organization", access.email());
             return false;
         }
         
-        logger.info("[hasPermissionToModifyBadgeClass] Checking organization staff for user: {} in organization: {}", 
-                   user.getId(), badgeClass.getOrganization().getId());
-        
-        // Get staff record for this user in this organization
-        Optional<com.taashee.badger.models.OrganizationStaff> staffOptional = organizationStaffRepository
-            .findByOrganizationIdAndUserId(badgeClass.getOrganization().getId(), user.getId());
-        
-        if (!staffOptional.isPresent()) {
-            logger.warn("[hasPermissionToModifyBadgeClass] No staff record found for user {} in organization {}", 
-                       user.getId(), badgeClass.getOrganization().getId());
-            return false;
-        }
-        
-        com.taashee.badger.models.OrganizationStaff staff = staffOptional.get();
-        String staffRole = staff.getStaffRole();
-        logger.info("[hasPermissionToModifyBadgeClass] Staff role: {}", staffRole);
-        
-        // Check if staff role indicates owner-like permissions
-        boolean hasOwnerPermission = staffRole != null && (
-            staffRole.equalsIgnoreCase("OWNER") || 
-            staffRole.equalsIgnoreCase("owner") ||
-            staffRole.equalsIgnoreCase("ADMIN") ||
-            staffRole.equalsIgnoreCase("admin")
-        );
-        
-        logger.info("[hasPermissionToModifyBadgeClass] User {} has owner permission: {}", email, hasOwnerPermission);
+        // User must be owner or admin staff of the badge class organization
+        boolean hasOwnerPermission = access.isOrganizationOwner(organizationId);
+        logger.debug("[hasPermissionToModifyBadgeClass] User {} has owner permission in organization {}: {}",
+                     access.email(), organizationId, hasOwnerPermission);
         return hasOwnerPermission;
     }
 
@@ -219,9 +210,8 @@ public class BadgeClassServiceImpl implements BadgeClassService {
      * Check if a badge class can be archived
      * Can only be archived if there are no active (non-revoked) badge instances
      */
-    private boolean canArchiveBadgeClass(BadgeClass badgeClass) {
-        List<BadgeInstance> activeInstances = badgeInstanceRepository.findByBadgeClassIdAndRevokedFalse(badgeClass.getId());
-        return activeInstances.isEmpty();
+    private boolean canArchiveBadgeClass(Long badgeClassId) {
+        return !badgeInstanceRepository.existsByBadgeClassIdAndRevokedFalse(badgeClassId);
     }
 
     @Override
@@ -230,9 +220,13 @@ public class BadgeClassServiceImpl implements BadgeClassService {
     }
 
     @Override
+    @Transactional
     public List<BadgeInstance> awardEnrollments(Long badgeClassId, List<BadgeInstanceAwardRequest> requests) {
-        BadgeClass badgeClass = badgeClassRepository.findById(badgeClassId)
-            .orElseThrow(() -> new RuntimeException("BadgeClass not found"));
+        if (!badgeClassRepository.existsById(badgeClassId)) {
+            throw new RuntimeException("BadgeClass not found");
+        }
+        // Only the foreign key is needed on the new instances
+        BadgeClass badgeClass = badgeClassRepository.getReferenceById(badgeClassId);
         List<BadgeInstance> awarded = new ArrayList<>();
         for (BadgeInstanceAwardRequest req : requests) {
             BadgeInstance instance = new BadgeInstance();
@@ -242,9 +236,10 @@ public class BadgeClassServiceImpl implements BadgeClassService {
             instance.setAwardType(req.getAwardType());
             instance.setNarrative(req.getNarrative());
             // Set other fields as needed (e.g., issuedOn, issuer, etc.)
-            awarded.add(badgeInstanceRepository.save(instance));
+            awarded.add(instance);
         }
-        return awarded;
+        statusListService.sync(awarded);
+        return badgeInstanceRepository.saveAll(awarded);
     }
 
     @Override
@@ -266,28 +261,17 @@ public class BadgeClassServiceImpl implements BadgeClassService {
         // Enforce role-based and organization-based access control for all badge class operations
         // ADMINs: full access
         // ORGANIZATION role: only their own organization's data
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
-        boolean isAdmin = roles.contains("ROLE_ADMIN");
-        boolean isIssuer = roles.contains("ROLE_ISSUER");
-        if (isIssuer && !isAdmin) {
-            com.taashee.badger.models.User user = userRepository.findByEmail(email).orElse(null);
-            if (user != null) {
-                List<com.taashee.badger.models.OrganizationStaff> staffList = organizationStaffRepository.findByUserId(user.getId());
-                if (!staffList.isEmpty()) {
-                    // Use the first organizationId (or all, if supporting multiple)
-                    dto.organizationId = staffList.get(0).getOrganization().getId();
-                    logger.info("[createBadgeClassFromDTO] ISSUER user: {} roles: {} - setting organizationId to {}", email, roles, dto.organizationId);
-                } else {
-                    logger.warn("[createBadgeClassFromDTO] ISSUER user: {} roles: {} - has no organization staff records", email, roles);
-                }
+        AccessContext access = accessContextService.current();
+        if (access.isIssuer() && !access.isAdmin()) {
+            if (access.hasOrganizations()) {
+                // Use the first organizationId (or all, if supporting multiple)
+                dto.organizationId = access.primaryOrganizationId();
+                logger.info("[createBadgeClassFromDTO] ISSUER user: {} - setting organizationId to {}", access.email(), dto.organizationId);
             } else {
-                logger.warn("[createBadgeClassFromDTO] ISSUER user not found: {}", email);
+                logger.warn("[createBadgeClassFromDTO] ISSUER user: {} - has no organization staff records", access.email());
             }
         } else {
-            logger.info("[createBadgeClassFromDTO] ADMIN or other user: {} roles: {} - using provided organizationId: {}", email, roles, dto.organizationId);
+            logger.info("[createBadgeClassFromDTO] ADMIN or other user: {} roles: {} - using provided organizationId: {}", access.email(), access.roles(), dto.organizationId);
         }
         BadgeClass badgeClass = new BadgeClass();
         mapDTOToEntity(dto, badgeClass);
@@ -305,20 +289,9 @@ public class BadgeClassServiceImpl implements BadgeClassService {
         // Enforce role-based and organization-based access control for all badge class operations
         // ADMINs: full access
         // ORGANIZATION role: only their own organization's data
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
-        boolean isAdmin = roles.contains("ROLE_ADMIN");
-        boolean isIssuer = roles.contains("ROLE_ISSUER");
-        if (isIssuer && !isAdmin) {
-            com.taashee.badger.models.User user = userRepository.findByEmail(email).orElse(null);
-            if (user != null) {
-                List<com.taashee.badger.models.OrganizationStaff> staffList = organizationStaffRepository.findByUserId(user.getId());
-                if (!staffList.isEmpty()) {
-                    dto.organizationId = staffList.get(0).getOrganization().getId();
-                }
-            }
+        AccessContext access = accessContextService.current();
+        if (access.isIssuer() && !access.isAdmin() && access.hasOrganizations()) {
+            dto.organizationId = access.primaryOrganizationId();
         }
         BadgeClass badgeClass = badgeClassRepository.findById(id).orElseThrow(() -> new RuntimeException("BadgeClass not found"));
         mapDTOToEntity(dto, badgeClass);
@@ -376,7 +349,9 @@ public class BadgeClassServiceImpl implements BadgeClassService {
             }
         }
         badgeClass.setName(truncateString(dto.name, 255));
-        badgeClass.setImage(dto.image);
+        ImageStorageService.ImageRef image = imageStorageService.resolve(dto.image);
+        badgeClass.setImageHash(image.hash());
+        badgeClass.setImage(image.externalUrl());
         badgeClass.setDescription(dto.description); // TEXT field, no truncation needed
         badgeClass.setCriteriaText(dto.criteriaText); // TEXT field, no truncation needed
         badgeClass.setCriteriaUrl(truncateString(dto.criteriaUrl, 500));
@@ -490,121 +465,82 @@ public class BadgeClassServiceImpl implements BadgeClassService {
 
     @Override
     public java.util.Map<String, Object> getBadgeRecipients(Long badgeClassId, int page, int size, String search, String status, String sortBy, String sortOrder, String startDate, String endDate) {
-        // Get all badge instances for this badge class
-        List<BadgeInstance> allInstances = badgeInstanceRepository.findByBadgeClassId(badgeClassId);
-        
-        // Apply filters
-        List<BadgeInstance> filteredInstances = allInstances.stream()
-            .filter(instance -> {
-                // Search filter
-                if (search != null && !search.trim().isEmpty()) {
-                    String searchLower = search.toLowerCase();
-                    User recipient = instance.getRecipient();
-                    if (recipient != null) {
-                        String name = (recipient.getFirstName() + " " + recipient.getLastName()).toLowerCase();
-                        String email = recipient.getEmail().toLowerCase();
-                        if (!name.contains(searchLower) && !email.contains(searchLower)) {
-                            return false;
-                        }
-                    }
-                }
-                
-                // Status filter
-                if (status != null && !status.trim().isEmpty()) {
-                    BadgeInstance.Status currentStatus = instance.getCurrentStatus();
-                    if (!currentStatus.name().equalsIgnoreCase(status)) {
-                        return false;
-                    }
-                }
-                
-                // Date range filter
-                if (startDate != null && !startDate.trim().isEmpty()) {
-                    try {
-                        java.time.LocalDate start = java.time.LocalDate.parse(startDate);
-                        if (instance.getIssuedOn().toLocalDate().isBefore(start)) {
-                            return false;
-                        }
-                    } catch (Exception e) {
-                        // Ignore invalid dates
-                    }
-                }
-                
-                if (endDate != null && !endDate.trim().isEmpty()) {
-                    try {
-                        java.time.LocalDate end = java.time.LocalDate.parse(endDate);
-                        if (instance.getIssuedOn().toLocalDate().isAfter(end)) {
-                            return false;
-                        }
-                    } catch (Exception e) {
-                        // Ignore invalid dates
-                    }
-                }
-                
-                return true;
-            })
-            .collect(java.util.stream.Collectors.toList());
-        
-        // Apply sorting
-        if (sortBy != null && !sortBy.trim().isEmpty()) {
-            filteredInstances.sort((a, b) -> {
-                int comparison = 0;
-                switch (sortBy.toLowerCase()) {
-                    case "issuedon":
-                        comparison = a.getIssuedOn().compareTo(b.getIssuedOn());
-                        break;
-                    case "email":
-                        comparison = a.getRecipient().getEmail().compareTo(b.getRecipient().getEmail());
-                        break;
-                    case "name":
-                        String nameA = a.getRecipient().getFirstName() + " " + a.getRecipient().getLastName();
-                        String nameB = b.getRecipient().getFirstName() + " " + b.getRecipient().getLastName();
-                        comparison = nameA.compareTo(nameB);
-                        break;
-                    default:
-                        comparison = a.getIssuedOn().compareTo(b.getIssuedOn());
-                }
-                return "desc".equalsIgnoreCase(sortOrder) ? -comparison : comparison;
-            });
+        if (page < 0) {
+            throw new ApiException("page must not be negative", 400);
         }
-        
-        // Apply pagination
-        int total = filteredInstances.size();
-        int totalPages = (int) Math.ceil((double) total / size);
-        int startIndex = page * size;
-        int endIndex = Math.min(startIndex + size, total);
-        
-        List<BadgeInstance> paginatedInstances = filteredInstances.subList(startIndex, endIndex);
+        if (size < 1 || size > MAX_LIST_PAGE_SIZE) {
+            throw new ApiException("size must be between 1 and " + MAX_LIST_PAGE_SIZE, 400);
+        }
+        // Filters are resolved once; the database does the filtering, status computation, sorting and paging
+        String searchPattern = search != null && !search.trim().isEmpty()
+            ? "%" + escapeLike(search.trim().toLowerCase()) + "%" : null;
+        String statusFilter = status != null && !status.trim().isEmpty() ? status.trim().toUpperCase() : null;
+        java.time.LocalDateTime issuedFrom = parseDate(startDate)
+            .map(java.time.LocalDate::atStartOfDay).orElse(null);
+        java.time.LocalDateTime issuedBefore = parseDate(endDate)
+            .map(end -> end.plusDays(1).atStartOfDay()).orElse(null);
+
+        org.springframework.data.domain.Sort.Direction direction = "desc".equalsIgnoreCase(sortOrder)
+            ? org.springframework.data.domain.Sort.Direction.DESC : org.springframework.data.domain.Sort.Direction.ASC;
+        org.springframework.data.domain.Sort sort;
+        switch (sortBy != null ? sortBy.toLowerCase() : "") {
+            case "email":
+                sort = org.springframework.data.domain.Sort.by(direction, "u.email");
+                break;
+            case "name":
+                sort = org.springframework.data.domain.Sort.by(direction, "u.firstName", "u.lastName");
+                break;
+            default:
+                sort = org.springframework.data.domain.Sort.by(direction, "issuedOn");
+        }
+        // Tie-breaker so pages stay stable when sort keys repeat
+        sort = sort.and(org.springframework.data.domain.Sort.by(direction, "id"));
+
+        org.springframework.data.domain.Page<BadgeInstanceRepository.RecipientRow> rows = badgeInstanceRepository.searchRecipients(
+            badgeClassId, searchPattern, statusFilter, issuedFrom, issuedBefore, java.time.LocalDateTime.now(),
+            org.springframework.data.domain.PageRequest.of(page, size, sort));
         
         // Convert to DTOs
-        List<java.util.Map<String, Object>> recipients = paginatedInstances.stream()
-            .map(instance -> {
-                User recipient = instance.getRecipient();
+        List<java.util.Map<String, Object>> recipients = rows.getContent().stream()
+            .map(row -> {
                 java.util.Map<String, Object> recipientData = new java.util.HashMap<>();
-                recipientData.put("id", instance.getId());
-                recipientData.put("recipientId", recipient.getId());
-                recipientData.put("email", recipient.getEmail());
-                recipientData.put("firstName", recipient.getFirstName());
-                recipientData.put("lastName", recipient.getLastName());
-                recipientData.put("issuedOn", instance.getIssuedOn());
-                recipientData.put("status", instance.getCurrentStatus());
-                recipientData.put("revoked", instance.isRevoked());
-                recipientData.put("expiresAt", instance.getExpiresAt());
+                recipientData.put("id", row.getId());
+                recipientData.put("recipientId", row.getRecipientId());
+                recipientData.put("email", row.getEmail());
+                recipientData.put("firstName", row.getFirstName());
+                recipientData.put("lastName", row.getLastName());
+                recipientData.put("issuedOn", row.getIssuedOn());
+                recipientData.put("status", row.getStatus());
+                recipientData.put("revoked", Boolean.TRUE.equals(row.getRevoked()));
+                recipientData.put("expiresAt", row.getExpiresAt());
                 return recipientData;
             })
             .collect(java.util.stream.Collectors.toList());
         
         java.util.Map<String, Object> result = new java.util.HashMap<>();
         result.put("content", recipients);
-        result.put("totalElements", total);
-        result.put("totalPages", totalPages);
+        result.put("totalElements", rows.getTotalElements());
+        result.put("totalPages", rows.getTotalPages());
         result.put("currentPage", page);
         result.put("size", size);
-        result.put("first", page == 0);
-        result.put("last", page >= totalPages - 1);
+        result.put("first", rows.isFirst());
+        result.put("last", rows.isLast());
         
         return result;
     }
 
+    private Optional<java.time.LocalDate> parseDate(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(java.time.LocalDate.parse(value.trim()));
+        } catch (java.time.format.DateTimeParseException e) {
+            // Ignore invalid dates
+            return Optional.empty();
+        }
+    }
+
     @Override
     public java.util.Map<String, Object> exportBadgeClass(Long badgeClassId, boolean includeAssertions, boolean compressOutput) {
         BadgeClass badgeClass = badgeClassRepository.findById(badgeClassId)
@@ -1,5 +1,6 @@
 package com.taashee.badger.serviceimpl;
 
+import com.taashee.badger.models.BackpackBadgeDTO;
 import com.taashee.badger.models.BadgeInstance;
 import com.taashee.badger.models.BadgeInstanceDTO;
 import com.taashee.badger.models.BadgeClass;
@@ -9,14 +10,22 @@ import com.taashee.badger.models.Evidence;
 import com.taashee.badger.repositories.BadgeInstanceRepository;
 import com.taashee.badger.repositories.BadgeClassRepository;
 import com.taashee.badger.repositories.OrganizationRepository;
-import com.taashee.badger.repositories.OrganizationStaffRepository;
 import com.taashee.badger.repositories.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.services.AccessContext;
+import com.taashee.badger.services.AccessContextService;
+import com.taashee.badger.services.ImageStorageService;
+import com.taashee.badger.services.PublicAssertionService;
+import com.taashee.badger.services.StatusListService;
 import com.taashee.badger.services.BadgeInstanceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.domain.PageRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.ArrayList;
@@ -25,6 +34,8 @@ import java.util.Map;
 
 @Service
 public class BadgeInstanceServiceImpl implements BadgeInstanceService {
+    private static final int MAX_BACKPACK_PAGE_SIZE = 100;
+
     @Autowired
     private BadgeInstanceRepository badgeInstanceRepository;
     @Autowired
@@ -32,14 +43,22 @@ public class BadgeInstanceServiceImpl implements BadgeInstanceService {
     @Autowired
     private OrganizationRepository organizationRepository;
     @Autowired
-    private OrganizationStaffRepository organizationStaffRepository;
-    @Autowired
     private UserRepository userRepository;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private AccessContextService accessContextService;
+    @Autowired
+    private ImageStorageService imageStorageService;
+    @Autowired
+    private PublicAssertionService publicAssertionService;
+    @Autowired
+    private StatusListService statusListService;
 
     @Override
+    @Transactional
     public BadgeInstance createBadgeInstance(BadgeInstance badgeInstance) {
+        statusListService.sync(badgeInstance);
         return badgeInstanceRepository.save(badgeInstance);
     }
 
@@ -59,21 +78,12 @@ public class BadgeInstanceServiceImpl implements BadgeInstanceService {
         // Enforce role-based and organization-based access control for all badge instance operations
         // ADMINs: full access
         // ORGANIZATION role: only their own organization's data
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
-        boolean isAdmin = roles.contains("ROLE_ADMIN");
-        boolean isIssuer = roles.contains("ROLE_ISSUER");
+        AccessContext access = accessContextService.current();
         Optional<BadgeInstance> badgeInstanceOpt = badgeInstanceRepository.findById(id);
-        if (isAdmin) return badgeInstanceOpt;
-        if (isIssuer) {
-            com.taashee.badger.models.User user = userRepository.findByEmail(email).orElse(null);
-            if (user == null || badgeInstanceOpt.isEmpty()) return Optional.empty();
-            List<com.taashee.badger.models.OrganizationStaff> staffList = organizationStaffRepository.findByUserId(user.getId());
-            if (staffList.isEmpty()) return Optional.empty();
-            List<Long> organizationIds = staffList.stream().map(s -> s.getOrganization().getId()).toList();
-            if (badgeInstanceOpt.get().getOrganization() != null && organizationIds.contains(badgeInstanceOpt.get().getOrganization().getId())) {
+        if (access.isAdmin()) return badgeInstanceOpt;
+        if (access.isIssuer()) {
+            if (badgeInstanceOpt.isEmpty()) return Optional.empty();
+            if (badgeInstanceOpt.get().getOrganization() != null && access.isStaffOf(badgeInstanceOpt.get().getOrganization().getId())) {
                 return badgeInstanceOpt;
             } else {
                 return Optional.empty();
@@ -87,21 +97,12 @@ public class BadgeInstanceServiceImpl implements BadgeInstanceService {
         // Enforce role-based and organization-based access control for all badge instance operations
         // ADMINs: full access
         // ORGANIZATION role: only their own organization's data
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
-        boolean isAdmin = roles.contains("ROLE_ADMIN");
-        boolean isIssuer = roles.contains("ROLE_ISSUER");
-        if (isAdmin) {
+        AccessContext access = accessContextService.current();
+        if (access.isAdmin()) {
             return badgeInstanceRepository.findAll();
-        } else if (isIssuer) {
-            com.taashee.badger.models.User user = userRepository.findByEmail(email).orElse(null);
-            if (user == null) return List.of();
-            List<com.taashee.badger.models.OrganizationStaff> staffList = organizationStaffRepository.findByUserId(user.getId());
-            if (staffList.isEmpty()) return List.of();
-            List<Long> organizationIds = staffList.stream().map(s -> s.getOrganization().getId()).toList();
-            return badgeInstanceRepository.findAll().stream().filter(bi -> bi.getOrganization() != null && organizationIds.contains(bi.getOrganization().getId())).toList();
+        } else if (access.isIssuer()) {
+            if (!access.hasOrganizations()) return List.of();
+            return badgeInstanceRepository.findByOrganizationIdIn(access.organizationIdList());
         } else {
             return List.of();
         }
@@ -140,16 +141,21 @@ public class BadgeInstanceServiceImpl implements BadgeInstanceService {
     }
 
     @Override
+    @Transactional
     public List<BadgeInstance> revokeBadgeInstances(List<Long> ids, String revocationReason) {
         List<BadgeInstance> badgeInstances = badgeInstanceRepository.findAllById(ids);
         for (BadgeInstance bi : badgeInstances) {
             bi.setRevoked(true);
             bi.setRevocationReason(revocationReason);
         }
-        return badgeInstanceRepository.saveAll(badgeInstances);
+        statusListService.sync(badgeInstances);
+        List<BadgeInstance> saved = badgeInstanceRepository.saveAll(badgeInstances);
+        saved.forEach(bi -> publicAssertionService.evict(bi.getId()));
+        return saved;
     }
 
     @Override
+    @Transactional
     public BadgeInstance revokeBadgeInstance(Long id, String revocationReason) {
         BadgeInstance badgeInstance = badgeInstanceRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Badge instance not found"));
@@ -167,19 +173,23 @@ public class BadgeInstanceServiceImpl implements BadgeInstanceService {
         // Revoke the badge instance
         badgeInstance.setRevoked(true);
         badgeInstance.setRevocationReason(revocationReason);
+        statusListService.sync(badgeInstance);
         
-        return badgeInstanceRepository.save(badgeInstance);
+        BadgeInstance saved = badgeInstanceRepository.save(badgeInstance);
+        publicAssertionService.evict(id);
+        return saved;
     }
 
     @Override
     public Map<String, Object> getUserBadges(int page, int size, String search) {
         // Get current user
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = accessContextService.current().userId();
+        if (userId == null) {
+            throw new RuntimeException("User not found");
+        }
         
         // Get all badge instances for this user
-        List<BadgeInstance> allInstances = badgeInstanceRepository.findByRecipientId(user.getId());
+        List<BadgeInstance> allInstances = badgeInstanceRepository.findByRecipientId(userId);
         
         // Apply search filter
         List<BadgeInstance> filteredInstances = allInstances.stream()
@@ -199,7 +209,7 @@ public class BadgeInstanceServiceImpl implements BadgeInstanceService {
         // Apply pagination
         int total = filteredInstances.size();
         int totalPages = (int) Math.ceil((double) total / size);
-        int startIndex = page * size;
+        int startIndex = Math.min(page * size, total);
         int endIndex = Math.min(startIndex + size, total);
         
         List<BadgeInstance> paginatedInstances = filteredInstances.subList(startIndex, endIndex);
@@ -247,94 +257,127 @@ public class BadgeInstanceServiceImpl implements BadgeInstanceService {
         return result;
     }
 
+    @Override
+    public Map<String, Object> getUserBadgesByCursor(String cursor, int size, String search) {
+        Long userId = accessContextService.current().userId();
+        if (userId == null) {
+            throw new RuntimeException("User not found");
+        }
+        if (size < 1 || size > MAX_BACKPACK_PAGE_SIZE) {
+            throw new ApiException("size must be between 1 and " + MAX_BACKPACK_PAGE_SIZE, 400);
+        }
+
+        LocalDateTime cursorIssuedOn = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            cursorIssuedOn = parts[0].isEmpty() ? null : LocalDateTime.parse(parts[0]);
+            cursorId = Long.valueOf(parts[1]);
+        }
+        String searchPattern = search != null && !search.trim().isEmpty()
+            ? "%" + escapeLike(search.trim().toLowerCase()) + "%" : null;
+
+        // One row past the page tells whether there is a next page
+        List<BackpackBadgeDTO> rows = badgeInstanceRepository.findBackpackPage(
+            userId, searchPattern, cursorIssuedOn, cursorId, LocalDateTime.now(), PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        List<BackpackBadgeDTO> pageRows = hasMore ? rows.subList(0, size) : rows;
+
+        Map<Long, List<BackpackBadgeDTO.EvidenceItem>> evidenceByInstance = pageRows.isEmpty()
+            ? Map.of()
+            : badgeInstanceRepository.findEvidenceItems(pageRows.stream().map(BackpackBadgeDTO::id).toList()).stream()
+                .collect(java.util.stream.Collectors.groupingBy(BackpackBadgeDTO.EvidenceItem::badgeInstanceId));
+        List<BackpackBadgeDTO> badges = pageRows.stream()
+            .map(badge -> badge.withEvidence(evidenceByInstance.getOrDefault(badge.id(), List.of())))
+            .toList();
+
+        Map<String, Object> result = new java.util.HashMap<>();
+        result.put("content", badges);
+        result.put("size", size);
+        result.put("hasMore", hasMore);
+        result.put("nextCursor", hasMore ? encodeCursor(pageRows.get(pageRows.size() - 1)) : null);
+        return result;
+    }
+
+    // Makes % and _ in a user's search term match literally; the query declares \ as the escape character
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Opaque continuation token holding the (issuedOn, id) of the last badge of a page
+     */
+    private String encodeCursor(BackpackBadgeDTO last) {
+        String issuedOn = last.issuedOn() != null ? last.issuedOn().toString() : "";
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((issuedOn + "|" + last.id()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            if (!parts[0].isEmpty()) {
+                LocalDateTime.parse(parts[0]);
+            }
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | java.time.format.DateTimeException e) {
+            throw new ApiException("Invalid cursor", 400);
+        }
+    }
+
     /**
      * Check if the current user has permission to modify the badge instance
      * Only badge class owners (ISSUER with OWNER permission) can modify
      */
     private boolean hasPermissionToModifyBadgeInstance(BadgeInstance badgeInstance) {
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
+        AccessContext access = accessContextService.current();
         
         // Only ISSUER role can modify badge instances
-        if (!roles.contains("ROLE_ISSUER")) {
-            return false;
-        }
-        
-        // Check if user belongs to the badge instance organization and has OWNER permission
-        User user = userRepository.findByEmail(email).orElse(null);
-        if (user == null || badgeInstance.getOrganization() == null) {
+        if (!access.isIssuer() || badgeInstance.getOrganization() == null) {
             return false;
         }
         
-        Optional<com.taashee.badger.models.OrganizationStaff> staffOptional = organizationStaffRepository
-            .findByOrganizationIdAndUserId(badgeInstance.getOrganization().getId(), user.getId());
-        
-        if (!staffOptional.isPresent()) {
-            return false;
-        }
-        
-        com.taashee.badger.models.OrganizationStaff staff = staffOptional.get();
-        String staffRole = staff.getStaffRole();
-        
-        // Check if staff role indicates owner-like permissions
-        return staffRole != null && (
-            staffRole.equalsIgnoreCase("OWNER") || 
-            staffRole.equalsIgnoreCase("owner") ||
-            staffRole.equalsIgnoreCase("ADMIN") ||
-            staffRole.equalsIgnoreCase("admin")
-        );
+        // User must be owner or admin staff of the badge instance organization
+        return access.isOrganizationOwner(badgeInstance.getOrganization().getId());
     }
 
     @Override
+    @Transactional
     public BadgeInstance createBadgeInstanceFromDTO(BadgeInstanceDTO dto) {
         // Enforce role-based and organization-based access control for all badge instance operations
         // ADMINs: full access
         // ORGANIZATION role: only their own organization's data
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
-        boolean isAdmin = roles.contains("ROLE_ADMIN");
-        boolean isIssuer = roles.contains("ROLE_ISSUER");
-        if (isIssuer && !isAdmin) {
-            com.taashee.badger.models.User user = userRepository.findByEmail(email).orElse(null);
-            if (user != null) {
-                List<com.taashee.badger.models.OrganizationStaff> staffList = organizationStaffRepository.findByUserId(user.getId());
-                if (!staffList.isEmpty()) {
-                    dto.organizationId = staffList.get(0).getOrganization().getId();
-                }
-            }
+        AccessContext access = accessContextService.current();
+        if (access.isIssuer() && !access.isAdmin() && access.hasOrganizations()) {
+            dto.organizationId = access.primaryOrganizationId();
         }
         BadgeInstance badgeInstance = new BadgeInstance();
         mapDTOToEntity(dto, badgeInstance);
+        statusListService.sync(badgeInstance);
         return badgeInstanceRepository.save(badgeInstance);
     }
 
     @Override
+    @Transactional
     public BadgeInstance updateBadgeInstanceFromDTO(Long id, BadgeInstanceDTO dto) {
         // Enforce role-based and organization-based access control for all badge instance operations
         // ADMINs: full access
         // ORGANIZATION role: only their own organization's data
-        String email = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        List<String> roles = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
-            .map(a -> a.getAuthority())
-            .toList();
-        boolean isAdmin = roles.contains("ROLE_ADMIN");
-        boolean isIssuer = roles.contains("ROLE_ISSUER");
-        if (isIssuer && !isAdmin) {
-            com.taashee.badger.models.User user = userRepository.findByEmail(email).orElse(null);
-            if (user != null) {
-                List<com.taashee.badger.models.OrganizationStaff> staffList = organizationStaffRepository.findByUserId(user.getId());
-                if (!staffList.isEmpty()) {
-                    dto.organizationId = staffList.get(0).getOrganization().getId();
-                }
-            }
+        AccessContext access = accessContextService.current();
+        if (access.isIssuer() && !access.isAdmin() && access.hasOrganizations()) {
+            dto.organizationId = access.primaryOrganizationId();
         }
         BadgeInstance badgeInstance = badgeInstanceRepository.findById(id).orElseThrow(() -> new RuntimeException("BadgeInstance not found"));
         mapDTOToEntity(dto, badgeInstance);
-        return badgeInstanceRepository.save(badgeInstance);
+        // Restoring a revoked badge clears its status list bit again
+        statusListService.sync(badgeInstance);
+        BadgeInstance saved = badgeInstanceRepository.save(badgeInstance);
+        publicAssertionService.evict(id);
+        return saved;
     }
 
     private void mapDTOToEntity(BadgeInstanceDTO dto, BadgeInstance badgeInstance) {
@@ -380,7 +423,9 @@ public class BadgeInstanceServiceImpl implements BadgeInstanceService {
         badgeInstance.setAwardType(dto.awardType);
         badgeInstance.setDirectAwardBundle(dto.directAwardBundle);
         badgeInstance.setRecipientIdentifier(dto.recipientIdentifier);
-        badgeInstance.setImage(dto.image);
+        ImageStorageService.ImageRef image = imageStorageService.resolve(dto.image);
+        badgeInstance.setImageHash(image.hash());
+        badgeInstance.setImage(image.externalUrl());
         badgeInstance.setRevoked(dto.revoked);
         badgeInstance.setRevocationReason(dto.revocationReason);
         
@@ -16,15 +16,21 @@ public class GroupServiceImpl implements GroupService {
     private final OrganizationStaffRepository organizationStaffRepository;
     private final UserRepository userRepository;
     private final OrganizationUserRepository organizationUserRepository;
+    private final GroupProgressRollupRepository groupProgressRollupRepository;
+    private final GroupProgressMemberRepository groupProgressMemberRepository;
 
     public GroupServiceImpl(GroupRepository groupRepository, GroupMemberRepository groupMemberRepository,
                            OrganizationStaffRepository organizationStaffRepository, UserRepository userRepository,
-                           OrganizationUserRepository organizationUserRepository) {
+                           OrganizationUserRepository organizationUserRepository,
+                           GroupProgressRollupRepository groupProgressRollupRepository,
+                           GroupProgressMemberRepository groupProgressMemberRepository) {
         this.groupRepository = groupRepository;
         this.groupMemberRepository = groupMemberRepository;
         this.organizationStaffRepository = organizationStaffRepository;
         this.userRepository = userRepository;
         this.organizationUserRepository = organizationUserRepository;
+        this.groupProgressRollupRepository = groupProgressRollupRepository;
+        this.groupProgressMemberRepository = groupProgressMemberRepository;
     }
 
     @Override
@@ -66,6 +72,8 @@ public class GroupServiceImpl implements GroupService {
     @Transactional
     public void deleteGroup(Long groupId) {
         Group group = getGroup(groupId);
+        groupProgressRollupRepository.deleteByGroupId(groupId);
+        groupProgressMemberRepository.deleteByGroupId(groupId);
         groupRepository.delete(group);
     }
 
@@ -83,6 +91,9 @@ public class GroupServiceImpl implements GroupService {
         GroupMember member = new GroupMember();
         member.setGroup(group);
         member.setUser(user);
+        // Membership changed, group progress rollups are rebuilt on next read
+        groupProgressRollupRepository.deleteByGroupId(groupId);
+        groupProgressMemberRepository.deleteByGroupId(groupId);
         return groupMemberRepository.save(member);
     }
 
@@ -92,6 +103,8 @@ public class GroupServiceImpl implements GroupService {
         GroupMember member = groupMemberRepository.findByGroupIdAndUserId(groupId, userId)
                 .orElseThrow(() -> new RuntimeException("User is not a member of this group"));
         groupMemberRepository.delete(member);
+        groupProgressRollupRepository.deleteByGroupId(groupId);
+        groupProgressMemberRepository.deleteByGroupId(groupId);
     }
 
     @Override
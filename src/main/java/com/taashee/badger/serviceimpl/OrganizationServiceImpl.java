@@ -9,6 +9,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import com.taashee.badger.services.EmailVerificationService;
+import com.taashee.badger.services.TokenVersionService;
+import com.taashee.badger.services.ImageStorageService;
 import org.springframework.stereotype.Service;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,6 +43,10 @@ public class OrganizationServiceImpl implements OrganizationService {
     private BadgeInstanceRepository badgeInstanceRepository;
     @Autowired
     private BadgeClassRepository badgeClassRepository;
+    @Autowired
+    private TokenVersionService tokenVersionService;
+    @Autowired
+    private ImageStorageService imageStorageService;
     @Value("${staff.default.password}")
     private String defaultStaffPassword;
 
@@ -73,6 +79,7 @@ public class OrganizationServiceImpl implements OrganizationService {
         if (isNewUser) {
             emailVerificationService.sendStaffInvitationEmail(user, defaultStaffPassword);
         }
+        applyImage(organization, organization.getImageEnglish());
         Organization savedOrg = organizationRepository.save(organization);
         // Map user as main owner staff
         com.taashee.badger.models.OrganizationStaff staff = new com.taashee.badger.models.OrganizationStaff();
@@ -82,6 +89,7 @@ public class OrganizationServiceImpl implements OrganizationService {
         staff.setSigner(true);
         // Save staff mapping
         organizationStaffRepository.save(staff);
+        tokenVersionService.bumpVersion(user.getId());
         return savedOrg;
     }
 
@@ -93,7 +101,7 @@ public class OrganizationServiceImpl implements OrganizationService {
         // Only update allowed fields, do not touch staff or badges collections
         existing.setNameEnglish(organization.getNameEnglish());
         existing.setDescriptionEnglish(organization.getDescriptionEnglish());
-        existing.setImageEnglish(organization.getImageEnglish());
+        applyImage(existing, organization.getImageEnglish());
         existing.setUrlEnglish(organization.getUrlEnglish());
         existing.setEmail(organization.getEmail());
         existing.setFaculty(organization.getFaculty());
@@ -107,10 +115,19 @@ public class OrganizationServiceImpl implements OrganizationService {
         return organizationRepository.save(existing);
     }
 
+    // Inline images go to the blob store; the organization keeps the hash or an external URL
+    private void applyImage(Organization organization, String image) {
+        ImageStorageService.ImageRef ref = imageStorageService.resolve(image);
+        organization.setImageEnglishHash(ref.hash());
+        organization.setImageEnglish(ref.externalUrl());
+    }
+
     @Override
     public void deleteOrganization(Long id) {
         // Remove all staff mappings for this organization
+        List<Long> staffUserIds = staffUserIds(id);
         organizationStaffRepository.deleteByOrganizationId(id);
+        tokenVersionService.bumpVersion(staffUserIds);
         organizationRepository.deleteById(id);
     }
 
@@ -148,7 +165,9 @@ public class OrganizationServiceImpl implements OrganizationService {
             // First delete organization users
             organizationUserRepository.deleteByOrganizationId(id);
             // Then delete organization staff
+            List<Long> staffUserIds = staffUserIds(id);
             organizationStaffRepository.deleteByOrganizationId(id);
+            tokenVersionService.bumpVersion(staffUserIds);
             // Delete badge instances for this organization's badge classes
             badgeInstanceRepository.deleteByBadgeClassOrganizationId(id);
             // Delete badge classes for this organization
@@ -197,4 +216,11 @@ public class OrganizationServiceImpl implements OrganizationService {
             .distinct()
             .toList();
     }
-} 
\ No newline at end of file
+
+    private List<Long> staffUserIds(Long organizationId) {
+        return organizationStaffRepository.findByOrganizationId(organizationId).stream()
+            .map(staff -> staff.getUser().getId())
+            .distinct()
+            .toList();
+    }
+}
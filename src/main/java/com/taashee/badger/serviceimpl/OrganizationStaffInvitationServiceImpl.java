@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.taashee.badger.services.EmailVerificationService;
+import com.taashee.badger.services.TokenVersionService;
 import org.springframework.mail.SimpleMailMessage;
 import java.util.UUID;
 import java.util.List;
@@ -42,6 +43,8 @@ public class OrganizationStaffInvitationServiceImpl implements OrganizationStaff
     private OrganizationRepository organizationRepository;
     @Autowired
     private OrganizationStaffRepository organizationStaffRepository;
+    @Autowired
+    private TokenVersionService tokenVersionService;
 
     public boolean hasActiveInvitation(String email, Long organizationId) {
         List<OrganizationStaffInvitation> pending = invitationRepository.findByEmailAndOrganizationIdAndStatus(email, organizationId, OrganizationStaffInvitation.Status.PENDING);
@@ -131,6 +134,7 @@ public class OrganizationStaffInvitationServiceImpl implements OrganizationStaff
                 staff.setSigner(Boolean.TRUE.equals(invitation.getIsSigner()));
                 organizationStaffRepository.save(staff);
             }
+            tokenVersionService.bumpVersion(user.getId());
             // Send credentials email if new user
             if (isNewUser) {
                 SimpleMailMessage message = new SimpleMailMessage();
@@ -8,6 +8,7 @@ import com.taashee.badger.repositories.UserRepository;
 import com.taashee.badger.repositories.OrganizationRepository;
 import com.taashee.badger.services.OrganizationStaffService;
 import com.taashee.badger.services.EmailVerificationService;
+import com.taashee.badger.services.TokenVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -33,6 +34,8 @@ public class OrganizationStaffServiceImpl implements OrganizationStaffService {
     private PasswordEncoder passwordEncoder;
     @Autowired
     private OrganizationStaffInvitationRepository invitationRepository;
+    @Autowired
+    private TokenVersionService tokenVersionService;
 
     @Value("${staff.default.password}")
     private String defaultStaffPassword;
@@ -82,6 +85,7 @@ public class OrganizationStaffServiceImpl implements OrganizationStaffService {
             .orElseThrow(() -> new RuntimeException("Organization not found"));
         staff.setOrganization(organization);
         OrganizationStaff savedStaff = organizationStaffRepository.save(staff);
+        tokenVersionService.bumpVersion(user.getId());
         if (isNewUser) {
             emailVerificationService.sendStaffInvitationEmail(user, defaultStaffPassword);
         }
@@ -95,13 +99,18 @@ public class OrganizationStaffServiceImpl implements OrganizationStaffService {
             .orElseThrow(() -> new RuntimeException("OrganizationStaff not found"));
         existing.setStaffRole(staff.getStaffRole());
         existing.setSigner(staff.isSigner());
-        return organizationStaffRepository.save(existing);
+        OrganizationStaff saved = organizationStaffRepository.save(existing);
+        tokenVersionService.bumpVersion(existing.getUser().getId());
+        return saved;
     }
 
     @Override
     @Transactional
     public void removeStaff(Long staffId) {
-        organizationStaffRepository.deleteById(staffId);
+        organizationStaffRepository.findById(staffId).ifPresent(staff -> {
+            organizationStaffRepository.delete(staff);
+            tokenVersionService.bumpVersion(staff.getUser().getId());
+        });
     }
 
     @Override
@@ -111,6 +120,9 @@ public class OrganizationStaffServiceImpl implements OrganizationStaffService {
             .orElseThrow(() -> new RuntimeException("OrganizationStaff not found"));
         User user = staff.getUser();
         organizationStaffRepository.deleteById(staffId);
+        if (user != null) {
+            tokenVersionService.bumpVersion(user.getId());
+        }
         if (fullDelete && user != null) {
             // Check if user is staff for any other organization
             List<OrganizationStaff> otherStaff = organizationStaffRepository.findByUserId(user.getId());
@@ -22,7 +22,13 @@ import com.taashee.badger.repositories.UserRepository;
 import com.taashee.badger.repositories.PathwayProgressRepository;
 import com.taashee.badger.repositories.PathwayGroupSubscriptionRepository;
 import com.taashee.badger.repositories.StepProgressRepository;
+import com.taashee.badger.repositories.GroupProgressRollupRepository;
+import com.taashee.badger.repositories.GroupProgressMemberRepository;
 import com.taashee.badger.services.PathwayService;
+import com.taashee.badger.services.PathwayVersionDocumentService;
+import com.taashee.badger.services.PrerequisiteGraphCache;
+import com.taashee.badger.services.StepManifestCache;
+import com.taashee.badger.services.StepTreeLoader;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -44,13 +50,25 @@ public class PathwayServiceImpl implements PathwayService {
     private final PathwayProgressRepository pathwayProgressRepository;
     private final PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository;
     private final StepProgressRepository stepProgressRepository;
+    private final GroupProgressRollupRepository groupProgressRollupRepository;
+    private final GroupProgressMemberRepository groupProgressMemberRepository;
+    private final StepManifestCache stepManifestCache;
+    private final PrerequisiteGraphCache prerequisiteGraphCache;
+    private final PathwayVersionDocumentService pathwayVersionDocumentService;
+    private final StepTreeLoader stepTreeLoader;
 
     public PathwayServiceImpl(PathwayRepository pathwayRepository, PathwayStepRepository stepRepository, 
                             PathwayVersionRepository versionRepository, AuditLogRepository auditRepository,
                             StepRequirementRepository stepRequirementRepository, StepVersionRepository stepVersionRepository,
                             UserRepository userRepository, PathwayProgressRepository pathwayProgressRepository,
                             PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository,
-                            StepProgressRepository stepProgressRepository) {
+                            StepProgressRepository stepProgressRepository,
+                            GroupProgressRollupRepository groupProgressRollupRepository,
+                            GroupProgressMemberRepository groupProgressMemberRepository,
+                            StepManifestCache stepManifestCache,
+                            PrerequisiteGraphCache prerequisiteGraphCache,
+                            PathwayVersionDocumentService pathwayVersionDocumentService,
+                            StepTreeLoader stepTreeLoader) {
         this.pathwayRepository = pathwayRepository;
         this.stepRepository = stepRepository;
         this.versionRepository = versionRepository;
@@ -61,6 +79,12 @@ public class PathwayServiceImpl implements PathwayService {
         this.pathwayProgressRepository = pathwayProgressRepository;
         this.pathwayGroupSubscriptionRepository = pathwayGroupSubscriptionRepository;
         this.stepProgressRepository = stepProgressRepository;
+        this.groupProgressRollupRepository = groupProgressRollupRepository;
+        this.groupProgressMemberRepository = groupProgressMemberRepository;
+        this.stepManifestCache = stepManifestCache;
+        this.prerequisiteGraphCache = prerequisiteGraphCache;
+        this.pathwayVersionDocumentService = pathwayVersionDocumentService;
+        this.stepTreeLoader = stepTreeLoader;
     }
 
     private User getCurrentUser() {
@@ -116,25 +140,30 @@ public class PathwayServiceImpl implements PathwayService {
     @Transactional
     public PathwayStep createStep(Long pathwayId, Long parentStepId, String name, String description, String shortCode, boolean optionalStep, boolean milestone) {
         Pathway pathway = pathwayRepository.findById(pathwayId).orElseThrow();
+        StepTreeLoader.StepTree tree = stepTreeLoader.loadStructure(pathwayId);
 
         PathwayStep step = new PathwayStep();
         step.setPathway(pathway);
         if (parentStepId != null) {
-            PathwayStep parent = stepRepository.findById(parentStepId).orElseThrow();
+            PathwayStep parent = tree.step(parentStepId);
+            if (parent == null) {
+                stepRepository.findById(parentStepId).orElseThrow();
+                throw new IllegalArgumentException("Parent step does not belong to the specified pathway");
+            }
             step.setParentStep(parent);
             
             // DAG Validation: Prevent cycles
-            validateNoCycles(step, pathway);
+            validateNoCycles(step, tree);
         }
         step.setName(name);
         step.setDescription(description);
         step.setShortCode(shortCode);
         step.setOptionalStep(optionalStep);
         step.setMilestone(milestone);
-        step.setOrderIndex(stepRepository.findByPathwayOrderByOrderIndexAsc(pathway).size());
+        step.setOrderIndex(tree.size());
         
         // DAG Validation: Validate order index
-        validateOrderIndex(step, pathway);
+        validateOrderIndex(step, tree);
         
         PathwayStep savedStep = stepRepository.save(step);
         
@@ -153,24 +182,20 @@ public class PathwayServiceImpl implements PathwayService {
     /**
      * DAG Validation: Prevent cycles in pathway structure
      */
-    private void validateNoCycles(PathwayStep newStep, Pathway pathway) {
-        if (newStep.getParentStep() == null) return;
+    private void validateNoCycles(PathwayStep newStep, StepTreeLoader.StepTree tree) {
+        if (newStep.getParentStep() == null || newStep.getId() == null) return;
         
         // Check if adding this step would create a cycle
-        PathwayStep current = newStep.getParentStep();
-        while (current != null) {
-            if (current.getId().equals(newStep.getId())) {
-                throw new IllegalArgumentException("Cycle detected: Cannot create step that would form a circular dependency");
-            }
-            current = current.getParentStep();
+        if (tree.isAncestorOrSelf(newStep.getId(), newStep.getParentStep().getId())) {
+            throw new IllegalArgumentException("Cycle detected: Cannot create step that would form a circular dependency");
         }
     }
     
     /**
      * DAG Validation: Validate order index consistency
      */
-    private void validateOrderIndex(PathwayStep newStep, Pathway pathway) {
-        List<PathwayStep> existingSteps = stepRepository.findByPathwayOrderByOrderIndexAsc(pathway);
+    private void validateOrderIndex(PathwayStep newStep, StepTreeLoader.StepTree tree) {
+        List<PathwayStep> existingSteps = tree.steps();
         
         // Check for duplicate order indexes
         Set<Integer> usedIndexes = existingSteps.stream()
@@ -194,33 +219,37 @@ public class PathwayServiceImpl implements PathwayService {
 
     @Override
     public List<PathwayStep> listSteps(Long pathwayId) {
-        Pathway pathway = pathwayRepository.findById(pathwayId).orElseThrow();
-        return stepRepository.findByPathwayOrderByOrderIndexAsc(pathway);
+        return getStepTree(pathwayId).steps();
+    }
+
+    @Override
+    public StepTreeLoader.StepTree getStepTree(Long pathwayId) {
+        pathwayRepository.findById(pathwayId).orElseThrow();
+        return stepTreeLoader.load(pathwayId);
     }
 
     @Override
     @Transactional
     public PathwayStep rearrangeStep(Long pathwayId, Long stepId, Long newParentId, Integer newOrderIndex) {
-        PathwayStep step = stepRepository.findById(stepId).orElseThrow();
+        StepTreeLoader.StepTree tree = stepTreeLoader.loadStructure(pathwayId);
+        PathwayStep step = tree.step(stepId);
         // Validate that the step belongs to the specified pathway
-        if (!step.getPathway().getId().equals(pathwayId)) {
+        if (step == null) {
+            stepRepository.findById(stepId).orElseThrow();
             throw new IllegalArgumentException("Step does not belong to the specified pathway");
         }
         
         PathwayStep newParent = null;
         if (newParentId != null) {
-            newParent = stepRepository.findById(newParentId).orElseThrow();
+            newParent = tree.step(newParentId);
             // Validate that the new parent also belongs to the same pathway
-            if (!newParent.getPathway().getId().equals(pathwayId)) {
+            if (newParent == null) {
+                stepRepository.findById(newParentId).orElseThrow();
                 throw new IllegalArgumentException("New parent step does not belong to the specified pathway");
             }
             // DAG guard: prevent setting a parent to its own descendant
-            PathwayStep cursor = newParent;
-            while (cursor != null) {
-                if (cursor.getId().equals(step.getId())) {
-                    throw new IllegalArgumentException("Cycle detected: cannot set a step's descendant as its parent");
-                }
-                cursor = cursor.getParentStep();
+            if (tree.isAncestorOrSelf(step.getId(), newParent.getId())) {
+                throw new IllegalArgumentException("Cycle detected: cannot set a step's descendant as its parent");
             }
         }
         step.setParentStep(newParent);
@@ -422,6 +451,8 @@ public class PathwayServiceImpl implements PathwayService {
         // Delete all pathway progress records for this pathway to avoid foreign key constraint violations
         List<PathwayProgress> pathwayProgressRecords = pathwayProgressRepository.findByPathway(pathway);
         pathwayProgressRepository.deleteAll(pathwayProgressRecords);
+        groupProgressRollupRepository.deleteByPathwayId(pathwayId);
+        groupProgressMemberRepository.deleteByPathwayId(pathwayId);
         
         // Delete all pathway group subscriptions for this pathway to avoid foreign key constraint violations
         List<PathwayGroupSubscription> pathwaySubscriptions = pathwayGroupSubscriptionRepository.findByPathway(pathway);
@@ -444,6 +475,9 @@ public class PathwayServiceImpl implements PathwayService {
         
         // Finally delete the pathway itself
         pathwayRepository.delete(pathway);
+        stepManifestCache.evictPathway(pathwayId);
+        prerequisiteGraphCache.evictPathway(pathwayId);
+        pathwayVersionDocumentService.evictPathway(pathwayId);
     }
 
     @Override
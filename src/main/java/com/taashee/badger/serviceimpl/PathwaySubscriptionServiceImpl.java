@@ -3,6 +3,7 @@ package com.taashee.badger.serviceimpl;
 import com.taashee.badger.models.*;
 import com.taashee.badger.repositories.*;
 import com.taashee.badger.services.PathwaySubscriptionService;
+import com.taashee.badger.services.ProgressRecalculationService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,15 +15,24 @@ public class PathwaySubscriptionServiceImpl implements PathwaySubscriptionServic
     private final PathwayRepository pathwayRepository;
     private final GroupRepository groupRepository;
     private final OrganizationStaffRepository organizationStaffRepository;
+    private final PathwayVersionRepository pathwayVersionRepository;
+    private final PathwayProgressRepository pathwayProgressRepository;
+    private final ProgressRecalculationService progressRecalculationService;
 
     public PathwaySubscriptionServiceImpl(PathwayGroupSubscriptionRepository subscriptionRepository,
                                         PathwayRepository pathwayRepository,
                                         GroupRepository groupRepository,
-                                        OrganizationStaffRepository organizationStaffRepository) {
+                                        OrganizationStaffRepository organizationStaffRepository,
+                                        PathwayVersionRepository pathwayVersionRepository,
+                                        PathwayProgressRepository pathwayProgressRepository,
+                                        ProgressRecalculationService progressRecalculationService) {
         this.subscriptionRepository = subscriptionRepository;
         this.pathwayRepository = pathwayRepository;
         this.groupRepository = groupRepository;
         this.organizationStaffRepository = organizationStaffRepository;
+        this.pathwayVersionRepository = pathwayVersionRepository;
+        this.pathwayProgressRepository = pathwayProgressRepository;
+        this.progressRecalculationService = progressRecalculationService;
     }
 
     @Override
@@ -54,6 +64,16 @@ public class PathwaySubscriptionServiceImpl implements PathwaySubscriptionServic
         subscription.setGroup(group);
         subscription.setSubscribedBy(subscribedBy);
         
+        // Pin the group to the currently published version so later publishes don't move its progress
+        List<PathwayVersion> publishedVersions = pathwayVersionRepository.findPublishedVersionsByPathway(pathway);
+        if (!publishedVersions.isEmpty()) {
+            subscription.setPathwayVersion(publishedVersions.get(0));
+        }
+        
+        // Progress kept from an earlier subscription may carry bits of another version
+        if (pathwayProgressRepository.existsByPathwayIdAndGroupId(pathwayId, groupId)) {
+            progressRecalculationService.submitAfterCommit(pathwayId);
+        }
         return subscriptionRepository.save(subscription);
     }
 
@@ -2,10 +2,16 @@ package com.taashee.badger.serviceimpl;
 
 import com.taashee.badger.models.*;
 import com.taashee.badger.repositories.*;
+import com.taashee.badger.services.GroupProgressRollupService;
+import com.taashee.badger.services.PathwayProgressEngine;
+import com.taashee.badger.services.ProgressRecalculationService;
 import com.taashee.badger.services.ProgressTrackingService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -19,6 +25,24 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
     private final UserRepository userRepository;
     private final StepVersionRepository stepVersionRepository;
     private final GroupMemberRepository groupMemberRepository;
+    private final PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository;
+    private final PathwayProgressEngine progressEngine;
+    private final GroupProgressRollupService groupProgressRollupService;
+    private final ProgressRecalculationService progressRecalculationService;
+    private final ProgressOutboxEventRepository progressOutboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final UserNotificationRepository userNotificationRepository;
+
+    private static final int BULK_BATCH_SIZE = 500;
+
+    // Completing an already completed step keeps its original completion time
+    private static final String UPSERT_COMPLETED_STEP_SQL =
+            "INSERT INTO step_progress (step_version_id, user_id, group_id, status, completed_at, created_at, updated_at) " +
+            "VALUES (?, ?, ?, 'COMPLETED', ?, ?, ?) " +
+            "ON CONFLICT (step_version_id, user_id, group_id) DO UPDATE SET " +
+            "completed_at = CASE WHEN step_progress.status = 'COMPLETED' THEN step_progress.completed_at ELSE EXCLUDED.completed_at END, " +
+            "status = 'COMPLETED', updated_at = EXCLUDED.updated_at";
 
     public ProgressTrackingServiceImpl(PathwayProgressRepository pathwayProgressRepository,
                                      StepProgressRepository stepProgressRepository,
@@ -26,7 +50,15 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
                                      GroupRepository groupRepository,
                                      UserRepository userRepository,
                                      StepVersionRepository stepVersionRepository,
-                                     GroupMemberRepository groupMemberRepository) {
+                                     GroupMemberRepository groupMemberRepository,
+                                     PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository,
+                                     PathwayProgressEngine progressEngine,
+                                     GroupProgressRollupService groupProgressRollupService,
+                                     ProgressRecalculationService progressRecalculationService,
+                                     ProgressOutboxEventRepository progressOutboxEventRepository,
+                                     ApplicationEventPublisher eventPublisher,
+                                     JdbcTemplate jdbcTemplate,
+                                     UserNotificationRepository userNotificationRepository) {
         this.pathwayProgressRepository = pathwayProgressRepository;
         this.stepProgressRepository = stepProgressRepository;
         this.pathwayRepository = pathwayRepository;
@@ -34,6 +66,14 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
         this.userRepository = userRepository;
         this.stepVersionRepository = stepVersionRepository;
         this.groupMemberRepository = groupMemberRepository;
+        this.pathwayGroupSubscriptionRepository = pathwayGroupSubscriptionRepository;
+        this.progressEngine = progressEngine;
+        this.groupProgressRollupService = groupProgressRollupService;
+        this.progressRecalculationService = progressRecalculationService;
+        this.progressOutboxEventRepository = progressOutboxEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.userNotificationRepository = userNotificationRepository;
     }
 
     @Override
@@ -46,21 +86,26 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found"));
 
-        // Calculate progress percentage
-        int progressPercentage = calculatePathwayProgress(pathwayId, userId, groupId);
-        
         // Get or create pathway progress
         PathwayProgress pathwayProgress = pathwayProgressRepository
-                .findByPathwayIdAndUserIdAndGroupId(pathwayId, userId, groupId)
+                .findForUpdate(pathwayId, userId, groupId)
                 .orElse(new PathwayProgress());
         
         pathwayProgress.setPathway(pathway);
         pathwayProgress.setUser(user);
         pathwayProgress.setGroup(group);
+
+        // Calculate progress percentage from the learner's completion bits
+        PathwayProgressEngine.StepCounts counts = progressEngine.syncCompletion(pathwayProgress);
+        int progressPercentage = counts.percent();
         pathwayProgress.setPercent(progressPercentage);
         pathwayProgress.setCompleted(progressPercentage == 100);
+        PathwayProgress saved = pathwayProgressRepository.save(pathwayProgress);
+        
+        // Keep the group dashboard rollup in step with this learner; saved first so a rebuild sees this row
+        groupProgressRollupService.applyMemberProgress(groupId, pathwayId, user, counts);
         
-        return pathwayProgressRepository.save(pathwayProgress);
+        return saved;
     }
 
     @Override
@@ -88,21 +133,203 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
         } else {
             stepProgress.setCompletedAt(null);
         }
+        StepProgress saved = stepProgressRepository.save(stepProgress);
+
+        // Keep the learner's completion bits in step with this write
+        Pathway pathway = stepVersion.getPathwayVersion().getPathway();
+        PathwayProgress pathwayProgress = pathwayProgressRepository
+                .findForUpdate(pathway.getId(), userId, groupId)
+                .orElseGet(() -> {
+                    PathwayProgress created = new PathwayProgress();
+                    created.setPathway(pathway);
+                    created.setUser(user);
+                    created.setGroup(group);
+                    return created;
+                });
+        boolean completed = status == StepProgress.ProgressStatus.COMPLETED;
+        progressEngine.applyStepCompletion(pathwayProgress, stepVersionId, completed);
+        if (completed) {
+            // Counts, rollups and PATHWAY_COMPLETED are left to the outbox, which compares against the previous state
+            pathwayProgressRepository.save(pathwayProgress);
+            return saved;
+        }
         
-        return stepProgressRepository.save(stepProgress);
+        // Taking a completion back awards nothing, so counts and the group rollup are brought up to date here
+        PathwayProgressEngine.StepCounts counts = progressEngine.syncCompletion(pathwayProgress);
+        pathwayProgress.setPercent(counts.percent());
+        pathwayProgress.setCompleted(counts.isCompleted());
+        pathwayProgressRepository.save(pathwayProgress);
+        groupProgressRollupService.applyMemberProgress(groupId, pathway.getId(), user, counts);
+        
+        return saved;
     }
 
     @Override
     @Transactional
-    public void completeStep(Long stepVersionId, Long userId, Long groupId) {
-        updateStepProgress(stepVersionId, userId, groupId, StepProgress.ProgressStatus.COMPLETED);
+    public StepProgress completeStep(Long stepVersionId, Long userId, Long groupId) {
+        StepProgress stepProgress = updateStepProgress(stepVersionId, userId, groupId, StepProgress.ProgressStatus.COMPLETED);
+        Long pathwayId = stepProgress.getStepVersion().getPathwayVersion().getPathway().getId();
         
-        // Update pathway progress after step completion
-        StepVersion stepVersion = stepVersionRepository.findById(stepVersionId)
-                .orElseThrow(() -> new RuntimeException("Step version not found"));
+        // Pathway progress, rollups, milestone badges and notifications are handled
+        // asynchronously from the outbox once this transaction commits
+        ProgressOutboxEvent outboxEvent = new ProgressOutboxEvent();
+        outboxEvent.setEventType(ProgressOutboxEvent.STEP_COMPLETED);
+        outboxEvent.setStepVersionId(stepVersionId);
+        outboxEvent.setPathwayId(pathwayId);
+        outboxEvent.setUserId(userId);
+        outboxEvent.setGroupId(groupId);
+        outboxEvent = progressOutboxEventRepository.save(outboxEvent);
+        
+        eventPublisher.publishEvent(new StepCompletedEvent(outboxEvent.getId(), stepVersionId, pathwayId, userId, groupId));
+        return stepProgress;
+    }
+
+    @Override
+    @Transactional
+    public Map<String, Object> completeStepsInBulk(Long pathwayId, Long groupId, List<StepCompletionRequest> requests) {
+        if (!pathwayRepository.existsById(pathwayId)) {
+            throw new RuntimeException("Pathway not found");
+        }
+        if (!groupRepository.existsById(groupId)) {
+            throw new RuntimeException("Group not found");
+        }
+        
+        Set<Long> requestedUserIds = new HashSet<>();
+        Set<Long> requestedStepIds = new HashSet<>();
+        for (StepCompletionRequest request : requests) {
+            if (request.getUserId() != null) requestedUserIds.add(request.getUserId());
+            if (request.getStepVersionId() != null) requestedStepIds.add(request.getStepVersionId());
+        }
+        
+        // Validate all rows with two set-based lookups
+        Set<Long> memberIds = requestedUserIds.isEmpty() ? Set.of()
+                : new HashSet<>(groupMemberRepository.findMemberUserIds(groupId, requestedUserIds));
+        Map<Long, StepVersionRepository.ManifestRow> pathwaySteps = new HashMap<>();
+        if (!requestedStepIds.isEmpty()) {
+            for (StepVersionRepository.ManifestRow row : stepVersionRepository
+                    .findManifestRowsByPathwayIdAndIdIn(pathwayId, requestedStepIds)) {
+                pathwaySteps.put(row.getStepVersionId(), row);
+            }
+        }
+        
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<StepCompletionRequest> accepted = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (StepCompletionRequest request : requests) {
+            String error = null;
+            if (request.getUserId() == null || request.getStepVersionId() == null) {
+                error = "userId and stepVersionId are required";
+            } else if (!memberIds.contains(request.getUserId())) {
+                error = "User is not a member of this group";
+            } else if (!pathwaySteps.containsKey(request.getStepVersionId())) {
+                error = "Step version does not belong to this pathway";
+            } else if (!seen.add(request.getUserId() + ":" + request.getStepVersionId())) {
+                error = "Duplicate entry";
+            }
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("userId", request.getUserId());
+            result.put("stepVersionId", request.getStepVersionId());
+            result.put("status", error == null ? "COMPLETED" : "REJECTED");
+            if (error != null) {
+                result.put("error", error);
+            } else {
+                accepted.add(request);
+            }
+            results.add(result);
+        }
+        
+        // Upsert all accepted step progress rows in JDBC batches
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < accepted.size(); from += BULK_BATCH_SIZE) {
+            List<StepCompletionRequest> batch = accepted.subList(from, Math.min(from + BULK_BATCH_SIZE, accepted.size()));
+            jdbcTemplate.batchUpdate(UPSERT_COMPLETED_STEP_SQL, batch, batch.size(), (ps, request) -> {
+                ps.setLong(1, request.getStepVersionId());
+                ps.setLong(2, request.getUserId());
+                ps.setLong(3, groupId);
+                ps.setTimestamp(4, now);
+                ps.setTimestamp(5, now);
+                ps.setTimestamp(6, now);
+            });
+        }
+        
+        // Recompute pathway progress once per affected learner
+        Set<Long> affectedUserIds = accepted.stream()
+                .map(StepCompletionRequest::getUserId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!affectedUserIds.isEmpty()) {
+            List<PathwayProgress> newlyCompleted = updatePathwayProgressForUsers(pathwayId, groupId, affectedUserIds);
+            groupProgressRollupService.rebuild(groupId, pathwayId);
+            
+            // The outbox only sees the already updated state, so pathway completions are announced here
+            for (PathwayProgress progress : newlyCompleted) {
+                UserNotification notification = new UserNotification();
+                notification.setUser(progress.getUser());
+                notification.setType("PATHWAY_COMPLETED");
+                notification.setMessage("You completed the pathway \"" + progress.getPathway().getName() + "\"");
+                userNotificationRepository.save(notification);
+            }
+        }
+        
+        // Milestone badges and notifications go through the outbox like single completions
+        for (StepCompletionRequest request : accepted) {
+            if (Boolean.TRUE.equals(pathwaySteps.get(request.getStepVersionId()).getMilestone())) {
+                ProgressOutboxEvent outboxEvent = new ProgressOutboxEvent();
+                outboxEvent.setEventType(ProgressOutboxEvent.STEP_COMPLETED);
+                outboxEvent.setStepVersionId(request.getStepVersionId());
+                outboxEvent.setPathwayId(pathwayId);
+                outboxEvent.setUserId(request.getUserId());
+                outboxEvent.setGroupId(groupId);
+                outboxEvent = progressOutboxEventRepository.save(outboxEvent);
+                eventPublisher.publishEvent(new StepCompletedEvent(
+                        outboxEvent.getId(), request.getStepVersionId(), pathwayId, request.getUserId(), groupId));
+            }
+        }
+        
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("pathwayId", pathwayId);
+        summary.put("groupId", groupId);
+        summary.put("completed", accepted.size());
+        summary.put("rejected", requests.size() - accepted.size());
+        summary.put("results", results);
+        return summary;
+    }
+
+    /**
+     * Rebuilds the completion bits and pathway progress of many learners of one group with set-based queries,
+     * returning the rows that went from incomplete to complete
+     */
+    private List<PathwayProgress> updatePathwayProgressForUsers(Long pathwayId, Long groupId, Collection<Long> userIds) {
+        Map<Long, PathwayProgress> existing = pathwayProgressRepository
+                .findForUpdateByPathwayIdAndGroupIdAndUserIdIn(pathwayId, groupId, userIds).stream()
+                .collect(Collectors.toMap(progress -> progress.getUser().getId(), progress -> progress));
         
-        Long pathwayId = stepVersion.getPathwayVersion().getPathway().getId();
-        updatePathwayProgress(pathwayId, userId, groupId);
+        List<PathwayProgress> toSave = new ArrayList<>();
+        for (Long userId : userIds) {
+            PathwayProgress progress = existing.get(userId);
+            if (progress == null) {
+                progress = new PathwayProgress();
+                progress.setPathway(pathwayRepository.getReferenceById(pathwayId));
+                progress.setUser(userRepository.getReferenceById(userId));
+                progress.setGroup(groupRepository.getReferenceById(groupId));
+            }
+            toSave.add(progress);
+        }
+        Map<Long, PathwayProgressEngine.StepCounts> countsByUser =
+                progressEngine.refreshCompletion(pathwayId, groupId, toSave);
+        List<PathwayProgress> newlyCompleted = new ArrayList<>();
+        for (PathwayProgress progress : toSave) {
+            boolean wasCompleted = Boolean.TRUE.equals(progress.getCompleted());
+            PathwayProgressEngine.StepCounts counts = countsByUser.getOrDefault(
+                    progress.getUser().getId(), PathwayProgressEngine.StepCounts.EMPTY);
+            progress.setPercent(counts.percent());
+            progress.setCompleted(counts.isCompleted());
+            if (!wasCompleted && counts.isCompleted()) {
+                newlyCompleted.add(progress);
+            }
+        }
+        pathwayProgressRepository.saveAll(toSave);
+        return newlyCompleted;
     }
 
     @Override
@@ -130,81 +357,64 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
 
     @Override
     public List<Map<String, Object>> getUserSubscribedPathways(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
         
         // Get all groups the user is a member of
-        List<GroupMember> userGroupMemberships = groupMemberRepository.findByUser(user);
+        List<GroupMember> userGroupMemberships = groupMemberRepository.findByUserIdWithGroup(userId);
+        if (userGroupMemberships.isEmpty()) {
+            return new ArrayList<>();
+        }
         
-        Set<Pathway> subscribedPathways = new HashSet<>();
+        // Get all pathways these groups are subscribed to in one query
+        List<Long> groupIds = userGroupMemberships.stream()
+                .map(membership -> membership.getGroup().getId())
+                .collect(Collectors.toList());
+        Map<Long, List<PathwayGroupSubscription>> subscriptionsByGroup = pathwayGroupSubscriptionRepository
+                .findByGroupIdInWithPathway(groupIds).stream()
+                .collect(Collectors.groupingBy(sub -> sub.getGroup().getId()));
         
+        // Use the first group membership that subscribes to each published pathway
+        Map<Long, Pathway> subscribedPathways = new LinkedHashMap<>();
+        Map<Long, Group> groupByPathway = new HashMap<>();
         for (GroupMember membership : userGroupMemberships) {
             Group group = membership.getGroup();
-            // Get all pathways this group is subscribed to
-            List<PathwayGroupSubscription> groupSubscriptions = group.getPathwaySubscriptions();
-            
-            for (PathwayGroupSubscription subscription : groupSubscriptions) {
+            for (PathwayGroupSubscription subscription : subscriptionsByGroup.getOrDefault(group.getId(), List.of())) {
                 Pathway pathway = subscription.getPathway();
                 // Only include published pathways
-                if (pathway.getStatus() == PathwayStatus.PUBLISHED) {
-                    subscribedPathways.add(pathway);
+                if (pathway.getStatus() == PathwayStatus.PUBLISHED && !subscribedPathways.containsKey(pathway.getId())) {
+                    subscribedPathways.put(pathway.getId(), pathway);
+                    groupByPathway.put(pathway.getId(), group);
                 }
             }
         }
         
+        Map<Long, Long> groupIdByPathway = new HashMap<>();
+        groupByPathway.forEach((pathwayId, group) -> groupIdByPathway.put(pathwayId, group.getId()));
+        Map<Long, PathwayProgressEngine.StepCounts> countsByPathway =
+                progressEngine.countStepsForPathways(userId, groupIdByPathway);
+        
         List<Map<String, Object>> pathwayList = new ArrayList<>();
         
-        for (Pathway pathway : subscribedPathways) {
+        for (Pathway pathway : subscribedPathways.values()) {
             Map<String, Object> pathwayData = new HashMap<>();
             pathwayData.put("pathwayId", pathway.getId());
             pathwayData.put("pathwayName", pathway.getName());
             pathwayData.put("pathwayDescription", pathway.getDescription());
             pathwayData.put("pathwayStatus", pathway.getStatus());
             
-            // Calculate user's progress for this pathway
-            // We need to find which group the user is using for this pathway
-            List<GroupMember> userMemberships = userGroupMemberships.stream()
-                    .filter(membership -> {
-                        Group group = membership.getGroup();
-                        return group.getPathwaySubscriptions().stream()
-                                .anyMatch(sub -> sub.getPathway().getId().equals(pathway.getId()));
-                    })
-                    .collect(Collectors.toList());
+            Group group = groupByPathway.get(pathway.getId());
+            PathwayProgressEngine.StepCounts counts = countsByPathway.getOrDefault(
+                    pathway.getId(), PathwayProgressEngine.StepCounts.EMPTY);
+            int progressPercentage = counts.percent();
             
-            if (!userMemberships.isEmpty()) {
-                // Use the first group membership for this pathway
-                GroupMember primaryMembership = userMemberships.get(0);
-                Group group = primaryMembership.getGroup();
-                
-                int progressPercentage = calculatePathwayProgress(pathway.getId(), userId, group.getId());
-                pathwayData.put("progressPercentage", progressPercentage);
-                pathwayData.put("groupId", group.getId());
-                pathwayData.put("groupName", group.getName());
-                
-                // Get step progress details
-                List<StepVersion> stepVersions = stepVersionRepository.findByPathway(pathway);
-                List<StepVersion> nonOptionalSteps = stepVersions.stream()
-                        .filter(stepVersion -> !Boolean.TRUE.equals(stepVersion.getOptionalStep()))
-                        .collect(Collectors.toList());
-                
-                int completedSteps = (int) nonOptionalSteps.stream()
-                        .mapToLong(stepVersion -> {
-                            Optional<StepProgress> stepProgress = stepProgressRepository
-                                    .findByStepVersionIdAndUserIdAndGroupId(stepVersion.getId(), userId, group.getId());
-                            return stepProgress.isPresent() && 
-                                   stepProgress.get().getStatus() == StepProgress.ProgressStatus.COMPLETED ? 1 : 0;
-                        })
-                        .sum();
-                
-                pathwayData.put("completedSteps", completedSteps);
-                pathwayData.put("totalSteps", nonOptionalSteps.size());
-                pathwayData.put("isCompleted", progressPercentage == 100);
-            } else {
-                pathwayData.put("progressPercentage", 0);
-                pathwayData.put("completedSteps", 0);
-                pathwayData.put("totalSteps", 0);
-                pathwayData.put("isCompleted", false);
-            }
+            pathwayData.put("progressPercentage", progressPercentage);
+            pathwayData.put("groupId", group.getId());
+            pathwayData.put("groupName", group.getName());
+            pathwayData.put("completedSteps", (int) counts.completedSteps());
+            pathwayData.put("totalSteps", (int) counts.totalSteps());
+            pathwayData.put("isCompleted", progressPercentage == 100);
             
             pathwayList.add(pathwayData);
         }
@@ -214,11 +424,20 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
 
     @Override
     public Map<String, Object> getGroupProgressSummary(Long groupId, Long pathwayId) {
-        // Get all group members
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found"));
+        if (!groupRepository.existsById(groupId)) {
+            throw new RuntimeException("Group not found");
+        }
         
-        List<GroupMember> groupMembers = group.getMembers();
+        // Progress for a specific pathway is served from the materialized rollup
+        if (pathwayId != null) {
+            if (!pathwayRepository.existsById(pathwayId)) {
+                throw new RuntimeException("Pathway not found");
+            }
+            return groupProgressRollupService.getSummary(groupId, pathwayId);
+        }
+        
+        // Get all group members with their users in one query
+        List<GroupMember> groupMembers = groupMemberRepository.findByGroupIdWithUser(groupId);
         
         if (groupMembers.isEmpty()) {
             return Map.of(
@@ -230,69 +449,34 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
             );
         }
         
+        // Overall progress across all pathways
+        Map<Long, List<PathwayProgress>> pathwayProgressByUser = pathwayProgressRepository.findByGroupId(groupId).stream()
+                .collect(Collectors.groupingBy(progress -> progress.getUser().getId()));
+        
         // Calculate progress for each member
         List<Map<String, Object>> memberProgressList = new ArrayList<>();
         int totalProgressSum = 0;
-        int totalCompletedSteps = 0;
-        int totalSteps = 0;
-        
-        // Get total steps for the pathway (if pathwayId is provided)
-        if (pathwayId != null) {
-            Pathway pathway = pathwayRepository.findById(pathwayId)
-                    .orElseThrow(() -> new RuntimeException("Pathway not found"));
-            
-            List<StepVersion> stepVersions = stepVersionRepository.findByPathway(pathway);
-            List<StepVersion> nonOptionalSteps = stepVersions.stream()
-                    .filter(stepVersion -> !Boolean.TRUE.equals(stepVersion.getOptionalStep()))
-                    .collect(Collectors.toList());
-            totalSteps = nonOptionalSteps.size();
-        }
         
         for (GroupMember member : groupMembers) {
             User user = member.getUser();
             int memberProgress = 0;
-            int memberCompletedSteps = 0;
             
-            if (pathwayId != null) {
-                // Calculate progress for specific pathway
-                memberProgress = calculatePathwayProgress(pathwayId, user.getId(), groupId);
-                
-                // Count completed steps for this member
-                List<StepVersion> stepVersions = stepVersionRepository.findByPathway(
-                        pathwayRepository.findById(pathwayId).orElseThrow(() -> new RuntimeException("Pathway not found"))
-                );
-                List<StepVersion> nonOptionalSteps = stepVersions.stream()
-                        .filter(stepVersion -> !Boolean.TRUE.equals(stepVersion.getOptionalStep()))
-                        .collect(Collectors.toList());
-                
-                memberCompletedSteps = (int) nonOptionalSteps.stream()
-                        .mapToLong(stepVersion -> {
-                            Optional<StepProgress> stepProgress = stepProgressRepository
-                                    .findByStepVersionIdAndUserIdAndGroupId(stepVersion.getId(), user.getId(), groupId);
-                            return stepProgress.isPresent() && 
-                                   stepProgress.get().getStatus() == StepProgress.ProgressStatus.COMPLETED ? 1 : 0;
-                        })
-                        .sum();
-            } else {
-                // Calculate overall progress across all pathways
-                List<PathwayProgress> userPathwayProgress = getUserPathwayProgressForGroup(user.getId(), groupId);
-                if (!userPathwayProgress.isEmpty()) {
-                    memberProgress = (int) Math.round(userPathwayProgress.stream()
-                            .mapToInt(PathwayProgress::getPercent)
-                            .average()
-                            .orElse(0.0));
-                }
+            List<PathwayProgress> userPathwayProgress = pathwayProgressByUser.getOrDefault(user.getId(), List.of());
+            if (!userPathwayProgress.isEmpty()) {
+                memberProgress = (int) Math.round(userPathwayProgress.stream()
+                        .mapToInt(PathwayProgress::getPercent)
+                        .average()
+                        .orElse(0.0));
             }
             
             totalProgressSum += memberProgress;
-            totalCompletedSteps += memberCompletedSteps;
             
             Map<String, Object> memberData = new HashMap<>();
             memberData.put("userId", user.getId());
             memberData.put("userName", user.getFirstName() + " " + user.getLastName());
             memberData.put("userEmail", user.getEmail());
             memberData.put("progressPercentage", memberProgress);
-            memberData.put("completedSteps", memberCompletedSteps);
+            memberData.put("completedSteps", 0);
             
             memberProgressList.add(memberData);
         }
@@ -302,8 +486,9 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
         Map<String, Object> result = new HashMap<>();
         result.put("overallProgress", overallProgress);
         result.put("totalMembers", groupMembers.size());
-        result.put("completedSteps", totalCompletedSteps);
-        result.put("totalSteps", totalSteps);
+        // Step counts are only meaningful for a single pathway
+        result.put("completedSteps", 0);
+        result.put("totalSteps", 0);
         result.put("memberProgress", memberProgressList);
         
         return result;
@@ -323,41 +508,24 @@ public class ProgressTrackingServiceImpl implements ProgressTrackingService {
 
     @Override
     public int calculatePathwayProgress(Long pathwayId, Long userId, Long groupId) {
-        // Get all step versions for the pathway
-        List<StepVersion> stepVersions = stepVersionRepository.findByPathway(
-                pathwayRepository.findById(pathwayId).orElseThrow(() -> new RuntimeException("Pathway not found"))
-        );
-        
-        // Filter to only non-optional steps (optional steps don't count toward progress)
-        List<StepVersion> nonOptionalSteps = stepVersions.stream()
-                .filter(stepVersion -> !Boolean.TRUE.equals(stepVersion.getOptionalStep()))
-                .collect(Collectors.toList());
-        
-        if (nonOptionalSteps.isEmpty()) {
-            return 100; // If no non-optional steps, consider it 100% complete
+        PathwayProgressEngine.StepCounts counts = progressEngine.countSteps(pathwayId, userId, groupId);
+        if (counts.totalSteps() == 0 && !pathwayRepository.existsById(pathwayId)) {
+            throw new RuntimeException("Pathway not found");
         }
-        
-        // Count completed steps
-        long completedSteps = nonOptionalSteps.stream()
-                .mapToLong(stepVersion -> {
-                    Optional<StepProgress> stepProgress = stepProgressRepository
-                            .findByStepVersionIdAndUserIdAndGroupId(stepVersion.getId(), userId, groupId);
-                    return stepProgress.isPresent() && 
-                           stepProgress.get().getStatus() == StepProgress.ProgressStatus.COMPLETED ? 1 : 0;
-                })
-                .sum();
-        
-        return (int) Math.round((double) completedSteps / nonOptionalSteps.size() * 100);
+        return counts.percent();
     }
 
     @Override
-    @Transactional
-    public void recalculateAllProgressForPathway(Long pathwayId) {
-        // Get all pathway progress records for this pathway
-        List<PathwayProgress> allProgress = pathwayProgressRepository.findByPathwayId(pathwayId);
-        
-        for (PathwayProgress progress : allProgress) {
-            updatePathwayProgress(pathwayId, progress.getUser().getId(), progress.getGroup().getId());
+    public List<Long> getUnlockedSteps(Long pathwayId, Long userId, Long groupId) {
+        if (!pathwayRepository.existsById(pathwayId)) {
+            throw new RuntimeException("Pathway not found");
         }
+        return progressEngine.unlockedStepIds(pathwayId, userId, groupId);
+    }
+
+    @Override
+    public ProgressRecalculationService.RecalculationJob recalculateAllProgressForPathway(Long pathwayId) {
+        // Runs in the background in chunked transactions; duplicate requests are coalesced
+        return progressRecalculationService.submit(pathwayId);
     }
 }
@@ -6,6 +6,7 @@ import com.taashee.badger.repositories.UserInvitationRepository;
 import com.taashee.badger.repositories.OrganizationUserRepository;
 import com.taashee.badger.repositories.OrganizationStaffRepository;
 import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.services.TokenVersionService;
 import com.taashee.badger.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -29,6 +30,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private BadgeInstanceRepository badgeInstanceRepository;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
     @Override
     public User findByEmail(String email) {
         return userRepository.findByEmail(email).orElse(null);
@@ -67,5 +71,6 @@ public class UserServiceImpl implements UserService {
         badgeInstanceRepository.deleteByRecipientId(userId);
         // Finally delete the user
         userRepository.deleteById(userId);
+        tokenVersionService.evict(userId);
     }
 } 
\ No newline at end of file
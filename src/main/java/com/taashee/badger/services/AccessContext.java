@@ -0,0 +1,85 @@
+package com.taashee.badger.services;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Who the current request acts as: user id, application roles and the organizations the user
+ * is staff of, with their staff role. Organization ids are held in a sorted primitive array so
+ * membership checks never box or scan.
+ */
+public final class AccessContext {
+    private static final long[] NO_ORGANIZATIONS = new long[0];
+
+    private final Long userId;
+    private final String email;
+    private final Set<String> roles;
+    private final long[] organizationIds;
+    private final String[] staffRoles;
+    private final Long primaryOrganizationId;
+
+    AccessContext(Long userId, String email, Set<String> roles, OrganizationAccess organizations) {
+        this.userId = userId;
+        this.email = email;
+        this.roles = Set.copyOf(roles);
+        this.organizationIds = organizations != null ? organizations.ids : NO_ORGANIZATIONS;
+        this.staffRoles = organizations != null ? organizations.staffRoles : new String[0];
+        this.primaryOrganizationId = organizations != null ? organizations.primaryId : null;
+    }
+
+    /**
+     * Staff memberships of one user, sorted by organization id. Cached per user by AccessContextService.
+     */
+    static final class OrganizationAccess {
+        final long[] ids;
+        final String[] staffRoles;
+        final Long primaryId;
+
+        OrganizationAccess(long[] ids, String[] staffRoles, Long primaryId) {
+            this.ids = ids;
+            this.staffRoles = staffRoles;
+            this.primaryId = primaryId;
+        }
+    }
+
+    public Long userId() { return userId; }
+    public String email() { return email; }
+
+    /** Application roles without the ROLE_ prefix, e.g. ADMIN, ISSUER, USER */
+    public Set<String> roles() { return roles; }
+
+    public boolean hasRole(String role) { return roles.contains(role); }
+    public boolean isAdmin() { return roles.contains("ADMIN"); }
+    public boolean isIssuer() { return roles.contains("ISSUER"); }
+
+    public boolean hasOrganizations() { return organizationIds.length > 0; }
+
+    /** Ids of the organizations the user is staff of, sorted ascending */
+    public long[] organizationIds() { return organizationIds.clone(); }
+
+    /** The same ids boxed, for IN (:organizationIds) query parameters */
+    public List<Long> organizationIdList() { return Arrays.stream(organizationIds).boxed().toList(); }
+
+    /** The organization issuer-created badges default to: the user's first staff membership */
+    public Long primaryOrganizationId() { return primaryOrganizationId; }
+
+    public boolean isStaffOf(Long organizationId) {
+        return organizationId != null && Arrays.binarySearch(organizationIds, organizationId) >= 0;
+    }
+
+    /** Staff role in an organization, or null if the user is not staff of it */
+    public String staffRole(Long organizationId) {
+        if (organizationId == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(organizationIds, organizationId);
+        return index >= 0 ? staffRoles[index] : null;
+    }
+
+    /** Owner or admin staff of the organization */
+    public boolean isOrganizationOwner(Long organizationId) {
+        String staffRole = staffRole(organizationId);
+        return staffRole != null && (staffRole.equalsIgnoreCase("owner") || staffRole.equalsIgnoreCase("admin"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.configs.JwtPrincipal;
+import com.taashee.badger.models.OrganizationStaff;
+import com.taashee.badger.repositories.OrganizationStaffRepository;
+import com.taashee.badger.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the AccessContext of the current request once and keeps it on the request.
+ * Requests authenticated by JWT take their staff memberships from the token claims, which the
+ * filter has already checked against the user's token version. Other requests load them from
+ * the database, cached per user id with a TTL and dropped as soon as the user's token version
+ * moves, which happens on every OrganizationStaff change.
+ */
+@Service
+public class AccessContextService {
+    private static final String REQUEST_ATTRIBUTE = AccessContextService.class.getName() + ".context";
+
+    private final OrganizationStaffRepository organizationStaffRepository;
+    private final UserRepository userRepository;
+    private final TokenVersionService tokenVersionService;
+    private final long ttlNanos;
+    private final Map<Long, CachedAccess> organizationsByUser = new ConcurrentHashMap<>();
+
+    public AccessContextService(OrganizationStaffRepository organizationStaffRepository,
+                                UserRepository userRepository,
+                                TokenVersionService tokenVersionService,
+                                @Value("${app.accessContext.ttlMs:60000}") long ttlMs) {
+        this.organizationStaffRepository = organizationStaffRepository;
+        this.userRepository = userRepository;
+        this.tokenVersionService = tokenVersionService;
+        this.ttlNanos = ttlMs * 1_000_000L;
+    }
+
+    private record CachedAccess(AccessContext.OrganizationAccess access, long authVersion, long loadedAt) {
+    }
+
+    /**
+     * Access context of the authenticated user of the current request
+     */
+    public AccessContext current() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object cached = request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (cached instanceof AccessContext context) {
+                return context;
+            }
+        }
+        AccessContext context = build(SecurityContextHolder.getContext().getAuthentication());
+        if (request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, context, RequestAttributes.SCOPE_REQUEST);
+        }
+        return context;
+    }
+
+    public void evict(Long userId) {
+        organizationsByUser.remove(userId);
+    }
+
+    private AccessContext build(Authentication authentication) {
+        if (authentication == null) {
+            return new AccessContext(null, null, Set.of(), null);
+        }
+        Set<String> roles = new HashSet<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            roles.add(name.startsWith("ROLE_") ? name.substring(5) : name);
+        }
+        String email = authentication.getPrincipal() instanceof String principal ? principal : authentication.getName();
+
+        JwtPrincipal jwtPrincipal = JwtPrincipal.current();
+        if (jwtPrincipal != null) {
+            return new AccessContext(jwtPrincipal.userId(), email, roles, organizationAccess(jwtPrincipal.memberships()));
+        }
+        Long userId = userRepository.findByEmail(email).map(user -> user.getId()).orElse(null);
+        if (userId == null) {
+            return new AccessContext(null, email, roles, null);
+        }
+        return new AccessContext(userId, email, roles, organizationAccess(userId));
+    }
+
+    private static AccessContext.OrganizationAccess organizationAccess(List<JwtPrincipal.Membership> memberships) {
+        Long primaryId = memberships.isEmpty() ? null : memberships.get(0).organizationId();
+        JwtPrincipal.Membership[] sorted = memberships.toArray(new JwtPrincipal.Membership[0]);
+        Arrays.sort(sorted, Comparator.comparing(JwtPrincipal.Membership::organizationId));
+        long[] ids = new long[sorted.length];
+        String[] staffRoles = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = sorted[i].organizationId();
+            staffRoles[i] = sorted[i].staffRole();
+        }
+        return new AccessContext.OrganizationAccess(ids, staffRoles, primaryId);
+    }
+
+    private AccessContext.OrganizationAccess organizationAccess(Long userId) {
+        TokenVersionService.TokenState state = tokenVersionService.getState(userId);
+        long authVersion = state != null ? state.authVersion() : -1L;
+        long now = System.nanoTime();
+        CachedAccess cached = organizationsByUser.get(userId);
+        if (cached != null && cached.authVersion() == authVersion && now - cached.loadedAt() < ttlNanos) {
+            return cached.access();
+        }
+
+        List<OrganizationStaff> staffList = organizationStaffRepository.findByUserId(userId);
+        Long primaryId = staffList.isEmpty() ? null : staffList.get(0).getOrganization().getId();
+        OrganizationStaff[] sorted = staffList.toArray(new OrganizationStaff[0]);
+        Arrays.sort(sorted, Comparator.comparing(staff -> staff.getOrganization().getId()));
+        long[] ids = new long[sorted.length];
+        String[] staffRoles = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = sorted[i].getOrganization().getId();
+            staffRoles[i] = sorted[i].getStaffRole();
+        }
+        AccessContext.OrganizationAccess access = new AccessContext.OrganizationAccess(ids, staffRoles, primaryId);
+        organizationsByUser.put(userId, new CachedAccess(access, authVersion, now));
+        return access;
+    }
+}
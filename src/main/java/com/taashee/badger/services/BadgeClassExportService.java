@@ -0,0 +1,291 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.exceptions.ApiException;
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.repositories.BadgeClassRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming Open Badges export of a badge class and its assertions. Assertions are read
+ * through a forward-only JDBC cursor with the recipient joined in and written straight to
+ * the response, so memory stays flat regardless of the number of holders.
+ */
+@Service
+public class BadgeClassExportService {
+    private static final String OB2_CONTEXT = "https://w3id.org/openbadges/v2";
+
+    // Recipients are joined in the same cursor instead of being loaded lazily per assertion;
+    // the order follows idx_badge_instance_class_issued so the cursor does not wait on a full sort
+    private static final String ASSERTION_ROWS_SQL =
+            "SELECT bi.id, bi.recipient_identifier, bi.recipient_type, bi.issued_on, bi.expires_at, " +
+            "bi.revoked, bi.revocation_reason, u.email AS recipient_email " +
+            "FROM badge_instance bi LEFT JOIN users u ON u.id = bi.recipient_id " +
+            "WHERE bi.badge_class_id = ? ORDER BY bi.issued_on, bi.id";
+
+    private final BadgeClassRepository badgeClassRepository;
+    private final AccessContextService accessContextService;
+    private final PublicAssertionService publicAssertionService;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final String apiBaseUrl;
+
+    public BadgeClassExportService(BadgeClassRepository badgeClassRepository,
+                                   AccessContextService accessContextService,
+                                   PublicAssertionService publicAssertionService,
+                                   ObjectMapper objectMapper,
+                                   DataSource dataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.apiBaseUrl}") String apiBaseUrl,
+                                   @Value("${app.export.fetchSize:500}") int fetchSize) {
+        this.badgeClassRepository = badgeClassRepository;
+        this.accessContextService = accessContextService;
+        this.publicAssertionService = publicAssertionService;
+        this.objectMapper = objectMapper;
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only fetches in batches from a cursor inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.apiBaseUrl = apiBaseUrl;
+    }
+
+    public enum Format {
+        /** {"badgeClass": {..., "assertions": [...]}}, the same shape as the buffered export */
+        JSON("json", "application/json"),
+        /** The badge class on the first line, then one assertion per line */
+        NDJSON("ndjson", "application/x-ndjson");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+    }
+
+    public enum Compression {
+        NONE, GZIP, ZIP
+    }
+
+    /**
+     * A checked export, ready to be written. The badge class document is built up front so
+     * that access and lookup errors surface before the response is committed.
+     */
+    public record ExportPlan(Long badgeClassId, Map<String, Object> badgeClass, boolean includeAssertions,
+                             Format format, Compression compression) {
+        public String fileName() {
+            String base = "badge-class-" + badgeClassId + "." + format.extension;
+            switch (compression) {
+                case GZIP:
+                    return base + ".gz";
+                case ZIP:
+                    return "badge-class-" + badgeClassId + ".zip";
+                default:
+                    return base;
+            }
+        }
+
+        public String contentType() {
+            switch (compression) {
+                case GZIP:
+                    return "application/gzip";
+                case ZIP:
+                    return "application/zip";
+                default:
+                    return format.contentType;
+            }
+        }
+    }
+
+    public static Format parseFormat(String value) {
+        try {
+            return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Unsupported export format: " + value, 400);
+        }
+    }
+
+    public static Compression parseCompression(String value) {
+        try {
+            return Compression.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Unsupported compression: " + value, 400);
+        }
+    }
+
+    /**
+     * Looks up and access-checks the badge class. Must run on the request thread.
+     */
+    public ExportPlan plan(Long badgeClassId, boolean includeAssertions, Format format, Compression compression) {
+        // Access is checked on the owner projection before the entity and its text fields are loaded
+        Long organizationId = badgeClassRepository.findOwnerById(badgeClassId)
+                .orElseThrow(() -> new ApiException("Badge class not found", 404))
+                .getOrganizationId();
+        AccessContext access = accessContextService.current();
+        if (!access.isAdmin() && (organizationId == null || !access.isStaffOf(organizationId))) {
+            throw new ApiException("Badge class not found", 404);
+        }
+        BadgeClass badgeClass = badgeClassRepository.findById(badgeClassId)
+                .orElseThrow(() -> new ApiException("Badge class not found", 404));
+
+        Map<String, Object> badgeJson = new LinkedHashMap<>();
+        badgeJson.put("@context", OB2_CONTEXT);
+        badgeJson.put("type", "BadgeClass");
+        badgeJson.put("id", badgeUrl(badgeClassId));
+        badgeJson.put("name", badgeClass.getName());
+        badgeJson.put("description", badgeClass.getDescription());
+        if (badgeClass.getImage() != null && !badgeClass.getImage().startsWith("data:")) {
+            badgeJson.put("image", badgeClass.getImage().startsWith("/") ? apiBaseUrl + badgeClass.getImage() : badgeClass.getImage());
+        }
+        badgeJson.put("criteria", Map.of("narrative", badgeClass.getCriteriaText() != null ? badgeClass.getCriteriaText() : ""));
+        if (organizationId != null) {
+            badgeJson.put("issuer", publicAssertionService.issuerUrl(organizationId));
+        }
+        return new ExportPlan(badgeClassId, badgeJson, includeAssertions, format, compression);
+    }
+
+    /**
+     * Writes the export to the given stream, applying the planned compression.
+     * The stream is finished but not closed.
+     */
+    public void write(ExportPlan plan, OutputStream out) throws IOException {
+        switch (plan.compression()) {
+            case GZIP: {
+                GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+                writeDocument(plan, gzip);
+                gzip.finish();
+                break;
+            }
+            case ZIP: {
+                ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+                zip.putNextEntry(new ZipEntry("badge-class-" + plan.badgeClassId() + "." + plan.format().extension));
+                writeDocument(plan, zip);
+                zip.closeEntry();
+                zip.finish();
+                break;
+            }
+            default:
+                writeDocument(plan, out);
+        }
+        out.flush();
+    }
+
+    private void writeDocument(ExportPlan plan, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // The underlying stream is finished by the caller
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (plan.format() == Format.NDJSON) {
+            generator.writeObject(plan.badgeClass());
+            generator.writeRaw('\n');
+            if (plan.includeAssertions()) {
+                streamAssertions(plan.badgeClassId(), assertion -> {
+                    generator.writeObject(assertion);
+                    generator.writeRaw('\n');
+                });
+            }
+        } else {
+            generator.writeStartObject();
+            generator.writeFieldName("badgeClass");
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> field : plan.badgeClass().entrySet()) {
+                generator.writeObjectField(field.getKey(), field.getValue());
+            }
+            if (plan.includeAssertions()) {
+                generator.writeArrayFieldStart("assertions");
+                streamAssertions(plan.badgeClassId(), generator::writeObject);
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.flush();
+    }
+
+    private interface AssertionWriter {
+        void write(Map<String, Object> assertion) throws IOException;
+    }
+
+    private void streamAssertions(Long badgeClassId, AssertionWriter writer) {
+        String badgeUrl = badgeUrl(badgeClassId);
+        readOnlyTransaction.executeWithoutResult(status ->
+                cursorTemplate.query(ASSERTION_ROWS_SQL, (RowCallbackHandler) rs -> {
+                    try {
+                        writer.write(assertion(rs, badgeUrl));
+                    } catch (IOException e) {
+                        // Client went away; stop reading the cursor
+                        throw new UncheckedIOException(e);
+                    }
+                }, badgeClassId));
+    }
+
+    private Map<String, Object> assertion(ResultSet rs, String badgeUrl) throws SQLException {
+        Map<String, Object> assertion = new LinkedHashMap<>();
+        assertion.put("@context", OB2_CONTEXT);
+        assertion.put("type", "Assertion");
+        assertion.put("id", publicAssertionService.assertionUrl(rs.getLong("id")));
+
+        String identity = rs.getString("recipient_identifier");
+        if (identity == null) {
+            identity = rs.getString("recipient_email");
+        }
+        String recipientType = rs.getString("recipient_type");
+        Map<String, Object> recipient = new LinkedHashMap<>();
+        recipient.put("type", recipientType != null ? recipientType : "email");
+        recipient.put("hashed", false);
+        recipient.put("identity", identity);
+        assertion.put("recipient", recipient);
+
+        assertion.put("badge", badgeUrl);
+        assertion.put("issuedOn", isoDate(rs.getTimestamp("issued_on")));
+        Timestamp expiresAt = rs.getTimestamp("expires_at");
+        if (expiresAt != null) {
+            assertion.put("expires", isoDate(expiresAt));
+        }
+        assertion.put("verification", Map.of("type", "HostedBadge"));
+        if (rs.getBoolean("revoked")) {
+            assertion.put("revoked", true);
+            String reason = rs.getString("revocation_reason");
+            if (reason != null) {
+                assertion.put("revocationReason", reason);
+            }
+        }
+        return assertion;
+    }
+
+    private String badgeUrl(Long badgeClassId) {
+        return publicAssertionService.badgeClassUrl(badgeClassId);
+    }
+
+    private static String isoDate(Timestamp timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        return timestamp.toLocalDateTime().atZone(ZoneId.systemDefault()).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+}
@@ -4,6 +4,8 @@ import com.taashee.badger.models.BadgeClass;
 import com.taashee.badger.models.BadgeInstance;
 import com.taashee.badger.models.BadgeInstanceAwardRequest;
 import com.taashee.badger.models.BadgeClassDTO;
+import com.taashee.badger.models.BadgeClassSummaryDTO;
+import org.springframework.data.domain.Page;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +15,7 @@ public interface BadgeClassService {
     void deleteBadgeClass(Long id);
     Optional<BadgeClass> getBadgeClassById(Long id);
     List<BadgeClass> getAllBadgeClasses();
+    Page<BadgeClassSummaryDTO> getBadgeClassSummaries(int page, int size, String search);
     BadgeClass archiveBadgeClass(Long id, boolean archive);
     List<BadgeInstance> awardEnrollments(Long badgeClassId, java.util.List<com.taashee.badger.models.BadgeInstanceAwardRequest> requests);
     List<BadgeClass> bulkArchiveBadgeClasses(List<Long> ids, boolean archive);
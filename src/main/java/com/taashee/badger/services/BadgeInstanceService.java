@@ -20,6 +20,7 @@ public interface BadgeInstanceService {
     List<BadgeInstance> revokeBadgeInstances(List<Long> ids, String revocationReason);
     BadgeInstance revokeBadgeInstance(Long id, String revocationReason);
     Map<String, Object> getUserBadges(int page, int size, String search);
+    Map<String, Object> getUserBadgesByCursor(String cursor, int size, String search);
     BadgeInstance createBadgeInstanceFromDTO(BadgeInstanceDTO badgeInstanceDTO);
     BadgeInstance updateBadgeInstanceFromDTO(Long id, BadgeInstanceDTO badgeInstanceDTO);
     // Add more methods as needed (e.g., revoke, award, search, etc.)
@@ -0,0 +1,364 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.exceptions.ApiException;
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.models.BadgeInstanceAwardRequest;
+import com.taashee.badger.models.BadgeInstanceDTO;
+import com.taashee.badger.models.Evidence;
+import com.taashee.badger.models.Organization;
+import com.taashee.badger.repositories.BadgeClassRepository;
+import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.repositories.OrganizationRepository;
+import com.taashee.badger.repositories.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background issuance of one badge class to many recipients. Rows are written in chunked
+ * transactions: recipients of a chunk are resolved with one query, instances and their
+ * evidence are inserted in JDBC batches, and the outcome of every row is kept on the job.
+ * A chunk that fails is retried row by row, so only the offending rows are reported failed.
+ */
+@Service
+public class BulkIssuanceService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkIssuanceService.class);
+    private static final int MAX_RETAINED_JOBS = 50;
+
+    private final BadgeClassRepository badgeClassRepository;
+    private final BadgeInstanceRepository badgeInstanceRepository;
+    private final OrganizationRepository organizationRepository;
+    private final UserRepository userRepository;
+    private final AccessContextService accessContextService;
+    private final StatusListService statusListService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxRows;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bulk-issuance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Oldest finished jobs are dropped past the limit; queued and running jobs are always kept
+    private final Map<String, IssuanceJob> jobs = Collections.synchronizedMap(
+        new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IssuanceJob> eldest) {
+                if (size() > MAX_RETAINED_JOBS) {
+                    values().stream()
+                        .filter(job -> job.status == JobStatus.COMPLETED || job.status == JobStatus.FAILED)
+                        .findFirst()
+                        .ifPresent(job -> remove(job.jobId));
+                }
+                return false;
+            }
+        });
+
+    public BulkIssuanceService(BadgeClassRepository badgeClassRepository,
+                               BadgeInstanceRepository badgeInstanceRepository,
+                               OrganizationRepository organizationRepository,
+                               UserRepository userRepository,
+                               AccessContextService accessContextService,
+                               StatusListService statusListService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.bulkIssuance.chunkSize:500}") int chunkSize,
+                               @Value("${app.bulkIssuance.maxRows:20000}") int maxRows) {
+        this.badgeClassRepository = badgeClassRepository;
+        this.badgeInstanceRepository = badgeInstanceRepository;
+        this.organizationRepository = organizationRepository;
+        this.userRepository = userRepository;
+        this.accessContextService = accessContextService;
+        this.statusListService = statusListService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Outcome of one request row; row is the row's position in the submitted list
+     */
+    public record RowResult(int row, String recipient, boolean success, Long badgeInstanceId, String error) {
+    }
+
+    /**
+     * Status of one bulk issuance, exposed through the job status endpoint
+     */
+    public static class IssuanceJob {
+        private final String jobId = UUID.randomUUID().toString();
+        private final Long badgeClassId;
+        private final int totalRows;
+        private final LocalDateTime requestedAt = LocalDateTime.now();
+        private final List<RowResult> results;
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile int issuedRows;
+        private volatile int failedRows;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        IssuanceJob(Long badgeClassId, int totalRows) {
+            this.badgeClassId = badgeClassId;
+            this.totalRows = totalRows;
+            this.results = Collections.synchronizedList(new ArrayList<>(totalRows));
+        }
+
+        public String getJobId() { return jobId; }
+        public Long getBadgeClassId() { return badgeClassId; }
+        public int getTotalRows() { return totalRows; }
+        public int getProcessedRows() { return issuedRows + failedRows; }
+        public int getIssuedRows() { return issuedRows; }
+        public int getFailedRows() { return failedRows; }
+        public LocalDateTime getRequestedAt() { return requestedAt; }
+        public JobStatus getStatus() { return status; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getError() { return error; }
+
+        public List<RowResult> getResults() {
+            synchronized (results) {
+                return new ArrayList<>(results);
+            }
+        }
+
+        private void record(RowResult result) {
+            results.add(result);
+            if (result.success()) {
+                issuedRows++;
+            } else {
+                failedRows++;
+            }
+        }
+    }
+
+    /**
+     * Checks access to the badge class and queues the issuance. Must run on the request thread.
+     */
+    public IssuanceJob submit(Long badgeClassId, List<BadgeInstanceAwardRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ApiException("No award requests given", 400);
+        }
+        if (requests.size() > maxRows) {
+            throw new ApiException("At most " + maxRows + " awards can be issued in one job", 400);
+        }
+        BadgeClass badgeClass = badgeClassRepository.findById(badgeClassId)
+            .orElseThrow(() -> new ApiException("Badge class not found", 404));
+        AccessContext access = accessContextService.current();
+        Long organizationId = badgeClass.getOrganization() != null ? badgeClass.getOrganization().getId() : null;
+        if (!access.isAdmin() && (organizationId == null || !access.isStaffOf(organizationId))) {
+            throw new ApiException("Badge class not found", 404);
+        }
+
+        IssuanceJob job = new IssuanceJob(badgeClassId, requests.size());
+        jobs.put(job.jobId, job);
+        List<BadgeInstanceAwardRequest> rows = List.copyOf(requests);
+        executor.submit(() -> run(job, organizationId, rows));
+        return job;
+    }
+
+    public IssuanceJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void run(IssuanceJob job, Long organizationId, List<BadgeInstanceAwardRequest> rows) {
+        job.startedAt = LocalDateTime.now();
+        job.status = JobStatus.RUNNING;
+        try {
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                int start = from;
+                List<BadgeInstanceAwardRequest> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+                try {
+                    List<RowResult> results = transactionTemplate.execute(status ->
+                        issueChunk(job.badgeClassId, organizationId, chunk, start));
+                    results.forEach(job::record);
+                } catch (RuntimeException e) {
+                    // The chunk was rolled back as a whole; retry its rows one by one so only the bad ones fail
+                    logger.warn("Bulk issuance chunk at row {} of job {} failed, retrying its rows one by one: {}",
+                        start, job.jobId, e.getMessage());
+                    for (int i = 0; i < chunk.size(); i++) {
+                        job.record(issueRow(job, organizationId, chunk.get(i), start + i));
+                    }
+                }
+            }
+            job.status = JobStatus.COMPLETED;
+        } catch (RuntimeException e) {
+            logger.error("Bulk issuance job {} failed", job.jobId, e);
+            job.status = JobStatus.FAILED;
+            job.error = e.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private RowResult issueRow(IssuanceJob job, Long organizationId, BadgeInstanceAwardRequest request, int row) {
+        try {
+            return transactionTemplate.execute(status ->
+                issueChunk(job.badgeClassId, organizationId, List.of(request), row)).get(0);
+        } catch (RuntimeException e) {
+            logger.debug("Bulk issuance row {} of job {} failed: {}", row, job.jobId, e.getMessage());
+            return new RowResult(row, recipientOf(request), false, null, e.getMessage());
+        }
+    }
+
+    private List<RowResult> issueChunk(Long badgeClassId, Long organizationId,
+                                       List<BadgeInstanceAwardRequest> chunk, int firstRow) {
+        // References only: the instances need the foreign keys, not the loaded rows
+        BadgeClass badgeClass = badgeClassRepository.getReferenceById(badgeClassId);
+        Organization organization = organizationId != null ? organizationRepository.getReferenceById(organizationId) : null;
+        Map<String, Long> userIdsByEmail = resolveRecipients(chunk);
+        Set<String> holderIdentifiers = new HashSet<>();
+        Set<Long> holderIds = new HashSet<>();
+        findHolders(badgeClassId, chunk, userIdsByEmail, holderIdentifiers, holderIds);
+        Set<String> seen = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<RowResult> results = new ArrayList<>(chunk.size());
+        List<BadgeInstance> instances = new ArrayList<>(chunk.size());
+        List<Integer> instanceRows = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            BadgeInstanceAwardRequest request = chunk.get(i);
+            String recipient = recipientOf(request);
+            if (recipient == null) {
+                results.add(new RowResult(firstRow + i, null, false, null, "Recipient identifier is required"));
+                continue;
+            }
+
+            String key = recipient.toLowerCase(Locale.ROOT);
+            Long userId = userIdsByEmail.get(key);
+            if (holderIdentifiers.contains(key) || (userId != null && holderIds.contains(userId))) {
+                results.add(new RowResult(firstRow + i, recipient, false, null, "Recipient already holds this badge"));
+                continue;
+            }
+            if (!seen.add(key)) {
+                results.add(new RowResult(firstRow + i, recipient, false, null, "Recipient is listed more than once"));
+                continue;
+            }
+
+            BadgeInstance instance = new BadgeInstance();
+            instance.setBadgeClass(badgeClass);
+            instance.setOrganization(organization);
+            if (userId != null) {
+                instance.setRecipient(userRepository.getReferenceById(userId));
+            }
+            instance.setRecipientIdentifier(recipient);
+            instance.setRecipientType(request.getRecipientType() != null ? request.getRecipientType() : "email");
+            instance.setAwardType(request.getAwardType());
+            instance.setNarrative(request.getNarrative());
+            instance.setIssuedOn(now);
+            instance.setStatus(BadgeInstance.Status.ACTIVE);
+            instance.setEvidenceItems(evidence(instance, request.getEvidenceItems()));
+            instances.add(instance);
+            instanceRows.add(i);
+        }
+
+        statusListService.sync(instances);
+        // Sequence ids are allocated up front, so the inserts (and cascaded evidence) go out in batches
+        badgeInstanceRepository.saveAll(instances);
+        badgeInstanceRepository.flush();
+
+        for (int i = 0; i < instances.size(); i++) {
+            int row = instanceRows.get(i);
+            results.add(new RowResult(firstRow + row, recipientOf(chunk.get(row)), true, instances.get(i).getId(), null));
+        }
+        results.sort((a, b) -> Integer.compare(a.row(), b.row()));
+        return results;
+    }
+
+    // Recipients of the chunk that already hold an active instance, matched by identifier or by user
+    private void findHolders(Long badgeClassId, List<BadgeInstanceAwardRequest> chunk, Map<String, Long> userIdsByEmail,
+                             Set<String> holderIdentifiers, Set<Long> holderIds) {
+        Set<String> identifiers = new HashSet<>();
+        for (BadgeInstanceAwardRequest request : chunk) {
+            String recipient = recipientOf(request);
+            if (recipient != null) {
+                identifiers.add(recipient.toLowerCase(Locale.ROOT));
+            }
+        }
+        if (!identifiers.isEmpty()) {
+            holderIdentifiers.addAll(badgeInstanceRepository.findActiveRecipientIdentifiers(badgeClassId, identifiers));
+        }
+        if (!userIdsByEmail.isEmpty()) {
+            holderIds.addAll(badgeInstanceRepository.findActiveRecipientIds(badgeClassId, userIdsByEmail.values()));
+        }
+    }
+
+    private Map<String, Long> resolveRecipients(List<BadgeInstanceAwardRequest> chunk) {
+        Set<String> emails = new HashSet<>();
+        for (BadgeInstanceAwardRequest request : chunk) {
+            String recipient = recipientOf(request);
+            if (recipient != null && isEmailRecipient(request)) {
+                // Both spellings, so the lookup can stay on the unique email index
+                emails.add(recipient);
+                emails.add(recipient.toLowerCase(Locale.ROOT));
+            }
+        }
+        Map<String, Long> userIdsByEmail = new HashMap<>();
+        if (!emails.isEmpty()) {
+            for (UserRepository.RecipientRow row : userRepository.findRecipientsByEmails(emails)) {
+                userIdsByEmail.put(row.getEmail().toLowerCase(Locale.ROOT), row.getId());
+            }
+        }
+        return userIdsByEmail;
+    }
+
+    private static List<Evidence> evidence(BadgeInstance instance, List<BadgeInstanceDTO.EvidenceDTO> items) {
+        List<Evidence> evidence = new ArrayList<>();
+        if (items == null) {
+            return evidence;
+        }
+        for (BadgeInstanceDTO.EvidenceDTO item : items) {
+            if (item == null || (isBlank(item.url) && isBlank(item.narrative))) {
+                continue;
+            }
+            Evidence row = new Evidence();
+            row.setBadgeInstance(instance);
+            row.setEvidenceUrl(item.url);
+            row.setNarrative(item.narrative);
+            row.setName(item.name);
+            row.setDescription(item.description);
+            evidence.add(row);
+        }
+        return evidence;
+    }
+
+    private static String recipientOf(BadgeInstanceAwardRequest request) {
+        String recipient = !isBlank(request.getRecipientIdentifier()) ? request.getRecipientIdentifier() : request.getEmail();
+        return isBlank(recipient) ? null : recipient.trim();
+    }
+
+    private static boolean isEmailRecipient(BadgeInstanceAwardRequest request) {
+        return request.getRecipientType() == null || "email".equalsIgnoreCase(request.getRecipientType());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
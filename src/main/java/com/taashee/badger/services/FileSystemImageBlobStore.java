@@ -0,0 +1,72 @@
+package com.taashee.badger.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * ImageBlobStore on the local filesystem, one file per blob under a two-character
+ * shard directory (ab/abcdef...). Files are written to a temp file and moved into place,
+ * so readers never see a partially written blob.
+ */
+@Service
+@ConditionalOnProperty(name = "app.images.store", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemImageBlobStore implements ImageBlobStore {
+    private final Path root;
+
+    public FileSystemImageBlobStore(@Value("${app.images.storageDir:data/images}") String storageDir) {
+        this.root = Paths.get(storageDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String hash, byte[] data) {
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            return;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try {
+                Files.write(temp, data);
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store image " + hash, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.exists(pathOf(hash));
+    }
+
+    @Override
+    public Resource load(String hash) {
+        Path path = pathOf(hash);
+        return Files.isReadable(path) ? new FileSystemResource(path) : null;
+    }
+
+    private Path pathOf(String hash) {
+        if (!ImageStorageService.isHash(hash)) {
+            throw new IllegalArgumentException("Invalid image hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
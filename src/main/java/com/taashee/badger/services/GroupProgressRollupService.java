@@ -0,0 +1,211 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.GroupMember;
+import com.taashee.badger.models.GroupProgressMember;
+import com.taashee.badger.models.GroupProgressRollup;
+import com.taashee.badger.models.User;
+import com.taashee.badger.repositories.GroupMemberRepository;
+import com.taashee.badger.repositories.GroupProgressMemberRepository;
+import com.taashee.badger.repositories.GroupProgressRollupRepository;
+import com.taashee.badger.repositories.PathwayGroupSubscriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the per (group, pathway) progress rollups read by the group dashboard.
+ * Each member has their own entry row; the rollup only holds aggregate counters, which
+ * a completion moves by that member's delta.
+ */
+@Service
+public class GroupProgressRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(GroupProgressRollupService.class);
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private static final String UPSERT_MEMBER_SQL =
+            "INSERT INTO group_progress_member (group_id, pathway_id, user_id, progress_percentage, completed_steps, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (group_id, pathway_id, user_id) DO UPDATE SET " +
+            "progress_percentage = EXCLUDED.progress_percentage, completed_steps = EXCLUDED.completed_steps, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final GroupProgressRollupRepository rollupRepository;
+    private final GroupProgressMemberRepository memberRepository;
+    private final GroupMemberRepository groupMemberRepository;
+    private final PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository;
+    private final PathwayProgressEngine progressEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public GroupProgressRollupService(GroupProgressRollupRepository rollupRepository,
+                                      GroupProgressMemberRepository memberRepository,
+                                      GroupMemberRepository groupMemberRepository,
+                                      PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository,
+                                      PathwayProgressEngine progressEngine,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.memberRepository = memberRepository;
+        this.groupMemberRepository = groupMemberRepository;
+        this.pathwayGroupSubscriptionRepository = pathwayGroupSubscriptionRepository;
+        this.progressEngine = progressEngine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Progress entry of a single group member, as shown on the dashboard
+     */
+    public record MemberProgress(Long userId, String userName, String userEmail,
+                                 int progressPercentage, int completedSteps) {
+    }
+
+    /**
+     * Returns the dashboard summary for a group on a pathway, building the rollup on first access.
+     */
+    @Transactional
+    public Map<String, Object> getSummary(Long groupId, Long pathwayId) {
+        GroupProgressRollup rollup = rollupRepository.findByGroupIdAndPathwayId(groupId, pathwayId)
+                .orElseGet(() -> rebuild(groupId, pathwayId));
+
+        List<MemberProgress> members = memberRepository.findMemberRows(groupId, pathwayId).stream()
+                .map(row -> new MemberProgress(row.getUserId(), row.getFirstName() + " " + row.getLastName(),
+                        row.getEmail(), row.getProgressPercentage(), row.getCompletedSteps()))
+                .collect(Collectors.toList());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("overallProgress", rollup.getOverallProgress());
+        result.put("totalMembers", rollup.getTotalMembers());
+        result.put("completedSteps", rollup.getCompletedSteps());
+        result.put("totalSteps", rollup.getTotalSteps());
+        result.put("memberProgress", members);
+        return result;
+    }
+
+    /**
+     * Applies one learner's new step counts to the rollup of their group.
+     * Only that member's row is locked and rewritten; the totals move by the member's delta
+     * in a single UPDATE. The rollup is built from scratch if missing.
+     */
+    @Transactional
+    public void applyMemberProgress(Long groupId, Long pathwayId, User user, PathwayProgressEngine.StepCounts counts) {
+        if (!rollupRepository.existsByGroupIdAndPathwayId(groupId, pathwayId)) {
+            rebuild(groupId, pathwayId);
+            return;
+        }
+
+        boolean added = memberRepository.insertIfAbsent(groupId, pathwayId, user.getId()) > 0;
+        GroupProgressMember member = memberRepository.findForUpdate(groupId, pathwayId, user.getId())
+                .orElseThrow(() -> new IllegalStateException("Rollup entry missing for user " + user.getId()
+                        + " group " + groupId + " pathway " + pathwayId));
+        int percent = counts.percent();
+        int completedSteps = (int) counts.completedSteps();
+        int progressDelta = percent - member.getProgressPercentage();
+        int completedDelta = completedSteps - member.getCompletedSteps();
+        member.setProgressPercentage(percent);
+        member.setCompletedSteps(completedSteps);
+        memberRepository.save(member);
+
+        int updated = rollupRepository.addMemberDelta(groupId, pathwayId, added ? 1 : 0,
+                completedDelta, progressDelta, (int) counts.totalSteps());
+        if (updated == 0) {
+            // The rollup was dropped since the check above, e.g. by a membership change
+            rebuild(groupId, pathwayId);
+        }
+    }
+
+    /**
+     * Recomputes the rollup of a group on a pathway from step progress. Used for backfill and drift repair.
+     */
+    @Transactional
+    public GroupProgressRollup rebuild(Long groupId, Long pathwayId) {
+        List<GroupMember> groupMembers = groupMemberRepository.findByGroupIdWithUser(groupId);
+        List<Long> memberIds = groupMembers.stream()
+                .map(member -> member.getUser().getId())
+                .collect(Collectors.toList());
+        Map<Long, PathwayProgressEngine.StepCounts> countsByUser =
+                progressEngine.countStepsForUsers(pathwayId, groupId, memberIds);
+
+        List<MemberProgress> members = new ArrayList<>();
+        int totalSteps = 0;
+        for (GroupMember member : groupMembers) {
+            PathwayProgressEngine.StepCounts counts = countsByUser.getOrDefault(
+                    member.getUser().getId(), PathwayProgressEngine.StepCounts.EMPTY);
+            totalSteps = (int) counts.totalSteps();
+            members.add(toMemberProgress(member.getUser(), counts));
+        }
+
+        // Entries are replaced first and the rollup locked last, the same order applyMemberProgress takes its locks
+        memberRepository.deleteByGroupIdAndPathwayId(groupId, pathwayId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < members.size(); from += REBUILD_BATCH_SIZE) {
+            List<MemberProgress> batch = members.subList(from, Math.min(from + REBUILD_BATCH_SIZE, members.size()));
+            jdbcTemplate.batchUpdate(UPSERT_MEMBER_SQL, batch, batch.size(), (ps, member) -> {
+                ps.setLong(1, groupId);
+                ps.setLong(2, pathwayId);
+                ps.setLong(3, member.userId());
+                ps.setInt(4, member.progressPercentage());
+                ps.setInt(5, member.completedSteps());
+                ps.setTimestamp(6, now);
+            });
+        }
+
+        // Insert-or-skip, then lock the row, so a concurrent first update waits instead of failing on the unique key
+        rollupRepository.insertIfAbsent(groupId, pathwayId);
+        GroupProgressRollup rollup = rollupRepository.findForUpdate(groupId, pathwayId)
+                .orElseThrow(() -> new IllegalStateException("Rollup missing for group " + groupId + " pathway " + pathwayId));
+        rollup.setTotalSteps(totalSteps);
+        applyTotals(rollup, members);
+        return rollupRepository.save(rollup);
+    }
+
+    /**
+     * Rebuilds the rollup of every group/pathway subscription, each in its own transaction.
+     */
+    @Scheduled(cron = "${app.progressRollup.rebuildCron:0 30 2 * * *}")
+    public int rebuildAll() {
+        int rebuilt = 0;
+        for (PathwayGroupSubscriptionRepository.SubscriptionKey key : pathwayGroupSubscriptionRepository.findAllKeys()) {
+            Long groupId = key.getGroupId();
+            Long pathwayId = key.getPathwayId();
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebuild(groupId, pathwayId));
+                rebuilt++;
+            } catch (RuntimeException e) {
+                logger.warn("Failed to rebuild progress rollup for group {} pathway {}: {}", groupId, pathwayId, e.getMessage());
+            }
+        }
+        return rebuilt;
+    }
+
+    private MemberProgress toMemberProgress(User user, PathwayProgressEngine.StepCounts counts) {
+        return new MemberProgress(
+                user.getId(),
+                user.getFirstName() + " " + user.getLastName(),
+                user.getEmail(),
+                counts.percent(),
+                (int) counts.completedSteps());
+    }
+
+    private void applyTotals(GroupProgressRollup rollup, List<MemberProgress> members) {
+        int progressSum = members.stream().mapToInt(MemberProgress::progressPercentage).sum();
+        int completedSteps = members.stream().mapToInt(MemberProgress::completedSteps).sum();
+        rollup.setTotalMembers(members.size());
+        rollup.setCompletedSteps(completedSteps);
+        rollup.setProgressSum(progressSum);
+        rollup.setOverallProgress(members.isEmpty() ? 0 : Math.round((float) progressSum / members.size()));
+    }
+}
@@ -0,0 +1,22 @@
+package com.taashee.badger.services;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Storage of image bytes keyed by the hex SHA-256 of their content. Writes are idempotent:
+ * putting bytes under a hash that already exists is a no-op. The local filesystem store is
+ * used unless another implementation (e.g. an S3-compatible store) is configured through
+ * app.images.store.
+ */
+public interface ImageBlobStore {
+
+    void put(String hash, byte[] data);
+
+    boolean exists(String hash);
+
+    /**
+     * The stored bytes as a readable resource, or null if nothing is stored under the hash.
+     * The resource must report its content length so range requests can be served.
+     */
+    Resource load(String hash);
+}
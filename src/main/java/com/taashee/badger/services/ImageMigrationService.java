@@ -0,0 +1,157 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.repositories.BadgeClassRepository;
+import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.repositories.ImageBlobRepository;
+import com.taashee.badger.repositories.OrganizationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * Background job moving images still stored inline as data URLs on badge classes,
+ * badge instances and organizations into the image blob store. Rows are read in
+ * id-ordered chunks and each chunk is updated in its own transaction.
+ */
+@Service
+public class ImageMigrationService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageMigrationService.class);
+
+    private final BadgeClassRepository badgeClassRepository;
+    private final BadgeInstanceRepository badgeInstanceRepository;
+    private final OrganizationRepository organizationRepository;
+    private final ImageStorageService imageStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    // Proxy of this service, so run goes through @Async
+    private final ImageMigrationService self;
+
+    private volatile MigrationJob latestJob;
+
+    public ImageMigrationService(BadgeClassRepository badgeClassRepository,
+                                 BadgeInstanceRepository badgeInstanceRepository,
+                                 OrganizationRepository organizationRepository,
+                                 ImageStorageService imageStorageService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.images.migrationChunkSize:50}") int chunkSize,
+                                 @Lazy ImageMigrationService self) {
+        this.badgeClassRepository = badgeClassRepository;
+        this.badgeInstanceRepository = badgeInstanceRepository;
+        this.organizationRepository = organizationRepository;
+        this.imageStorageService = imageStorageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.self = self;
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    public static class MigrationJob {
+        private final String jobId = UUID.randomUUID().toString();
+        private final LocalDateTime requestedAt = LocalDateTime.now();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile long badgeClasses;
+        private volatile long badgeInstances;
+        private volatile long organizations;
+        private volatile long skipped;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        public String getJobId() { return jobId; }
+        public LocalDateTime getRequestedAt() { return requestedAt; }
+        public JobStatus getStatus() { return status; }
+        public long getBadgeClasses() { return badgeClasses; }
+        public long getBadgeInstances() { return badgeInstances; }
+        public long getOrganizations() { return organizations; }
+        public long getSkipped() { return skipped; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getError() { return error; }
+    }
+
+    /**
+     * Starts a migration, or returns the one that is already queued or running
+     */
+    public synchronized MigrationJob start() {
+        MigrationJob active = latestJob;
+        if (active != null && (active.status == JobStatus.QUEUED || active.status == JobStatus.RUNNING)) {
+            return active;
+        }
+        MigrationJob job = new MigrationJob();
+        latestJob = job;
+        self.run(job);
+        return job;
+    }
+
+    public MigrationJob getLatestJob() {
+        return latestJob;
+    }
+
+    /**
+     * Runs a job started by {@link #start()} on the async executor
+     */
+    @Async
+    public void run(MigrationJob job) {
+        job.startedAt = LocalDateTime.now();
+        job.status = JobStatus.RUNNING;
+        try {
+            job.badgeClasses = migrate(job, badgeClassRepository::findInlineImages, badgeClassRepository::moveImageToBlob);
+            job.badgeInstances = migrate(job, badgeInstanceRepository::findInlineImages, badgeInstanceRepository::moveImageToBlob);
+            job.organizations = migrate(job, organizationRepository::findInlineImages, organizationRepository::moveImageToBlob);
+            job.status = JobStatus.COMPLETED;
+            logger.info("Image migration finished: {} badge classes, {} badge instances, {} organizations, {} skipped",
+                job.badgeClasses, job.badgeInstances, job.organizations, job.skipped);
+        } catch (RuntimeException e) {
+            logger.error("Image migration failed", e);
+            job.status = JobStatus.FAILED;
+            job.error = e.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private long migrate(MigrationJob job,
+                         BiFunction<Long, Pageable, List<ImageBlobRepository.InlineImageRow>> loader,
+                         BiFunction<Long, String, Integer> mover) {
+        long moved = 0;
+        long afterId = 0L;
+        while (true) {
+            List<ImageBlobRepository.InlineImageRow> rows = loader.apply(afterId, PageRequest.of(0, chunkSize));
+            if (rows.isEmpty()) {
+                return moved;
+            }
+            // Blobs are written first; a row only points at its blob once the bytes are stored
+            Map<Long, String> hashes = new LinkedHashMap<>();
+            for (ImageBlobRepository.InlineImageRow row : rows) {
+                String hash = imageStorageService.storeDataUrl(row.getImage());
+                if (hash != null) {
+                    hashes.put(row.getId(), hash);
+                } else {
+                    job.skipped++;
+                }
+            }
+            Integer updated = transactionTemplate.execute(status -> hashes.entrySet().stream()
+                .mapToInt(entry -> mover.apply(entry.getKey(), entry.getValue()))
+                .sum());
+            moved += updated != null ? updated : 0;
+            afterId = rows.get(rows.size() - 1).getId();
+        }
+    }
+}
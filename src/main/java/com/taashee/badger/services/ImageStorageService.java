@@ -0,0 +1,130 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.ImageBlob;
+import com.taashee.badger.repositories.ImageBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Moves inline (data URL) images into the content-addressed ImageBlobStore and resolves
+ * image values sent by clients into a blob hash or an external URL.
+ */
+@Service
+public class ImageStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final ImageBlobStore blobStore;
+    private final ImageBlobRepository imageBlobRepository;
+
+    public ImageStorageService(ImageBlobStore blobStore, ImageBlobRepository imageBlobRepository) {
+        this.blobStore = blobStore;
+        this.imageBlobRepository = imageBlobRepository;
+    }
+
+    /**
+     * What an entity keeps for an image: either the hash of a stored blob or, for images
+     * hosted elsewhere, the original value. Exactly one of them is set for a non-empty image.
+     */
+    public record ImageRef(String hash, String externalUrl) {
+    }
+
+    public record StoredImage(ImageBlob blob, Resource content) {
+    }
+
+    public static boolean isHash(String value) {
+        return value != null && HASH.matcher(value).matches();
+    }
+
+    /**
+     * Resolves an image value from a request. Data URLs are stored as blobs, and URLs of
+     * already stored blobs (e.g. sent back unchanged on update) map to their hash.
+     */
+    public ImageRef resolve(String image) {
+        if (image == null || image.isBlank()) {
+            return new ImageRef(null, image);
+        }
+        if (image.startsWith("data:")) {
+            String hash = storeDataUrl(image);
+            return hash != null ? new ImageRef(hash, null) : new ImageRef(null, image);
+        }
+        int prefix = image.lastIndexOf(ImageBlob.URL_PREFIX);
+        if (prefix >= 0) {
+            String candidate = image.substring(prefix + ImageBlob.URL_PREFIX.length());
+            int query = candidate.indexOf('?');
+            if (query >= 0) {
+                candidate = candidate.substring(0, query);
+            }
+            if (isHash(candidate) && imageBlobRepository.existsById(candidate)) {
+                return new ImageRef(candidate, null);
+            }
+        }
+        return new ImageRef(null, image);
+    }
+
+    /**
+     * Stores the image of a data URL and returns its hash, or null if the value is not a
+     * well-formed image data URL (such values are left where they are).
+     */
+    public String storeDataUrl(String dataUrl) {
+        int comma = dataUrl.indexOf(',');
+        if (!dataUrl.startsWith("data:") || comma < 0) {
+            return null;
+        }
+        String meta = dataUrl.substring("data:".length(), comma);
+        boolean base64 = meta.endsWith(";base64");
+        String contentType = (base64 ? meta.substring(0, meta.length() - ";base64".length()) : meta)
+            .split(";")[0].trim().toLowerCase();
+        if (!contentType.startsWith("image/")) {
+            return null;
+        }
+        String payload = dataUrl.substring(comma + 1);
+        byte[] data;
+        try {
+            data = base64
+                ? Base64.getMimeDecoder().decode(payload)
+                : URLDecoder.decode(payload, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed image data URL ({} chars)", dataUrl.length());
+            return null;
+        }
+        return store(data, contentType);
+    }
+
+    public String store(byte[] data, String contentType) {
+        String hash = sha256(data);
+        blobStore.put(hash, data);
+        imageBlobRepository.insertIfAbsent(hash, contentType, data.length);
+        return hash;
+    }
+
+    public Optional<StoredImage> find(String hash) {
+        return imageBlobRepository.findById(hash).flatMap(blob -> {
+            Resource content = blobStore.load(hash);
+            if (content == null) {
+                logger.warn("Image blob {} has metadata but no stored content", hash);
+                return Optional.empty();
+            }
+            return Optional.of(new StoredImage(blob, content));
+        });
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -26,6 +26,8 @@ public class PasswordResetService {
     private JavaMailSender mailSender;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private TokenVersionService tokenVersionService;
 
     @Value("${app.resetPassword.expiryMinutes:30}")
     private int expiryMinutes;
@@ -73,5 +75,7 @@ public class PasswordResetService {
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
         tokenRepository.deleteByUser(user);
+        // Sessions signed in with the old password must not survive the reset
+        tokenVersionService.revokeTokens(user.getId());
     }
 } 
\ No newline at end of file
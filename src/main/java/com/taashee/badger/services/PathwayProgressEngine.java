@@ -0,0 +1,343 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.PathwayProgress;
+import com.taashee.badger.models.StepProgress;
+import com.taashee.badger.repositories.PathwayGroupSubscriptionRepository;
+import com.taashee.badger.repositories.PathwayProgressRepository;
+import com.taashee.badger.repositories.PathwayVersionRepository;
+import com.taashee.badger.repositories.StepProgressRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes completed/total required step counts and unlocked steps from per-learner
+ * completion bitsets stored on PathwayProgress. Bit i is the step at position i of the
+ * manifest of the pathway version the learner's group is pinned to, so reads are
+ * popcounts and masks over one progress row instead of step progress queries.
+ * Reads never touch step progress: a row without bits for the resolved version counts as
+ * nothing completed until the write path or a recalculation rebuilds it.
+ */
+@Service
+public class PathwayProgressEngine {
+    private final StepProgressRepository stepProgressRepository;
+    private final PathwayProgressRepository pathwayProgressRepository;
+    private final PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository;
+    private final PathwayVersionRepository pathwayVersionRepository;
+    private final StepManifestCache stepManifestCache;
+    private final PrerequisiteGraphCache prerequisiteGraphCache;
+
+    public PathwayProgressEngine(StepProgressRepository stepProgressRepository,
+                                 PathwayProgressRepository pathwayProgressRepository,
+                                 PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository,
+                                 PathwayVersionRepository pathwayVersionRepository,
+                                 StepManifestCache stepManifestCache,
+                                 PrerequisiteGraphCache prerequisiteGraphCache) {
+        this.stepProgressRepository = stepProgressRepository;
+        this.pathwayProgressRepository = pathwayProgressRepository;
+        this.pathwayGroupSubscriptionRepository = pathwayGroupSubscriptionRepository;
+        this.pathwayVersionRepository = pathwayVersionRepository;
+        this.stepManifestCache = stepManifestCache;
+        this.prerequisiteGraphCache = prerequisiteGraphCache;
+    }
+
+    /**
+     * Completed and total non-optional step counts for a learner
+     */
+    public record StepCounts(long completedSteps, long totalSteps) {
+        public static final StepCounts EMPTY = new StepCounts(0, 0);
+
+        public int percent() {
+            if (totalSteps == 0) {
+                return 100; // If no non-optional steps, consider it 100% complete
+            }
+            return (int) Math.round((double) completedSteps / totalSteps * 100);
+        }
+
+        public boolean isCompleted() {
+            return percent() == 100;
+        }
+    }
+
+    /**
+     * Counts for a single (pathway, user, group), read from the learner's completion bitset
+     */
+    public StepCounts countSteps(Long pathwayId, Long userId, Long groupId) {
+        StepManifestCache.StepManifest manifest = resolveManifests(Map.of(pathwayId, groupId)).get(pathwayId);
+        if (manifest == null) {
+            return StepCounts.EMPTY;
+        }
+        PathwayProgress progress = pathwayProgressRepository
+            .findByPathwayIdAndUserIdAndGroupId(pathwayId, userId, groupId).orElse(null);
+        return toCounts(manifest, readBitsOrEmpty(progress, manifest));
+    }
+
+    /**
+     * Counts for many users of one group on the same pathway, read from one batch of progress rows
+     */
+    public Map<Long, StepCounts> countStepsForUsers(Long pathwayId, Long groupId, Collection<Long> userIds) {
+        Map<Long, StepCounts> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+
+        StepManifestCache.StepManifest manifest = resolveManifests(Map.of(pathwayId, groupId)).get(pathwayId);
+        if (manifest == null) {
+            for (Long userId : userIds) {
+                result.put(userId, StepCounts.EMPTY);
+            }
+            return result;
+        }
+
+        Map<Long, BitSet> bitsByUser = new HashMap<>();
+        for (PathwayProgress progress : pathwayProgressRepository
+                .findByPathwayIdAndGroupIdAndUserIdIn(pathwayId, groupId, userIds)) {
+            bitsByUser.put(progress.getUser().getId(), readBitsOrEmpty(progress, manifest));
+        }
+
+        for (Long userId : userIds) {
+            result.put(userId, toCounts(manifest, bitsByUser.getOrDefault(userId, new BitSet())));
+        }
+        return result;
+    }
+
+    /**
+     * Counts for one user across many pathways, each tracked through the given group.
+     * Reads one progress row per pathway in a single query.
+     *
+     * @param groupByPathway pathway id to the group id the user progresses through
+     */
+    public Map<Long, StepCounts> countStepsForPathways(Long userId, Map<Long, Long> groupByPathway) {
+        Map<Long, StepCounts> result = new HashMap<>();
+        if (groupByPathway == null || groupByPathway.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, StepManifestCache.StepManifest> manifests = resolveManifests(groupByPathway);
+        Map<Long, BitSet> bitsByPathway = new HashMap<>();
+        for (PathwayProgress progress : pathwayProgressRepository
+                .findByUserIdAndPathwayIdIn(userId, groupByPathway.keySet())) {
+            Long pathwayId = progress.getPathway().getId();
+            StepManifestCache.StepManifest manifest = manifests.get(pathwayId);
+            if (manifest != null && progress.getGroup().getId().equals(groupByPathway.get(pathwayId))) {
+                BitSet bits = readBits(progress, manifest);
+                if (bits != null) {
+                    bitsByPathway.put(pathwayId, bits);
+                }
+            }
+        }
+
+        for (Long pathwayId : groupByPathway.keySet()) {
+            StepManifestCache.StepManifest manifest = manifests.get(pathwayId);
+            if (manifest == null) {
+                result.put(pathwayId, StepCounts.EMPTY);
+                continue;
+            }
+            result.put(pathwayId, toCounts(manifest, bitsByPathway.getOrDefault(pathwayId, new BitSet())));
+        }
+        return result;
+    }
+
+    /**
+     * Step versions a learner can work on next: prerequisites satisfied and not yet completed.
+     * Returned in manifest order.
+     */
+    public List<Long> unlockedStepIds(Long pathwayId, Long userId, Long groupId) {
+        StepManifestCache.StepManifest manifest = resolveManifests(Map.of(pathwayId, groupId)).get(pathwayId);
+        if (manifest == null || manifest.size() == 0) {
+            return List.of();
+        }
+
+        PathwayProgress progress = pathwayProgressRepository
+            .findByPathwayIdAndUserIdAndGroupId(pathwayId, userId, groupId).orElse(null);
+        BitSet completed = readBitsOrEmpty(progress, manifest);
+
+        BitSet unlocked = prerequisiteGraphCache.getGraph(manifest.pathwayVersionId()).unlocked(completed);
+        List<Long> result = new ArrayList<>(unlocked.cardinality());
+        for (int i = unlocked.nextSetBit(0); i >= 0; i = unlocked.nextSetBit(i + 1)) {
+            result.add(manifest.steps().get(i).stepVersionId());
+        }
+        return result;
+    }
+
+    /**
+     * Step versions among the given ones that are milestones of the learner's pinned version.
+     * Steps outside the pinned manifest are passed through so the caller can check them itself.
+     */
+    public Set<Long> milestoneStepIds(Long pathwayId, Long groupId, Collection<Long> stepVersionIds) {
+        StepManifestCache.StepManifest manifest = resolveManifests(Map.of(pathwayId, groupId)).get(pathwayId);
+        if (manifest == null) {
+            return new HashSet<>(stepVersionIds);
+        }
+        BitSet milestones = manifest.milestoneMask();
+        Set<Long> result = new HashSet<>();
+        for (Long stepVersionId : stepVersionIds) {
+            int index = manifest.indexOf(stepVersionId);
+            if (index < 0 || milestones.get(index)) {
+                result.add(stepVersionId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets or clears one step's bit on a learner's progress row, which the caller holds a lock on.
+     * Rows whose bits belong to another version are rebuilt from step progress first.
+     * Percent and completed are left alone; they are recomputed by updatePathwayProgress.
+     */
+    public void applyStepCompletion(PathwayProgress progress, Long stepVersionId, boolean completed) {
+        Long pathwayId = progress.getPathway().getId();
+        Long groupId = progress.getGroup().getId();
+        StepManifestCache.StepManifest manifest = resolveManifests(Map.of(pathwayId, groupId)).get(pathwayId);
+        if (manifest == null) {
+            return;
+        }
+        BitSet bits = readBits(progress, manifest);
+        if (bits == null) {
+            bits = loadCompletedSteps(manifest, groupId, List.of(progress.getUser().getId()))
+                .get(progress.getUser().getId());
+        }
+        int index = manifest.indexOf(stepVersionId);
+        if (index >= 0) {
+            bits.set(index, completed);
+        }
+        writeBits(progress, manifest, bits);
+    }
+
+    /**
+     * Makes sure a learner's progress row carries bits for their pinned version and returns its counts.
+     * Step progress is only read when the bits are missing or belong to another version.
+     */
+    public StepCounts syncCompletion(PathwayProgress progress) {
+        Long pathwayId = progress.getPathway().getId();
+        Long groupId = progress.getGroup().getId();
+        StepManifestCache.StepManifest manifest = resolveManifests(Map.of(pathwayId, groupId)).get(pathwayId);
+        if (manifest == null) {
+            return StepCounts.EMPTY;
+        }
+        BitSet bits = readBits(progress, manifest);
+        if (bits == null) {
+            bits = loadCompletedSteps(manifest, groupId, List.of(progress.getUser().getId()))
+                .get(progress.getUser().getId());
+            writeBits(progress, manifest, bits);
+        }
+        return toCounts(manifest, bits);
+    }
+
+    /**
+     * Rebuilds the bits of many progress rows of one group from step progress with one query,
+     * and returns the resulting counts by user id. Used after bulk writes and for drift repair.
+     */
+    public Map<Long, StepCounts> refreshCompletion(Long pathwayId, Long groupId, Collection<PathwayProgress> rows) {
+        Map<Long, StepCounts> result = new HashMap<>();
+        if (rows.isEmpty()) {
+            return result;
+        }
+        StepManifestCache.StepManifest manifest = resolveManifests(Map.of(pathwayId, groupId)).get(pathwayId);
+        if (manifest == null) {
+            for (PathwayProgress progress : rows) {
+                result.put(progress.getUser().getId(), StepCounts.EMPTY);
+            }
+            return result;
+        }
+
+        List<Long> userIds = rows.stream().map(progress -> progress.getUser().getId()).toList();
+        Map<Long, BitSet> bitsByUser = loadCompletedSteps(manifest, groupId, userIds);
+        for (PathwayProgress progress : rows) {
+            BitSet bits = bitsByUser.get(progress.getUser().getId());
+            writeBits(progress, manifest, bits);
+            result.put(progress.getUser().getId(), toCounts(manifest, bits));
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the pinned pathway version of each (pathway, group), falling back to the
+     * latest published version for subscriptions that were never pinned.
+     * Pathways without any published version are left out of the result.
+     */
+    public Map<Long, StepManifestCache.StepManifest> resolveManifests(Map<Long, Long> groupByPathway) {
+        Map<Long, Long> versionByPathway = new HashMap<>();
+        for (PathwayGroupSubscriptionRepository.PinnedVersion pinned : pathwayGroupSubscriptionRepository
+                .findPinnedVersions(groupByPathway.keySet(), new HashSet<>(groupByPathway.values()))) {
+            if (pinned.getPathwayVersionId() != null
+                    && pinned.getGroupId().equals(groupByPathway.get(pinned.getPathwayId()))) {
+                versionByPathway.put(pinned.getPathwayId(), pinned.getPathwayVersionId());
+            }
+        }
+
+        Set<Long> unpinned = new HashSet<>(groupByPathway.keySet());
+        unpinned.removeAll(versionByPathway.keySet());
+        if (!unpinned.isEmpty()) {
+            for (PathwayVersionRepository.LatestVersion latest : pathwayVersionRepository
+                    .findLatestPublishedVersionIds(unpinned)) {
+                versionByPathway.put(latest.getPathwayId(), latest.getPathwayVersionId());
+            }
+        }
+
+        Map<Long, StepManifestCache.StepManifest> manifests = new HashMap<>();
+        versionByPathway.forEach((pathwayId, versionId) ->
+            manifests.put(pathwayId, stepManifestCache.getManifest(versionId)));
+        return manifests;
+    }
+
+    private static StepCounts toCounts(StepManifestCache.StepManifest manifest, BitSet completed) {
+        BitSet required = manifest.requiredMask();
+        long totalSteps = required.cardinality();
+        required.and(completed);
+        return new StepCounts(required.cardinality(), totalSteps);
+    }
+
+    /**
+     * Completion bits of a progress row, or null if the row has none for this manifest's version
+     */
+    private static BitSet readBits(PathwayProgress progress, StepManifestCache.StepManifest manifest) {
+        if (progress == null || progress.getCompletionBits() == null
+                || !manifest.pathwayVersionId().equals(progress.getPathwayVersionId())) {
+            return null;
+        }
+        return BitSet.valueOf(progress.getCompletionBits());
+    }
+
+    private static BitSet readBitsOrEmpty(PathwayProgress progress, StepManifestCache.StepManifest manifest) {
+        BitSet bits = readBits(progress, manifest);
+        return bits != null ? bits : new BitSet();
+    }
+
+    private static void writeBits(PathwayProgress progress, StepManifestCache.StepManifest manifest, BitSet bits) {
+        progress.setPathwayVersionId(manifest.pathwayVersionId());
+        progress.setCompletionBits(bits.toByteArray());
+    }
+
+    /**
+     * Builds completion bits from step progress, for rows created before bits existed or pinned to another version
+     */
+    private Map<Long, BitSet> loadCompletedSteps(StepManifestCache.StepManifest manifest, Long groupId,
+                                                 Collection<Long> userIds) {
+        Map<Long, BitSet> bitsByUser = new HashMap<>();
+        for (Long userId : userIds) {
+            bitsByUser.put(userId, new BitSet(manifest.size()));
+        }
+        if (manifest.size() == 0) {
+            return bitsByUser;
+        }
+        List<Long> stepVersionIds = manifest.steps().stream()
+            .map(StepManifestCache.Step::stepVersionId)
+            .toList();
+        for (StepProgressRepository.UserCompletedStep step : stepProgressRepository.findCompletedStepsForUsers(
+                groupId, userIds, stepVersionIds, StepProgress.ProgressStatus.COMPLETED)) {
+            BitSet bits = bitsByUser.get(step.getUserId());
+            if (bits != null) {
+                bits.set(manifest.indexOf(step.getStepVersionId()));
+            }
+        }
+        return bitsByUser;
+    }
+}
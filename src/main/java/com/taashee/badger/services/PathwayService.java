@@ -17,6 +17,7 @@ public interface PathwayService {
     
     PathwayStep createStep(Long pathwayId, Long parentStepId, String name, String description, String shortCode, boolean optionalStep, boolean milestone);
     List<PathwayStep> listSteps(Long pathwayId);
+    StepTreeLoader.StepTree getStepTree(Long pathwayId);
     PathwayStep getStep(Long pathwayId, Long stepId);
     PathwayStep updateStep(Long pathwayId, Long stepId, String name, String description, String shortCode, String alignmentUrl, String targetCode, String frameworkName, Boolean optional, String prerequisiteRule, String prerequisiteSteps);
     PathwayStep updateStepAchievement(Long pathwayId, Long stepId, Long achievementBadgeId, Boolean achievementExternal);
@@ -0,0 +1,279 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Structural diff between two versions of a pathway, computed from their version documents.
+ * Steps are aligned by the original step they were snapshotted from and requirements by their
+ * original requirement. Diffs between two immutable versions are cached per version pair.
+ */
+@Service
+public class PathwayVersionDiffService {
+    private static final int MAX_CACHED_DIFFS = 500;
+
+    // Fields that differ between any two snapshots, or that are reported structurally instead
+    private static final Set<String> IGNORED_VERSION_FIELDS = Set.of(
+        "id", "pathwayId", "version", "status", "createdAt", "createdById", "stepVersions");
+    private static final Set<String> IGNORED_STEP_FIELDS = Set.of(
+        "id", "originalStepId", "parentStepId", "orderIndex", "createdAt", "requirementVersions");
+    private static final Set<String> IGNORED_REQUIREMENT_FIELDS = Set.of(
+        "id", "originalRequirementId", "createdAt");
+
+    private final PathwayVersionDocumentService pathwayVersionDocumentService;
+    private final ObjectMapper objectMapper;
+    private final Map<String, VersionDiff> diffs = Collections.synchronizedMap(
+        new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VersionDiff> eldest) {
+                return size() > MAX_CACHED_DIFFS;
+            }
+        });
+
+    public PathwayVersionDiffService(PathwayVersionDocumentService pathwayVersionDocumentService,
+                                     ObjectMapper objectMapper) {
+        this.pathwayVersionDocumentService = pathwayVersionDocumentService;
+        this.objectMapper = objectMapper;
+    }
+
+    public enum ChangeType {
+        ADDED, REMOVED, MOVED, MODIFIED
+    }
+
+    public record FieldChange(String field, JsonNode before, JsonNode after) {
+    }
+
+    public record RequirementChange(Long originalRequirementId, ChangeType change, List<FieldChange> fields) {
+    }
+
+    /**
+     * Change of one step. A step can be both MOVED and MODIFIED; positions are indexes in the
+     * ordered step lists of the two versions, null on the side where the step does not exist.
+     */
+    public record StepChange(Long originalStepId, String name, List<ChangeType> changes,
+                             Integer fromPosition, Integer toPosition,
+                             List<FieldChange> fields, List<RequirementChange> requirements) {
+    }
+
+    public record Summary(int added, int removed, int moved, int modified, int unchanged) {
+    }
+
+    public record VersionDiff(Long pathwayId, Integer fromVersion, Integer toVersion,
+                              List<FieldChange> pathwayChanges, List<StepChange> steps, Summary summary) {
+    }
+
+    public Optional<VersionDiff> diff(Long pathwayId, Integer fromVersion, Integer toVersion) {
+        Optional<PathwayVersionDocumentService.VersionDocument> from = pathwayVersionDocumentService.byVersion(pathwayId, fromVersion);
+        Optional<PathwayVersionDocumentService.VersionDocument> to = pathwayVersionDocumentService.byVersion(pathwayId, toVersion);
+        if (from.isEmpty() || to.isEmpty()) {
+            return Optional.empty();
+        }
+
+        boolean cacheable = from.get().immutable() && to.get().immutable();
+        String key = from.get().pathwayVersionId() + ":" + to.get().pathwayVersionId();
+        if (cacheable) {
+            VersionDiff cached = diffs.get(key);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        VersionDiff diff = compute(pathwayId, fromVersion, toVersion, parse(from.get()), parse(to.get()));
+        if (cacheable) {
+            diffs.put(key, diff);
+        }
+        return Optional.of(diff);
+    }
+
+    private JsonNode parse(PathwayVersionDocumentService.VersionDocument document) {
+        try {
+            return objectMapper.readTree(document.json());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private VersionDiff compute(Long pathwayId, Integer fromVersion, Integer toVersion, JsonNode from, JsonNode to) {
+        List<JsonNode> fromSteps = elements(from.get("stepVersions"));
+        List<JsonNode> toSteps = elements(to.get("stepVersions"));
+
+        Map<Long, Integer> fromPositions = positions(fromSteps, "originalStepId");
+        Map<Long, Integer> toPositions = positions(toSteps, "originalStepId");
+
+        // Steps present in both versions, in their new order, mapped to their old positions
+        int[] oldPositions = new int[toSteps.size()];
+        int common = 0;
+        for (JsonNode step : toSteps) {
+            Integer position = fromPositions.get(step.path("originalStepId").asLong());
+            if (position != null) {
+                oldPositions[common++] = position;
+            }
+        }
+        // Steps kept in relative order form the longest increasing run of old positions; the rest moved
+        BitSet inOrder = longestIncreasingSubsequence(Arrays.copyOf(oldPositions, common));
+
+        List<StepChange> changes = new ArrayList<>();
+        int added = 0;
+        int removed = 0;
+        int moved = 0;
+        int modified = 0;
+        int unchanged = 0;
+
+        int commonIndex = 0;
+        for (int toPosition = 0; toPosition < toSteps.size(); toPosition++) {
+            JsonNode toStep = toSteps.get(toPosition);
+            Long originalStepId = toStep.path("originalStepId").asLong();
+            Integer fromPosition = fromPositions.get(originalStepId);
+            if (fromPosition == null) {
+                added++;
+                changes.add(new StepChange(originalStepId, toStep.path("name").asText(null), List.of(ChangeType.ADDED),
+                    null, toPosition, List.of(), requirementChanges(null, toStep)));
+                continue;
+            }
+
+            JsonNode fromStep = fromSteps.get(fromPosition);
+            boolean isMoved = !inOrder.get(commonIndex++)
+                || !Objects.equals(fromStep.get("parentStepId"), toStep.get("parentStepId"));
+            List<FieldChange> fields = fieldChanges(fromStep, toStep, IGNORED_STEP_FIELDS);
+            if (isMoved && !Objects.equals(fromStep.get("parentStepId"), toStep.get("parentStepId"))) {
+                fields.add(new FieldChange("parentStepId", fromStep.get("parentStepId"), toStep.get("parentStepId")));
+            }
+            List<RequirementChange> requirements = requirementChanges(fromStep, toStep);
+            boolean isModified = fields.stream().anyMatch(field -> !field.field().equals("parentStepId"))
+                || !requirements.isEmpty();
+
+            List<ChangeType> types = new ArrayList<>(2);
+            if (isMoved) {
+                types.add(ChangeType.MOVED);
+                moved++;
+            }
+            if (isModified) {
+                types.add(ChangeType.MODIFIED);
+                modified++;
+            }
+            if (types.isEmpty()) {
+                unchanged++;
+                continue;
+            }
+            changes.add(new StepChange(originalStepId, toStep.path("name").asText(null), types,
+                fromPosition, toPosition, fields, requirements));
+        }
+
+        for (int fromPosition = 0; fromPosition < fromSteps.size(); fromPosition++) {
+            JsonNode fromStep = fromSteps.get(fromPosition);
+            Long originalStepId = fromStep.path("originalStepId").asLong();
+            if (!toPositions.containsKey(originalStepId)) {
+                removed++;
+                changes.add(new StepChange(originalStepId, fromStep.path("name").asText(null), List.of(ChangeType.REMOVED),
+                    fromPosition, null, List.of(), requirementChanges(fromStep, null)));
+            }
+        }
+
+        return new VersionDiff(pathwayId, fromVersion, toVersion,
+            fieldChanges(from, to, IGNORED_VERSION_FIELDS), changes,
+            new Summary(added, removed, moved, modified, unchanged));
+    }
+
+    private List<RequirementChange> requirementChanges(JsonNode fromStep, JsonNode toStep) {
+        List<JsonNode> fromRequirements = fromStep != null ? elements(fromStep.get("requirementVersions")) : List.of();
+        List<JsonNode> toRequirements = toStep != null ? elements(toStep.get("requirementVersions")) : List.of();
+        Map<Long, Integer> fromPositions = positions(fromRequirements, "originalRequirementId");
+        Map<Long, Integer> toPositions = positions(toRequirements, "originalRequirementId");
+
+        List<RequirementChange> changes = new ArrayList<>();
+        for (JsonNode toRequirement : toRequirements) {
+            Long originalRequirementId = toRequirement.path("originalRequirementId").asLong();
+            Integer fromPosition = fromPositions.get(originalRequirementId);
+            if (fromPosition == null) {
+                changes.add(new RequirementChange(originalRequirementId, ChangeType.ADDED, List.of()));
+                continue;
+            }
+            List<FieldChange> fields = fieldChanges(fromRequirements.get(fromPosition), toRequirement, IGNORED_REQUIREMENT_FIELDS);
+            if (!fields.isEmpty()) {
+                changes.add(new RequirementChange(originalRequirementId, ChangeType.MODIFIED, fields));
+            }
+        }
+        for (JsonNode fromRequirement : fromRequirements) {
+            Long originalRequirementId = fromRequirement.path("originalRequirementId").asLong();
+            if (!toPositions.containsKey(originalRequirementId)) {
+                changes.add(new RequirementChange(originalRequirementId, ChangeType.REMOVED, List.of()));
+            }
+        }
+        return changes;
+    }
+
+    private static List<FieldChange> fieldChanges(JsonNode from, JsonNode to, Set<String> ignored) {
+        List<FieldChange> changes = new ArrayList<>();
+        Iterator<String> names = to.fieldNames();
+        while (names.hasNext()) {
+            String field = names.next();
+            if (!ignored.contains(field) && !Objects.equals(from.get(field), to.get(field))) {
+                changes.add(new FieldChange(field, from.get(field), to.get(field)));
+            }
+        }
+        return changes;
+    }
+
+    private static List<JsonNode> elements(JsonNode array) {
+        List<JsonNode> elements = new ArrayList<>();
+        if (array != null && array.isArray()) {
+            array.forEach(elements::add);
+        }
+        return elements;
+    }
+
+    private static Map<Long, Integer> positions(List<JsonNode> nodes, String idField) {
+        Map<Long, Integer> positions = new HashMap<>(nodes.size() * 2);
+        for (int i = 0; i < nodes.size(); i++) {
+            positions.putIfAbsent(nodes.get(i).path(idField).asLong(), i);
+        }
+        return positions;
+    }
+
+    /**
+     * Marks the members of one longest strictly increasing subsequence (patience sorting, n log n)
+     */
+    private static BitSet longestIncreasingSubsequence(int[] values) {
+        int[] tailIndexes = new int[values.length];
+        int[] previous = new int[values.length];
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tailIndexes[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tailIndexes[low - 1] : -1;
+            tailIndexes[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        BitSet members = new BitSet(values.length);
+        for (int i = length > 0 ? tailIndexes[length - 1] : -1; i >= 0; i = previous[i]) {
+            members.set(i);
+        }
+        return members;
+    }
+}
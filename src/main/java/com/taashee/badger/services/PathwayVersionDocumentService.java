@@ -0,0 +1,275 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.models.PathwayVersion;
+import com.taashee.badger.models.RequirementVersion;
+import com.taashee.badger.models.StepVersion;
+import com.taashee.badger.repositories.PathwayVersionRepository;
+import com.taashee.badger.repositories.StepVersionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical JSON documents of pathway versions. Published and archived versions never change,
+ * so their document is rendered once, stored on the version row and kept in a size-bounded
+ * in-process cache. Drafts are rendered on every read.
+ */
+@Service
+public class PathwayVersionDocumentService {
+    private final PathwayVersionRepository pathwayVersionRepository;
+    private final StepVersionRepository stepVersionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final long maxCacheBytes;
+
+    // LRU by access; guarded by its own lock, bounded by the total size of the documents
+    private final LinkedHashMap<Long, VersionDocument> documents = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+    // Pathway id -> id of its latest published version
+    private final Map<Long, Long> latestPublished = new ConcurrentHashMap<>();
+    // "pathwayId:version" -> version id, only for versions that are no longer drafts
+    private final Map<String, Long> versionIds = new ConcurrentHashMap<>();
+
+    public PathwayVersionDocumentService(PathwayVersionRepository pathwayVersionRepository,
+                                         StepVersionRepository stepVersionRepository,
+                                         ObjectMapper objectMapper,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${app.pathwayVersions.cacheMaxBytes:33554432}") long maxCacheBytes) {
+        this.pathwayVersionRepository = pathwayVersionRepository;
+        this.stepVersionRepository = stepVersionRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxCacheBytes = maxCacheBytes;
+    }
+
+    /**
+     * Rendered document of one version; immutable is false for drafts, which may still change
+     */
+    public record VersionDocument(Long pathwayVersionId, Long pathwayId, byte[] json, String etag, boolean immutable) {
+    }
+
+    public Optional<VersionDocument> byVersion(Long pathwayId, Integer version) {
+        String key = pathwayId + ":" + version;
+        Long versionId = versionIds.get(key);
+        if (versionId == null) {
+            Optional<Long> found = pathwayVersionRepository.findIdByPathwayIdAndVersion(pathwayId, version);
+            if (found.isEmpty()) {
+                return Optional.empty();
+            }
+            versionId = found.get();
+        }
+        Optional<VersionDocument> document = document(versionId);
+        document.filter(VersionDocument::immutable)
+            .ifPresent(doc -> versionIds.put(key, doc.pathwayVersionId()));
+        return document;
+    }
+
+    public Optional<VersionDocument> latestPublished(Long pathwayId) {
+        Long versionId = latestPublished.get(pathwayId);
+        if (versionId == null) {
+            List<Long> ids = pathwayVersionRepository.findPublishedIdsByPathwayId(pathwayId, PageRequest.of(0, 1));
+            if (ids.isEmpty()) {
+                return Optional.empty();
+            }
+            versionId = ids.get(0);
+            latestPublished.put(pathwayId, versionId);
+        }
+        return document(versionId);
+    }
+
+    /**
+     * Renders the document of a version being published from its in-memory snapshot graph
+     * and stores it on the version. Must run in the publishing transaction.
+     */
+    public void snapshot(PathwayVersion version, List<StepVersion> stepVersions) {
+        byte[] json = render(version, stepVersions);
+        version.setSnapshotJson(new String(json, StandardCharsets.UTF_8));
+        version.setSnapshotEtag(etag(json));
+        evictPathwayAfterCommit(version.getPathway().getId());
+    }
+
+    /**
+     * Drops everything cached for a pathway, e.g. when it is deleted
+     */
+    public void evictPathway(Long pathwayId) {
+        latestPublished.remove(pathwayId);
+        versionIds.keySet().removeIf(key -> key.startsWith(pathwayId + ":"));
+        synchronized (documents) {
+            Iterator<VersionDocument> iterator = documents.values().iterator();
+            while (iterator.hasNext()) {
+                VersionDocument document = iterator.next();
+                if (document.pathwayId().equals(pathwayId)) {
+                    cachedBytes -= document.json().length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private Optional<VersionDocument> document(Long versionId) {
+        synchronized (documents) {
+            VersionDocument cached = documents.get(versionId);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        Optional<PathwayVersionRepository.SnapshotRow> found = pathwayVersionRepository.findSnapshotRow(versionId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        PathwayVersionRepository.SnapshotRow row = found.get();
+        if (row.getSnapshotJson() != null) {
+            return Optional.of(cache(new VersionDocument(versionId, row.getPathwayId(),
+                row.getSnapshotJson().getBytes(StandardCharsets.UTF_8), row.getSnapshotEtag(), true)));
+        }
+
+        PathwayVersion version = pathwayVersionRepository.findById(versionId).orElse(null);
+        if (version == null) {
+            return Optional.empty();
+        }
+        byte[] json = render(version, stepVersionRepository.findWithRequirementsByPathwayVersionId(versionId));
+        boolean immutable = row.getStatus() != PathwayVersion.VersionStatus.DRAFT;
+        VersionDocument document = new VersionDocument(versionId, row.getPathwayId(), json, etag(json), immutable);
+        if (!immutable) {
+            return Optional.of(document);
+        }
+        transactionTemplate.executeWithoutResult(status ->
+            pathwayVersionRepository.storeSnapshot(versionId, new String(json, StandardCharsets.UTF_8), document.etag()));
+        return Optional.of(cache(document));
+    }
+
+    private VersionDocument cache(VersionDocument document) {
+        if (document.json().length > maxCacheBytes) {
+            return document;
+        }
+        synchronized (documents) {
+            VersionDocument previous = documents.put(document.pathwayVersionId(), document);
+            if (previous != null) {
+                cachedBytes -= previous.json().length;
+            }
+            cachedBytes += document.json().length;
+            Iterator<VersionDocument> eldest = documents.values().iterator();
+            while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().json().length;
+                eldest.remove();
+            }
+        }
+        return document;
+    }
+
+    // The latest published pointer changes once the publishing transaction commits
+    private void evictPathwayAfterCommit(Long pathwayId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictPathway(pathwayId);
+                }
+            });
+        } else {
+            evictPathway(pathwayId);
+        }
+    }
+
+    private byte[] render(PathwayVersion version, List<StepVersion> stepVersions) {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("id", version.getId());
+        document.put("pathwayId", version.getPathway() != null ? version.getPathway().getId() : null);
+        document.put("version", version.getVersion());
+        document.put("status", version.getStatus());
+        document.put("name", version.getName());
+        document.put("description", version.getDescription());
+        document.put("shortCode", version.getShortCode());
+        document.put("alignmentUrl", version.getAlignmentUrl());
+        document.put("targetCode", version.getTargetCode());
+        document.put("frameworkName", version.getFrameworkName());
+        document.put("completionBadgeId", version.getCompletionBadgeId());
+        document.put("completionBadgeExternal", version.getCompletionBadgeExternal());
+        document.put("prerequisiteRule", version.getPrerequisiteRule());
+        document.put("prerequisiteSteps", version.getPrerequisiteSteps());
+        document.put("createdAt", version.getCreatedAt());
+        document.put("createdById", version.getCreatedBy() != null ? version.getCreatedBy().getId() : null);
+
+        List<StepVersion> orderedSteps = new ArrayList<>(stepVersions);
+        orderedSteps.sort(Comparator.comparing(StepVersion::getOrderIndex, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(StepVersion::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        List<Map<String, Object>> steps = new ArrayList<>(orderedSteps.size());
+        for (StepVersion stepVersion : orderedSteps) {
+            steps.add(stepDocument(stepVersion));
+        }
+        document.put("stepVersions", steps);
+
+        try {
+            return objectMapper.writeValueAsBytes(document);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render pathway version " + version.getId(), e);
+        }
+    }
+
+    private static Map<String, Object> stepDocument(StepVersion stepVersion) {
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("id", stepVersion.getId());
+        step.put("originalStepId", stepVersion.getOriginalStep() != null ? stepVersion.getOriginalStep().getId() : null);
+        step.put("parentStepId", stepVersion.getParentStepId());
+        step.put("name", stepVersion.getName());
+        step.put("description", stepVersion.getDescription());
+        step.put("shortCode", stepVersion.getShortCode());
+        step.put("optionalStep", stepVersion.getOptionalStep());
+        step.put("orderIndex", stepVersion.getOrderIndex());
+        step.put("milestone", stepVersion.getMilestone());
+        step.put("achievementBadgeId", stepVersion.getAchievementBadgeId());
+        step.put("achievementExternal", stepVersion.getAchievementExternal());
+        step.put("prerequisiteRule", stepVersion.getPrerequisiteRule());
+        step.put("prerequisiteSteps", stepVersion.getPrerequisiteSteps());
+        step.put("createdAt", stepVersion.getCreatedAt());
+
+        List<RequirementVersion> orderedRequirements = new ArrayList<>(stepVersion.getRequirementVersions());
+        orderedRequirements.sort(Comparator.comparing(RequirementVersion::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        List<Map<String, Object>> requirements = new ArrayList<>(orderedRequirements.size());
+        for (RequirementVersion requirementVersion : orderedRequirements) {
+            Map<String, Object> requirement = new LinkedHashMap<>();
+            requirement.put("id", requirementVersion.getId());
+            requirement.put("originalRequirementId", requirementVersion.getOriginalRequirement() != null
+                ? requirementVersion.getOriginalRequirement().getId() : null);
+            requirement.put("type", requirementVersion.getType());
+            requirement.put("badgeClassId", requirementVersion.getBadgeClassId());
+            requirement.put("thirdPartyUrl", requirementVersion.getThirdPartyUrl());
+            requirement.put("thirdPartyJson", requirementVersion.getThirdPartyJson());
+            requirement.put("experienceName", requirementVersion.getExperienceName());
+            requirement.put("experienceDescription", requirementVersion.getExperienceDescription());
+            requirement.put("groupKey", requirementVersion.getGroupKey());
+            requirement.put("createdAt", requirementVersion.getCreatedAt());
+            requirements.add(requirement);
+        }
+        step.put("requirementVersions", requirements);
+        return step;
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json)).substring(0, 32);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
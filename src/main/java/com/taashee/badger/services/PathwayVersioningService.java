@@ -1,11 +1,23 @@
 package com.taashee.badger.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import com.taashee.badger.models.*;
 import com.taashee.badger.repositories.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
@@ -14,6 +26,43 @@ import java.util.HashMap;
 @Service
 @Transactional
 public class PathwayVersioningService {
+    private static final Logger logger = LoggerFactory.getLogger(PathwayVersioningService.class);
+    
+    // Copies the steps of pathway ?1 into pathway ?2 with their requirements and step prerequisites.
+    // New step ids are drawn up front so parent and prerequisite links are remapped inside the
+    // statement; returns the old -> new step id map.
+    private static final String CLONE_STEPS_SQL =
+        "WITH src AS (" +
+        "  SELECT s.*, nextval(pg_get_serial_sequence('pathway_step', 'id')) AS new_id" +
+        "  FROM pathway_step s WHERE s.pathway_id = ?), " +
+        "steps AS (" +
+        "  INSERT INTO pathway_step (id, pathway_id, parent_step_id, name, description, short_code, optional_step," +
+        "    order_index, alignment_url, target_code, framework_name, milestone, achievement_badge_id," +
+        "    achievement_external, prerequisite_rule, prerequisite_steps)" +
+        "  SELECT s.new_id, ?, p.new_id, s.name, s.description, s.short_code, s.optional_step," +
+        "    s.order_index, s.alignment_url, s.target_code, s.framework_name, s.milestone, s.achievement_badge_id," +
+        "    s.achievement_external, s.prerequisite_rule, s.prerequisite_steps" +
+        "  FROM src s LEFT JOIN src p ON p.id = s.parent_step_id), " +
+        "requirements AS (" +
+        "  INSERT INTO step_requirement (step_id, type, badge_class_id, third_party_url, third_party_json," +
+        "    experience_name, experience_description, group_key)" +
+        "  SELECT s.new_id, r.type, r.badge_class_id, r.third_party_url, r.third_party_json," +
+        "    r.experience_name, r.experience_description, r.group_key" +
+        "  FROM step_requirement r JOIN src s ON s.id = r.step_id), " +
+        "prerequisites AS (" +
+        "  INSERT INTO step_prerequisite (step_id, prerequisite_step_id)" +
+        "  SELECT s.new_id, p.new_id" +
+        "  FROM step_prerequisite sp JOIN src s ON s.id = sp.step_id JOIN src p ON p.id = sp.prerequisite_step_id) " +
+        "SELECT id AS old_id, new_id, prerequisite_steps FROM src";
+    
+    // First suffix of a base name: one past the highest " vN" already used in the organization.
+    // A concurrent first duplication of the same name falls through to the increment.
+    private static final String SEED_NAME_COUNTER_SQL =
+        "INSERT INTO pathway_name_counter (organization_id, base_name, last_suffix) " +
+        "SELECT ?, ?, COALESCE(MAX(CAST(substring(substring(name from length(?) + 1) from '^\\s+v(\\d{1,9})$') AS integer)), 0) + 1 " +
+        "FROM pathway WHERE organization_id = ? AND left(name, length(?)) = ? " +
+        "ON CONFLICT (organization_id, base_name) DO UPDATE SET last_suffix = pathway_name_counter.last_suffix + 1 " +
+        "RETURNING last_suffix";
     
     @Autowired
     private PathwayVersionRepository pathwayVersionRepository;
@@ -21,9 +70,6 @@ public class PathwayVersioningService {
     @Autowired
     private StepVersionRepository stepVersionRepository;
     
-    @Autowired
-    private RequirementVersionRepository requirementVersionRepository;
-    
     @Autowired
     private AuditLogRepository auditLogRepository;
     
@@ -36,16 +82,39 @@ public class PathwayVersioningService {
     @Autowired
     private StepRequirementRepository stepRequirementRepository;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private PathwayVersionDocumentService pathwayVersionDocumentService;
+    
+    @Autowired
+    private PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository;
+    
+    @Autowired
+    private ProgressRecalculationService progressRecalculationService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
-     * Publishes a pathway by creating immutable snapshots
+     * Publishes a pathway by creating immutable snapshots. Steps and requirements are read in
+     * two queries, the snapshot graph is built in memory and inserted in batches.
      */
     public PathwayVersion publishPathway(Long pathwayId, User user) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         // Get the pathway with all its steps and requirements
         Pathway pathway = pathwayRepository.findById(pathwayId)
             .orElseThrow(() -> new RuntimeException("Pathway not found: " + pathwayId));
         
-        // Get all steps for this pathway
-        List<PathwayStep> steps = pathwayStepRepository.findByPathwayOrderByOrderIndexAsc(pathway);
+        List<PathwayStep> steps = pathwayStepRepository.findSnapshotSteps(pathwayId);
+        Map<Long, List<StepRequirement>> requirementsByStep = new HashMap<>();
+        for (StepRequirement requirement : stepRequirementRepository.findSnapshotRequirements(pathwayId)) {
+            requirementsByStep.computeIfAbsent(requirement.getStep().getId(), id -> new ArrayList<>()).add(requirement);
+        }
         
         // Determine the next version number
         Integer nextVersion = getNextVersionNumber(pathway);
@@ -59,28 +128,36 @@ public class PathwayVersioningService {
         pathway.setStatus(PathwayStatus.PUBLISHED);
         pathwayRepository.save(pathway);
         
-        // Create step version snapshots
+        // Step and requirement version snapshots; requirement versions cascade from their step version
+        List<StepVersion> stepVersions = new ArrayList<>(steps.size());
+        int requirementCount = 0;
         for (PathwayStep step : steps) {
             StepVersion stepVersion = new StepVersion(pathwayVersion, step);
-            stepVersion = stepVersionRepository.save(stepVersion);
-            
-            // Create requirement version snapshots
-            List<StepRequirement> requirements = stepRequirementRepository.findByStep(step);
-            for (StepRequirement requirement : requirements) {
-                RequirementVersion requirementVersion = new RequirementVersion(
-                    stepVersion, requirement);
-                requirementVersionRepository.save(requirementVersion);
+            for (StepRequirement requirement : requirementsByStep.getOrDefault(step.getId(), List.of())) {
+                stepVersion.getRequirementVersions().add(new RequirementVersion(stepVersion, requirement));
+                requirementCount++;
             }
+            stepVersions.add(stepVersion);
         }
-        
-        // Update pathway status to indicate it has published versions
-        pathway.setStatus(PathwayStatus.PUBLISHED);
-        pathwayRepository.save(pathway);
+        stepVersionRepository.saveAll(stepVersions);
         
         // Create audit log
         AuditLog auditLog = AuditLog.createPublishLog(pathway, user, nextVersion);
         auditLogRepository.save(auditLog);
         
+        // Unpinned groups now count against the new version; rebuild their completion bits
+        if (pathwayGroupSubscriptionRepository.existsByPathwayIdAndPathwayVersionIsNull(pathwayId)) {
+            progressRecalculationService.submitAfterCommit(pathwayId);
+        }
+        
+        // Snapshot inserts are flushed here so the timing covers them; the canonical
+        // document is rendered afterwards, once creation timestamps are set
+        stepVersionRepository.flush();
+        pathwayVersionDocumentService.snapshot(pathwayVersion, stepVersions);
+        long elapsedNanos = sample.stop(meterRegistry.timer("badger.pathway.publish"));
+        logger.info("Published pathway {} version {}: {} steps, {} requirements in {} ms",
+            pathwayId, nextVersion, steps.size(), requirementCount, elapsedNanos / 1_000_000);
+        
         return pathwayVersion;
     }
     
@@ -215,36 +292,16 @@ public class PathwayVersioningService {
     }
     
     /**
-     * Duplicates a pathway with automatic version naming
+     * Duplicates a pathway with automatic version naming. Steps, requirements and step
+     * prerequisites are cloned in one set-based statement, whatever the size of the pathway.
      */
     public Pathway duplicatePathway(Long originalPathwayId, User user) {
         try {
-            // Get the original pathway with all its data
             Pathway originalPathway = pathwayRepository.findById(originalPathwayId)
                 .orElseThrow(() -> new RuntimeException("Original pathway not found: " + originalPathwayId));
             
-            // Get all steps and requirements for the original pathway
-            List<PathwayStep> originalSteps = pathwayStepRepository.findByPathwayOrderByOrderIndexAsc(originalPathway);
-            
-            // Generate version name
             String baseName = originalPathway.getName().replaceAll("\\s+v\\d+$", ""); // Remove existing version suffix
-            List<Pathway> existingPathways = pathwayRepository.findByOrganizationIdAndNameContaining(
-                originalPathway.getOrganization().getId(), baseName);
-            
-            int nextVersion = 1;
-            for (Pathway existing : existingPathways) {
-                String name = existing.getName();
-                if (name.matches(".*\\s+v\\d+$")) {
-                    String versionStr = name.replaceAll(".*\\s+v(\\d+)$", "$1");
-                    try {
-                        int version = Integer.parseInt(versionStr);
-                        nextVersion = Math.max(nextVersion, version + 1);
-                    } catch (NumberFormatException e) {
-                        // Ignore if version parsing fails
-                    }
-                }
-            }
-            
+            int nextVersion = nextNameSuffix(originalPathway.getOrganization().getId(), baseName);
             String newName = baseName + " v" + nextVersion;
             
             // Create new pathway
@@ -259,61 +316,38 @@ public class PathwayVersioningService {
             newPathway.setCompletionBadgeId(originalPathway.getCompletionBadgeId());
             newPathway.setCompletionBadgeExternal(originalPathway.getCompletionBadgeExternal());
             newPathway.setPrerequisiteRule(originalPathway.getPrerequisiteRule());
-            newPathway.setPrerequisiteSteps(originalPathway.getPrerequisiteSteps());
             newPathway.setStatus(PathwayStatus.DRAFT); // Always create as draft
             
-            newPathway = pathwayRepository.save(newPathway);
-            
-            // Duplicate all steps
-            Map<Long, PathwayStep> stepIdMap = new HashMap<>();
-            
-            for (PathwayStep originalStep : originalSteps) {
-                PathwayStep newStep = new PathwayStep();
-                newStep.setPathway(newPathway);
-                newStep.setName(originalStep.getName());
-                newStep.setDescription(originalStep.getDescription());
-                newStep.setShortCode(originalStep.getShortCode());
-                newStep.setOptionalStep(originalStep.isOptionalStep());
-                newStep.setOrderIndex(originalStep.getOrderIndex());
-                newStep.setMilestone(originalStep.isMilestone());
-                newStep.setAchievementBadgeId(originalStep.getAchievementBadgeId());
-                newStep.setAchievementExternal(originalStep.getAchievementExternal());
-                newStep.setPrerequisiteRule(originalStep.getPrerequisiteRule());
-                newStep.setPrerequisiteSteps(originalStep.getPrerequisiteSteps());
-                
-                newStep = pathwayStepRepository.save(newStep);
-                stepIdMap.put(originalStep.getId(), newStep);
-            }
+            // The clone below runs outside the persistence context and references the new row
+            newPathway = pathwayRepository.saveAndFlush(newPathway);
             
-            // Update parent-child relationships
-            for (PathwayStep originalStep : originalSteps) {
-                if (originalStep.getParentStep() != null) {
-                    PathwayStep newStep = stepIdMap.get(originalStep.getId());
-                    PathwayStep newParentStep = stepIdMap.get(originalStep.getParentStep().getId());
-                    newStep.setParentStep(newParentStep);
-                    pathwayStepRepository.save(newStep);
+            Map<Long, Long> stepIdMap = new HashMap<>();
+            Map<Long, String> prerequisiteStepsByOldId = new HashMap<>();
+            jdbcTemplate.query(CLONE_STEPS_SQL, (RowCallbackHandler) rs -> {
+                stepIdMap.put(rs.getLong("old_id"), rs.getLong("new_id"));
+                String prerequisiteSteps = rs.getString("prerequisite_steps");
+                if (prerequisiteSteps != null && !prerequisiteSteps.isBlank()) {
+                    prerequisiteStepsByOldId.put(rs.getLong("old_id"), prerequisiteSteps);
                 }
-            }
+            }, originalPathwayId, newPathway.getId());
             
-            // Duplicate all requirements
-            for (PathwayStep originalStep : originalSteps) {
-                List<StepRequirement> originalRequirements = stepRequirementRepository.findByStep(originalStep);
-                PathwayStep newStep = stepIdMap.get(originalStep.getId());
-                
-                for (StepRequirement originalReq : originalRequirements) {
-                    StepRequirement newRequirement = new StepRequirement();
-                    newRequirement.setStep(newStep);
-                    newRequirement.setType(originalReq.getType());
-                    newRequirement.setBadgeClassId(originalReq.getBadgeClassId());
-                    newRequirement.setThirdPartyUrl(originalReq.getThirdPartyUrl());
-                    newRequirement.setThirdPartyJson(originalReq.getThirdPartyJson());
-                    newRequirement.setExperienceName(originalReq.getExperienceName());
-                    newRequirement.setExperienceDescription(originalReq.getExperienceDescription());
-                    newRequirement.setGroupKey(originalReq.getGroupKey());
-                    
-                    stepRequirementRepository.save(newRequirement);
+            // prerequisiteSteps holds step ids, which must point at the copies
+            List<Object[]> remapped = new ArrayList<>();
+            for (Map.Entry<Long, String> entry : prerequisiteStepsByOldId.entrySet()) {
+                String prerequisiteSteps = remapStepIds(entry.getValue(), stepIdMap);
+                if (!prerequisiteSteps.equals(entry.getValue())) {
+                    remapped.add(new Object[] {prerequisiteSteps, stepIdMap.get(entry.getKey())});
                 }
             }
+            if (!remapped.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE pathway_step SET prerequisite_steps = ? WHERE id = ?", remapped);
+            }
+            // The pathway-level list names step ids as well; the managed row is written on commit
+            String pathwayPrerequisites = originalPathway.getPrerequisiteSteps();
+            if (pathwayPrerequisites != null && !pathwayPrerequisites.isBlank()) {
+                newPathway.setPrerequisiteSteps(remapStepIds(pathwayPrerequisites, stepIdMap));
+            }
+            logger.debug("Duplicated pathway {} into {} with {} steps", originalPathwayId, newPathway.getId(), stepIdMap.size());
         
             // Log the duplication action
             AuditLog auditLog = AuditLog.createPathwayLog("CREATE", newPathway, user, 
@@ -327,4 +361,48 @@ public class PathwayVersioningService {
             throw new RuntimeException("Failed to duplicate pathway: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * Allocates the next " vN" suffix for a base name. The counter is seeded from the
+     * highest suffix among existing pathways the first time a name is duplicated.
+     */
+    private int nextNameSuffix(Long organizationId, String baseName) {
+        List<Integer> bumped = jdbcTemplate.queryForList(
+            "UPDATE pathway_name_counter SET last_suffix = last_suffix + 1 " +
+            "WHERE organization_id = ? AND base_name = ? RETURNING last_suffix",
+            Integer.class, organizationId, baseName);
+        if (!bumped.isEmpty()) {
+            return bumped.get(0);
+        }
+        return jdbcTemplate.queryForObject(SEED_NAME_COUNTER_SQL, Integer.class,
+            organizationId, baseName, baseName, organizationId, baseName, baseName);
+    }
+    
+    private String remapStepIds(String prerequisiteSteps, Map<Long, Long> stepIdMap) {
+        try {
+            JsonNode node = objectMapper.readTree(prerequisiteSteps);
+            JsonNode ids = node;
+            if (node.isObject()) {
+                ids = node.has("steps") ? node.get("steps") : node.get("stepIds");
+            }
+            if (ids == null || !ids.isArray()) {
+                return prerequisiteSteps;
+            }
+            ArrayNode array = (ArrayNode) ids;
+            for (int i = 0; i < array.size(); i++) {
+                JsonNode id = array.get(i);
+                if (!id.canConvertToLong() && !id.isTextual()) {
+                    continue;
+                }
+                Long newId = stepIdMap.get(id.asLong());
+                if (newId != null) {
+                    array.set(i, id.isTextual() ? TextNode.valueOf(newId.toString()) : LongNode.valueOf(newId));
+                }
+            }
+            return objectMapper.writeValueAsString(node);
+        } catch (Exception e) {
+            logger.warn("Copying unparseable prerequisiteSteps as is: {}", prerequisiteSteps);
+            return prerequisiteSteps;
+        }
+    }
 }
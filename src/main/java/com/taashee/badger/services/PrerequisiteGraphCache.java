@@ -0,0 +1,250 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.models.PathwayVersion;
+import com.taashee.badger.repositories.PathwayVersionRepository;
+import com.taashee.badger.repositories.StepVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled step prerequisite graphs of pathway versions. The prerequisiteSteps JSON of
+ * every step is parsed once, cycles are detected and the graph is topologically sorted
+ * into int-indexed arrays. Published and archived versions never change, so their graphs are
+ * cached under the version id and only dropped when the pathway is deleted.
+ */
+@Service
+public class PrerequisiteGraphCache {
+    private static final Logger logger = LoggerFactory.getLogger(PrerequisiteGraphCache.class);
+
+    private final StepManifestCache stepManifestCache;
+    private final StepVersionRepository stepVersionRepository;
+    private final PathwayVersionRepository pathwayVersionRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, PrerequisiteGraph> graphs = new ConcurrentHashMap<>();
+
+    public PrerequisiteGraphCache(StepManifestCache stepManifestCache,
+                                  StepVersionRepository stepVersionRepository,
+                                  PathwayVersionRepository pathwayVersionRepository,
+                                  ObjectMapper objectMapper) {
+        this.stepManifestCache = stepManifestCache;
+        this.stepVersionRepository = stepVersionRepository;
+        this.pathwayVersionRepository = pathwayVersionRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Prerequisite graph of one pathway version. Step i is the step at position i of the
+     * version's StepManifest.
+     */
+    public static final class PrerequisiteGraph {
+        private final Long pathwayId;
+        private final int[][] prerequisites;
+        private final int[] requiredCounts;
+        private final int[] topologicalOrder;
+        private final BitSet cyclic;
+
+        PrerequisiteGraph(Long pathwayId, int[][] prerequisites, int[] requiredCounts,
+                          int[] topologicalOrder, BitSet cyclic) {
+            this.pathwayId = pathwayId;
+            this.prerequisites = prerequisites;
+            this.requiredCounts = requiredCounts;
+            this.topologicalOrder = topologicalOrder;
+            this.cyclic = cyclic;
+        }
+
+        public int size() { return prerequisites.length; }
+
+        /** Steps in dependency order; steps caught in a cycle come last */
+        public int[] topologicalOrder() { return topologicalOrder.clone(); }
+
+        public boolean hasCycle() { return !cyclic.isEmpty(); }
+
+        /**
+         * Steps that are unlocked (all prerequisite rules satisfied) and not yet completed,
+         * computed in one pass over the completion bitset. Steps on a cycle never unlock.
+         */
+        public BitSet unlocked(BitSet completed) {
+            BitSet unlocked = new BitSet(prerequisites.length);
+            for (int step : topologicalOrder) {
+                if (completed.get(step) || cyclic.get(step)) {
+                    continue;
+                }
+                int satisfied = 0;
+                for (int prerequisite : prerequisites[step]) {
+                    if (completed.get(prerequisite)) {
+                        satisfied++;
+                    }
+                }
+                if (satisfied >= requiredCounts[step]) {
+                    unlocked.set(step);
+                }
+            }
+            return unlocked;
+        }
+    }
+
+    public PrerequisiteGraph getGraph(Long pathwayVersionId) {
+        PrerequisiteGraph cached = graphs.get(pathwayVersionId);
+        if (cached != null) {
+            return cached;
+        }
+
+        PathwayVersion version = pathwayVersionRepository.findById(pathwayVersionId)
+                .orElseThrow(() -> new RuntimeException("Pathway version not found: " + pathwayVersionId));
+        PrerequisiteGraph graph = compile(stepManifestCache.getManifest(pathwayVersionId));
+        if (version.getStatus() != PathwayVersion.VersionStatus.DRAFT) {
+            graphs.put(pathwayVersionId, graph);
+        }
+        return graph;
+    }
+
+    /**
+     * Drops the cached graphs of a deleted pathway
+     */
+    public void evictPathway(Long pathwayId) {
+        graphs.values().removeIf(graph -> graph.pathwayId.equals(pathwayId));
+    }
+
+    private PrerequisiteGraph compile(StepManifestCache.StepManifest manifest) {
+        int size = manifest.size();
+        List<StepVersionRepository.PrerequisiteRow> rows =
+                stepVersionRepository.findPrerequisiteRows(manifest.pathwayVersionId());
+
+        // prerequisiteSteps references the original step ids the version was snapshotted from
+        Map<Long, Integer> indexByOriginalStep = new HashMap<>();
+        for (StepVersionRepository.PrerequisiteRow row : rows) {
+            int index = manifest.indexOf(row.getStepVersionId());
+            if (index >= 0 && row.getOriginalStepId() != null) {
+                indexByOriginalStep.put(row.getOriginalStepId(), index);
+            }
+        }
+
+        int[][] prerequisites = new int[size][];
+        int[] requiredCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            prerequisites[i] = new int[0];
+        }
+        for (StepVersionRepository.PrerequisiteRow row : rows) {
+            int index = manifest.indexOf(row.getStepVersionId());
+            if (index < 0) {
+                continue;
+            }
+            ParsedRule rule = parseRule(row.getPrerequisiteRule(), row.getPrerequisiteSteps());
+            Set<Integer> resolved = new LinkedHashSet<>();
+            for (Long referenced : rule.stepIds()) {
+                Integer prerequisite = indexByOriginalStep.get(referenced);
+                if (prerequisite == null) {
+                    int byVersionId = manifest.indexOf(referenced);
+                    prerequisite = byVersionId >= 0 ? byVersionId : null;
+                }
+                if (prerequisite != null && prerequisite != index) {
+                    resolved.add(prerequisite);
+                }
+            }
+            prerequisites[index] = resolved.stream().mapToInt(Integer::intValue).toArray();
+            requiredCounts[index] = rule.requiredCount(prerequisites[index].length);
+        }
+
+        // Kahn's algorithm; whatever cannot be ordered sits on a cycle
+        int[] inDegree = new int[size];
+        List<List<Integer>> dependents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int step = 0; step < size; step++) {
+            inDegree[step] = prerequisites[step].length;
+            for (int prerequisite : prerequisites[step]) {
+                dependents.get(prerequisite).add(step);
+            }
+        }
+        int[] order = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            if (inDegree[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int step = order[head++];
+            for (int dependent : dependents.get(step)) {
+                if (--inDegree[dependent] == 0) {
+                    order[tail++] = dependent;
+                }
+            }
+        }
+        BitSet cyclic = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (inDegree[i] > 0) {
+                cyclic.set(i);
+                order[tail++] = i;
+            }
+        }
+        if (!cyclic.isEmpty()) {
+            logger.warn("Prerequisite cycle in pathway version {} involving {} steps",
+                    manifest.pathwayVersionId(), cyclic.cardinality());
+        }
+
+        return new PrerequisiteGraph(manifest.pathwayId(), prerequisites, requiredCounts, order, cyclic);
+    }
+
+    private record ParsedRule(String rule, List<Long> stepIds, Integer count) {
+        int requiredCount(int prerequisiteCount) {
+            if (prerequisiteCount == 0) {
+                return 0;
+            }
+            if ("any".equalsIgnoreCase(rule)) {
+                return 1;
+            }
+            if (("n-of-m".equalsIgnoreCase(rule) || "N_OF_M".equalsIgnoreCase(rule)) && count != null) {
+                return Math.max(0, Math.min(count, prerequisiteCount));
+            }
+            return prerequisiteCount;
+        }
+    }
+
+    /**
+     * Accepts either a JSON array of step ids or an object such as {"steps": [..], "count": n}
+     */
+    private ParsedRule parseRule(String rule, String prerequisiteSteps) {
+        List<Long> stepIds = new ArrayList<>();
+        Integer count = null;
+        if (prerequisiteSteps != null && !prerequisiteSteps.isBlank()) {
+            try {
+                JsonNode node = objectMapper.readTree(prerequisiteSteps);
+                JsonNode ids = node;
+                if (node.isObject()) {
+                    ids = node.has("steps") ? node.get("steps") : node.get("stepIds");
+                    for (String field : new String[] {"count", "n", "requiredCount"}) {
+                        if (node.hasNonNull(field)) {
+                            count = node.get(field).asInt();
+                            break;
+                        }
+                    }
+                }
+                if (ids != null && ids.isArray()) {
+                    for (JsonNode id : ids) {
+                        if (id.canConvertToLong() || id.isTextual()) {
+                            stepIds.add(Long.valueOf(id.asText()));
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Ignoring unparseable prerequisiteSteps: {}", prerequisiteSteps);
+            }
+        }
+        return new ParsedRule(rule, stepIds, count);
+    }
+}
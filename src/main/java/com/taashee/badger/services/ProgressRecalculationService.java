@@ -0,0 +1,257 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.PathwayProgress;
+import com.taashee.badger.repositories.PathwayProgressRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Background recalculation of all progress rows of a pathway.
+ * Jobs run one at a time, in chunked transactions, and repeated requests
+ * for the same pathway are coalesced into the queued or running job.
+ */
+@Service
+public class ProgressRecalculationService {
+    private static final Logger logger = LoggerFactory.getLogger(ProgressRecalculationService.class);
+    private static final int MAX_RETAINED_JOBS = 200;
+
+    private final PathwayProgressRepository pathwayProgressRepository;
+    private final PathwayProgressEngine progressEngine;
+    private final GroupProgressRollupService groupProgressRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "progress-recalculation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Queued or running job per pathway, used for coalescing
+    private final Map<Long, RecalculationJob> activeJobs = new ConcurrentHashMap<>();
+    // Oldest finished jobs are dropped past the limit; queued and running jobs are always kept
+    private final Map<String, RecalculationJob> jobs = Collections.synchronizedMap(
+        new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecalculationJob> eldest) {
+                if (size() > MAX_RETAINED_JOBS) {
+                    values().stream()
+                        .filter(job -> job.status == JobStatus.COMPLETED || job.status == JobStatus.FAILED)
+                        .findFirst()
+                        .ifPresent(job -> remove(job.jobId));
+                }
+                return false;
+            }
+        });
+
+    public ProgressRecalculationService(PathwayProgressRepository pathwayProgressRepository,
+                                        PathwayProgressEngine progressEngine,
+                                        GroupProgressRollupService groupProgressRollupService,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${app.progressRecalculation.chunkSize:500}") int chunkSize) {
+        this.pathwayProgressRepository = pathwayProgressRepository;
+        this.progressEngine = progressEngine;
+        this.groupProgressRollupService = groupProgressRollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Status of one recalculation job, exposed through the progress status endpoint
+     */
+    public static class RecalculationJob {
+        private final String jobId = UUID.randomUUID().toString();
+        private final Long pathwayId;
+        private final LocalDateTime requestedAt = LocalDateTime.now();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile long totalRows;
+        private volatile long processedRows;
+        private volatile int passes;
+        private volatile boolean rerunRequested;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        RecalculationJob(Long pathwayId) {
+            this.pathwayId = pathwayId;
+        }
+
+        public String getJobId() { return jobId; }
+        public Long getPathwayId() { return pathwayId; }
+        public LocalDateTime getRequestedAt() { return requestedAt; }
+        public JobStatus getStatus() { return status; }
+        public long getTotalRows() { return totalRows; }
+        public long getProcessedRows() { return processedRows; }
+        public int getPasses() { return passes; }
+        public boolean isRerunRequested() { return rerunRequested; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getError() { return error; }
+    }
+
+    /**
+     * Queues a recalculation for a pathway. If one is already queued it is returned as is;
+     * if one is running it will make one more pass once the current pass finishes.
+     */
+    public synchronized RecalculationJob submit(Long pathwayId) {
+        RecalculationJob active = activeJobs.get(pathwayId);
+        if (active != null) {
+            if (active.status == JobStatus.RUNNING) {
+                active.rerunRequested = true;
+            }
+            return active;
+        }
+
+        RecalculationJob job = new RecalculationJob(pathwayId);
+        activeJobs.put(pathwayId, job);
+        jobs.put(job.jobId, job);
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    /**
+     * Queues a recalculation once the current transaction commits, e.g. after a change of the
+     * version a group's progress is counted against, so stale completion bits get rebuilt
+     */
+    public void submitAfterCommit(Long pathwayId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(pathwayId);
+                }
+            });
+        } else {
+            submit(pathwayId);
+        }
+    }
+
+    public RecalculationJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Latest job requested for a pathway, or null if none is retained
+     */
+    public RecalculationJob getLatestJob(Long pathwayId) {
+        synchronized (jobs) {
+            RecalculationJob latest = null;
+            for (RecalculationJob job : jobs.values()) {
+                if (job.pathwayId.equals(pathwayId)) {
+                    latest = job;
+                }
+            }
+            return latest;
+        }
+    }
+
+    private void run(RecalculationJob job) {
+        job.startedAt = LocalDateTime.now();
+        try {
+            while (true) {
+                job.status = JobStatus.RUNNING;
+                recalculate(job);
+                synchronized (this) {
+                    if (!job.rerunRequested) {
+                        job.status = JobStatus.COMPLETED;
+                        activeJobs.remove(job.pathwayId);
+                        break;
+                    }
+                    job.rerunRequested = false;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Progress recalculation failed for pathway {}", job.pathwayId, e);
+            synchronized (this) {
+                job.status = JobStatus.FAILED;
+                job.error = e.getMessage();
+                activeJobs.remove(job.pathwayId);
+            }
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void recalculate(RecalculationJob job) {
+        Long pathwayId = job.pathwayId;
+        job.passes++;
+        job.processedRows = 0;
+        job.totalRows = pathwayProgressRepository.countByPathwayId(pathwayId);
+
+        long afterId = 0L;
+        while (true) {
+            final long chunkStart = afterId;
+            Long lastId = transactionTemplate.execute(status -> recalculateChunk(pathwayId, chunkStart, job));
+            if (lastId == null) {
+                break;
+            }
+            afterId = lastId;
+        }
+
+        // Refresh the group dashboards of every group tracking this pathway
+        for (Long groupId : pathwayProgressRepository.findGroupIdsByPathwayId(pathwayId)) {
+            groupProgressRollupService.rebuild(groupId, pathwayId);
+        }
+    }
+
+    /**
+     * Recomputes the completion bits and percent of one chunk of progress rows in a single batch.
+     * The rows stay locked until the chunk commits, so a completion cannot land between reading
+     * step progress and saving the bits. Returns the id of the last row handled, or null once
+     * there is nothing left.
+     */
+    private Long recalculateChunk(Long pathwayId, long afterId, RecalculationJob job) {
+        List<PathwayProgress> chunk = pathwayProgressRepository.findChunkForUpdate(
+            pathwayId, afterId, PageRequest.of(0, chunkSize));
+        if (chunk.isEmpty()) {
+            return null;
+        }
+
+        Map<Long, List<PathwayProgress>> rowsByGroup = chunk.stream()
+            .collect(Collectors.groupingBy(progress -> progress.getGroup().getId()));
+        for (Map.Entry<Long, List<PathwayProgress>> entry : rowsByGroup.entrySet()) {
+            // Completion bits are rebuilt from step progress, repairing any drift
+            Map<Long, PathwayProgressEngine.StepCounts> countsByUser =
+                progressEngine.refreshCompletion(pathwayId, entry.getKey(), entry.getValue());
+
+            for (PathwayProgress progress : entry.getValue()) {
+                PathwayProgressEngine.StepCounts counts = countsByUser.getOrDefault(
+                    progress.getUser().getId(), PathwayProgressEngine.StepCounts.EMPTY);
+                progress.setPercent(counts.percent());
+                progress.setCompleted(counts.isCompleted());
+            }
+        }
+        // Managed rows: only those whose bits or percent actually changed are updated
+        pathwayProgressRepository.saveAll(chunk);
+
+        job.processedRows += chunk.size();
+        return chunk.get(chunk.size() - 1).getId();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
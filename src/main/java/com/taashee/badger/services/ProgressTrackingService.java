@@ -2,6 +2,7 @@ package com.taashee.badger.services;
 
 import com.taashee.badger.models.PathwayProgress;
 import com.taashee.badger.models.StepProgress;
+import com.taashee.badger.models.StepCompletionRequest;
 import com.taashee.badger.models.User;
 import com.taashee.badger.models.Group;
 import java.util.List;
@@ -11,7 +12,8 @@ public interface ProgressTrackingService {
     // Progress tracking
     PathwayProgress updatePathwayProgress(Long pathwayId, Long userId, Long groupId);
     StepProgress updateStepProgress(Long stepVersionId, Long userId, Long groupId, StepProgress.ProgressStatus status);
-    void completeStep(Long stepVersionId, Long userId, Long groupId);
+    StepProgress completeStep(Long stepVersionId, Long userId, Long groupId);
+    Map<String, Object> completeStepsInBulk(Long pathwayId, Long groupId, List<StepCompletionRequest> requests);
     
     // Progress retrieval
     PathwayProgress getPathwayProgress(Long pathwayId, Long userId, Long groupId);
@@ -28,5 +30,6 @@ public interface ProgressTrackingService {
     
     // Progress calculation
     int calculatePathwayProgress(Long pathwayId, Long userId, Long groupId);
-    void recalculateAllProgressForPathway(Long pathwayId);
+    List<Long> getUnlockedSteps(Long pathwayId, Long userId, Long groupId);
+    ProgressRecalculationService.RecalculationJob recalculateAllProgressForPathway(Long pathwayId);
 }
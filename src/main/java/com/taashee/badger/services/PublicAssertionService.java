@@ -0,0 +1,492 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.models.Evidence;
+import com.taashee.badger.models.Organization;
+import com.taashee.badger.repositories.BadgeClassRepository;
+import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.repositories.OrganizationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders badge instances as public Open Badges 2.0 assertions and 3.0 credentials, plain or
+ * signed with the server key, together with the hosted OB 2.0 BadgeClass, Issuer and
+ * CryptographicKey documents the assertions link to. Rendered payloads are cached per instance
+ * revision; a cached entry is trusted for the TTL and then revalidated with a single revision
+ * lookup, so repeated verifier requests do not load the instance again.
+ */
+@Service
+public class PublicAssertionService {
+    private static final String OB2_CONTEXT = "https://w3id.org/openbadges/v2";
+    private static final List<String> OB3_CONTEXT = List.of(
+        "https://www.w3.org/2018/credentials/v1",
+        "https://purl.imsglobal.org/spec/ob/v3p0/context-3.0.3.json");
+    private static final MediaType LD_JSON = MediaType.parseMediaType("application/ld+json");
+    private static final MediaType VC_JWT = MediaType.parseMediaType("application/vc+jwt");
+
+    private final BadgeInstanceRepository badgeInstanceRepository;
+    private final BadgeClassRepository badgeClassRepository;
+    private final OrganizationRepository organizationRepository;
+    private final AssertionSigningService signingService;
+    private final StatusListService statusListService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final String apiBaseUrl;
+    private final long ttlNanos;
+    private final Map<Long, CachedAssertion> cache;
+
+    public PublicAssertionService(BadgeInstanceRepository badgeInstanceRepository,
+                                  BadgeClassRepository badgeClassRepository,
+                                  OrganizationRepository organizationRepository,
+                                  AssertionSigningService signingService,
+                                  StatusListService statusListService,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.apiBaseUrl:http://localhost:8080}") String apiBaseUrl,
+                                  @Value("${app.assertions.cacheTtlMs:60000}") long ttlMs,
+                                  @Value("${app.assertions.cacheSize:10000}") int cacheSize) {
+        this.badgeInstanceRepository = badgeInstanceRepository;
+        this.badgeClassRepository = badgeClassRepository;
+        this.organizationRepository = organizationRepository;
+        this.signingService = signingService;
+        this.statusListService = statusListService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.apiBaseUrl = apiBaseUrl.endsWith("/") ? apiBaseUrl.substring(0, apiBaseUrl.length() - 1) : apiBaseUrl;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedAssertion> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public enum Format {
+        OB2, OB2_SIGNED, OB3, OB3_SIGNED
+    }
+
+    /**
+     * A rendered response: 200 with the assertion, or 410 with a revocation notice.
+     * The ETag is derived from the body bytes, so it is a strong validator.
+     */
+    public record RenderedAssertion(HttpStatus status, MediaType contentType, byte[] body, String etag) {
+    }
+
+    private static final class CachedAssertion {
+        final String revisionKey;
+        final Map<Format, RenderedAssertion> payloads = new ConcurrentHashMap<>();
+        volatile long checkedAt;
+
+        CachedAssertion(String revisionKey) {
+            this.revisionKey = revisionKey;
+        }
+    }
+
+    public long cacheTtlSeconds() {
+        return ttlNanos / 1_000_000_000L;
+    }
+
+    public Optional<RenderedAssertion> render(Long id, Format format) {
+        long now = System.nanoTime();
+        CachedAssertion cached = cache.get(id);
+        if (cached == null || now - cached.checkedAt >= ttlNanos) {
+            Optional<BadgeInstanceRepository.AssertionRevision> revision = badgeInstanceRepository.findAssertionRevision(id);
+            if (revision.isEmpty()) {
+                cache.remove(id);
+                return Optional.empty();
+            }
+            String revisionKey = revision.get().getRevision() + "|" + revision.get().getBadgeClassUpdatedAt()
+                + "|" + revision.get().getOrganizationUpdatedAt();
+            if (cached == null || !cached.revisionKey.equals(revisionKey)) {
+                cached = new CachedAssertion(revisionKey);
+                cache.put(id, cached);
+            }
+            cached.checkedAt = now;
+        }
+
+        RenderedAssertion rendered = cached.payloads.get(format);
+        if (rendered == null) {
+            rendered = readOnlyTransaction.execute(status -> badgeInstanceRepository.findById(id)
+                .map(instance -> renderInstance(instance, format))
+                .orElse(null));
+            if (rendered == null) {
+                cache.remove(id);
+                return Optional.empty();
+            }
+            cached.payloads.put(format, rendered);
+        }
+        return Optional.of(rendered);
+    }
+
+    /**
+     * Drops the cached payloads of an instance, e.g. after it was revoked. Inside a transaction
+     * the entry is dropped once it commits, so a concurrent render cannot cache the old state again.
+     */
+    public void evict(Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(id);
+                }
+            });
+        } else {
+            cache.remove(id);
+        }
+    }
+
+    public String assertionUrl(Long id) {
+        return apiBaseUrl + "/api/public/assertions/" + id;
+    }
+
+    public String badgeClassUrl(Long badgeClassId) {
+        return apiBaseUrl + "/api/public/badge-classes/" + badgeClassId;
+    }
+
+    public String issuerUrl(Long organizationId) {
+        return apiBaseUrl + "/api/public/issuers/" + organizationId;
+    }
+
+    // The server key is published once per issuer, since an OB 2.0 key belongs to exactly one owner
+    public String keyUrl(Long organizationId) {
+        return apiBaseUrl + "/api/public/keys/" + organizationId;
+    }
+
+    /**
+     * Open Badges 2.0 CryptographicKey document of the signing key, owned by the given issuer
+     */
+    public Optional<Map<String, Object>> cryptographicKey(Long organizationId) {
+        if (!organizationRepository.existsById(organizationId)) {
+            return Optional.empty();
+        }
+        Map<String, Object> key = new LinkedHashMap<>();
+        key.put("@context", OB2_CONTEXT);
+        key.put("type", "CryptographicKey");
+        key.put("id", keyUrl(organizationId));
+        key.put("owner", issuerUrl(organizationId));
+        key.put("publicKeyPem", signingService.publicKeyPem());
+        return Optional.of(key);
+    }
+
+    /**
+     * Hosted Open Badges 2.0 BadgeClass; empty for unknown badge classes and ones without an issuer
+     */
+    public Optional<Map<String, Object>> badgeClass(Long badgeClassId) {
+        return readOnlyTransaction.execute(status -> badgeClassRepository.findById(badgeClassId)
+            .filter(badgeClass -> badgeClass.getOrganization() != null)
+            .map(badgeClass -> {
+                Map<String, Object> document = new LinkedHashMap<>();
+                document.put("@context", OB2_CONTEXT);
+                document.put("type", "BadgeClass");
+                document.put("id", badgeClassUrl(badgeClass.getId()));
+                document.put("name", badgeClass.getName());
+                document.put("description", badgeClass.getDescription() != null ? badgeClass.getDescription() : "");
+                if (badgeClass.getImage() != null && !badgeClass.getImage().startsWith("data:")) {
+                    document.put("image", absolute(badgeClass.getImage()));
+                }
+                Map<String, Object> criteria = new LinkedHashMap<>();
+                if (badgeClass.getCriteriaUrl() != null && !badgeClass.getCriteriaUrl().isBlank()) {
+                    criteria.put("id", badgeClass.getCriteriaUrl());
+                }
+                criteria.put("narrative", badgeClass.getCriteriaText() != null ? badgeClass.getCriteriaText() : "");
+                document.put("criteria", criteria);
+                document.put("issuer", issuerUrl(badgeClass.getOrganization().getId()));
+                return document;
+            }));
+    }
+
+    /**
+     * Hosted Open Badges 2.0 Issuer profile of an organization, linking its signing key
+     */
+    public Optional<Map<String, Object>> issuer(Long organizationId) {
+        return organizationRepository.findById(organizationId).map(organization -> {
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("@context", OB2_CONTEXT);
+            document.put("type", "Issuer");
+            document.put("id", issuerUrl(organization.getId()));
+            document.put("name", organization.getNameEnglish());
+            if (organization.getUrlEnglish() != null && !organization.getUrlEnglish().isBlank()) {
+                document.put("url", organization.getUrlEnglish());
+            }
+            if (organization.getEmail() != null && !organization.getEmail().isBlank()) {
+                document.put("email", organization.getEmail());
+            }
+            if (organization.getDescriptionEnglish() != null) {
+                document.put("description", organization.getDescriptionEnglish());
+            }
+            String image = organization.getImageEnglish();
+            if (image != null && !image.startsWith("data:")) {
+                document.put("image", absolute(image));
+            }
+            document.put("publicKey", keyUrl(organization.getId()));
+            return document;
+        });
+    }
+
+    private RenderedAssertion renderInstance(BadgeInstance instance, Format format) {
+        if (instance.isRevoked()) {
+            Map<String, Object> revoked = new LinkedHashMap<>();
+            revoked.put("@context", OB2_CONTEXT);
+            revoked.put("id", assertionUrl(instance.getId()));
+            revoked.put("revoked", true);
+            if (instance.getRevocationReason() != null) {
+                revoked.put("revocationReason", instance.getRevocationReason());
+            }
+            return rendered(HttpStatus.GONE, MediaType.APPLICATION_JSON, toJson(revoked));
+        }
+
+        switch (format) {
+            case OB2:
+                return rendered(HttpStatus.OK, LD_JSON, toJson(ob2Assertion(instance, false)));
+            case OB2_SIGNED:
+                String signedAssertion = signingService.sign(toJson(ob2Assertion(instance, true)), Map.of());
+                return rendered(HttpStatus.OK, MediaType.TEXT_PLAIN, signedAssertion.getBytes(StandardCharsets.US_ASCII));
+            case OB3:
+                return rendered(HttpStatus.OK, LD_JSON, toJson(ob3Credential(instance)));
+            case OB3_SIGNED:
+            default:
+                Map<String, Object> credential = ob3Credential(instance);
+                Map<String, Object> claims = new LinkedHashMap<>();
+                claims.put("iss", ((Map<?, ?>) credential.get("issuer")).get("id"));
+                claims.put("jti", credential.get("id"));
+                claims.put("nbf", epochSeconds(instance.getIssuedOn()));
+                if (instance.getExpiresAt() != null) {
+                    claims.put("exp", epochSeconds(instance.getExpiresAt()));
+                }
+                claims.put("vc", credential);
+                String jwt = signingService.sign(toJson(claims), Map.of("typ", "JWT"));
+                return rendered(HttpStatus.OK, VC_JWT, jwt.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private Map<String, Object> ob2Assertion(BadgeInstance instance, boolean signed) {
+        Map<String, Object> assertion = new LinkedHashMap<>();
+        assertion.put("@context", OB2_CONTEXT);
+        assertion.put("type", "Assertion");
+        assertion.put("id", assertionUrl(instance.getId()));
+
+        Map<String, Object> recipient = new LinkedHashMap<>();
+        recipient.put("type", instance.getRecipientType() != null ? instance.getRecipientType() : "email");
+        recipient.put("hashed", true);
+        if (instance.getSalt() != null) {
+            recipient.put("salt", instance.getSalt());
+        }
+        recipient.put("identity", hashedIdentity(instance));
+        assertion.put("recipient", recipient);
+
+        if (instance.getBadgeClass() != null) {
+            assertion.put("badge", badgeClassUrl(instance.getBadgeClass().getId()));
+        }
+        Long issuerId = issuingOrganizationId(instance);
+        assertion.put("verification", signed && issuerId != null
+            ? Map.of("type", "SignedBadge", "creator", keyUrl(issuerId))
+            : Map.of("type", "HostedBadge"));
+        assertion.put("issuedOn", isoDate(instance.getIssuedOn()));
+        if (instance.getExpiresAt() != null) {
+            assertion.put("expires", isoDate(instance.getExpiresAt()));
+        }
+        String image = instance.getImage() != null ? instance.getImage()
+            : instance.getBadgeClass() != null ? instance.getBadgeClass().getImage() : null;
+        if (image != null && !image.startsWith("data:")) {
+            assertion.put("image", absolute(image));
+        }
+        if (instance.getNarrative() != null) {
+            assertion.put("narrative", instance.getNarrative());
+        }
+        List<Map<String, Object>> evidence = evidence(instance);
+        if (!evidence.isEmpty()) {
+            assertion.put("evidence", evidence);
+        }
+        return assertion;
+    }
+
+    private Map<String, Object> ob3Credential(BadgeInstance instance) {
+        BadgeClass badgeClass = instance.getBadgeClass();
+        Organization organization = instance.getOrganization() != null ? instance.getOrganization()
+            : badgeClass != null ? badgeClass.getOrganization() : null;
+
+        Map<String, Object> credential = new LinkedHashMap<>();
+        credential.put("@context", OB3_CONTEXT);
+        credential.put("id", assertionUrl(instance.getId()));
+        credential.put("type", List.of("VerifiableCredential", "OpenBadgeCredential"));
+
+        Map<String, Object> issuer = new LinkedHashMap<>();
+        issuer.put("id", issuerId(organization, organization != null ? organization.getId() : null));
+        issuer.put("type", List.of("Profile"));
+        if (organization != null && organization.getNameEnglish() != null) {
+            issuer.put("name", organization.getNameEnglish());
+        }
+        credential.put("issuer", issuer);
+        credential.put("issuanceDate", isoDate(instance.getIssuedOn()));
+        if (instance.getExpiresAt() != null) {
+            credential.put("expirationDate", isoDate(instance.getExpiresAt()));
+        }
+        if (badgeClass != null && badgeClass.getName() != null) {
+            credential.put("name", badgeClass.getName());
+        }
+
+        Map<String, Object> identifier = new LinkedHashMap<>();
+        identifier.put("type", "IdentityObject");
+        identifier.put("identityHash", hashedIdentity(instance));
+        identifier.put("identityType", "email".equalsIgnoreCase(instance.getRecipientType()) || instance.getRecipientType() == null
+            ? "emailAddress" : instance.getRecipientType());
+        identifier.put("hashed", true);
+        if (instance.getSalt() != null) {
+            identifier.put("salt", instance.getSalt());
+        }
+
+        Map<String, Object> subject = new LinkedHashMap<>();
+        subject.put("type", List.of("AchievementSubject"));
+        subject.put("identifier", List.of(identifier));
+        if (badgeClass != null) {
+            Map<String, Object> achievement = new LinkedHashMap<>();
+            achievement.put("id", badgeClassUrl(badgeClass.getId()));
+            achievement.put("type", List.of("Achievement"));
+            achievement.put("name", badgeClass.getName());
+            if (badgeClass.getDescription() != null) {
+                achievement.put("description", badgeClass.getDescription());
+            }
+            Map<String, Object> criteria = new LinkedHashMap<>();
+            if (badgeClass.getCriteriaUrl() != null && !badgeClass.getCriteriaUrl().isBlank()) {
+                criteria.put("id", badgeClass.getCriteriaUrl());
+            }
+            if (badgeClass.getCriteriaText() != null) {
+                criteria.put("narrative", badgeClass.getCriteriaText());
+            }
+            achievement.put("criteria", criteria);
+            if (badgeClass.getImage() != null && !badgeClass.getImage().startsWith("data:")) {
+                achievement.put("image", Map.of("id", absolute(badgeClass.getImage()), "type", "Image"));
+            }
+            subject.put("achievement", achievement);
+        }
+        if (instance.getNarrative() != null) {
+            subject.put("narrative", instance.getNarrative());
+        }
+        credential.put("credentialSubject", subject);
+
+        Map<String, Object> credentialStatus = statusListService.credentialStatus(instance);
+        if (credentialStatus != null) {
+            credential.put("credentialStatus", credentialStatus);
+        }
+
+        List<Map<String, Object>> evidence = evidence(instance);
+        if (!evidence.isEmpty()) {
+            evidence.forEach(item -> item.put("type", List.of("Evidence")));
+            credential.put("evidence", evidence);
+        }
+        return credential;
+    }
+
+    /**
+     * Issuer id used in credentials: the organization's website if it has one, else a URN
+     */
+    public static String issuerId(Organization organization, Long organizationId) {
+        if (organization != null && organization.getUrlEnglish() != null && !organization.getUrlEnglish().isBlank()) {
+            return organization.getUrlEnglish();
+        }
+        return "urn:badger:organization:" + (organizationId != null ? organizationId : "unknown");
+    }
+
+    private List<Map<String, Object>> evidence(BadgeInstance instance) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        if (instance.getEvidenceItems() == null) {
+            return items;
+        }
+        for (Evidence evidence : instance.getEvidenceItems()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            if (evidence.getEvidenceUrl() != null) {
+                item.put("id", evidence.getEvidenceUrl());
+            }
+            if (evidence.getNarrative() != null) {
+                item.put("narrative", evidence.getNarrative());
+            }
+            if (evidence.getName() != null) {
+                item.put("name", evidence.getName());
+            }
+            if (evidence.getDescription() != null) {
+                item.put("description", evidence.getDescription());
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    // Recipient identities are always published hashed, so assertion ids cannot be walked to harvest emails
+    private String hashedIdentity(BadgeInstance instance) {
+        String identity = instance.getRecipientIdentifier() != null ? instance.getRecipientIdentifier()
+            : instance.getRecipient() != null ? instance.getRecipient().getEmail() : "";
+        String salt = instance.getSalt() != null ? instance.getSalt() : "";
+        return "sha256$" + HexFormat.of().formatHex(sha256((identity + salt).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // The hosted BadgeClass names its organization as the issuer, so the key must belong to it too
+    private static Long issuingOrganizationId(BadgeInstance instance) {
+        if (instance.getBadgeClass() != null && instance.getBadgeClass().getOrganization() != null) {
+            return instance.getBadgeClass().getOrganization().getId();
+        }
+        return instance.getOrganization() != null ? instance.getOrganization().getId() : null;
+    }
+
+    private String absolute(String url) {
+        return url.startsWith("/") ? apiBaseUrl + url : url;
+    }
+
+    private static String isoDate(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return null;
+        }
+        return dateTime.atZone(ZoneId.systemDefault()).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+
+    private static long epochSeconds(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toEpochSecond() : 0L;
+    }
+
+    private RenderedAssertion rendered(HttpStatus status, MediaType contentType, byte[] body) {
+        String etag = HexFormat.of().formatHex(sha256(body)).substring(0, 32);
+        return new RenderedAssertion(status, contentType, body, etag);
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render assertion", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
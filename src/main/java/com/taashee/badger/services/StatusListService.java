@@ -0,0 +1,268 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.models.Organization;
+import com.taashee.badger.models.StatusList;
+import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.repositories.OrganizationRepository;
+import com.taashee.badger.repositories.StatusListRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-organization revocation status lists (W3C StatusList2021). Every issued badge instance
+ * gets an index in its organization's bitstring, and revoking or restoring an instance flips
+ * its bit in place. The published document is built once per list revision and cached both
+ * as JSON and gzip-compressed.
+ */
+@Service
+public class StatusListService {
+    // The spec's minimum list length (16KB), so a list does not reveal how many badges were issued
+    private static final int MIN_LIST_BYTES = 16 * 1024;
+    private static final List<String> CONTEXT = List.of(
+        "https://www.w3.org/2018/credentials/v1",
+        "https://w3id.org/vc/status-list/2021/v1");
+
+    private final StatusListRepository statusListRepository;
+    private final BadgeInstanceRepository badgeInstanceRepository;
+    private final OrganizationRepository organizationRepository;
+    private final ObjectMapper objectMapper;
+    private final String apiBaseUrl;
+    private final long ttlNanos;
+    private final Map<Long, PublishedList> published = new ConcurrentHashMap<>();
+
+    public StatusListService(StatusListRepository statusListRepository,
+                             BadgeInstanceRepository badgeInstanceRepository,
+                             OrganizationRepository organizationRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${app.apiBaseUrl:http://localhost:8080}") String apiBaseUrl,
+                             @Value("${app.statusList.cacheTtlMs:60000}") long ttlMs) {
+        this.statusListRepository = statusListRepository;
+        this.badgeInstanceRepository = badgeInstanceRepository;
+        this.organizationRepository = organizationRepository;
+        this.objectMapper = objectMapper;
+        this.apiBaseUrl = apiBaseUrl.endsWith("/") ? apiBaseUrl.substring(0, apiBaseUrl.length() - 1) : apiBaseUrl;
+        this.ttlNanos = ttlMs * 1_000_000L;
+    }
+
+    /**
+     * Published status list document of one revision, as JSON and gzip-compressed JSON
+     */
+    public record PublishedList(long revision, byte[] json, String etag, byte[] gzip, String gzipEtag, long checkedAt) {
+        PublishedList checkedAt(long now) {
+            return new PublishedList(revision, json, etag, gzip, gzipEtag, now);
+        }
+    }
+
+    /** Organization whose status list an instance belongs to: its own, else its badge class's */
+    public static Long organizationIdOf(BadgeInstance instance) {
+        if (instance.getOrganization() != null) {
+            return instance.getOrganization().getId();
+        }
+        if (instance.getBadgeClass() != null && instance.getBadgeClass().getOrganization() != null) {
+            return instance.getBadgeClass().getOrganization().getId();
+        }
+        return null;
+    }
+
+    public String statusListUrl(Long organizationId) {
+        return apiBaseUrl + "/api/public/status/" + organizationId;
+    }
+
+    public long cacheTtlSeconds() {
+        return ttlNanos / 1_000_000_000L;
+    }
+
+    /**
+     * credentialStatus entry of an OB 3.0 credential, or null if the instance has no index yet
+     */
+    public Map<String, Object> credentialStatus(BadgeInstance instance) {
+        Long organizationId = organizationIdOf(instance);
+        if (organizationId == null || instance.getStatusListIndex() == null) {
+            return null;
+        }
+        String listUrl = statusListUrl(organizationId);
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", listUrl + "#" + instance.getStatusListIndex());
+        status.put("type", "StatusList2021Entry");
+        status.put("statusPurpose", "revocation");
+        status.put("statusListIndex", String.valueOf(instance.getStatusListIndex()));
+        status.put("statusListCredential", listUrl);
+        return status;
+    }
+
+    @Transactional
+    public void sync(BadgeInstance instance) {
+        sync(List.of(instance));
+    }
+
+    /**
+     * Brings the status lists in line with the given instances before they are saved: instances
+     * without an index get the next one of their organization, and each instance's bit is set
+     * to its revoked flag. Each affected list is locked and written once.
+     */
+    @Transactional
+    public void sync(Collection<BadgeInstance> instances) {
+        Map<Long, List<BadgeInstance>> byOrganization = instances.stream()
+            .filter(instance -> organizationIdOf(instance) != null)
+            .collect(Collectors.groupingBy(StatusListService::organizationIdOf));
+
+        for (Map.Entry<Long, List<BadgeInstance>> entry : byOrganization.entrySet()) {
+            StatusList list = lock(entry.getKey());
+            boolean changed = false;
+            for (BadgeInstance instance : entry.getValue()) {
+                if (instance.getStatusListIndex() == null) {
+                    instance.setStatusListIndex(list.getNextIndex());
+                    list.setNextIndex(list.getNextIndex() + 1);
+                }
+                changed |= list.set(instance.getStatusListIndex(), instance.isRevoked());
+            }
+            if (changed) {
+                list.setRevision(list.getRevision() + 1);
+                evictAfterCommit(entry.getKey());
+            }
+            statusListRepository.save(list);
+        }
+    }
+
+    /**
+     * Assigns indexes to instances issued before status lists existed and recomputes the
+     * organization's bitstring from the revoked flags, repairing any drift.
+     */
+    @Transactional
+    public StatusList rebuild(Long organizationId) {
+        StatusList list = lock(organizationId);
+        for (Long instanceId : badgeInstanceRepository.findIdsWithoutStatusListIndex(organizationId)) {
+            if (badgeInstanceRepository.assignStatusListIndex(instanceId, list.getNextIndex()) > 0) {
+                list.setNextIndex(list.getNextIndex() + 1);
+            }
+        }
+        list.setBits(null);
+        for (Integer index : badgeInstanceRepository.findRevokedStatusListIndexes(organizationId)) {
+            list.set(index, true);
+        }
+        list.setRevision(list.getRevision() + 1);
+        evictAfterCommit(organizationId);
+        return statusListRepository.save(list);
+    }
+
+    /**
+     * Published document of an organization's list. A cached document is trusted for the TTL,
+     * then revalidated against the list revision.
+     */
+    public Optional<PublishedList> publish(Long organizationId) {
+        long now = System.nanoTime();
+        PublishedList cached = published.get(organizationId);
+        if (cached != null && now - cached.checkedAt() < ttlNanos) {
+            return Optional.of(cached);
+        }
+        Optional<Long> revision = statusListRepository.findRevision(organizationId);
+        if (revision.isEmpty()) {
+            published.remove(organizationId);
+            return Optional.empty();
+        }
+        if (cached != null && cached.revision() == revision.get()) {
+            PublishedList refreshed = cached.checkedAt(now);
+            published.put(organizationId, refreshed);
+            return Optional.of(refreshed);
+        }
+        Optional<PublishedList> built = statusListRepository.findByOrganizationId(organizationId)
+            .map(list -> build(list, now));
+        built.ifPresent(list -> published.put(organizationId, list));
+        return built;
+    }
+
+    private PublishedList build(StatusList list, long now) {
+        byte[] bits = list.getBits() != null ? list.getBits() : new byte[0];
+        byte[] padded = Arrays.copyOf(bits, Math.max(MIN_LIST_BYTES, bits.length));
+        String listUrl = statusListUrl(list.getOrganizationId());
+        Organization organization = organizationRepository.findById(list.getOrganizationId()).orElse(null);
+
+        Map<String, Object> subject = new LinkedHashMap<>();
+        subject.put("id", listUrl + "#list");
+        subject.put("type", "StatusList2021");
+        subject.put("statusPurpose", "revocation");
+        subject.put("encodedList", Base64.getUrlEncoder().withoutPadding().encodeToString(gzip(padded)));
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("@context", CONTEXT);
+        document.put("id", listUrl);
+        document.put("type", List.of("VerifiableCredential", "StatusList2021Credential"));
+        document.put("issuer", PublicAssertionService.issuerId(organization, list.getOrganizationId()));
+        if (list.getUpdatedAt() != null) {
+            document.put("issuanceDate", list.getUpdatedAt().atZone(ZoneId.systemDefault())
+                .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        }
+        document.put("credentialSubject", subject);
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(document);
+            byte[] gzipped = gzip(json);
+            return new PublishedList(list.getRevision(), json, etag(json), gzipped, etag(gzipped), now);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render status list", e);
+        }
+    }
+
+    private StatusList lock(Long organizationId) {
+        statusListRepository.createIfAbsent(organizationId);
+        return statusListRepository.findForUpdate(organizationId)
+            .orElseThrow(() -> new IllegalStateException("Status list missing for organization " + organizationId));
+    }
+
+    // Dropped after commit so a concurrent request cannot re-cache the old revision
+    private void evictAfterCommit(Long organizationId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    published.remove(organizationId);
+                }
+            });
+        } else {
+            published.remove(organizationId);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body)).substring(0, 32);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.*;
+import com.taashee.badger.repositories.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Downstream handling of step completions: pathway progress, group rollups,
+ * milestone badges and notifications. Driven by the StepCompletedEvent after commit,
+ * with the progress outbox polled as a fallback for events that were never handled.
+ */
+@Service
+public class StepCompletionProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(StepCompletionProcessor.class);
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int RELAY_BATCH_SIZE = 200;
+
+    private final ProgressOutboxEventRepository outboxRepository;
+    private final ProgressTrackingService progressTrackingService;
+    private final PathwayProgressEngine progressEngine;
+    private final PathwayProgressRepository pathwayProgressRepository;
+    private final StepVersionRepository stepVersionRepository;
+    private final BadgeClassRepository badgeClassRepository;
+    private final BadgeInstanceRepository badgeInstanceRepository;
+    private final UserNotificationRepository userNotificationRepository;
+    private final StatusListService statusListService;
+    private final TransactionTemplate transactionTemplate;
+
+    public StepCompletionProcessor(ProgressOutboxEventRepository outboxRepository,
+                                   ProgressTrackingService progressTrackingService,
+                                   PathwayProgressEngine progressEngine,
+                                   PathwayProgressRepository pathwayProgressRepository,
+                                   StepVersionRepository stepVersionRepository,
+                                   BadgeClassRepository badgeClassRepository,
+                                   BadgeInstanceRepository badgeInstanceRepository,
+                                   UserNotificationRepository userNotificationRepository,
+                                   StatusListService statusListService,
+                                   PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.progressTrackingService = progressTrackingService;
+        this.progressEngine = progressEngine;
+        this.pathwayProgressRepository = pathwayProgressRepository;
+        this.stepVersionRepository = stepVersionRepository;
+        this.badgeClassRepository = badgeClassRepository;
+        this.badgeInstanceRepository = badgeInstanceRepository;
+        this.userNotificationRepository = userNotificationRepository;
+        this.statusListService = statusListService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Async
+    @TransactionalEventListener
+    public void onStepCompleted(StepCompletedEvent event) {
+        process(List.of(event.outboxId()));
+    }
+
+    /**
+     * Picks up outbox rows whose event was lost (e.g. restart before the listener ran)
+     * or whose processing was interrupted.
+     */
+    @Scheduled(fixedDelayString = "${app.progressOutbox.relayDelayMs:30000}")
+    public void relayPending() {
+        List<ProgressOutboxEvent> claimed = transactionTemplate.execute(status -> claim(
+            outboxRepository.lockStale(LocalDateTime.now().minusMinutes(1), LocalDateTime.now().minusMinutes(5),
+                PageRequest.of(0, RELAY_BATCH_SIZE))));
+        handle(claimed);
+    }
+
+    /**
+     * Claims and handles the given outbox rows. Rows already claimed elsewhere are skipped.
+     */
+    public void process(Collection<Long> outboxIds) {
+        List<ProgressOutboxEvent> claimed = transactionTemplate.execute(status -> claim(
+            outboxRepository.lockPendingByIds(outboxIds)));
+        handle(claimed);
+    }
+
+    private List<ProgressOutboxEvent> claim(List<ProgressOutboxEvent> events) {
+        LocalDateTime now = LocalDateTime.now();
+        for (ProgressOutboxEvent event : events) {
+            event.setStatus(ProgressOutboxEvent.OutboxStatus.PROCESSING);
+            event.setClaimedAt(now);
+        }
+        return outboxRepository.saveAll(events);
+    }
+
+    private void handle(List<ProgressOutboxEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+
+        // Several completions by the same learner collapse into one progress recompute
+        Map<String, List<ProgressOutboxEvent>> byLearner = events.stream()
+            .collect(Collectors.groupingBy(
+                event -> event.getPathwayId() + ":" + event.getUserId() + ":" + event.getGroupId(),
+                LinkedHashMap::new, Collectors.toList()));
+
+        for (List<ProgressOutboxEvent> learnerEvents : byLearner.values()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    applyCompletions(learnerEvents);
+                    markProcessed(learnerEvents);
+                });
+            } catch (RuntimeException e) {
+                ProgressOutboxEvent first = learnerEvents.get(0);
+                logger.warn("Failed to process step completion for pathway {} user {} group {}: {}",
+                    first.getPathwayId(), first.getUserId(), first.getGroupId(), e.getMessage());
+                transactionTemplate.executeWithoutResult(status -> markFailedAttempt(learnerEvents, e));
+            }
+        }
+    }
+
+    private void applyCompletions(List<ProgressOutboxEvent> learnerEvents) {
+        ProgressOutboxEvent first = learnerEvents.get(0);
+        boolean wasCompleted = pathwayProgressRepository
+            .findByPathwayIdAndUserIdAndGroupId(first.getPathwayId(), first.getUserId(), first.getGroupId())
+            .map(progress -> Boolean.TRUE.equals(progress.getCompleted()))
+            .orElse(false);
+
+        // Updates the learner's pathway progress and their group's rollup
+        PathwayProgress progress = progressTrackingService.updatePathwayProgress(
+            first.getPathwayId(), first.getUserId(), first.getGroupId());
+        User user = progress.getUser();
+
+        // Only steps flagged in the pinned manifest's milestone mask need their StepVersion loaded
+        Set<Long> milestoneStepIds = progressEngine.milestoneStepIds(first.getPathwayId(), first.getGroupId(),
+            learnerEvents.stream().map(ProgressOutboxEvent::getStepVersionId).collect(Collectors.toList()));
+        for (ProgressOutboxEvent event : learnerEvents) {
+            if (!milestoneStepIds.contains(event.getStepVersionId())) {
+                continue;
+            }
+            StepVersion stepVersion = stepVersionRepository.findById(event.getStepVersionId()).orElse(null);
+            if (stepVersion != null && Boolean.TRUE.equals(stepVersion.getMilestone())) {
+                awardMilestoneBadge(stepVersion, user);
+                notify(user, "MILESTONE_REACHED", "You reached the milestone \"" + stepVersion.getName() + "\"");
+            }
+        }
+
+        if (!wasCompleted && Boolean.TRUE.equals(progress.getCompleted())) {
+            notify(user, "PATHWAY_COMPLETED", "You completed the pathway \"" + progress.getPathway().getName() + "\"");
+        }
+    }
+
+    // Runs inside the per-learner transaction of handle(), so the status list bit commits with the instance
+    private void awardMilestoneBadge(StepVersion stepVersion, User user) {
+        Long badgeClassId = stepVersion.getAchievementBadgeId();
+        if (badgeClassId == null || Boolean.TRUE.equals(stepVersion.getAchievementExternal())) {
+            return;
+        }
+        if (badgeInstanceRepository.existsByBadgeClassIdAndRecipientIdAndRevokedFalse(badgeClassId, user.getId())) {
+            return;
+        }
+        BadgeClass badgeClass = badgeClassRepository.findById(badgeClassId).orElse(null);
+        if (badgeClass == null) {
+            logger.warn("Milestone step {} references missing badge class {}", stepVersion.getId(), badgeClassId);
+            return;
+        }
+
+        BadgeInstance instance = new BadgeInstance();
+        instance.setBadgeClass(badgeClass);
+        instance.setOrganization(badgeClass.getOrganization());
+        instance.setRecipient(user);
+        instance.setRecipientIdentifier(user.getEmail());
+        instance.setRecipientType("email");
+        instance.setAwardType("pathway");
+        instance.setIssuedOn(LocalDateTime.now());
+        instance.setStatus(BadgeInstance.Status.ACTIVE);
+        statusListService.sync(instance);
+        badgeInstanceRepository.save(instance);
+    }
+
+    private void notify(User user, String type, String message) {
+        UserNotification notification = new UserNotification();
+        notification.setUser(user);
+        notification.setType(type);
+        notification.setMessage(message);
+        userNotificationRepository.save(notification);
+    }
+
+    private void markProcessed(List<ProgressOutboxEvent> events) {
+        LocalDateTime now = LocalDateTime.now();
+        for (ProgressOutboxEvent event : events) {
+            event.setStatus(ProgressOutboxEvent.OutboxStatus.PROCESSED);
+            event.setProcessedAt(now);
+        }
+        outboxRepository.saveAll(events);
+    }
+
+    private void markFailedAttempt(List<ProgressOutboxEvent> events, RuntimeException error) {
+        String message = error.getMessage() != null && error.getMessage().length() > 1024
+            ? error.getMessage().substring(0, 1024) : error.getMessage();
+        for (ProgressOutboxEvent event : events) {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(message);
+            event.setStatus(event.getAttempts() >= MAX_ATTEMPTS
+                ? ProgressOutboxEvent.OutboxStatus.FAILED
+                : ProgressOutboxEvent.OutboxStatus.PENDING);
+        }
+        outboxRepository.saveAll(events);
+    }
+}
@@ -0,0 +1,116 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.PathwayVersion;
+import com.taashee.badger.repositories.PathwayVersionRepository;
+import com.taashee.badger.repositories.StepVersionRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory step manifests of pathway versions. Published and archived versions are
+ * immutable snapshots, so their manifests are cached until the pathway is deleted.
+ */
+@Service
+public class StepManifestCache {
+    private final PathwayVersionRepository pathwayVersionRepository;
+    private final StepVersionRepository stepVersionRepository;
+    private final Map<Long, StepManifest> manifests = new ConcurrentHashMap<>();
+
+    public StepManifestCache(PathwayVersionRepository pathwayVersionRepository,
+                             StepVersionRepository stepVersionRepository) {
+        this.pathwayVersionRepository = pathwayVersionRepository;
+        this.stepVersionRepository = stepVersionRepository;
+    }
+
+    /**
+     * Immutable list of the steps of one pathway version, in order. A step's position in
+     * this list is its index in prerequisite graphs and completion bitsets.
+     */
+    public static final class StepManifest {
+        private final Long pathwayVersionId;
+        private final Long pathwayId;
+        private final List<Step> steps;
+        private final List<Long> requiredStepIds;
+        private final Map<Long, Integer> positions = new HashMap<>();
+        private final BitSet requiredMask = new BitSet();
+        private final BitSet milestoneMask = new BitSet();
+
+        public StepManifest(Long pathwayVersionId, Long pathwayId, List<Step> steps) {
+            this.pathwayVersionId = pathwayVersionId;
+            this.pathwayId = pathwayId;
+            this.steps = List.copyOf(steps);
+            this.requiredStepIds = this.steps.stream()
+                    .filter(step -> !step.optional())
+                    .map(Step::stepVersionId)
+                    .collect(Collectors.toUnmodifiableList());
+            for (int i = 0; i < this.steps.size(); i++) {
+                Step step = this.steps.get(i);
+                positions.put(step.stepVersionId(), i);
+                requiredMask.set(i, !step.optional());
+                milestoneMask.set(i, step.milestone());
+            }
+        }
+
+        public Long pathwayVersionId() { return pathwayVersionId; }
+        public Long pathwayId() { return pathwayId; }
+        public List<Step> steps() { return steps; }
+        public int size() { return steps.size(); }
+
+        /** Ids of the steps that count toward progress (optional steps never do) */
+        public List<Long> requiredStepIds() { return requiredStepIds; }
+
+        /** Positions of the steps that count toward progress */
+        public BitSet requiredMask() { return (BitSet) requiredMask.clone(); }
+
+        /** Positions of milestone steps */
+        public BitSet milestoneMask() { return (BitSet) milestoneMask.clone(); }
+
+        /** Position of a step version in this manifest, or -1 if it is not part of it */
+        public int indexOf(Long stepVersionId) {
+            Integer position = positions.get(stepVersionId);
+            return position != null ? position : -1;
+        }
+    }
+
+    public record Step(Long stepVersionId, boolean optional, boolean milestone, Integer orderIndex) {
+    }
+
+    /**
+     * Returns the manifest of a pathway version. Draft versions are read fresh every time.
+     */
+    public StepManifest getManifest(Long pathwayVersionId) {
+        StepManifest cached = manifests.get(pathwayVersionId);
+        if (cached != null) {
+            return cached;
+        }
+
+        PathwayVersion version = pathwayVersionRepository.findById(pathwayVersionId)
+                .orElseThrow(() -> new RuntimeException("Pathway version not found: " + pathwayVersionId));
+        List<Step> steps = stepVersionRepository.findManifestRows(pathwayVersionId).stream()
+                .map(row -> new Step(
+                        row.getStepVersionId(),
+                        Boolean.TRUE.equals(row.getOptionalStep()),
+                        Boolean.TRUE.equals(row.getMilestone()),
+                        row.getOrderIndex()))
+                .collect(Collectors.toList());
+        StepManifest manifest = new StepManifest(pathwayVersionId, version.getPathway().getId(), steps);
+
+        if (version.getStatus() != PathwayVersion.VersionStatus.DRAFT) {
+            manifests.put(pathwayVersionId, manifest);
+        }
+        return manifest;
+    }
+
+    /**
+     * Drops all cached manifests of a pathway, e.g. when the pathway is deleted
+     */
+    public void evictPathway(Long pathwayId) {
+        manifests.values().removeIf(manifest -> manifest.pathwayId().equals(pathwayId));
+    }
+}
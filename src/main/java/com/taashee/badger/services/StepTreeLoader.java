@@ -0,0 +1,237 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.PathwayStep;
+import com.taashee.badger.models.StepRequirement;
+import com.taashee.badger.repositories.PathwayStepRepository;
+import com.taashee.badger.repositories.StepPrerequisiteRepository;
+import com.taashee.badger.repositories.StepRequirementRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the steps of a pathway in a fixed number of queries and assembles the hierarchy in
+ * memory, so that listing steps and guarding against parent cycles never walk lazy
+ * associations one step at a time.
+ */
+@Service
+public class StepTreeLoader {
+    private final PathwayStepRepository pathwayStepRepository;
+    private final StepRequirementRepository stepRequirementRepository;
+    private final StepPrerequisiteRepository stepPrerequisiteRepository;
+
+    public StepTreeLoader(PathwayStepRepository pathwayStepRepository,
+                          StepRequirementRepository stepRequirementRepository,
+                          StepPrerequisiteRepository stepPrerequisiteRepository) {
+        this.pathwayStepRepository = pathwayStepRepository;
+        this.stepRequirementRepository = stepRequirementRepository;
+        this.stepPrerequisiteRepository = stepPrerequisiteRepository;
+    }
+
+    /**
+     * Steps with their requirements and prerequisite links, in three queries
+     */
+    @Transactional(readOnly = true)
+    public StepTree load(Long pathwayId) {
+        StepTree tree = new StepTree(pathwayStepRepository.findSnapshotSteps(pathwayId));
+        tree.attachRequirements(stepRequirementRepository.findSnapshotRequirements(pathwayId));
+        tree.attachPrerequisites(stepPrerequisiteRepository.findPrerequisiteLinks(pathwayId));
+        return tree;
+    }
+
+    /**
+     * Steps and their hierarchy only, in one query; enough for cycle and ordering checks
+     */
+    @Transactional(readOnly = true)
+    public StepTree loadStructure(Long pathwayId) {
+        return new StepTree(pathwayStepRepository.findSnapshotSteps(pathwayId));
+    }
+
+    /**
+     * Steps of one pathway ordered by orderIndex, indexed by position. Parent links, children,
+     * requirements and prerequisites are kept in flat int arrays over those positions.
+     */
+    public static final class StepTree {
+        private final List<PathwayStep> steps;
+        private final Map<Long, Integer> indexById;
+        // Position of each step's parent, -1 for roots and parents outside the pathway
+        private final int[] parent;
+        // Children of step i are childIndexes[childStart[i] .. childStart[i + 1]), in step order
+        private final int[] childStart;
+        private final int[] childIndexes;
+        private StepRequirement[] requirements = new StepRequirement[0];
+        private int[] requirementStart;
+        private long[] prerequisiteIds = new long[0];
+        private int[] prerequisiteStart;
+
+        StepTree(List<PathwayStep> steps) {
+            int size = steps.size();
+            this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+            this.indexById = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                indexById.put(steps.get(i).getId(), i);
+            }
+
+            this.parent = new int[size];
+            int[] childCounts = new int[size];
+            for (int i = 0; i < size; i++) {
+                Integer parentIndex = indexById.get(steps.get(i).getParentStepId());
+                parent[i] = parentIndex != null ? parentIndex : -1;
+                if (parent[i] >= 0) {
+                    childCounts[parent[i]]++;
+                }
+            }
+            this.childStart = offsets(childCounts);
+            this.childIndexes = new int[childStart[size]];
+            int[] next = Arrays.copyOf(childStart, size);
+            for (int i = 0; i < size; i++) {
+                if (parent[i] >= 0) {
+                    childIndexes[next[parent[i]]++] = i;
+                }
+            }
+            this.requirementStart = new int[size + 1];
+            this.prerequisiteStart = new int[size + 1];
+        }
+
+        void attachRequirements(List<StepRequirement> loaded) {
+            int[] counts = new int[steps.size()];
+            for (StepRequirement requirement : loaded) {
+                Integer index = indexById.get(requirement.getStep().getId());
+                if (index != null) {
+                    counts[index]++;
+                }
+            }
+            requirementStart = offsets(counts);
+            requirements = new StepRequirement[requirementStart[steps.size()]];
+            int[] next = Arrays.copyOf(requirementStart, steps.size());
+            for (StepRequirement requirement : loaded) {
+                Integer index = indexById.get(requirement.getStep().getId());
+                if (index != null) {
+                    requirements[next[index]++] = requirement;
+                }
+            }
+        }
+
+        void attachPrerequisites(List<StepPrerequisiteRepository.PrerequisiteLinkRow> links) {
+            int[] counts = new int[steps.size()];
+            for (StepPrerequisiteRepository.PrerequisiteLinkRow link : links) {
+                Integer index = indexById.get(link.getStepId());
+                if (index != null) {
+                    counts[index]++;
+                }
+            }
+            prerequisiteStart = offsets(counts);
+            prerequisiteIds = new long[prerequisiteStart[steps.size()]];
+            int[] next = Arrays.copyOf(prerequisiteStart, steps.size());
+            for (StepPrerequisiteRepository.PrerequisiteLinkRow link : links) {
+                Integer index = indexById.get(link.getStepId());
+                if (index != null) {
+                    prerequisiteIds[next[index]++] = link.getPrerequisiteStepId();
+                }
+            }
+        }
+
+        private static int[] offsets(int[] counts) {
+            int[] offsets = new int[counts.length + 1];
+            for (int i = 0; i < counts.length; i++) {
+                offsets[i + 1] = offsets[i] + counts[i];
+            }
+            return offsets;
+        }
+
+        public int size() {
+            return steps.size();
+        }
+
+        public List<PathwayStep> steps() {
+            return steps;
+        }
+
+        public boolean contains(Long stepId) {
+            return indexById.containsKey(stepId);
+        }
+
+        /**
+         * The step with the given id, or null if it does not belong to this pathway
+         */
+        public PathwayStep step(Long stepId) {
+            Integer index = indexById.get(stepId);
+            return index != null ? steps.get(index) : null;
+        }
+
+        /**
+         * Steps without a parent in this pathway, in step order
+         */
+        public List<PathwayStep> roots() {
+            List<PathwayStep> roots = new ArrayList<>();
+            for (int i = 0; i < parent.length; i++) {
+                if (parent[i] < 0) {
+                    roots.add(steps.get(i));
+                }
+            }
+            return roots;
+        }
+
+        public List<PathwayStep> children(Long stepId) {
+            Integer index = indexById.get(stepId);
+            if (index == null) {
+                return List.of();
+            }
+            List<PathwayStep> children = new ArrayList<>(childStart[index + 1] - childStart[index]);
+            for (int i = childStart[index]; i < childStart[index + 1]; i++) {
+                children.add(steps.get(childIndexes[i]));
+            }
+            return children;
+        }
+
+        /**
+         * Requirements of a step ordered by id; empty unless loaded with {@link StepTreeLoader#load}
+         */
+        public List<StepRequirement> requirements(Long stepId) {
+            Integer index = indexById.get(stepId);
+            if (index == null) {
+                return List.of();
+            }
+            return Arrays.asList(requirements).subList(requirementStart[index], requirementStart[index + 1]);
+        }
+
+        /**
+         * Ids of the steps linked as prerequisites of a step; empty unless loaded with {@link StepTreeLoader#load}
+         */
+        public List<Long> prerequisiteStepIds(Long stepId) {
+            Integer index = indexById.get(stepId);
+            if (index == null) {
+                return List.of();
+            }
+            List<Long> ids = new ArrayList<>(prerequisiteStart[index + 1] - prerequisiteStart[index]);
+            for (int i = prerequisiteStart[index]; i < prerequisiteStart[index + 1]; i++) {
+                ids.add(prerequisiteIds[i]);
+            }
+            return ids;
+        }
+
+        /**
+         * True if ancestorId is stepId itself or one of its ancestors. The climb is bounded by
+         * the number of steps, so a cycle already in the data cannot loop forever.
+         */
+        public boolean isAncestorOrSelf(Long ancestorId, Long stepId) {
+            Integer target = indexById.get(ancestorId);
+            Integer cursor = indexById.get(stepId);
+            if (target == null || cursor == null) {
+                return false;
+            }
+            for (int i = cursor, hops = 0; i >= 0 && hops <= parent.length; i = parent[i], hops++) {
+                if (i == target) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived in-memory cache of each user's token version and revocation time, checked by the
+ * JWT filter instead of loading the user. Changes made on this node are visible immediately;
+ * changes made on other nodes once the cached entry expires.
+ */
+@Service
+public class TokenVersionService {
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final Map<Long, CachedState> states = new ConcurrentHashMap<>();
+
+    public TokenVersionService(UserRepository userRepository,
+                               @Value("${app.jwt.versionCacheTtlMs:30000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.ttlNanos = ttlMs * 1_000_000L;
+    }
+
+    /**
+     * Version and revocation time of a user's tokens. tokensValidAfter is null when nothing was revoked.
+     */
+    public record TokenState(long authVersion, LocalDateTime tokensValidAfter) {
+    }
+
+    private record CachedState(TokenState state, long loadedAt) {
+    }
+
+    /**
+     * Current token state of a user, or null if the user no longer exists or is disabled
+     */
+    public TokenState getState(Long userId) {
+        long now = System.nanoTime();
+        CachedState cached = states.get(userId);
+        if (cached != null && now - cached.loadedAt() < ttlNanos) {
+            return cached.state();
+        }
+        TokenState state = userRepository.findAuthState(userId)
+                .filter(UserRepository.AuthState::isEnabled)
+                .map(auth -> new TokenState(auth.getAuthVersion(), auth.getTokensValidAfter()))
+                .orElse(null);
+        states.put(userId, new CachedState(state, now));
+        return state;
+    }
+
+    /**
+     * Marks the claims of the users' tokens as stale; they are re-issued on their next request
+     */
+    @Transactional
+    public void bumpVersion(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userRepository.incrementAuthVersion(userIds);
+        evictAfterCommit(List.copyOf(userIds));
+    }
+
+    @Transactional
+    public void bumpVersion(Long userId) {
+        bumpVersion(List.of(userId));
+    }
+
+    /**
+     * Rejects every token issued to the user so far, e.g. after a password reset
+     */
+    @Transactional
+    public void revokeTokens(Long userId) {
+        userRepository.revokeTokens(userId, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        evictAfterCommit(List.of(userId));
+    }
+
+    public void evict(Long userId) {
+        states.remove(userId);
+    }
+
+    // Evicting before commit would let a concurrent request cache the old state again until the TTL
+    private void evictAfterCommit(Collection<Long> userIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userIds.forEach(states::remove);
+                }
+            });
+        } else {
+            userIds.forEach(states::remove);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.taashee.badger.configs;
+
+import com.taashee.badger.models.User;
+import com.taashee.badger.repositories.OrganizationStaffRepository;
+import com.taashee.badger.services.TokenVersionService;
+import com.taashee.badger.services.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+    private static final long USER_ID = 42L;
+    private static final String EMAIL = "learner@example.org";
+
+    private final JwtUtil jwtUtil = new JwtUtil(mock(OrganizationStaffRepository.class));
+    private final JwtPrincipal principal = new JwtPrincipal(USER_ID, EMAIL, List.of("USER"), List.of());
+    private UserService userService;
+    private TokenVersionService tokenVersionService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        tokenVersionService = mock(TokenVersionService.class);
+        filter = new JwtAuthenticationFilter(jwtUtil);
+        ReflectionTestUtils.setField(filter, "userService", userService);
+        ReflectionTestUtils.setField(filter, "tokenVersionService", tokenVersionService);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void currentTokenAuthenticatesFromItsClaimsAlone() throws Exception {
+        when(tokenVersionService.getState(USER_ID)).thenReturn(new TokenVersionService.TokenState(1L, null));
+
+        MockHttpServletResponse response = filter(jwtUtil.generateToken(principal, 1L));
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(auth);
+        assertEquals(EMAIL, auth.getName());
+        assertEquals(principal, auth.getDetails());
+        assertEquals(List.of("ROLE_USER"), auth.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertNull(response.getCookie("badger_jwt"));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void tokenIssuedBeforeTheRevocationCutoffIsRejected() throws Exception {
+        when(tokenVersionService.getState(USER_ID))
+            .thenReturn(new TokenVersionService.TokenState(1L, LocalDateTime.now().plusMinutes(1)));
+
+        filter(jwtUtil.generateToken(principal, 1L));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void tokenOfAnUnknownUserIsRejected() throws Exception {
+        filter(jwtUtil.generateToken(principal, 1L));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void revokedLegacyTokenIsRejected() throws Exception {
+        when(userService.findByEmail(EMAIL)).thenReturn(user(1L));
+        when(tokenVersionService.getState(USER_ID))
+            .thenReturn(new TokenVersionService.TokenState(1L, LocalDateTime.now().plusMinutes(1)));
+
+        MockHttpServletResponse response = filter(legacyToken(new Date(System.currentTimeMillis() + 60_000)));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNull(response.getCookie("badger_jwt"));
+    }
+
+    @Test
+    void staleTokenIsReissuedWithItsOriginalExpiry() throws Exception {
+        when(tokenVersionService.getState(USER_ID)).thenReturn(new TokenVersionService.TokenState(2L, null));
+        when(userService.findByEmail(EMAIL)).thenReturn(user(2L));
+        Date expiresAt = new Date((System.currentTimeMillis() / 1000 + 600) * 1000);
+
+        MockHttpServletResponse response = filter(jwtUtil.generateToken(principal, 1L, expiresAt));
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        Cookie cookie = response.getCookie("badger_jwt");
+        assertNotNull(cookie);
+        assertTrue(cookie.getMaxAge() > 0 && cookie.getMaxAge() <= 600, String.valueOf(cookie.getMaxAge()));
+        Claims reissued = jwtUtil.parseClaims(cookie.getValue());
+        assertEquals(expiresAt, reissued.getExpiration());
+        assertEquals(2L, jwtUtil.getVersion(reissued));
+    }
+
+    private MockHttpServletResponse filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("badger_jwt", token));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static String legacyToken(Date expiresAt) {
+        return Jwts.builder()
+            .setSubject(EMAIL)
+            .setIssuedAt(new Date())
+            .setExpiration(expiresAt)
+            .signWith(Keys.hmacShaKeyFor("badger-management-super-secret-key-should-be-long".getBytes()), SignatureAlgorithm.HS256)
+            .compact();
+    }
+
+    private static User user(long authVersion) {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setEmail(EMAIL);
+        user.setEnabled(true);
+        user.setRoles(Set.of("USER"));
+        user.setAuthVersion(authVersion);
+        return user;
+    }
+}
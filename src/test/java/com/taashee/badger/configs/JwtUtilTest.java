@@ -0,0 +1,79 @@
+package com.taashee.badger.configs;
+
+import com.taashee.badger.repositories.OrganizationStaffRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class JwtUtilTest {
+    // Same key as JwtUtil, for hand-built tokens in the legacy format
+    private static final byte[] SECRET = "badger-management-super-secret-key-should-be-long".getBytes();
+
+    private final JwtUtil jwtUtil = new JwtUtil(mock(OrganizationStaffRepository.class));
+
+    @Test
+    void claimsRoundTripThePrincipal() {
+        JwtPrincipal principal = new JwtPrincipal(42L, "learner@example.org", List.of("USER", "ISSUER"), List.of(
+            new JwtPrincipal.Membership(5L, "owner", true),
+            new JwtPrincipal.Membership(9L, "staff", false)));
+
+        Claims claims = jwtUtil.parseClaims(jwtUtil.generateToken(principal, 3L));
+
+        assertNotNull(claims);
+        assertEquals(principal, jwtUtil.toPrincipal(claims));
+        assertEquals(3L, jwtUtil.getVersion(claims));
+    }
+
+    @Test
+    void reissuedTokenKeepsTheGivenExpiry() {
+        JwtPrincipal principal = new JwtPrincipal(42L, "learner@example.org", List.of("USER"), List.of());
+        // JWT dates have second precision
+        Date expiresAt = new Date((System.currentTimeMillis() / 1000 + 600) * 1000);
+
+        Claims claims = jwtUtil.parseClaims(jwtUtil.generateToken(principal, 1L, expiresAt));
+
+        assertEquals(expiresAt, claims.getExpiration());
+    }
+
+    @Test
+    void legacyTokensHaveNoPrincipalAndNoVersion() {
+        String legacy = Jwts.builder()
+            .setSubject("learner@example.org")
+            .setIssuedAt(new Date())
+            .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(Keys.hmacShaKeyFor(SECRET), SignatureAlgorithm.HS256)
+            .compact();
+
+        Claims claims = jwtUtil.parseClaims(legacy);
+
+        assertNotNull(claims);
+        assertNull(jwtUtil.toPrincipal(claims));
+        assertEquals(-1L, jwtUtil.getVersion(claims));
+    }
+
+    @Test
+    void invalidTokensParseToNull() {
+        JwtPrincipal principal = new JwtPrincipal(42L, "learner@example.org", List.of("USER"), List.of());
+        String token = jwtUtil.generateToken(principal, 1L);
+        String expired = jwtUtil.generateToken(principal, 1L, new Date(System.currentTimeMillis() - 60_000));
+        String foreign = Jwts.builder()
+            .setSubject("learner@example.org")
+            .signWith(Keys.hmacShaKeyFor("some-other-secret-key-that-is-long-enough".getBytes()), SignatureAlgorithm.HS256)
+            .compact();
+
+        assertNull(jwtUtil.parseClaims(token.substring(0, token.length() - 2) + "xx"));
+        assertNull(jwtUtil.parseClaims(expired));
+        assertNull(jwtUtil.parseClaims(foreign));
+        assertNull(jwtUtil.parseClaims("not a token"));
+    }
+}
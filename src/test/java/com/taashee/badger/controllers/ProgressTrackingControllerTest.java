@@ -0,0 +1,161 @@
+package com.taashee.badger.controllers;
+
+import com.taashee.badger.models.Organization;
+import com.taashee.badger.models.StepCompletionRequest;
+import com.taashee.badger.models.User;
+import com.taashee.badger.repositories.GroupMemberRepository;
+import com.taashee.badger.repositories.GroupRepository;
+import com.taashee.badger.repositories.OrganizationRepository;
+import com.taashee.badger.repositories.OrganizationStaffRepository;
+import com.taashee.badger.repositories.OrganizationUserRepository;
+import com.taashee.badger.repositories.PathwayRepository;
+import com.taashee.badger.services.GroupProgressRollupService;
+import com.taashee.badger.services.ProgressRecalculationService;
+import com.taashee.badger.services.ProgressTrackingService;
+import com.taashee.badger.services.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProgressTrackingControllerTest {
+    private static final long ORG_ID = 5L;
+    private static final long GROUP_ID = 7L;
+    private static final long OTHER_ORG_PATHWAY_ID = 2L;
+    private static final long PATHWAY_ID = 1L;
+    private static final String EMAIL = "issuer@example.org";
+
+    private ProgressTrackingService progressService;
+    private ProgressRecalculationService progressRecalculationService;
+    private PathwayRepository pathwayRepository;
+    private GroupRepository groupRepository;
+    private ProgressTrackingController controller;
+    private User issuer;
+
+    @BeforeEach
+    void setUp() {
+        progressService = mock(ProgressTrackingService.class);
+        progressRecalculationService = mock(ProgressRecalculationService.class);
+        pathwayRepository = mock(PathwayRepository.class);
+        groupRepository = mock(GroupRepository.class);
+        OrganizationRepository organizationRepository = mock(OrganizationRepository.class);
+        when(organizationRepository.findById(ORG_ID)).thenReturn(Optional.of(new Organization()));
+        when(pathwayRepository.existsByIdAndOrganizationId(PATHWAY_ID, ORG_ID)).thenReturn(true);
+        when(groupRepository.existsByIdAndOrganizationId(GROUP_ID, ORG_ID)).thenReturn(true);
+
+        UserService userService = mock(UserService.class);
+        issuer = new User();
+        issuer.setId(9L);
+        issuer.setEmail(EMAIL);
+        issuer.setRoles(Set.of("ISSUER"));
+        when(userService.findByEmail(EMAIL)).thenReturn(issuer);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(EMAIL, null));
+
+        controller = new ProgressTrackingController(progressService, organizationRepository,
+            mock(OrganizationStaffRepository.class), mock(OrganizationUserRepository.class),
+            mock(GroupMemberRepository.class), groupRepository, pathwayRepository);
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "groupProgressRollupService", mock(GroupProgressRollupService.class));
+        ReflectionTestUtils.setField(controller, "progressRecalculationService", progressRecalculationService);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void recalculationIsQueuedForAPathwayOfTheOrganization() {
+        ProgressRecalculationService.RecalculationJob job = mock(ProgressRecalculationService.RecalculationJob.class);
+        when(progressService.recalculateAllProgressForPathway(PATHWAY_ID)).thenReturn(job);
+
+        ResponseEntity<ProgressRecalculationService.RecalculationJob> response = controller.recalculatePathwayProgress(ORG_ID, PATHWAY_ID);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertSame(job, response.getBody());
+    }
+
+    @Test
+    void recalculationOfAnotherOrganizationsPathwayIsNotFound() {
+        ResponseEntity<ProgressRecalculationService.RecalculationJob> response = controller.recalculatePathwayProgress(ORG_ID, OTHER_ORG_PATHWAY_ID);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(progressService, never()).recalculateAllProgressForPathway(anyLong());
+    }
+
+    @Test
+    void jobsOfAnotherOrganizationsPathwayCannotBePolled() {
+        ResponseEntity<ProgressRecalculationService.RecalculationJob> response = controller.getRecalculationStatus(ORG_ID, OTHER_ORG_PATHWAY_ID, "some-job");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(progressRecalculationService, never()).getJob(any());
+        verify(progressRecalculationService, never()).getLatestJob(anyLong());
+    }
+
+    @Test
+    void jobOfAnotherPathwayIsNotFoundThroughThisOne() {
+        ProgressRecalculationService.RecalculationJob job = mock(ProgressRecalculationService.RecalculationJob.class);
+        when(job.getPathwayId()).thenReturn(OTHER_ORG_PATHWAY_ID);
+        when(progressRecalculationService.getJob("some-job")).thenReturn(job);
+
+        ResponseEntity<ProgressRecalculationService.RecalculationJob> response = controller.getRecalculationStatus(ORG_ID, PATHWAY_ID, "some-job");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void bulkCompletionRunsForAGroupAndPathwayOfTheOrganization() {
+        List<StepCompletionRequest> requests = List.of(new StepCompletionRequest());
+        Map<String, Object> summary = Map.of("completed", 1);
+        when(progressService.completeStepsInBulk(PATHWAY_ID, GROUP_ID, requests)).thenReturn(summary);
+
+        ResponseEntity<Map<String, Object>> response = controller.completeStepsInBulk(ORG_ID, PATHWAY_ID, GROUP_ID, requests);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(summary, response.getBody());
+    }
+
+    @Test
+    void bulkCompletionForAnotherOrganizationsGroupIsNotFound() {
+        ResponseEntity<Map<String, Object>> response = controller.completeStepsInBulk(ORG_ID, PATHWAY_ID, 8L, List.of());
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(progressService, never()).completeStepsInBulk(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void bulkCompletionForAnotherOrganizationsPathwayIsNotFound() {
+        ResponseEntity<Map<String, Object>> response = controller.completeStepsInBulk(ORG_ID, OTHER_ORG_PATHWAY_ID, GROUP_ID, List.of());
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(progressService, never()).completeStepsInBulk(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void bulkCompletionRequiresTheIssuerRole() {
+        issuer.setRoles(Set.of("USER"));
+
+        ResponseEntity<Map<String, Object>> response = controller.completeStepsInBulk(ORG_ID, PATHWAY_ID, GROUP_ID, List.of());
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verify(progressService, never()).completeStepsInBulk(anyLong(), anyLong(), any());
+    }
+}
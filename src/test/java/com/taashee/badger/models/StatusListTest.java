@@ -0,0 +1,68 @@
+package com.taashee.badger.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusListTest {
+
+    @Test
+    void emptyListHasNoBitsSet() {
+        StatusList list = new StatusList();
+
+        assertFalse(list.isSet(0));
+        assertFalse(list.isSet(1_000_000));
+        assertNull(list.getBits());
+    }
+
+    @Test
+    void bitZeroIsTheMostSignificantBitOfTheFirstByte() {
+        StatusList list = new StatusList();
+
+        assertTrue(list.set(0, true));
+        assertArrayEquals(new byte[] {(byte) 0x80}, list.getBits());
+
+        assertTrue(list.set(7, true));
+        assertArrayEquals(new byte[] {(byte) 0x81}, list.getBits());
+    }
+
+    @Test
+    void setGrowsTheBitstringToTheByteHoldingTheIndex() {
+        StatusList list = new StatusList();
+
+        list.set(17, true);
+
+        // Index 17 is bit 1 of byte 2
+        assertArrayEquals(new byte[] {0, 0, 0x40}, list.getBits());
+        assertTrue(list.isSet(17));
+        assertFalse(list.isSet(16));
+        assertFalse(list.isSet(18));
+    }
+
+    @Test
+    void setReportsWhetherTheBitChanged() {
+        StatusList list = new StatusList();
+
+        assertFalse(list.set(3, false));
+        assertNull(list.getBits());
+        assertTrue(list.set(3, true));
+        assertFalse(list.set(3, true));
+        assertTrue(list.set(3, false));
+        assertFalse(list.isSet(3));
+    }
+
+    @Test
+    void clearingOneBitLeavesItsNeighboursAlone() {
+        StatusList list = new StatusList();
+        for (int i = 8; i < 16; i++) {
+            list.set(i, true);
+        }
+
+        list.set(12, false);
+
+        assertArrayEquals(new byte[] {0, (byte) 0xF7}, list.getBits());
+    }
+}
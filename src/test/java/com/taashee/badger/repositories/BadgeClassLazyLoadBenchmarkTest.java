@@ -0,0 +1,155 @@
+package com.taashee.badger.repositories;
+
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeClassSummaryDTO;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures what the permission-check and list paths materialize for badge classes whose long
+ * text fields are filled, against the same rows with the "details" lazy group forced in, which
+ * is what every load cost before those fields were made lazy. Heap is measured as bytes
+ * allocated by the loading thread; row size as the text payload each path leaves unread.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class BadgeClassLazyLoadBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(BadgeClassLazyLoadBenchmarkTest.class);
+
+    private static final int ROWS = 200;
+    private static final int TEXT_LENGTH = 16 * 1024;
+    // Four lazy TEXT columns of TEXT_LENGTH characters each
+    private static final long DETAIL_CHARS_PER_ROW = 4L * TEXT_LENGTH;
+
+    @Autowired
+    private BadgeClassRepository badgeClassRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void insertRows() {
+        String text = "x".repeat(TEXT_LENGTH);
+        for (int i = 0; i < ROWS; i++) {
+            BadgeClass badgeClass = new BadgeClass();
+            badgeClass.setName("Badge " + i);
+            badgeClass.setDescription(text);
+            badgeClass.setCriteriaText(text);
+            badgeClass.setQualityAssuranceDescription(text);
+            badgeClass.setOldJson(text);
+            ids.add(entityManager.persist(badgeClass).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void permissionCheckSkipsDetailColumns() {
+        BadgeClass loaded = badgeClassRepository.findById(ids.get(0)).orElseThrow();
+        PersistenceUnitUtil util = entityManager.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+        assertTrue(util.isLoaded(loaded, "name"));
+        assertFalse(util.isLoaded(loaded, "description"), "long text fields must not load with the entity (is bytecode enhancement on?)");
+        entityManager.clear();
+
+        // Warm up every path once so class loading and query plan caching are not measured
+        loadEntities(false);
+        loadEntities(true);
+        loadOwners();
+
+        long eager = loadEntities(true);
+        long lazy = loadEntities(false);
+        long owners = loadOwners();
+        report("permission check", eager, lazy, owners);
+
+        assertTrue(lazy * 2 < eager, "lazy entity load should allocate well under half of the eager load");
+        assertTrue(owners < lazy, "the owner projection should allocate less than the entity load");
+    }
+
+    @Test
+    void listSkipsDetailColumns() {
+        loadPage(false);
+        loadPage(true);
+        loadSummaries();
+
+        long eager = loadPage(true);
+        long lazy = loadPage(false);
+        long summaries = loadSummaries();
+        report("list", eager, lazy, summaries);
+
+        assertTrue(lazy * 2 < eager, "lazy page load should allocate well under half of the eager load");
+    }
+
+    private long loadEntities(boolean withDetails) {
+        long before = allocatedBytes();
+        for (Long id : ids) {
+            BadgeClass badgeClass = badgeClassRepository.findById(id).orElseThrow();
+            if (withDetails) {
+                badgeClass.getDescription();
+            }
+        }
+        long allocated = allocatedBytes() - before;
+        entityManager.clear();
+        return allocated;
+    }
+
+    private long loadOwners() {
+        long before = allocatedBytes();
+        for (Long id : ids) {
+            badgeClassRepository.findOwnerById(id).orElseThrow();
+        }
+        long allocated = allocatedBytes() - before;
+        entityManager.clear();
+        return allocated;
+    }
+
+    private long loadPage(boolean withDetails) {
+        long before = allocatedBytes();
+        for (BadgeClass badgeClass : badgeClassRepository.findAll(PageRequest.of(0, ROWS))) {
+            if (withDetails) {
+                badgeClass.getDescription();
+            }
+        }
+        long allocated = allocatedBytes() - before;
+        entityManager.clear();
+        return allocated;
+    }
+
+    private long loadSummaries() {
+        long before = allocatedBytes();
+        Page<BadgeClassSummaryDTO> page = badgeClassRepository.findSummaries(null, null, PageRequest.of(0, ROWS));
+        long allocated = allocatedBytes() - before;
+        assertEquals(ROWS, page.getNumberOfElements());
+        entityManager.clear();
+        return allocated;
+    }
+
+    private void report(String path, long eager, long lazy, long projection) {
+        logger.info("[{}] {} rows, {} KiB of detail text per row left unread", path, ROWS, DETAIL_CHARS_PER_ROW / 1024);
+        logger.info("[{}] allocated: eager {} KiB, lazy {} KiB ({}%), projection {} KiB ({}%)", path,
+                eager / 1024, lazy / 1024, lazy * 100 / eager, projection / 1024, projection * 100 / eager);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
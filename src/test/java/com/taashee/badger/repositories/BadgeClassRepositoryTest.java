@@ -0,0 +1,113 @@
+package com.taashee.badger.repositories;
+
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeClassSummaryDTO;
+import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.models.Organization;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Summary projection of the paginated badge class list: word-prefix search, organization
+ * scope, image URLs and the active award count, all computed by the query.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class BadgeClassRepositoryTest {
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10, Sort.by("id"));
+
+    @Autowired
+    private BadgeClassRepository badgeClassRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Organization university;
+    private Organization college;
+
+    @BeforeEach
+    void insertRows() {
+        university = organization("University");
+        college = organization("College");
+        BadgeClass science = badgeClass("Data Science", university, null, "ab12cd");
+        badgeClass("Metadata basics", university, "data:image/png;base64,iVBORw0KGgo=", null);
+        badgeClass("Data_Engineering", college, "https://cdn.example.org/badge.png", null);
+        award(science, false);
+        award(science, false);
+        award(science, true);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void searchMatchesTheStartOfTheNameOrOfAWord() {
+        // "Metadata" contains "data" but no word of it starts with it
+        assertEquals(List.of("Data Science", "Data_Engineering"), names(badgeClassRepository.findSummaries("data%", "% data%", FIRST_PAGE)));
+        assertEquals(List.of("Data Science"), names(badgeClassRepository.findSummaries("science%", "% science%", FIRST_PAGE)));
+    }
+
+    @Test
+    void escapedWildcardsMatchLiterally() {
+        assertEquals(List.of("Data_Engineering"), names(badgeClassRepository.findSummaries("data\\_%", "% data\\_%", FIRST_PAGE)));
+    }
+
+    @Test
+    void organizationScopeAppliesToRowsAndCount() {
+        Page<BadgeClassSummaryDTO> page = badgeClassRepository.findSummariesByOrganizationIds(
+            List.of(university.getId()), null, null, FIRST_PAGE);
+
+        assertEquals(2, page.getTotalElements());
+        assertEquals(List.of("Data Science", "Metadata basics"), names(page));
+        assertEquals("University", page.getContent().get(0).organizationName());
+    }
+
+    @Test
+    void imagesAndActiveAwardsAreProjected() {
+        List<BadgeClassSummaryDTO> rows = badgeClassRepository.findSummaries(null, null, FIRST_PAGE).getContent();
+
+        assertEquals("/api/images/ab12cd", rows.get(0).image());
+        assertEquals(2L, rows.get(0).activeAwardsCount());
+        assertNull(rows.get(1).image());
+        assertEquals(0L, rows.get(1).activeAwardsCount());
+        assertEquals("https://cdn.example.org/badge.png", rows.get(2).image());
+    }
+
+    private static List<String> names(Page<BadgeClassSummaryDTO> page) {
+        return page.getContent().stream().map(BadgeClassSummaryDTO::name).toList();
+    }
+
+    private Organization organization(String name) {
+        Organization organization = new Organization();
+        organization.setNameEnglish(name);
+        return entityManager.persist(organization);
+    }
+
+    private BadgeClass badgeClass(String name, Organization organization, String image, String imageHash) {
+        BadgeClass badgeClass = new BadgeClass();
+        badgeClass.setName(name);
+        badgeClass.setOrganization(organization);
+        badgeClass.setImage(image);
+        badgeClass.setImageHash(imageHash);
+        return entityManager.persist(badgeClass);
+    }
+
+    private void award(BadgeClass badgeClass, boolean revoked) {
+        BadgeInstance instance = new BadgeInstance();
+        instance.setBadgeClass(badgeClass);
+        instance.setRevoked(revoked);
+        entityManager.persist(instance);
+    }
+}
@@ -0,0 +1,77 @@
+package com.taashee.badger.repositories;
+
+import com.taashee.badger.models.BackpackBadgeDTO;
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.models.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Backpack images come out of the query the same way as in the badge class summaries.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class BadgeInstanceRepositoryTest {
+    @Autowired
+    private BadgeInstanceRepository badgeInstanceRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void backpackImagesAreBlobUrlsAndInlineDataIsLeftOut() {
+        User learner = new User();
+        learner.setEmail("learner@example.org");
+        learner.setPassword("secret");
+        learner.setFirstName("Ada");
+        learner.setLastName("Lovelace");
+        entityManager.persist(learner);
+
+        award(learner, badgeClass("Stored", null, "ab12cd"));
+        award(learner, badgeClass("Inline", "data:image/png;base64,iVBORw0KGgo=", null));
+        award(learner, badgeClass("Linked", "https://cdn.example.org/badge.png", null));
+        award(learner, badgeClass("Plain", null, null));
+        entityManager.flush();
+
+        Map<String, String> images = new HashMap<>();
+        for (BackpackBadgeDTO badge : badgeInstanceRepository.findBackpackPage(
+                learner.getId(), null, null, null, LocalDateTime.now(), PageRequest.of(0, 10))) {
+            images.put(badge.badgeClassName(), badge.image());
+        }
+
+        assertEquals(4, images.size());
+        assertEquals("/api/images/ab12cd", images.get("Stored"));
+        assertNull(images.get("Inline"));
+        assertEquals("https://cdn.example.org/badge.png", images.get("Linked"));
+        assertNull(images.get("Plain"));
+    }
+
+    private BadgeClass badgeClass(String name, String image, String imageHash) {
+        BadgeClass badgeClass = new BadgeClass();
+        badgeClass.setName(name);
+        badgeClass.setImage(image);
+        badgeClass.setImageHash(imageHash);
+        return entityManager.persist(badgeClass);
+    }
+
+    private void award(User learner, BadgeClass badgeClass) {
+        BadgeInstance instance = new BadgeInstance();
+        instance.setBadgeClass(badgeClass);
+        instance.setRecipient(learner);
+        instance.setIssuedOn(LocalDateTime.now());
+        entityManager.persist(instance);
+    }
+}
@@ -0,0 +1,159 @@
+package com.taashee.badger.serviceimpl;
+
+import com.taashee.badger.exceptions.ApiException;
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeClassSummaryDTO;
+import com.taashee.badger.repositories.BadgeClassRepository;
+import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.services.AccessContext;
+import com.taashee.badger.services.AccessContextService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Issuer listings scoped in the query, and the recipient search of a badge class, where the
+ * service only builds the filter, pattern and page request.
+ */
+@ExtendWith(MockitoExtension.class)
+class BadgeClassServiceImplTest {
+    private static final long BADGE_CLASS_ID = 3L;
+
+    @Mock
+    private BadgeClassRepository badgeClassRepository;
+    @Mock
+    private BadgeInstanceRepository badgeInstanceRepository;
+    @Mock
+    private AccessContextService accessContextService;
+    @Mock
+    private AccessContext accessContext;
+    @InjectMocks
+    private BadgeClassServiceImpl service;
+
+    @Test
+    void issuersListOnlyTheBadgeClassesOfTheirOrganizations() {
+        when(accessContextService.current()).thenReturn(accessContext);
+        when(accessContext.isIssuer()).thenReturn(true);
+        when(accessContext.hasOrganizations()).thenReturn(true);
+        when(accessContext.organizationIdList()).thenReturn(List.of(3L, 9L));
+        List<BadgeClass> scoped = List.of(new BadgeClass());
+        when(badgeClassRepository.findByOrganizationIdIn(List.of(3L, 9L))).thenReturn(scoped);
+
+        assertSame(scoped, service.getAllBadgeClasses());
+        verify(badgeClassRepository, never()).findAll();
+    }
+
+    @Test
+    void issuersWithoutOrganizationsListNothing() {
+        when(accessContextService.current()).thenReturn(accessContext);
+        when(accessContext.isIssuer()).thenReturn(true);
+        when(accessContext.hasOrganizations()).thenReturn(false);
+
+        assertTrue(service.getAllBadgeClasses().isEmpty());
+        verifyNoInteractions(badgeClassRepository);
+    }
+
+    @Test
+    void summariesMatchTheStartOfTheNameOrOfAWordInIt() {
+        when(accessContextService.current()).thenReturn(accessContext);
+        when(accessContext.isAdmin()).thenReturn(true);
+        Page<BadgeClassSummaryDTO> summaries = new PageImpl<>(List.of());
+        when(badgeClassRepository.findSummaries(any(), any(), any())).thenReturn(summaries);
+
+        assertSame(summaries, service.getBadgeClassSummaries(1, 25, " Data_Sci "));
+
+        verify(badgeClassRepository).findSummaries("data\\_sci%", "% data\\_sci%", PageRequest.of(1, 25, Sort.by("id")));
+    }
+
+    @Test
+    void issuerSummariesAreScopedToTheirOrganizations() {
+        when(accessContextService.current()).thenReturn(accessContext);
+        when(accessContext.isIssuer()).thenReturn(true);
+        when(accessContext.hasOrganizations()).thenReturn(true);
+        when(accessContext.organizationIdList()).thenReturn(List.of(3L));
+        when(badgeClassRepository.findSummariesByOrganizationIds(any(), any(), any(), any())).thenReturn(new PageImpl<>(List.of()));
+
+        service.getBadgeClassSummaries(0, 10, null);
+
+        verify(badgeClassRepository).findSummariesByOrganizationIds(List.of(3L), null, null, PageRequest.of(0, 10, Sort.by("id")));
+        verify(badgeClassRepository, never()).findSummaries(any(), any(), any());
+    }
+
+    @Test
+    void summariesOfUsersWithoutAccessAreEmptyWithoutAQuery() {
+        when(accessContextService.current()).thenReturn(accessContext);
+
+        assertTrue(service.getBadgeClassSummaries(0, 10, "x").isEmpty());
+        verifyNoInteractions(badgeClassRepository);
+    }
+
+    @Test
+    void summaryPageSizeIsBounded() {
+        assertEquals(400, assertThrows(ApiException.class, () -> service.getBadgeClassSummaries(0, 101, null)).getStatus());
+        assertEquals(400, assertThrows(ApiException.class, () -> service.getBadgeClassSummaries(0, 0, null)).getStatus());
+        assertEquals(400, assertThrows(ApiException.class, () -> service.getBadgeClassSummaries(-1, 10, null)).getStatus());
+        verifyNoInteractions(badgeClassRepository);
+    }
+
+    @Test
+    void wildcardsInTheSearchTermMatchLiterally() {
+        when(badgeInstanceRepository.searchRecipients(anyLong(), any(), any(), any(), any(), any(), any()))
+            .thenReturn(new PageImpl<>(List.of()));
+
+        service.getBadgeRecipients(BADGE_CLASS_ID, 0, 20, " 100%_Ann\\ ", null, "email", "desc", null, null);
+
+        verify(badgeInstanceRepository).searchRecipients(eq(BADGE_CLASS_ID), eq("%100\\%\\_ann\\\\%"), isNull(),
+            isNull(), isNull(), any(LocalDateTime.class),
+            eq(PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "u.email").and(Sort.by(Sort.Direction.DESC, "id")))));
+    }
+
+    @Test
+    void filtersAndPagingArePassedToTheQuery() {
+        when(badgeInstanceRepository.searchRecipients(anyLong(), any(), any(), any(), any(), any(), any()))
+            .thenReturn(new PageImpl<>(List.of(), PageRequest.of(2, 10), 25));
+
+        Map<String, Object> result = service.getBadgeRecipients(BADGE_CLASS_ID, 2, 10, null, "revoked", null, null,
+            "2024-01-01", "2024-01-31");
+
+        verify(badgeInstanceRepository).searchRecipients(eq(BADGE_CLASS_ID), isNull(), eq("REVOKED"),
+            eq(LocalDateTime.of(2024, 1, 1, 0, 0)), eq(LocalDateTime.of(2024, 2, 1, 0, 0)), any(LocalDateTime.class),
+            eq(PageRequest.of(2, 10, Sort.by(Sort.Direction.ASC, "issuedOn").and(Sort.by(Sort.Direction.ASC, "id")))));
+        assertEquals(25L, result.get("totalElements"));
+        assertEquals(3, result.get("totalPages"));
+    }
+
+    @Test
+    void pageSizeIsBounded() {
+        ApiException tooLarge = assertThrows(ApiException.class,
+            () -> service.getBadgeRecipients(BADGE_CLASS_ID, 0, 10_000, null, null, null, null, null, null));
+        ApiException negativePage = assertThrows(ApiException.class,
+            () -> service.getBadgeRecipients(BADGE_CLASS_ID, -1, 20, null, null, null, null, null, null));
+
+        assertEquals(400, tooLarge.getStatus());
+        assertEquals(400, negativePage.getStatus());
+        verify(badgeInstanceRepository, never()).searchRecipients(anyLong(), any(), any(), any(), any(), any(), any());
+    }
+}
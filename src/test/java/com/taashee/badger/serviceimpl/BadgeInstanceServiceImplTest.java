@@ -0,0 +1,141 @@
+package com.taashee.badger.serviceimpl;
+
+import com.taashee.badger.exceptions.ApiException;
+import com.taashee.badger.models.BackpackBadgeDTO;
+import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.services.AccessContext;
+import com.taashee.badger.services.AccessContextService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keyset cursor of the learner backpack: the (issuedOn, id) of a page's last badge, handed back
+ * on the next request.
+ */
+@ExtendWith(MockitoExtension.class)
+class BadgeInstanceServiceImplTest {
+    private static final long USER_ID = 42L;
+
+    @Mock
+    private BadgeInstanceRepository badgeInstanceRepository;
+    @Mock
+    private AccessContextService accessContextService;
+    @Mock
+    private AccessContext accessContext;
+    @InjectMocks
+    private BadgeInstanceServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(accessContextService.current()).thenReturn(accessContext);
+        lenient().when(accessContext.userId()).thenReturn(USER_ID);
+    }
+
+    @Test
+    void nextCursorResumesAfterTheLastBadgeOfThePage() {
+        LocalDateTime issuedOn = LocalDateTime.of(2024, 3, 1, 12, 30, 15);
+        when(badgeInstanceRepository.findBackpackPage(eq(USER_ID), any(), any(), any(), any(), any()))
+            .thenReturn(List.of(badge(9L, issuedOn.plusDays(1)), badge(8L, issuedOn), badge(7L, issuedOn)));
+        when(badgeInstanceRepository.findEvidenceItems(anyCollection())).thenReturn(List.of());
+
+        Map<String, Object> first = service.getUserBadgesByCursor(null, 2, null);
+
+        assertTrue((Boolean) first.get("hasMore"));
+        assertEquals(2, ((List<?>) first.get("content")).size());
+        String cursor = (String) first.get("nextCursor");
+        assertNotNull(cursor);
+
+        service.getUserBadgesByCursor(cursor, 2, null);
+        verify(badgeInstanceRepository).findBackpackPage(eq(USER_ID), isNull(), eq(issuedOn), eq(8L), any(), any());
+    }
+
+    @Test
+    void cursorIsUrlSafeAndRoundTripsAMissingIssueDate() {
+        when(badgeInstanceRepository.findBackpackPage(eq(USER_ID), any(), any(), any(), any(), any()))
+            .thenReturn(List.of(badge(5L, null), badge(4L, null)));
+        when(badgeInstanceRepository.findEvidenceItems(anyCollection())).thenReturn(List.of());
+
+        String cursor = (String) service.getUserBadgesByCursor(null, 1, null).get("nextCursor");
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+
+        service.getUserBadgesByCursor(cursor, 1, null);
+        verify(badgeInstanceRepository).findBackpackPage(eq(USER_ID), isNull(), isNull(), eq(5L), any(), any());
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        when(badgeInstanceRepository.findBackpackPage(eq(USER_ID), any(), any(), any(), any(), any()))
+            .thenReturn(List.of(badge(3L, LocalDateTime.now())));
+        when(badgeInstanceRepository.findEvidenceItems(anyCollection())).thenReturn(List.of());
+
+        Map<String, Object> page = service.getUserBadgesByCursor(null, 2, null);
+
+        assertFalse((Boolean) page.get("hasMore"));
+        assertNull(page.get("nextCursor"));
+    }
+
+    @Test
+    void malformedCursorsAreRejectedAsBadRequests() {
+        for (String cursor : List.of("not base64!", encode("2024-03-01T12:30"), encode("yesterday|5"),
+                encode("2024-03-01T12:30|five"), encode("2024-03-01T12:30|5|6"))) {
+            ApiException error = assertThrows(ApiException.class, () -> service.getUserBadgesByCursor(cursor, 10, null), cursor);
+            assertEquals(400, error.getStatus());
+        }
+    }
+
+    @Test
+    void wildcardsInTheSearchTermMatchLiterally() {
+        when(badgeInstanceRepository.findBackpackPage(eq(USER_ID), any(), any(), any(), any(), any())).thenReturn(List.of());
+
+        service.getUserBadgesByCursor(null, 10, " 50%_Off ");
+
+        verify(badgeInstanceRepository).findBackpackPage(eq(USER_ID), eq("%50\\%\\_off%"), isNull(), isNull(), any(), any());
+    }
+
+    @Test
+    void issuersListOnlyTheBadgeInstancesOfTheirOrganizations() {
+        when(accessContext.isIssuer()).thenReturn(true);
+        when(accessContext.hasOrganizations()).thenReturn(true);
+        when(accessContext.organizationIdList()).thenReturn(List.of(3L));
+        List<BadgeInstance> scoped = List.of(new BadgeInstance());
+        when(badgeInstanceRepository.findByOrganizationIdIn(List.of(3L))).thenReturn(scoped);
+
+        assertSame(scoped, service.getAllBadgeInstances());
+        verify(badgeInstanceRepository, never()).findAll();
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BackpackBadgeDTO badge(Long id, LocalDateTime issuedOn) {
+        return new BackpackBadgeDTO(id, "Badge " + id, null, null, null, issuedOn, "ACTIVE", false, null, null);
+    }
+}
@@ -0,0 +1,241 @@
+package com.taashee.badger.serviceimpl;
+
+import com.taashee.badger.models.Group;
+import com.taashee.badger.models.Pathway;
+import com.taashee.badger.models.PathwayProgress;
+import com.taashee.badger.models.PathwayVersion;
+import com.taashee.badger.models.ProgressOutboxEvent;
+import com.taashee.badger.models.StepCompletedEvent;
+import com.taashee.badger.models.StepCompletionRequest;
+import com.taashee.badger.models.StepProgress;
+import com.taashee.badger.models.StepVersion;
+import com.taashee.badger.models.User;
+import com.taashee.badger.models.UserNotification;
+import com.taashee.badger.repositories.GroupMemberRepository;
+import com.taashee.badger.repositories.GroupRepository;
+import com.taashee.badger.repositories.PathwayGroupSubscriptionRepository;
+import com.taashee.badger.repositories.PathwayProgressRepository;
+import com.taashee.badger.repositories.PathwayRepository;
+import com.taashee.badger.repositories.ProgressOutboxEventRepository;
+import com.taashee.badger.repositories.StepProgressRepository;
+import com.taashee.badger.repositories.StepVersionRepository;
+import com.taashee.badger.repositories.UserNotificationRepository;
+import com.taashee.badger.repositories.UserRepository;
+import com.taashee.badger.services.GroupProgressRollupService;
+import com.taashee.badger.services.PathwayProgressEngine;
+import com.taashee.badger.services.ProgressRecalculationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProgressTrackingServiceImplTest {
+    private static final long PATHWAY_ID = 1L;
+    private static final long GROUP_ID = 7L;
+    private static final long USER_ID = 42L;
+    private static final long STEP_VERSION_ID = 100L;
+
+    private final Pathway pathway = new Pathway();
+    private final Group group = new Group();
+    private final User user = new User();
+
+    private PathwayProgressRepository pathwayProgressRepository;
+    private StepVersionRepository stepVersionRepository;
+    private GroupMemberRepository groupMemberRepository;
+    private UserNotificationRepository userNotificationRepository;
+    private JdbcTemplate jdbcTemplate;
+    private PathwayProgressEngine progressEngine;
+    private GroupProgressRollupService groupProgressRollupService;
+    private ProgressOutboxEventRepository outboxRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private PathwayProgress progress;
+    private ProgressTrackingServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        pathway.setId(PATHWAY_ID);
+        pathway.setName("Data literacy");
+        group.setId(GROUP_ID);
+        user.setId(USER_ID);
+        PathwayVersion pathwayVersion = new PathwayVersion();
+        pathwayVersion.setId(10L);
+        pathwayVersion.setPathway(pathway);
+        StepVersion stepVersion = new StepVersion();
+        stepVersion.setId(STEP_VERSION_ID);
+        stepVersion.setPathwayVersion(pathwayVersion);
+
+        progress = new PathwayProgress();
+        progress.setPathway(pathway);
+        progress.setGroup(group);
+        progress.setUser(user);
+        progress.setPercent(100);
+        progress.setCompleted(true);
+
+        stepVersionRepository = mock(StepVersionRepository.class);
+        when(stepVersionRepository.findById(STEP_VERSION_ID)).thenReturn(Optional.of(stepVersion));
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(USER_ID)).thenReturn(user);
+        GroupRepository groupRepository = mock(GroupRepository.class);
+        when(groupRepository.findById(GROUP_ID)).thenReturn(Optional.of(group));
+        when(groupRepository.existsById(GROUP_ID)).thenReturn(true);
+        when(groupRepository.getReferenceById(GROUP_ID)).thenReturn(group);
+        PathwayRepository pathwayRepository = mock(PathwayRepository.class);
+        when(pathwayRepository.existsById(PATHWAY_ID)).thenReturn(true);
+        when(pathwayRepository.getReferenceById(PATHWAY_ID)).thenReturn(pathway);
+        StepProgressRepository stepProgressRepository = mock(StepProgressRepository.class);
+        when(stepProgressRepository.findByStepVersionIdAndUserIdAndGroupId(STEP_VERSION_ID, USER_ID, GROUP_ID))
+            .thenReturn(Optional.empty());
+        when(stepProgressRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        pathwayProgressRepository = mock(PathwayProgressRepository.class);
+        when(pathwayProgressRepository.findForUpdate(PATHWAY_ID, USER_ID, GROUP_ID)).thenReturn(Optional.of(progress));
+        when(pathwayProgressRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        outboxRepository = mock(ProgressOutboxEventRepository.class);
+        when(outboxRepository.save(any())).thenAnswer(invocation -> {
+            ProgressOutboxEvent event = invocation.getArgument(0);
+            event.setId(55L);
+            return event;
+        });
+
+        progressEngine = mock(PathwayProgressEngine.class);
+        groupProgressRollupService = mock(GroupProgressRollupService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        groupMemberRepository = mock(GroupMemberRepository.class);
+        userNotificationRepository = mock(UserNotificationRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new ProgressTrackingServiceImpl(pathwayProgressRepository, stepProgressRepository,
+            pathwayRepository, groupRepository, userRepository, stepVersionRepository,
+            groupMemberRepository, mock(PathwayGroupSubscriptionRepository.class), progressEngine,
+            groupProgressRollupService, mock(ProgressRecalculationService.class), outboxRepository,
+            eventPublisher, jdbcTemplate, userNotificationRepository);
+    }
+
+    @Test
+    void takingACompletionBackRecomputesCountsAndTheRollup() {
+        PathwayProgressEngine.StepCounts counts = new PathwayProgressEngine.StepCounts(1, 2);
+        when(progressEngine.syncCompletion(progress)).thenReturn(counts);
+
+        service.updateStepProgress(STEP_VERSION_ID, USER_ID, GROUP_ID, StepProgress.ProgressStatus.IN_PROGRESS);
+
+        verify(progressEngine).applyStepCompletion(progress, STEP_VERSION_ID, false);
+        assertEquals(50, progress.getPercent());
+        assertFalse(progress.getCompleted());
+        verify(groupProgressRollupService).applyMemberProgress(GROUP_ID, PATHWAY_ID, user, counts);
+        verifyNoInteractions(outboxRepository, eventPublisher);
+    }
+
+    @Test
+    void completionLeavesCountsToTheOutbox() {
+        progress.setPercent(50);
+        progress.setCompleted(false);
+
+        service.completeStep(STEP_VERSION_ID, USER_ID, GROUP_ID);
+
+        verify(progressEngine).applyStepCompletion(progress, STEP_VERSION_ID, true);
+        // Still the previous state, so the outbox can tell the pathway was just completed
+        assertEquals(50, progress.getPercent());
+        assertFalse(progress.getCompleted());
+        verify(progressEngine, never()).syncCompletion(any());
+        verify(groupProgressRollupService, never()).applyMemberProgress(any(), any(), any(), any());
+
+        ArgumentCaptor<ProgressOutboxEvent> outboxEvent = ArgumentCaptor.forClass(ProgressOutboxEvent.class);
+        verify(outboxRepository).save(outboxEvent.capture());
+        assertEquals(ProgressOutboxEvent.STEP_COMPLETED, outboxEvent.getValue().getEventType());
+        assertEquals(PATHWAY_ID, outboxEvent.getValue().getPathwayId());
+        verify(eventPublisher).publishEvent(new StepCompletedEvent(55L, STEP_VERSION_ID, PATHWAY_ID, USER_ID, GROUP_ID));
+    }
+
+    @Test
+    void bulkCompletionRejectsInvalidRowsAndWritesNothingForThem() {
+        when(groupMemberRepository.findMemberUserIds(eq(GROUP_ID), anyCollection())).thenReturn(List.of(USER_ID));
+        StepVersionRepository.ManifestRow row = manifestRow(STEP_VERSION_ID, false);
+        when(stepVersionRepository.findManifestRowsByPathwayIdAndIdIn(eq(PATHWAY_ID), anyCollection())).thenReturn(List.of(row));
+        when(progressEngine.refreshCompletion(eq(PATHWAY_ID), eq(GROUP_ID), anyCollection()))
+            .thenReturn(Map.of(USER_ID, new PathwayProgressEngine.StepCounts(1, 2)));
+
+        Map<String, Object> summary = service.completeStepsInBulk(PATHWAY_ID, GROUP_ID, List.of(
+            request(null, STEP_VERSION_ID),
+            request(99L, STEP_VERSION_ID),
+            request(USER_ID, 999L),
+            request(USER_ID, STEP_VERSION_ID),
+            request(USER_ID, STEP_VERSION_ID)));
+
+        assertEquals(1, summary.get("completed"));
+        assertEquals(4, summary.get("rejected"));
+        List<?> results = (List<?>) summary.get("results");
+        assertEquals("userId and stepVersionId are required", ((Map<?, ?>) results.get(0)).get("error"));
+        assertEquals("User is not a member of this group", ((Map<?, ?>) results.get(1)).get("error"));
+        assertEquals("Step version does not belong to this pathway", ((Map<?, ?>) results.get(2)).get("error"));
+        assertEquals("COMPLETED", ((Map<?, ?>) results.get(3)).get("status"));
+        assertEquals("Duplicate entry", ((Map<?, ?>) results.get(4)).get("error"));
+        // Only the accepted learner is locked and recomputed; the step is no milestone, so nothing goes to the outbox
+        verify(pathwayProgressRepository).findForUpdateByPathwayIdAndGroupIdAndUserIdIn(PATHWAY_ID, GROUP_ID, Set.of(USER_ID));
+        verify(pathwayProgressRepository, never()).findByPathwayIdAndGroupIdAndUserIdIn(anyLong(), anyLong(), anyCollection());
+        verify(groupProgressRollupService).rebuild(GROUP_ID, PATHWAY_ID);
+        verifyNoInteractions(outboxRepository, userNotificationRepository);
+    }
+
+    @Test
+    void bulkCompletionAnnouncesOnlyPathwaysThatWereJustCompleted() {
+        User other = new User();
+        other.setId(43L);
+        PathwayProgress alreadyCompleted = new PathwayProgress();
+        alreadyCompleted.setPathway(pathway);
+        alreadyCompleted.setGroup(group);
+        alreadyCompleted.setUser(other);
+        alreadyCompleted.setCompleted(true);
+        progress.setCompleted(false);
+        progress.setPercent(50);
+        when(groupMemberRepository.findMemberUserIds(eq(GROUP_ID), anyCollection())).thenReturn(List.of(USER_ID, 43L));
+        StepVersionRepository.ManifestRow row = manifestRow(STEP_VERSION_ID, false);
+        when(stepVersionRepository.findManifestRowsByPathwayIdAndIdIn(eq(PATHWAY_ID), anyCollection())).thenReturn(List.of(row));
+        when(pathwayProgressRepository.findForUpdateByPathwayIdAndGroupIdAndUserIdIn(eq(PATHWAY_ID), eq(GROUP_ID), anyCollection()))
+            .thenReturn(List.of(progress, alreadyCompleted));
+        when(progressEngine.refreshCompletion(eq(PATHWAY_ID), eq(GROUP_ID), anyCollection())).thenReturn(Map.of(
+            USER_ID, new PathwayProgressEngine.StepCounts(2, 2),
+            43L, new PathwayProgressEngine.StepCounts(2, 2)));
+
+        service.completeStepsInBulk(PATHWAY_ID, GROUP_ID, List.of(
+            request(USER_ID, STEP_VERSION_ID),
+            request(43L, STEP_VERSION_ID)));
+
+        ArgumentCaptor<UserNotification> notification = ArgumentCaptor.forClass(UserNotification.class);
+        verify(userNotificationRepository).save(notification.capture());
+        assertEquals("PATHWAY_COMPLETED", notification.getValue().getType());
+        assertSame(user, notification.getValue().getUser());
+        assertEquals(100, progress.getPercent());
+    }
+
+    private static StepCompletionRequest request(Long userId, Long stepVersionId) {
+        StepCompletionRequest request = new StepCompletionRequest();
+        request.setUserId(userId);
+        request.setStepVersionId(stepVersionId);
+        return request;
+    }
+
+    private static StepVersionRepository.ManifestRow manifestRow(Long stepVersionId, boolean milestone) {
+        StepVersionRepository.ManifestRow row = mock(StepVersionRepository.ManifestRow.class);
+        when(row.getStepVersionId()).thenReturn(stepVersionId);
+        when(row.getMilestone()).thenReturn(milestone);
+        return row;
+    }
+}
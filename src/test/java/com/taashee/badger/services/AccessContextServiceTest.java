@@ -0,0 +1,140 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.configs.JwtPrincipal;
+import com.taashee.badger.models.Organization;
+import com.taashee.badger.models.OrganizationStaff;
+import com.taashee.badger.models.User;
+import com.taashee.badger.repositories.OrganizationStaffRepository;
+import com.taashee.badger.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccessContextServiceTest {
+    private static final long USER_ID = 42L;
+    private static final String EMAIL = "issuer@example.org";
+
+    private OrganizationStaffRepository organizationStaffRepository;
+    private UserRepository userRepository;
+    private TokenVersionService tokenVersionService;
+    private AccessContextService service;
+
+    @BeforeEach
+    void setUp() {
+        organizationStaffRepository = mock(OrganizationStaffRepository.class);
+        userRepository = mock(UserRepository.class);
+        tokenVersionService = mock(TokenVersionService.class);
+        User user = new User();
+        user.setId(USER_ID);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(tokenVersionService.getState(USER_ID)).thenReturn(new TokenVersionService.TokenState(1L, null));
+        when(organizationStaffRepository.findByUserId(USER_ID)).thenReturn(List.of(staff(9L, "staff"), staff(3L, "owner")));
+        service = new AccessContextService(organizationStaffRepository, userRepository, tokenVersionService, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void jwtRequestsTakeMembershipsFromTheClaims() {
+        UsernamePasswordAuthenticationToken authentication = authenticate("ROLE_ISSUER");
+        authentication.setDetails(new JwtPrincipal(USER_ID, EMAIL, List.of("ISSUER"), List.of(
+            new JwtPrincipal.Membership(9L, "staff", false),
+            new JwtPrincipal.Membership(3L, "admin", true))));
+
+        AccessContext context = service.current();
+
+        assertEquals(USER_ID, context.userId());
+        assertEquals(Set.of("ISSUER"), context.roles());
+        assertArrayEquals(new long[] {3L, 9L}, context.organizationIds());
+        assertEquals(9L, context.primaryOrganizationId());
+        assertTrue(context.isOrganizationOwner(3L));
+        assertFalse(context.isOrganizationOwner(9L));
+        verify(userRepository, never()).findByEmail(any());
+        verify(organizationStaffRepository, never()).findByUserId(any());
+    }
+
+    @Test
+    void staffMembershipsAreCachedUntilTheTokenVersionMoves() {
+        authenticate("ROLE_ISSUER");
+
+        AccessContext first = service.current();
+        service.current();
+        verify(organizationStaffRepository, times(1)).findByUserId(USER_ID);
+        assertArrayEquals(new long[] {3L, 9L}, first.organizationIds());
+        assertEquals("owner", first.staffRole(3L));
+        assertEquals(9L, first.primaryOrganizationId());
+
+        when(tokenVersionService.getState(USER_ID)).thenReturn(new TokenVersionService.TokenState(2L, null));
+        service.current();
+        verify(organizationStaffRepository, times(2)).findByUserId(USER_ID);
+
+        service.evict(USER_ID);
+        service.current();
+        verify(organizationStaffRepository, times(3)).findByUserId(USER_ID);
+    }
+
+    @Test
+    void contextIsBuiltOncePerRequest() {
+        authenticate("ROLE_ISSUER");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        AccessContext context = service.current();
+
+        assertSame(context, service.current());
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void anonymousRequestsHaveNoUserAndNoOrganizations() {
+        AccessContext context = service.current();
+
+        assertNull(context.userId());
+        assertFalse(context.hasOrganizations());
+        assertFalse(context.isStaffOf(3L));
+        assertNull(context.staffRole(null));
+    }
+
+    private static UsernamePasswordAuthenticationToken authenticate(String... authorities) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(EMAIL, null,
+            Arrays.stream(authorities).map(SimpleGrantedAuthority::new).toList());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return authentication;
+    }
+
+    private static OrganizationStaff staff(Long organizationId, String staffRole) {
+        Organization organization = new Organization();
+        organization.setId(organizationId);
+        OrganizationStaff staff = new OrganizationStaff();
+        staff.setOrganization(organization);
+        staff.setStaffRole(staffRole);
+        return staff;
+    }
+}
@@ -0,0 +1,65 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssertionSigningServiceTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path keyDirectory;
+
+    @Test
+    void keyIsGeneratedOnceAndReloadedFromItsFile() {
+        Path keyFile = keyDirectory.resolve("keys/assertion-signing.pem");
+
+        AssertionSigningService first = new AssertionSigningService(objectMapper, keyFile.toString());
+        AssertionSigningService second = new AssertionSigningService(objectMapper, keyFile.toString());
+
+        assertTrue(Files.exists(keyFile));
+        assertEquals(first.keyId(), second.keyId());
+        assertEquals(first.publicKeyPem(), second.publicKeyPem());
+    }
+
+    @Test
+    void signatureVerifiesWithThePublishedKey() throws Exception {
+        AssertionSigningService service = new AssertionSigningService(objectMapper, keyDirectory.resolve("key.pem").toString());
+        byte[] payload = "{\"id\":\"https://example.org/assertions/1\"}".getBytes(StandardCharsets.UTF_8);
+
+        String jws = service.sign(payload, Map.of("typ", "JWT"));
+
+        String[] parts = jws.split("\\.");
+        assertEquals(3, parts.length);
+        JsonNode header = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[0]));
+        assertEquals("RS256", header.get("alg").asText());
+        assertEquals(service.keyId(), header.get("kid").asText());
+        assertEquals("JWT", header.get("typ").asText());
+        assertEquals(new String(payload, StandardCharsets.UTF_8),
+            new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(publicKey(service.publicKeyPem()));
+        verifier.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+        assertTrue(verifier.verify(Base64.getUrlDecoder().decode(parts[2])));
+    }
+
+    private static PublicKey publicKey(String pem) throws Exception {
+        String base64 = pem.replace("-----BEGIN PUBLIC KEY-----", "").replace("-----END PUBLIC KEY-----", "").trim();
+        return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getMimeDecoder().decode(base64)));
+    }
+}
@@ -0,0 +1,178 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.exceptions.ApiException;
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.repositories.BadgeClassRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Export formats and compression, streamed from an in-memory H2 cursor.
+ */
+class BadgeClassExportServiceTest {
+    private static final long BADGE_CLASS_ID = 5L;
+    private static final long ORGANIZATION_ID = 3L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JdbcTemplate jdbcTemplate;
+    private BadgeClassRepository badgeClassRepository;
+    private AccessContext access;
+    private BadgeClassExportService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, email VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE badge_instance (id BIGINT PRIMARY KEY, badge_class_id BIGINT, recipient_id BIGINT, " +
+            "recipient_identifier VARCHAR(255), recipient_type VARCHAR(255), issued_on TIMESTAMP, expires_at TIMESTAMP, " +
+            "revoked BOOLEAN, revocation_reason VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO users VALUES (42, 'ada@example.org')");
+        jdbcTemplate.update("INSERT INTO badge_instance VALUES (12, 5, 42, NULL, NULL, TIMESTAMP '2024-03-02 09:00:00', NULL, FALSE, NULL)");
+        jdbcTemplate.update("INSERT INTO badge_instance VALUES (11, 5, NULL, 'grace@example.org', 'email', " +
+            "TIMESTAMP '2024-03-01 09:00:00', TIMESTAMP '2025-03-01 09:00:00', TRUE, 'Issued in error')");
+        jdbcTemplate.update("INSERT INTO badge_instance VALUES (13, 6, 42, NULL, NULL, TIMESTAMP '2024-03-03 09:00:00', NULL, FALSE, NULL)");
+
+        badgeClassRepository = mock(BadgeClassRepository.class);
+        BadgeClassRepository.OwnerRow owner = mock(BadgeClassRepository.OwnerRow.class);
+        when(owner.getOrganizationId()).thenReturn(ORGANIZATION_ID);
+        when(badgeClassRepository.findOwnerById(BADGE_CLASS_ID)).thenReturn(Optional.of(owner));
+        BadgeClass badgeClass = new BadgeClass();
+        badgeClass.setId(BADGE_CLASS_ID);
+        badgeClass.setName("Data Science");
+        badgeClass.setImage("data:image/png;base64,iVBORw0KGgo=");
+        when(badgeClassRepository.findById(BADGE_CLASS_ID)).thenReturn(Optional.of(badgeClass));
+
+        access = mock(AccessContext.class);
+        when(access.isStaffOf(ORGANIZATION_ID)).thenReturn(true);
+        AccessContextService accessContextService = mock(AccessContextService.class);
+        when(accessContextService.current()).thenReturn(access);
+        PublicAssertionService publicAssertionService = mock(PublicAssertionService.class);
+        when(publicAssertionService.badgeClassUrl(anyLong())).thenAnswer(invocation -> "https://badges.example.org/badge-classes/" + invocation.getArgument(0));
+        when(publicAssertionService.assertionUrl(anyLong())).thenAnswer(invocation -> "https://badges.example.org/assertions/" + invocation.getArgument(0));
+        when(publicAssertionService.issuerUrl(anyLong())).thenAnswer(invocation -> "https://badges.example.org/issuers/" + invocation.getArgument(0));
+
+        service = new BadgeClassExportService(badgeClassRepository, accessContextService, publicAssertionService,
+            objectMapper, dataSource, new DataSourceTransactionManager(dataSource), "https://badges.example.org", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void jsonExportStreamsTheAssertionsOfTheBadgeClassInIssueOrder() throws Exception {
+        BadgeClassExportService.ExportPlan plan = service.plan(BADGE_CLASS_ID, true,
+            BadgeClassExportService.Format.JSON, BadgeClassExportService.Compression.NONE);
+
+        JsonNode badgeClass = objectMapper.readTree(export(plan)).get("badgeClass");
+
+        assertEquals("Data Science", badgeClass.get("name").asText());
+        assertEquals("https://badges.example.org/issuers/3", badgeClass.get("issuer").asText());
+        assertFalse(badgeClass.has("image"));
+        JsonNode assertions = badgeClass.get("assertions");
+        assertEquals(2, assertions.size());
+        assertEquals("https://badges.example.org/assertions/11", assertions.get(0).get("id").asText());
+        assertEquals("grace@example.org", assertions.get(0).get("recipient").get("identity").asText());
+        assertTrue(assertions.get(0).get("revoked").asBoolean());
+        assertEquals("Issued in error", assertions.get(0).get("revocationReason").asText());
+        // Without a recipient identifier the joined user's email is used
+        assertEquals("ada@example.org", assertions.get(1).get("recipient").get("identity").asText());
+        assertNull(assertions.get(1).get("expires"));
+    }
+
+    @Test
+    void ndjsonExportWritesTheBadgeClassThenOneAssertionPerLine() throws Exception {
+        BadgeClassExportService.ExportPlan plan = service.plan(BADGE_CLASS_ID, true,
+            BadgeClassExportService.Format.NDJSON, BadgeClassExportService.Compression.NONE);
+
+        String[] lines = new String(export(plan), StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(3, lines.length);
+        assertEquals("BadgeClass", objectMapper.readTree(lines[0]).get("type").asText());
+        assertEquals("Assertion", objectMapper.readTree(lines[1]).get("type").asText());
+        assertEquals("Assertion", objectMapper.readTree(lines[2]).get("type").asText());
+        assertEquals("badge-class-5.ndjson", plan.fileName());
+        assertEquals("application/x-ndjson", plan.contentType());
+    }
+
+    @Test
+    void gzipExportDecompressesToTheSameDocument() throws Exception {
+        BadgeClassExportService.ExportPlan plain = service.plan(BADGE_CLASS_ID, true,
+            BadgeClassExportService.Format.JSON, BadgeClassExportService.Compression.NONE);
+        BadgeClassExportService.ExportPlan gzip = service.plan(BADGE_CLASS_ID, true,
+            BadgeClassExportService.Format.JSON, BadgeClassExportService.Compression.GZIP);
+
+        byte[] compressed = export(gzip);
+        byte[] decompressed = new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes();
+
+        assertEquals(objectMapper.readTree(export(plain)), objectMapper.readTree(decompressed));
+        assertEquals("badge-class-5.json.gz", gzip.fileName());
+        assertEquals("application/gzip", gzip.contentType());
+    }
+
+    @Test
+    void zipExportHoldsOneNamedEntry() throws Exception {
+        BadgeClassExportService.ExportPlan plan = service.plan(BADGE_CLASS_ID, false,
+            BadgeClassExportService.Format.JSON, BadgeClassExportService.Compression.ZIP);
+
+        ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(export(plan)), StandardCharsets.UTF_8);
+        ZipEntry entry = zip.getNextEntry();
+
+        assertEquals("badge-class-5.json", entry.getName());
+        assertFalse(objectMapper.readTree(zip.readAllBytes()).get("badgeClass").has("assertions"));
+        assertNull(zip.getNextEntry());
+        assertEquals("badge-class-5.zip", plan.fileName());
+    }
+
+    @Test
+    void badgeClassesOfOtherOrganizationsAreNotFound() {
+        when(access.isStaffOf(ORGANIZATION_ID)).thenReturn(false);
+
+        ApiException error = assertThrows(ApiException.class, () -> service.plan(BADGE_CLASS_ID, true,
+            BadgeClassExportService.Format.JSON, BadgeClassExportService.Compression.NONE));
+
+        assertEquals(404, error.getStatus());
+        verify(badgeClassRepository, never()).findById(BADGE_CLASS_ID);
+    }
+
+    @Test
+    void unknownFormatsAndCompressionsAreBadRequests() {
+        assertEquals(BadgeClassExportService.Format.NDJSON, BadgeClassExportService.parseFormat(" ndjson "));
+        assertEquals(400, assertThrows(ApiException.class, () -> BadgeClassExportService.parseFormat("xml")).getStatus());
+        assertEquals(400, assertThrows(ApiException.class, () -> BadgeClassExportService.parseCompression("bzip2")).getStatus());
+    }
+
+    private byte[] export(BadgeClassExportService.ExportPlan plan) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.write(plan, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,202 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.exceptions.ApiException;
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.models.BadgeInstanceAwardRequest;
+import com.taashee.badger.models.Organization;
+import com.taashee.badger.repositories.BadgeClassRepository;
+import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.repositories.OrganizationRepository;
+import com.taashee.badger.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chunked background issuance: per-row results, holders skipped, and a failed chunk retried
+ * row by row. Transactions run against a mocked transaction manager.
+ */
+class BulkIssuanceServiceTest {
+    private static final long BADGE_CLASS_ID = 5L;
+    private static final long ORGANIZATION_ID = 3L;
+
+    private final AtomicLong ids = new AtomicLong(100);
+
+    private BadgeClassRepository badgeClassRepository;
+    private BadgeInstanceRepository badgeInstanceRepository;
+    private UserRepository userRepository;
+    private AccessContext access;
+    private AccessContextService accessContextService;
+    private BulkIssuanceService service;
+
+    @BeforeEach
+    void setUp() {
+        badgeClassRepository = mock(BadgeClassRepository.class);
+        badgeInstanceRepository = mock(BadgeInstanceRepository.class);
+        userRepository = mock(UserRepository.class);
+        Organization organization = new Organization();
+        organization.setId(ORGANIZATION_ID);
+        BadgeClass badgeClass = new BadgeClass();
+        badgeClass.setId(BADGE_CLASS_ID);
+        badgeClass.setOrganization(organization);
+        when(badgeClassRepository.findById(BADGE_CLASS_ID)).thenReturn(Optional.of(badgeClass));
+        when(badgeClassRepository.getReferenceById(BADGE_CLASS_ID)).thenReturn(badgeClass);
+
+        // Ids are handed out as the sequence would; a chunk with a "bad" recipient fails as a whole
+        doAnswer(invocation -> {
+            Iterable<BadgeInstance> instances = invocation.getArgument(0);
+            for (BadgeInstance instance : instances) {
+                if (instance.getRecipientIdentifier().startsWith("bad")) {
+                    throw new DataIntegrityViolationException("value too long for recipient_identifier");
+                }
+            }
+            instances.forEach(instance -> instance.setId(ids.incrementAndGet()));
+            return instances;
+        }).when(badgeInstanceRepository).saveAll(any());
+
+        access = mock(AccessContext.class);
+        when(access.isStaffOf(ORGANIZATION_ID)).thenReturn(true);
+        accessContextService = mock(AccessContextService.class);
+        when(accessContextService.current()).thenReturn(access);
+
+        service = service(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void rowsAreIssuedInChunksWithOneResultPerRow() throws Exception {
+        BulkIssuanceService.IssuanceJob job = awaitFinished(service.submit(BADGE_CLASS_ID,
+            List.of(award("ada@example.org"), award("grace@example.org"), award("alan@example.org"))));
+
+        assertEquals(BulkIssuanceService.JobStatus.COMPLETED, job.getStatus());
+        assertEquals(3, job.getIssuedRows());
+        assertEquals(0, job.getFailedRows());
+        List<BulkIssuanceService.RowResult> results = job.getResults();
+        assertEquals(List.of(0, 1, 2), results.stream().map(BulkIssuanceService.RowResult::row).toList());
+        assertEquals(List.of(101L, 102L, 103L), results.stream().map(BulkIssuanceService.RowResult::badgeInstanceId).toList());
+        // Two chunks of at most two rows, one batch each
+        verify(badgeInstanceRepository, times(2)).saveAll(any());
+        verify(badgeInstanceRepository, times(2)).flush();
+    }
+
+    @Test
+    void recipientsAreResolvedOncePerChunk() throws Exception {
+        UserRepository.RecipientRow ada = new UserRepository.RecipientRow() {
+            public Long getId() { return 42L; }
+            public String getEmail() { return "ada@example.org"; }
+        };
+        when(userRepository.findRecipientsByEmails(anyCollection())).thenReturn(List.of(ada));
+
+        awaitFinished(service.submit(BADGE_CLASS_ID, List.of(award("Ada@Example.org"), award("grace@example.org"))));
+
+        verify(userRepository, times(1)).findRecipientsByEmails(anyCollection());
+        verify(userRepository).getReferenceById(42L);
+        verify(badgeInstanceRepository).findActiveRecipientIds(eq(BADGE_CLASS_ID), argThat(userIds -> List.copyOf(userIds).equals(List.of(42L))));
+    }
+
+    @Test
+    void existingHoldersAndRepeatedRecipientsAreNotIssuedAgain() throws Exception {
+        when(badgeInstanceRepository.findActiveRecipientIdentifiers(eq(BADGE_CLASS_ID), anyCollection()))
+            .thenReturn(List.of("ada@example.org"));
+        BulkIssuanceService singleChunk = service(10);
+
+        BulkIssuanceService.IssuanceJob job = awaitFinished(singleChunk.submit(BADGE_CLASS_ID,
+            List.of(award("ADA@example.org"), award("grace@example.org"), award("Grace@example.org"))));
+        singleChunk.shutdown();
+
+        List<BulkIssuanceService.RowResult> results = job.getResults();
+        assertEquals("Recipient already holds this badge", results.get(0).error());
+        assertTrue(results.get(1).success());
+        assertEquals("Recipient is listed more than once", results.get(2).error());
+        assertEquals(1, job.getIssuedRows());
+        assertEquals(2, job.getFailedRows());
+    }
+
+    @Test
+    void aFailedChunkIsRetriedRowByRow() throws Exception {
+        BulkIssuanceService.IssuanceJob job = awaitFinished(service.submit(BADGE_CLASS_ID,
+            List.of(award("ada@example.org"), award("bad@example.org"), award("grace@example.org"))));
+
+        assertEquals(BulkIssuanceService.JobStatus.COMPLETED, job.getStatus());
+        List<BulkIssuanceService.RowResult> results = job.getResults();
+        assertTrue(results.get(0).success());
+        assertNotNull(results.get(0).badgeInstanceId());
+        assertFalse(results.get(1).success());
+        assertNull(results.get(1).badgeInstanceId());
+        assertEquals("value too long for recipient_identifier", results.get(1).error());
+        assertTrue(results.get(2).success());
+        // The failed chunk, its two single-row retries, then the second chunk
+        verify(badgeInstanceRepository, times(4)).saveAll(any());
+    }
+
+    @Test
+    void rowsWithoutARecipientFailOnTheirOwn() throws Exception {
+        BulkIssuanceService.IssuanceJob job = awaitFinished(service.submit(BADGE_CLASS_ID,
+            List.of(award(" "), award("ada@example.org"))));
+
+        assertEquals("Recipient identifier is required", job.getResults().get(0).error());
+        assertTrue(job.getResults().get(1).success());
+    }
+
+    @Test
+    void submissionsAreValidatedOnTheRequestThread() {
+        assertEquals(400, assertThrows(ApiException.class, () -> service.submit(BADGE_CLASS_ID, List.of())).getStatus());
+        List<BadgeInstanceAwardRequest> tooMany = Collections.nCopies(11, award("ada@example.org"));
+        assertEquals(400, assertThrows(ApiException.class, () -> service.submit(BADGE_CLASS_ID, tooMany)).getStatus());
+
+        when(access.isStaffOf(ORGANIZATION_ID)).thenReturn(false);
+        assertEquals(404, assertThrows(ApiException.class,
+            () -> service.submit(BADGE_CLASS_ID, List.of(award("ada@example.org")))).getStatus());
+        verify(badgeInstanceRepository, never()).saveAll(any());
+    }
+
+    private BulkIssuanceService service(int chunkSize) {
+        return new BulkIssuanceService(badgeClassRepository, badgeInstanceRepository, mock(OrganizationRepository.class),
+            userRepository, accessContextService, mock(StatusListService.class), mock(PlatformTransactionManager.class),
+            chunkSize, 10);
+    }
+
+    private static BadgeInstanceAwardRequest award(String recipient) {
+        BadgeInstanceAwardRequest request = new BadgeInstanceAwardRequest();
+        request.setRecipientIdentifier(recipient);
+        return request;
+    }
+
+    private static BulkIssuanceService.IssuanceJob awaitFinished(BulkIssuanceService.IssuanceJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (job.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(job.getFinishedAt(), "job did not finish");
+        return job;
+    }
+}
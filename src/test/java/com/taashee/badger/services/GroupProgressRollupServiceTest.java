@@ -0,0 +1,167 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.GroupMember;
+import com.taashee.badger.models.GroupProgressMember;
+import com.taashee.badger.models.GroupProgressRollup;
+import com.taashee.badger.models.User;
+import com.taashee.badger.repositories.GroupMemberRepository;
+import com.taashee.badger.repositories.GroupProgressMemberRepository;
+import com.taashee.badger.repositories.GroupProgressRollupRepository;
+import com.taashee.badger.repositories.PathwayGroupSubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GroupProgressRollupServiceTest {
+    private static final long GROUP_ID = 7L;
+    private static final long PATHWAY_ID = 1L;
+
+    private GroupProgressRollupRepository rollupRepository;
+    private GroupProgressMemberRepository memberRepository;
+    private GroupMemberRepository groupMemberRepository;
+    private PathwayProgressEngine progressEngine;
+    private JdbcTemplate jdbcTemplate;
+    private GroupProgressRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = mock(GroupProgressRollupRepository.class);
+        memberRepository = mock(GroupProgressMemberRepository.class);
+        groupMemberRepository = mock(GroupMemberRepository.class);
+        progressEngine = mock(PathwayProgressEngine.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(rollupRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        service = new GroupProgressRollupService(rollupRepository, memberRepository, groupMemberRepository,
+            mock(PathwayGroupSubscriptionRepository.class), progressEngine, jdbcTemplate,
+            mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void completionMovesTheTotalsByTheMembersDeltaOnly() {
+        when(rollupRepository.existsByGroupIdAndPathwayId(GROUP_ID, PATHWAY_ID)).thenReturn(true);
+        when(memberRepository.insertIfAbsent(GROUP_ID, PATHWAY_ID, 42L)).thenReturn(0);
+        GroupProgressMember entry = entry(42L, 25, 1);
+        when(memberRepository.findForUpdate(GROUP_ID, PATHWAY_ID, 42L)).thenReturn(Optional.of(entry));
+        when(rollupRepository.addMemberDelta(anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), anyInt())).thenReturn(1);
+
+        service.applyMemberProgress(GROUP_ID, PATHWAY_ID, user(42L), new PathwayProgressEngine.StepCounts(2, 4));
+
+        verify(rollupRepository).addMemberDelta(GROUP_ID, PATHWAY_ID, 0, 1, 25, 4);
+        assertEquals(50, entry.getProgressPercentage());
+        assertEquals(2, entry.getCompletedSteps());
+        // Nothing else of the group is read or rewritten
+        verify(groupMemberRepository, never()).findByGroupIdWithUser(anyLong());
+        verify(memberRepository, never()).deleteByGroupIdAndPathwayId(anyLong(), anyLong());
+    }
+
+    @Test
+    void firstCompletionOfANewMemberAddsThemToTheTotals() {
+        when(rollupRepository.existsByGroupIdAndPathwayId(GROUP_ID, PATHWAY_ID)).thenReturn(true);
+        when(memberRepository.insertIfAbsent(GROUP_ID, PATHWAY_ID, 43L)).thenReturn(1);
+        when(memberRepository.findForUpdate(GROUP_ID, PATHWAY_ID, 43L)).thenReturn(Optional.of(entry(43L, 0, 0)));
+        when(rollupRepository.addMemberDelta(anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), anyInt())).thenReturn(1);
+
+        service.applyMemberProgress(GROUP_ID, PATHWAY_ID, user(43L), new PathwayProgressEngine.StepCounts(1, 4));
+
+        verify(rollupRepository).addMemberDelta(GROUP_ID, PATHWAY_ID, 1, 1, 25, 4);
+    }
+
+    @Test
+    void missingRollupIsRebuiltInsteadOfIncremented() {
+        when(rollupRepository.existsByGroupIdAndPathwayId(GROUP_ID, PATHWAY_ID)).thenReturn(false);
+        GroupProgressRollup rollup = givenRebuild(Map.of(
+            42L, new PathwayProgressEngine.StepCounts(1, 4),
+            43L, new PathwayProgressEngine.StepCounts(2, 4)));
+
+        service.applyMemberProgress(GROUP_ID, PATHWAY_ID, user(42L), new PathwayProgressEngine.StepCounts(1, 4));
+
+        verify(rollupRepository, never()).addMemberDelta(anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), anyInt());
+        verify(memberRepository, never()).insertIfAbsent(anyLong(), anyLong(), anyLong());
+        assertEquals(2, rollup.getTotalMembers());
+        assertEquals(3, rollup.getCompletedSteps());
+    }
+
+    @Test
+    void rollupDroppedDuringTheUpdateIsRebuilt() {
+        when(rollupRepository.existsByGroupIdAndPathwayId(GROUP_ID, PATHWAY_ID)).thenReturn(true);
+        when(memberRepository.insertIfAbsent(GROUP_ID, PATHWAY_ID, 42L)).thenReturn(0);
+        when(memberRepository.findForUpdate(GROUP_ID, PATHWAY_ID, 42L)).thenReturn(Optional.of(entry(42L, 0, 0)));
+        when(rollupRepository.addMemberDelta(anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), anyInt())).thenReturn(0);
+        givenRebuild(Map.of(42L, new PathwayProgressEngine.StepCounts(1, 4)));
+
+        service.applyMemberProgress(GROUP_ID, PATHWAY_ID, user(42L), new PathwayProgressEngine.StepCounts(1, 4));
+
+        verify(memberRepository).deleteByGroupIdAndPathwayId(GROUP_ID, PATHWAY_ID);
+        verify(rollupRepository).insertIfAbsent(GROUP_ID, PATHWAY_ID);
+    }
+
+    @Test
+    void rebuildReplacesTheEntriesAndSetsAbsoluteTotals() {
+        GroupProgressRollup rollup = givenRebuild(Map.of(
+            42L, new PathwayProgressEngine.StepCounts(1, 3),
+            43L, new PathwayProgressEngine.StepCounts(3, 3),
+            44L, new PathwayProgressEngine.StepCounts(0, 3)));
+
+        service.rebuild(GROUP_ID, PATHWAY_ID);
+
+        verify(memberRepository).deleteByGroupIdAndPathwayId(GROUP_ID, PATHWAY_ID);
+        verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), eq(3), any());
+        assertEquals(3, rollup.getTotalMembers());
+        assertEquals(3, rollup.getTotalSteps());
+        assertEquals(4, rollup.getCompletedSteps());
+        // 33 + 100 + 0
+        assertEquals(133, rollup.getProgressSum());
+        assertEquals(44, rollup.getOverallProgress());
+    }
+
+    private GroupProgressRollup givenRebuild(Map<Long, PathwayProgressEngine.StepCounts> countsByUser) {
+        List<GroupMember> members = countsByUser.keySet().stream().sorted().map(userId -> {
+            GroupMember member = new GroupMember();
+            member.setUser(user(userId));
+            return member;
+        }).toList();
+        when(groupMemberRepository.findByGroupIdWithUser(GROUP_ID)).thenReturn(members);
+        when(progressEngine.countStepsForUsers(eq(PATHWAY_ID), eq(GROUP_ID), anyCollection())).thenReturn(countsByUser);
+        GroupProgressRollup rollup = new GroupProgressRollup();
+        rollup.setGroupId(GROUP_ID);
+        rollup.setPathwayId(PATHWAY_ID);
+        when(rollupRepository.findForUpdate(GROUP_ID, PATHWAY_ID)).thenReturn(Optional.of(rollup));
+        return rollup;
+    }
+
+    private static GroupProgressMember entry(Long userId, int percent, int completedSteps) {
+        GroupProgressMember entry = new GroupProgressMember();
+        entry.setGroupId(GROUP_ID);
+        entry.setPathwayId(PATHWAY_ID);
+        entry.setUserId(userId);
+        entry.setProgressPercentage(percent);
+        entry.setCompletedSteps(completedSteps);
+        return entry;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setFirstName("Learner");
+        user.setLastName(String.valueOf(id));
+        user.setEmail("learner" + id + "@example.org");
+        return user;
+    }
+}
@@ -0,0 +1,245 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.Group;
+import com.taashee.badger.models.Pathway;
+import com.taashee.badger.models.PathwayProgress;
+import com.taashee.badger.models.User;
+import com.taashee.badger.repositories.PathwayGroupSubscriptionRepository;
+import com.taashee.badger.repositories.PathwayProgressRepository;
+import com.taashee.badger.repositories.PathwayVersionRepository;
+import com.taashee.badger.repositories.StepProgressRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PathwayProgressEngineTest {
+    private static final long PATHWAY_ID = 1L;
+    private static final long GROUP_ID = 7L;
+    private static final long USER_ID = 42L;
+    private static final long VERSION_ID = 10L;
+
+    // Positions: 0 required, 1 optional, 2 required milestone, 3 required
+    private final StepManifestCache.StepManifest manifest = new StepManifestCache.StepManifest(VERSION_ID, PATHWAY_ID, List.of(
+        new StepManifestCache.Step(100L, false, false, 0),
+        new StepManifestCache.Step(101L, true, false, 1),
+        new StepManifestCache.Step(102L, false, true, 2),
+        new StepManifestCache.Step(103L, false, false, 3)));
+
+    private StepProgressRepository stepProgressRepository;
+    private PathwayProgressRepository pathwayProgressRepository;
+    private PathwayVersionRepository pathwayVersionRepository;
+    private StepManifestCache stepManifestCache;
+    private PathwayProgressEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        stepProgressRepository = mock(StepProgressRepository.class);
+        pathwayProgressRepository = mock(PathwayProgressRepository.class);
+        PathwayGroupSubscriptionRepository subscriptionRepository = mock(PathwayGroupSubscriptionRepository.class);
+        pathwayVersionRepository = mock(PathwayVersionRepository.class);
+        stepManifestCache = mock(StepManifestCache.class);
+
+        PathwayGroupSubscriptionRepository.PinnedVersion pinned = new PathwayGroupSubscriptionRepository.PinnedVersion() {
+            public Long getPathwayId() { return PATHWAY_ID; }
+            public Long getGroupId() { return GROUP_ID; }
+            public Long getPathwayVersionId() { return VERSION_ID; }
+        };
+        when(subscriptionRepository.findPinnedVersions(any(), any())).thenReturn(List.of(pinned));
+        when(stepManifestCache.getManifest(VERSION_ID)).thenReturn(manifest);
+
+        engine = new PathwayProgressEngine(stepProgressRepository, pathwayProgressRepository, subscriptionRepository,
+            pathwayVersionRepository, stepManifestCache, mock(PrerequisiteGraphCache.class));
+    }
+
+    @Test
+    void applyStepCompletionSetsAndClearsTheStepBit() {
+        PathwayProgress progress = progress(new BitSet());
+
+        engine.applyStepCompletion(progress, 102L, true);
+        engine.applyStepCompletion(progress, 103L, true);
+        assertEquals(bits(2, 3), BitSet.valueOf(progress.getCompletionBits()));
+
+        engine.applyStepCompletion(progress, 103L, false);
+        assertEquals(bits(2), BitSet.valueOf(progress.getCompletionBits()));
+        assertEquals(VERSION_ID, progress.getPathwayVersionId());
+    }
+
+    @Test
+    void applyStepCompletionIgnoresStepsOutsideTheManifest() {
+        PathwayProgress progress = progress(bits(0));
+
+        engine.applyStepCompletion(progress, 999L, true);
+
+        assertEquals(bits(0), BitSet.valueOf(progress.getCompletionBits()));
+    }
+
+    @Test
+    void countsOnlyRequiredSteps() {
+        // The optional step at position 1 is completed but does not count
+        PathwayProgress progress = progress(bits(0, 1, 2));
+        when(pathwayProgressRepository.findByPathwayIdAndUserIdAndGroupId(PATHWAY_ID, USER_ID, GROUP_ID))
+            .thenReturn(Optional.of(progress));
+
+        PathwayProgressEngine.StepCounts counts = engine.countSteps(PATHWAY_ID, USER_ID, GROUP_ID);
+
+        assertEquals(new PathwayProgressEngine.StepCounts(2, 3), counts);
+        verifyNoInteractions(stepProgressRepository);
+    }
+
+    @Test
+    void bitsOfAnotherVersionCountAsNothingCompletedWithoutReadingStepProgress() {
+        PathwayProgress progress = progress(bits(0, 2, 3));
+        progress.setPathwayVersionId(VERSION_ID - 1);
+        when(pathwayProgressRepository.findByPathwayIdAndUserIdAndGroupId(PATHWAY_ID, USER_ID, GROUP_ID))
+            .thenReturn(Optional.of(progress));
+
+        assertEquals(new PathwayProgressEngine.StepCounts(0, 3), engine.countSteps(PATHWAY_ID, USER_ID, GROUP_ID));
+        verifyNoInteractions(stepProgressRepository);
+    }
+
+    @Test
+    void bitsRoundTripThroughTheStoredByteArray() {
+        PathwayProgress progress = progress(new BitSet());
+        engine.applyStepCompletion(progress, 100L, true);
+
+        // BitSet.toByteArray is little-endian: position 0 is the lowest bit of the first byte
+        assertArrayEquals(new byte[] {0x01}, progress.getCompletionBits());
+    }
+
+    @Test
+    void percentRoundsAndTreatsNoRequiredStepsAsComplete() {
+        assertEquals(100, PathwayProgressEngine.StepCounts.EMPTY.percent());
+        assertTrue(PathwayProgressEngine.StepCounts.EMPTY.isCompleted());
+        assertEquals(33, new PathwayProgressEngine.StepCounts(1, 3).percent());
+        assertEquals(67, new PathwayProgressEngine.StepCounts(2, 3).percent());
+        assertFalse(new PathwayProgressEngine.StepCounts(2, 3).isCompleted());
+        assertTrue(new PathwayProgressEngine.StepCounts(3, 3).isCompleted());
+    }
+
+    @Test
+    void countsForManyUsersComeFromOneBatchOfProgressRows() {
+        PathwayProgress first = progress(bits(0, 2));
+        PathwayProgress second = progress(bits(0, 2, 3));
+        second.getUser().setId(43L);
+        List<Long> userIds = List.of(USER_ID, 43L, 44L);
+        when(pathwayProgressRepository.findByPathwayIdAndGroupIdAndUserIdIn(PATHWAY_ID, GROUP_ID, userIds))
+            .thenReturn(List.of(first, second));
+
+        Map<Long, PathwayProgressEngine.StepCounts> counts = engine.countStepsForUsers(PATHWAY_ID, GROUP_ID, userIds);
+
+        assertEquals(new PathwayProgressEngine.StepCounts(2, 3), counts.get(USER_ID));
+        assertEquals(new PathwayProgressEngine.StepCounts(3, 3), counts.get(43L));
+        // A learner without a progress row has nothing completed yet
+        assertEquals(new PathwayProgressEngine.StepCounts(0, 3), counts.get(44L));
+        verify(pathwayProgressRepository).findByPathwayIdAndGroupIdAndUserIdIn(PATHWAY_ID, GROUP_ID, userIds);
+        verify(pathwayProgressRepository, never()).findByPathwayIdAndUserIdAndGroupId(any(), any(), any());
+        verifyNoInteractions(stepProgressRepository);
+    }
+
+    @Test
+    void countsForManyPathwaysResolveEachVersionAndReadOneBatchOfRows() {
+        // Pathway 2 was never pinned and falls back to its latest published version; pathway 3 has none
+        StepManifestCache.StepManifest latest = new StepManifestCache.StepManifest(20L, 2L, List.of(
+            new StepManifestCache.Step(200L, false, false, 0),
+            new StepManifestCache.Step(201L, false, false, 1)));
+        PathwayVersionRepository.LatestVersion latestVersion = new PathwayVersionRepository.LatestVersion() {
+            public Long getPathwayId() { return 2L; }
+            public Long getPathwayVersionId() { return 20L; }
+        };
+        when(pathwayVersionRepository.findLatestPublishedVersionIds(Set.of(2L, 3L))).thenReturn(List.of(latestVersion));
+        when(stepManifestCache.getManifest(20L)).thenReturn(latest);
+
+        PathwayProgress pinnedRow = progress(bits(0, 2, 3));
+        PathwayProgress latestRow = progress(bits(1));
+        latestRow.getPathway().setId(2L);
+        latestRow.setPathwayVersionId(20L);
+        when(pathwayProgressRepository.findByUserIdAndPathwayIdIn(eq(USER_ID), any())).thenReturn(List.of(pinnedRow, latestRow));
+
+        Map<Long, PathwayProgressEngine.StepCounts> counts = engine.countStepsForPathways(USER_ID,
+            Map.of(PATHWAY_ID, GROUP_ID, 2L, GROUP_ID, 3L, GROUP_ID));
+
+        assertEquals(new PathwayProgressEngine.StepCounts(3, 3), counts.get(PATHWAY_ID));
+        assertEquals(new PathwayProgressEngine.StepCounts(1, 2), counts.get(2L));
+        assertEquals(PathwayProgressEngine.StepCounts.EMPTY, counts.get(3L));
+        verifyNoInteractions(stepProgressRepository);
+    }
+
+    @Test
+    void progressThroughAnotherGroupIsNotCounted() {
+        PathwayProgress otherGroupRow = progress(bits(0, 2, 3));
+        otherGroupRow.getGroup().setId(GROUP_ID + 1);
+        when(pathwayProgressRepository.findByUserIdAndPathwayIdIn(eq(USER_ID), any())).thenReturn(List.of(otherGroupRow));
+
+        Map<Long, PathwayProgressEngine.StepCounts> counts = engine.countStepsForPathways(USER_ID, Map.of(PATHWAY_ID, GROUP_ID));
+
+        assertEquals(new PathwayProgressEngine.StepCounts(0, 3), counts.get(PATHWAY_ID));
+    }
+
+    @Test
+    void refreshRebuildsTheBitsOfAllRowsFromOneStepProgressQuery() {
+        PathwayProgress first = progress(new BitSet());
+        PathwayProgress second = progress(bits(0));
+        second.getUser().setId(43L);
+        second.setPathwayVersionId(VERSION_ID - 1);
+        when(stepProgressRepository.findCompletedStepsForUsers(eq(GROUP_ID), eq(List.of(USER_ID, 43L)),
+                eq(List.of(100L, 101L, 102L, 103L)), any()))
+            .thenReturn(List.of(completedStep(USER_ID, 100L), completedStep(USER_ID, 103L), completedStep(43L, 102L)));
+
+        Map<Long, PathwayProgressEngine.StepCounts> counts = engine.refreshCompletion(PATHWAY_ID, GROUP_ID, List.of(first, second));
+
+        assertEquals(new PathwayProgressEngine.StepCounts(2, 3), counts.get(USER_ID));
+        assertEquals(new PathwayProgressEngine.StepCounts(1, 3), counts.get(43L));
+        assertEquals(bits(0, 3), BitSet.valueOf(first.getCompletionBits()));
+        assertEquals(bits(2), BitSet.valueOf(second.getCompletionBits()));
+        assertEquals(VERSION_ID, second.getPathwayVersionId());
+    }
+
+    private PathwayProgress progress(BitSet completed) {
+        Pathway pathway = new Pathway();
+        pathway.setId(PATHWAY_ID);
+        Group group = new Group();
+        group.setId(GROUP_ID);
+        User user = new User();
+        user.setId(USER_ID);
+
+        PathwayProgress progress = new PathwayProgress();
+        progress.setPathway(pathway);
+        progress.setGroup(group);
+        progress.setUser(user);
+        progress.setPathwayVersionId(VERSION_ID);
+        progress.setCompletionBits(completed.toByteArray());
+        return progress;
+    }
+
+    private static StepProgressRepository.UserCompletedStep completedStep(Long userId, Long stepVersionId) {
+        return new StepProgressRepository.UserCompletedStep() {
+            public Long getUserId() { return userId; }
+            public Long getStepVersionId() { return stepVersionId; }
+        };
+    }
+
+    private static BitSet bits(int... positions) {
+        BitSet bits = new BitSet();
+        for (int position : positions) {
+            bits.set(position);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,167 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PathwayVersionDiffServiceTest {
+    private static final long PATHWAY_ID = 1L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PathwayVersionDocumentService documents;
+    private PathwayVersionDiffService service;
+
+    @BeforeEach
+    void setUp() {
+        documents = mock(PathwayVersionDocumentService.class);
+        service = new PathwayVersionDiffService(documents, objectMapper);
+    }
+
+    @Test
+    void reorderMarksOnlyTheStepsOutsideTheLongestKeptRunAsMoved() {
+        version(1, step(1, "A"), step(2, "B"), step(3, "C"), step(4, "D"));
+        // A jumps behind C; B, C and D keep their relative order
+        version(2, step(2, "B"), step(3, "C"), step(1, "A"), step(4, "D"));
+
+        PathwayVersionDiffService.VersionDiff diff = service.diff(PATHWAY_ID, 1, 2).orElseThrow();
+
+        assertEquals(1, diff.steps().size());
+        PathwayVersionDiffService.StepChange change = diff.steps().get(0);
+        assertEquals(1L, change.originalStepId());
+        assertEquals(List.of(PathwayVersionDiffService.ChangeType.MOVED), change.changes());
+        assertEquals(0, change.fromPosition());
+        assertEquals(2, change.toPosition());
+        assertEquals(new PathwayVersionDiffService.Summary(0, 0, 1, 0, 3), diff.summary());
+    }
+
+    @Test
+    void reversedOrderKeepsOneStepInPlace() {
+        version(1, step(1, "A"), step(2, "B"), step(3, "C"));
+        version(2, step(3, "C"), step(2, "B"), step(1, "A"));
+
+        PathwayVersionDiffService.Summary summary = service.diff(PATHWAY_ID, 1, 2).orElseThrow().summary();
+
+        assertEquals(2, summary.moved());
+        assertEquals(1, summary.unchanged());
+    }
+
+    @Test
+    void addedRemovedAndModifiedStepsAreReported() {
+        ObjectNode kept = step(1, "A");
+        requirement(kept, 10, 5);
+        version(1, kept, step(2, "B"), step(3, "C"));
+
+        ObjectNode changed = step(1, "A");
+        requirement(changed, 10, 6);
+        requirement(changed, 11, 7);
+        version(2, changed, step(3, "C renamed"), step(4, "D"));
+
+        PathwayVersionDiffService.VersionDiff diff = service.diff(PATHWAY_ID, 1, 2).orElseThrow();
+
+        assertEquals(new PathwayVersionDiffService.Summary(1, 1, 0, 2, 0), diff.summary());
+
+        PathwayVersionDiffService.StepChange first = change(diff, 1L);
+        assertEquals(List.of(PathwayVersionDiffService.ChangeType.MODIFIED), first.changes());
+        assertTrue(first.fields().isEmpty());
+        assertEquals(2, first.requirements().size());
+        assertEquals(PathwayVersionDiffService.ChangeType.MODIFIED, first.requirements().get(0).change());
+        assertEquals("badgeClassId", first.requirements().get(0).fields().get(0).field());
+        assertEquals(11L, first.requirements().get(1).originalRequirementId());
+        assertEquals(PathwayVersionDiffService.ChangeType.ADDED, first.requirements().get(1).change());
+
+        PathwayVersionDiffService.StepChange renamed = change(diff, 3L);
+        assertEquals(List.of(PathwayVersionDiffService.ChangeType.MODIFIED), renamed.changes());
+        assertEquals("name", renamed.fields().get(0).field());
+        assertEquals("C", renamed.fields().get(0).before().asText());
+
+        assertEquals(List.of(PathwayVersionDiffService.ChangeType.ADDED), change(diff, 4L).changes());
+        PathwayVersionDiffService.StepChange gone = change(diff, 2L);
+        assertEquals(List.of(PathwayVersionDiffService.ChangeType.REMOVED), gone.changes());
+        assertEquals(1, gone.fromPosition());
+    }
+
+    @Test
+    void newParentCountsAsAMoveNotAModification() {
+        version(1, step(1, "A"), step(2, "B"));
+        ObjectNode child = step(2, "B");
+        child.put("parentStepId", 1);
+        version(2, step(1, "A"), child);
+
+        PathwayVersionDiffService.VersionDiff diff = service.diff(PATHWAY_ID, 1, 2).orElseThrow();
+
+        PathwayVersionDiffService.StepChange moved = change(diff, 2L);
+        assertEquals(List.of(PathwayVersionDiffService.ChangeType.MOVED), moved.changes());
+        assertEquals("parentStepId", moved.fields().get(0).field());
+        assertEquals(new PathwayVersionDiffService.Summary(0, 0, 1, 0, 1), diff.summary());
+    }
+
+    @Test
+    void diffsBetweenImmutableVersionsAreCached() {
+        version(1, step(1, "A"));
+        version(2, step(1, "A renamed"));
+
+        assertSame(service.diff(PATHWAY_ID, 1, 2).orElseThrow(), service.diff(PATHWAY_ID, 1, 2).orElseThrow());
+    }
+
+    @Test
+    void missingVersionHasNoDiff() {
+        version(1, step(1, "A"));
+        when(documents.byVersion(PATHWAY_ID, 2)).thenReturn(Optional.empty());
+
+        assertTrue(service.diff(PATHWAY_ID, 1, 2).isEmpty());
+    }
+
+    private void version(int version, ObjectNode... steps) {
+        ObjectNode document = objectMapper.createObjectNode();
+        document.put("id", 100 + version);
+        document.put("pathwayId", PATHWAY_ID);
+        document.put("version", version);
+        ArrayNode stepVersions = document.putArray("stepVersions");
+        for (ObjectNode step : steps) {
+            stepVersions.add(step);
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(document);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        when(documents.byVersion(PATHWAY_ID, version)).thenReturn(Optional.of(
+            new PathwayVersionDocumentService.VersionDocument(100L + version, PATHWAY_ID, json, "\"" + version + "\"", true)));
+    }
+
+    private ObjectNode step(long originalStepId, String name) {
+        ObjectNode step = objectMapper.createObjectNode();
+        step.put("id", 1000 + originalStepId);
+        step.put("originalStepId", originalStepId);
+        step.put("name", name);
+        step.putNull("parentStepId");
+        step.putArray("requirementVersions");
+        return step;
+    }
+
+    private static void requirement(ObjectNode step, long originalRequirementId, long badgeClassId) {
+        ObjectNode requirement = ((ArrayNode) step.get("requirementVersions")).addObject();
+        requirement.put("id", 2000 + originalRequirementId);
+        requirement.put("originalRequirementId", originalRequirementId);
+        requirement.put("badgeClassId", badgeClassId);
+    }
+
+    private static PathwayVersionDiffService.StepChange change(PathwayVersionDiffService.VersionDiff diff, Long originalStepId) {
+        return diff.steps().stream()
+            .filter(change -> change.originalStepId().equals(originalStepId))
+            .findFirst()
+            .orElseThrow();
+    }
+}
@@ -0,0 +1,179 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.models.Pathway;
+import com.taashee.badger.models.PathwayVersion;
+import com.taashee.badger.models.StepVersion;
+import com.taashee.badger.repositories.PathwayVersionRepository;
+import com.taashee.badger.repositories.StepVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Version documents: stored snapshots served from the cache, legacy versions rendered and
+ * stored once, drafts rendered on every read.
+ */
+class PathwayVersionDocumentServiceTest {
+    private static final long PATHWAY_ID = 1L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private PathwayVersionRepository pathwayVersionRepository;
+    private StepVersionRepository stepVersionRepository;
+    private PathwayVersionDocumentService service;
+
+    @BeforeEach
+    void setUp() {
+        pathwayVersionRepository = mock(PathwayVersionRepository.class);
+        stepVersionRepository = mock(StepVersionRepository.class);
+        service = service(1024 * 1024);
+    }
+
+    @Test
+    void storedSnapshotsAreServedFromTheCache() {
+        when(pathwayVersionRepository.findIdByPathwayIdAndVersion(PATHWAY_ID, 2)).thenReturn(Optional.of(20L));
+        givenRow(20L, PathwayVersion.VersionStatus.PUBLISHED, "{\"version\":2}", "etag-2");
+
+        PathwayVersionDocumentService.VersionDocument first = service.byVersion(PATHWAY_ID, 2).orElseThrow();
+        PathwayVersionDocumentService.VersionDocument second = service.byVersion(PATHWAY_ID, 2).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals("etag-2", first.etag());
+        assertArrayEquals("{\"version\":2}".getBytes(StandardCharsets.UTF_8), first.json());
+        verify(pathwayVersionRepository, times(1)).findIdByPathwayIdAndVersion(PATHWAY_ID, 2);
+        verify(pathwayVersionRepository, times(1)).findSnapshotRow(20L);
+        verify(pathwayVersionRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void versionsWithoutASnapshotAreRenderedAndStoredOnce() throws Exception {
+        when(pathwayVersionRepository.findIdByPathwayIdAndVersion(PATHWAY_ID, 1)).thenReturn(Optional.of(10L));
+        givenRow(10L, PathwayVersion.VersionStatus.ARCHIVED, null, null);
+        when(pathwayVersionRepository.findById(10L)).thenReturn(Optional.of(version(10L, 1, PathwayVersion.VersionStatus.ARCHIVED)));
+        when(stepVersionRepository.findWithRequirementsByPathwayVersionId(10L))
+            .thenReturn(List.of(stepVersion(102L, "Second", 1), stepVersion(101L, "First", 0)));
+
+        PathwayVersionDocumentService.VersionDocument document = service.byVersion(PATHWAY_ID, 1).orElseThrow();
+        service.byVersion(PATHWAY_ID, 1);
+
+        assertTrue(document.immutable());
+        JsonNode json = objectMapper.readTree(document.json());
+        assertEquals(1, json.get("version").asInt());
+        assertEquals("First", json.get("stepVersions").get(0).get("name").asText());
+        assertEquals("Second", json.get("stepVersions").get(1).get("name").asText());
+        verify(pathwayVersionRepository, times(1)).storeSnapshot(10L, new String(document.json(), StandardCharsets.UTF_8), document.etag());
+        verify(stepVersionRepository, times(1)).findWithRequirementsByPathwayVersionId(10L);
+    }
+
+    @Test
+    void draftsAreRenderedOnEveryReadAndNeverStored() {
+        when(pathwayVersionRepository.findIdByPathwayIdAndVersion(PATHWAY_ID, 3)).thenReturn(Optional.of(30L));
+        givenRow(30L, PathwayVersion.VersionStatus.DRAFT, null, null);
+        when(pathwayVersionRepository.findById(30L)).thenReturn(Optional.of(version(30L, 3, PathwayVersion.VersionStatus.DRAFT)));
+
+        assertFalse(service.byVersion(PATHWAY_ID, 3).orElseThrow().immutable());
+        service.byVersion(PATHWAY_ID, 3);
+
+        verify(pathwayVersionRepository, times(2)).findIdByPathwayIdAndVersion(PATHWAY_ID, 3);
+        verify(stepVersionRepository, times(2)).findWithRequirementsByPathwayVersionId(30L);
+        verify(pathwayVersionRepository, never()).storeSnapshot(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void publishingStoresTheSnapshotAndMovesTheLatestPointer() {
+        when(pathwayVersionRepository.findPublishedIdsByPathwayId(PATHWAY_ID, PageRequest.of(0, 1))).thenReturn(List.of(10L));
+        givenRow(10L, PathwayVersion.VersionStatus.PUBLISHED, "{\"version\":1}", "etag-1");
+        assertEquals(10L, service.latestPublished(PATHWAY_ID).orElseThrow().pathwayVersionId());
+
+        PathwayVersion published = version(20L, 2, PathwayVersion.VersionStatus.PUBLISHED);
+        service.snapshot(published, List.of(stepVersion(201L, "First", 0)));
+
+        assertNotNull(published.getSnapshotJson());
+        assertEquals(32, published.getSnapshotEtag().length());
+        // Outside a transaction the pathway is evicted at once, so the pointer is read again
+        when(pathwayVersionRepository.findPublishedIdsByPathwayId(PATHWAY_ID, PageRequest.of(0, 1))).thenReturn(List.of(20L));
+        givenRow(20L, PathwayVersion.VersionStatus.PUBLISHED, published.getSnapshotJson(), published.getSnapshotEtag());
+        assertEquals(20L, service.latestPublished(PATHWAY_ID).orElseThrow().pathwayVersionId());
+    }
+
+    @Test
+    void theCacheIsBoundedByDocumentSize() {
+        PathwayVersionDocumentService small = service(30);
+        givenRow(10L, PathwayVersion.VersionStatus.PUBLISHED, "{\"version\":1,\"pad\":\"xx\"}", "etag-1");
+        givenRow(20L, PathwayVersion.VersionStatus.PUBLISHED, "{\"version\":2,\"pad\":\"xx\"}", "etag-2");
+        when(pathwayVersionRepository.findIdByPathwayIdAndVersion(PATHWAY_ID, 1)).thenReturn(Optional.of(10L));
+        when(pathwayVersionRepository.findIdByPathwayIdAndVersion(PATHWAY_ID, 2)).thenReturn(Optional.of(20L));
+
+        small.byVersion(PATHWAY_ID, 1);
+        small.byVersion(PATHWAY_ID, 2);
+        small.byVersion(PATHWAY_ID, 1);
+
+        // Only one document fits, so the first was evicted by the second
+        verify(pathwayVersionRepository, times(2)).findSnapshotRow(10L);
+        verify(pathwayVersionRepository, times(1)).findSnapshotRow(20L);
+    }
+
+    @Test
+    void unknownVersionsAreEmpty() {
+        when(pathwayVersionRepository.findIdByPathwayIdAndVersion(PATHWAY_ID, 9)).thenReturn(Optional.empty());
+        when(pathwayVersionRepository.findPublishedIdsByPathwayId(any(), any())).thenReturn(List.of());
+
+        assertTrue(service.byVersion(PATHWAY_ID, 9).isEmpty());
+        assertTrue(service.latestPublished(PATHWAY_ID).isEmpty());
+    }
+
+    private PathwayVersionDocumentService service(long maxCacheBytes) {
+        return new PathwayVersionDocumentService(pathwayVersionRepository, stepVersionRepository, objectMapper,
+            mock(PlatformTransactionManager.class), maxCacheBytes);
+    }
+
+    private void givenRow(Long id, PathwayVersion.VersionStatus status, String json, String etag) {
+        PathwayVersionRepository.SnapshotRow row = new PathwayVersionRepository.SnapshotRow() {
+            public Long getId() { return id; }
+            public Long getPathwayId() { return PATHWAY_ID; }
+            public PathwayVersion.VersionStatus getStatus() { return status; }
+            public String getSnapshotJson() { return json; }
+            public String getSnapshotEtag() { return etag; }
+        };
+        when(pathwayVersionRepository.findSnapshotRow(id)).thenReturn(Optional.of(row));
+    }
+
+    private static PathwayVersion version(Long id, int number, PathwayVersion.VersionStatus status) {
+        Pathway pathway = new Pathway();
+        pathway.setId(PATHWAY_ID);
+        pathway.setName("Data Science");
+        PathwayVersion version = new PathwayVersion(pathway, number, status, null);
+        version.setId(id);
+        return version;
+    }
+
+    private static StepVersion stepVersion(Long id, String name, int orderIndex) {
+        StepVersion stepVersion = new StepVersion();
+        stepVersion.setId(id);
+        stepVersion.setName(name);
+        stepVersion.setOrderIndex(orderIndex);
+        return stepVersion;
+    }
+}
@@ -0,0 +1,258 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.models.AuditLog;
+import com.taashee.badger.models.Organization;
+import com.taashee.badger.models.Pathway;
+import com.taashee.badger.models.PathwayStatus;
+import com.taashee.badger.models.PathwayStep;
+import com.taashee.badger.models.PathwayVersion;
+import com.taashee.badger.models.StepRequirement;
+import com.taashee.badger.models.StepRequirementType;
+import com.taashee.badger.models.StepVersion;
+import com.taashee.badger.repositories.AuditLogRepository;
+import com.taashee.badger.repositories.PathwayGroupSubscriptionRepository;
+import com.taashee.badger.repositories.PathwayRepository;
+import com.taashee.badger.repositories.PathwayStepRepository;
+import com.taashee.badger.repositories.PathwayVersionRepository;
+import com.taashee.badger.repositories.StepRequirementRepository;
+import com.taashee.badger.repositories.StepVersionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Publishing builds the snapshot graph from two queries and saves it in one batch; duplicating
+ * draws the name suffix from a counter and remaps the step ids named by the cloned rows.
+ */
+@ExtendWith(MockitoExtension.class)
+class PathwayVersioningServiceTest {
+    private static final long PATHWAY_ID = 1L;
+    private static final long COPY_ID = 2L;
+    private static final long ORGANIZATION_ID = 3L;
+
+    @Mock
+    private PathwayVersionRepository pathwayVersionRepository;
+    @Mock
+    private StepVersionRepository stepVersionRepository;
+    @Mock
+    private AuditLogRepository auditLogRepository;
+    @Mock
+    private PathwayRepository pathwayRepository;
+    @Mock
+    private PathwayStepRepository pathwayStepRepository;
+    @Mock
+    private StepRequirementRepository stepRequirementRepository;
+    @Mock
+    private PathwayVersionDocumentService pathwayVersionDocumentService;
+    @Mock
+    private PathwayGroupSubscriptionRepository pathwayGroupSubscriptionRepository;
+    @Mock
+    private ProgressRecalculationService progressRecalculationService;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    @InjectMocks
+    private PathwayVersioningService service;
+
+    private Pathway pathway;
+
+    @BeforeEach
+    void setUp() {
+        pathway = new Pathway();
+        pathway.setId(PATHWAY_ID);
+        pathway.setName("Data Science");
+        lenient().when(pathwayRepository.findById(PATHWAY_ID)).thenReturn(Optional.of(pathway));
+        lenient().when(pathwayVersionRepository.save(any(PathwayVersion.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void publishSnapshotsEveryStepWithItsRequirementsInOneBatch() {
+        PathwayStep root = step(10L, null, 0);
+        PathwayStep child = step(11L, root, 1);
+        PathwayStep sibling = step(12L, null, 2);
+        when(pathwayStepRepository.findSnapshotSteps(PATHWAY_ID)).thenReturn(List.of(root, child, sibling));
+        when(stepRequirementRepository.findSnapshotRequirements(PATHWAY_ID))
+            .thenReturn(List.of(requirement(child, 7L), requirement(root, 5L), requirement(child, 8L)));
+        when(pathwayVersionRepository.findMaxVersionByPathway(pathway)).thenReturn(Optional.of(2));
+
+        PathwayVersion version = service.publishPathway(PATHWAY_ID, null);
+
+        assertEquals(3, version.getVersion());
+        assertEquals(PathwayStatus.PUBLISHED, pathway.getStatus());
+        ArgumentCaptor<List<StepVersion>> saved = stepVersionCaptor();
+        verify(stepVersionRepository).saveAll(saved.capture());
+        List<StepVersion> stepVersions = saved.getValue();
+        assertEquals(List.of(root, child, sibling), stepVersions.stream().map(StepVersion::getOriginalStep).toList());
+        assertEquals(10L, stepVersions.get(1).getParentStepId());
+        assertEquals(List.of(5L), badgeClassIds(stepVersions.get(0)));
+        assertEquals(List.of(7L, 8L), badgeClassIds(stepVersions.get(1)));
+        assertEquals(List.of(), badgeClassIds(stepVersions.get(2)));
+        assertSame(version, stepVersions.get(0).getPathwayVersion());
+        // Snapshots go out before the document is rendered from them
+        verify(stepVersionRepository).flush();
+        verify(pathwayVersionDocumentService).snapshot(version, stepVersions);
+        verify(auditLogRepository).save(any(AuditLog.class));
+        assertEquals(1, meterRegistry.timer("badger.pathway.publish").count());
+    }
+
+    @Test
+    void publishRecalculatesProgressOnlyWhenGroupsFollowTheLatestVersion() {
+        when(pathwayVersionRepository.findMaxVersionByPathway(pathway)).thenReturn(Optional.empty());
+        when(pathwayGroupSubscriptionRepository.existsByPathwayIdAndPathwayVersionIsNull(PATHWAY_ID)).thenReturn(false);
+
+        assertEquals(1, service.publishPathway(PATHWAY_ID, null).getVersion());
+        verify(progressRecalculationService, never()).submitAfterCommit(PATHWAY_ID);
+
+        when(pathwayGroupSubscriptionRepository.existsByPathwayIdAndPathwayVersionIsNull(PATHWAY_ID)).thenReturn(true);
+        service.publishPathway(PATHWAY_ID, null);
+        verify(progressRecalculationService).submitAfterCommit(PATHWAY_ID);
+    }
+
+    @Test
+    void duplicateTakesTheNextSuffixFromTheCounter() {
+        givenOriginal("Data Science v2");
+        when(jdbcTemplate.queryForList(startsWith("UPDATE pathway_name_counter"), eq(Integer.class),
+            eq(ORGANIZATION_ID), eq("Data Science"))).thenReturn(List.of(4));
+
+        Pathway copy = service.duplicatePathway(PATHWAY_ID, null);
+
+        assertEquals("Data Science v4", copy.getName());
+        assertEquals(PathwayStatus.DRAFT, copy.getStatus());
+        verify(jdbcTemplate, never()).queryForObject(startsWith("INSERT INTO pathway_name_counter"), eq(Integer.class),
+            any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void firstDuplicateOfANameSeedsTheCounter() {
+        givenOriginal("Data Science");
+        when(jdbcTemplate.queryForList(startsWith("UPDATE pathway_name_counter"), eq(Integer.class),
+            eq(ORGANIZATION_ID), eq("Data Science"))).thenReturn(List.of());
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO pathway_name_counter"), eq(Integer.class),
+            eq(ORGANIZATION_ID), eq("Data Science"), eq("Data Science"), eq(ORGANIZATION_ID), eq("Data Science"), eq("Data Science")))
+            .thenReturn(3);
+
+        assertEquals("Data Science v3", service.duplicatePathway(PATHWAY_ID, null).getName());
+    }
+
+    @Test
+    void stepIdsNamedByTheClonedRowsPointAtTheCopies() throws Exception {
+        Pathway original = givenOriginal("Data Science");
+        original.setPrerequisiteSteps("[12, 13]");
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(), any())).thenReturn(List.of(2));
+        List<ResultSet> clonedRows = List.of(
+            clonedRow(10L, 110L, null),
+            clonedRow(11L, 111L, "[10]"),
+            clonedRow(12L, 112L, "{\"steps\":[\"10\",\"11\"]}"),
+            clonedRow(13L, 113L, "[99]"));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet row : clonedRows) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("WITH src AS"), any(RowCallbackHandler.class), eq(PATHWAY_ID), eq(COPY_ID));
+
+        Pathway copy = service.duplicatePathway(PATHWAY_ID, null);
+
+        ArgumentCaptor<List<Object[]>> updates = batchCaptor();
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE pathway_step SET prerequisite_steps = ? WHERE id = ?"), updates.capture());
+        Map<Object, Object> prerequisitesByCopy = new HashMap<>();
+        updates.getValue().forEach(update -> prerequisitesByCopy.put(update[1], update[0]));
+        // Step 13 names no cloned step and is left as copied
+        assertEquals(Map.of(111L, "[110]", 112L, "{\"steps\":[\"110\",\"111\"]}"), prerequisitesByCopy);
+        assertEquals("[112,113]", copy.getPrerequisiteSteps());
+        verify(auditLogRepository).save(any(AuditLog.class));
+    }
+
+    private Pathway givenOriginal(String name) {
+        Organization organization = new Organization();
+        organization.setId(ORGANIZATION_ID);
+        pathway.setName(name);
+        pathway.setOrganization(organization);
+        pathway.setStatus(PathwayStatus.PUBLISHED);
+        when(pathwayRepository.saveAndFlush(any(Pathway.class))).thenAnswer(invocation -> {
+            Pathway saved = invocation.getArgument(0);
+            saved.setId(COPY_ID);
+            return saved;
+        });
+        return pathway;
+    }
+
+    private static ResultSet clonedRow(Long oldId, Long newId, String prerequisiteSteps) throws Exception {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("old_id")).thenReturn(oldId);
+        when(row.getLong("new_id")).thenReturn(newId);
+        when(row.getString("prerequisite_steps")).thenReturn(prerequisiteSteps);
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Object[]>> batchCaptor() {
+        return ArgumentCaptor.forClass((Class<List<Object[]>>) (Class<?>) List.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<StepVersion>> stepVersionCaptor() {
+        return ArgumentCaptor.forClass((Class<List<StepVersion>>) (Class<?>) List.class);
+    }
+
+    private static List<Long> badgeClassIds(StepVersion stepVersion) {
+        List<Long> ids = new ArrayList<>();
+        stepVersion.getRequirementVersions().forEach(requirement -> {
+            assertSame(stepVersion, requirement.getStepVersion());
+            ids.add(requirement.getBadgeClassId());
+        });
+        return ids;
+    }
+
+    private PathwayStep step(Long id, PathwayStep parent, int orderIndex) {
+        PathwayStep step = new PathwayStep();
+        step.setId(id);
+        step.setPathway(pathway);
+        step.setParentStep(parent);
+        step.setName("Step " + id);
+        step.setOrderIndex(orderIndex);
+        return step;
+    }
+
+    private static StepRequirement requirement(PathwayStep step, Long badgeClassId) {
+        StepRequirement requirement = new StepRequirement();
+        requirement.setStep(step);
+        requirement.setType(StepRequirementType.EARNED_CREDENTIAL);
+        requirement.setBadgeClassId(badgeClassId);
+        return requirement;
+    }
+}
@@ -0,0 +1,161 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.models.PathwayVersion;
+import com.taashee.badger.repositories.PathwayVersionRepository;
+import com.taashee.badger.repositories.StepVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrerequisiteGraphCacheTest {
+    private static final long PATHWAY_ID = 1L;
+    private static final long VERSION_ID = 10L;
+
+    // Step versions 100..103 were snapshotted from original steps 1..4
+    private final StepManifestCache.StepManifest manifest = new StepManifestCache.StepManifest(VERSION_ID, PATHWAY_ID, List.of(
+        new StepManifestCache.Step(100L, false, false, 0),
+        new StepManifestCache.Step(101L, false, false, 1),
+        new StepManifestCache.Step(102L, false, false, 2),
+        new StepManifestCache.Step(103L, false, false, 3)));
+
+    private StepVersionRepository stepVersionRepository;
+    private PathwayVersion version;
+    private PrerequisiteGraphCache cache;
+
+    @BeforeEach
+    void setUp() {
+        stepVersionRepository = mock(StepVersionRepository.class);
+        PathwayVersionRepository pathwayVersionRepository = mock(PathwayVersionRepository.class);
+        StepManifestCache stepManifestCache = mock(StepManifestCache.class);
+        version = new PathwayVersion();
+        version.setStatus(PathwayVersion.VersionStatus.PUBLISHED);
+        when(pathwayVersionRepository.findById(VERSION_ID)).thenReturn(Optional.of(version));
+        when(stepManifestCache.getManifest(VERSION_ID)).thenReturn(manifest);
+        cache = new PrerequisiteGraphCache(stepManifestCache, stepVersionRepository, pathwayVersionRepository, new ObjectMapper());
+    }
+
+    @Test
+    void prerequisitesGiveATopologicalOrderAndUnlockStepByStep() {
+        // 4 needs 2 and 3, which both need 1
+        givenRows(
+            row(100L, 1L, null, null),
+            row(101L, 2L, "all", "[1]"),
+            row(102L, 3L, "all", "[1]"),
+            row(103L, 4L, "all", "[2, 3]"));
+
+        PrerequisiteGraphCache.PrerequisiteGraph graph = cache.getGraph(VERSION_ID);
+
+        assertFalse(graph.hasCycle());
+        assertArrayEquals(new int[] {0, 1, 2, 3}, graph.topologicalOrder());
+        assertEquals(bits(0), graph.unlocked(new BitSet()));
+        assertEquals(bits(1, 2), graph.unlocked(bits(0)));
+        assertEquals(bits(2), graph.unlocked(bits(0, 1)));
+        assertEquals(bits(3), graph.unlocked(bits(0, 1, 2)));
+    }
+
+    @Test
+    void anyAndNOfMRulesNeedOnlySomePrerequisites() {
+        givenRows(
+            row(100L, 1L, null, null),
+            row(101L, 2L, null, null),
+            row(102L, 3L, "any", "[1, 2]"),
+            row(103L, 4L, "n-of-m", "{\"steps\": [1, 2, 3], \"count\": 2}"));
+
+        PrerequisiteGraphCache.PrerequisiteGraph graph = cache.getGraph(VERSION_ID);
+
+        assertEquals(bits(0, 1), graph.unlocked(new BitSet()));
+        assertEquals(bits(1, 2), graph.unlocked(bits(0)));
+        assertEquals(bits(2, 3), graph.unlocked(bits(0, 1)));
+    }
+
+    @Test
+    void stepsOnACycleNeverUnlock() {
+        givenRows(
+            row(100L, 1L, null, null),
+            row(101L, 2L, "all", "[3]"),
+            row(102L, 3L, "all", "[2]"),
+            row(103L, 4L, "all", "[1]"));
+
+        PrerequisiteGraphCache.PrerequisiteGraph graph = cache.getGraph(VERSION_ID);
+
+        assertTrue(graph.hasCycle());
+        // Cyclic steps are ordered last
+        assertArrayEquals(new int[] {0, 3, 1, 2}, graph.topologicalOrder());
+        assertEquals(bits(3), graph.unlocked(bits(0)));
+    }
+
+    @Test
+    void unknownReferencesAndUnparseableJsonAreIgnored() {
+        givenRows(
+            row(100L, 1L, null, null),
+            row(101L, 2L, "all", "[1, 999]"),
+            row(102L, 3L, "all", "not json"),
+            row(103L, 4L, "all", "[103]"));
+
+        PrerequisiteGraphCache.PrerequisiteGraph graph = cache.getGraph(VERSION_ID);
+
+        // A step referencing itself has no prerequisite left
+        assertEquals(bits(0, 2, 3), graph.unlocked(new BitSet()));
+        assertEquals(bits(1, 2, 3), graph.unlocked(bits(0)));
+    }
+
+    @Test
+    void publishedGraphsAreCompiledOnceUntilThePathwayIsDeleted() {
+        givenRows(row(100L, 1L, null, null));
+
+        PrerequisiteGraphCache.PrerequisiteGraph first = cache.getGraph(VERSION_ID);
+        assertSame(first, cache.getGraph(VERSION_ID));
+        verify(stepVersionRepository, times(1)).findPrerequisiteRows(VERSION_ID);
+
+        cache.evictPathway(PATHWAY_ID);
+        assertNotSame(first, cache.getGraph(VERSION_ID));
+    }
+
+    @Test
+    void draftGraphsAreNotCached() {
+        version.setStatus(PathwayVersion.VersionStatus.DRAFT);
+        givenRows(row(100L, 1L, null, null));
+
+        cache.getGraph(VERSION_ID);
+        cache.getGraph(VERSION_ID);
+
+        verify(stepVersionRepository, times(2)).findPrerequisiteRows(VERSION_ID);
+    }
+
+    private void givenRows(StepVersionRepository.PrerequisiteRow... rows) {
+        when(stepVersionRepository.findPrerequisiteRows(VERSION_ID)).thenReturn(List.of(rows));
+    }
+
+    private static StepVersionRepository.PrerequisiteRow row(Long stepVersionId, Long originalStepId,
+                                                            String rule, String steps) {
+        return new StepVersionRepository.PrerequisiteRow() {
+            public Long getStepVersionId() { return stepVersionId; }
+            public Long getOriginalStepId() { return originalStepId; }
+            public String getPrerequisiteRule() { return rule; }
+            public String getPrerequisiteSteps() { return steps; }
+        };
+    }
+
+    private static BitSet bits(int... positions) {
+        BitSet bits = new BitSet();
+        for (int position : positions) {
+            bits.set(position);
+        }
+        return bits;
+    }
+}
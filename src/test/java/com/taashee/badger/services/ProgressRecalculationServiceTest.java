@@ -0,0 +1,149 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.Group;
+import com.taashee.badger.models.PathwayProgress;
+import com.taashee.badger.models.User;
+import com.taashee.badger.repositories.PathwayProgressRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProgressRecalculationServiceTest {
+    private static final long PATHWAY_ID = 1L;
+    private static final long GROUP_ID = 7L;
+
+    private PathwayProgressRepository pathwayProgressRepository;
+    private PathwayProgressEngine progressEngine;
+    private GroupProgressRollupService groupProgressRollupService;
+    private ProgressRecalculationService service;
+
+    @BeforeEach
+    void setUp() {
+        pathwayProgressRepository = mock(PathwayProgressRepository.class);
+        progressEngine = mock(PathwayProgressEngine.class);
+        groupProgressRollupService = mock(GroupProgressRollupService.class);
+        when(pathwayProgressRepository.findChunkForUpdate(anyLong(), anyLong(), any())).thenReturn(List.of());
+        service = new ProgressRecalculationService(pathwayProgressRepository, progressEngine,
+            groupProgressRollupService, mock(PlatformTransactionManager.class), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void requestsForAQueuedOrRunningPathwayAreCoalesced() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(pathwayProgressRepository.countByPathwayId(PATHWAY_ID))
+            .thenAnswer(invocation -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return 0L;
+            })
+            .thenReturn(0L);
+
+        ProgressRecalculationService.RecalculationJob running = service.submit(PATHWAY_ID);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Jobs run one at a time, so the second pathway waits in the queue
+        ProgressRecalculationService.RecalculationJob queued = service.submit(2L);
+        assertSame(queued, service.submit(2L));
+        assertFalse(queued.isRerunRequested());
+        // A request for the running pathway asks for one more pass instead of a new job
+        assertSame(running, service.submit(PATHWAY_ID));
+        assertTrue(running.isRerunRequested());
+
+        release.countDown();
+        awaitFinished(running);
+        awaitFinished(queued);
+
+        assertEquals(ProgressRecalculationService.JobStatus.COMPLETED, running.getStatus());
+        assertEquals(2, running.getPasses());
+        assertEquals(1, queued.getPasses());
+        assertSame(running, service.getLatestJob(PATHWAY_ID));
+        assertNotSame(running, service.submit(PATHWAY_ID));
+    }
+
+    @Test
+    void chunksAreLockedAndRecomputedFromStepProgress() throws InterruptedException {
+        PathwayProgress first = progress(1L, 42L);
+        PathwayProgress second = progress(2L, 43L);
+        PathwayProgress third = progress(3L, 44L);
+        when(pathwayProgressRepository.countByPathwayId(PATHWAY_ID)).thenReturn(3L);
+        when(pathwayProgressRepository.findChunkForUpdate(eq(PATHWAY_ID), eq(0L), any())).thenReturn(List.of(first, second));
+        when(pathwayProgressRepository.findChunkForUpdate(eq(PATHWAY_ID), eq(2L), any())).thenReturn(List.of(third));
+        when(progressEngine.refreshCompletion(eq(PATHWAY_ID), eq(GROUP_ID), anyCollection())).thenReturn(Map.of(
+            42L, new PathwayProgressEngine.StepCounts(2, 2),
+            43L, new PathwayProgressEngine.StepCounts(1, 2),
+            44L, new PathwayProgressEngine.StepCounts(0, 2)));
+        when(pathwayProgressRepository.findGroupIdsByPathwayId(PATHWAY_ID)).thenReturn(List.of(GROUP_ID));
+
+        ProgressRecalculationService.RecalculationJob job = service.submit(PATHWAY_ID);
+        awaitFinished(job);
+
+        assertEquals(ProgressRecalculationService.JobStatus.COMPLETED, job.getStatus());
+        assertEquals(3, job.getTotalRows());
+        assertEquals(3, job.getProcessedRows());
+        assertEquals(100, first.getPercent());
+        assertTrue(first.getCompleted());
+        assertEquals(50, second.getPercent());
+        assertFalse(second.getCompleted());
+        assertEquals(0, third.getPercent());
+        verify(pathwayProgressRepository).findChunkForUpdate(PATHWAY_ID, 0L, PageRequest.of(0, 2));
+        verify(pathwayProgressRepository).findChunkForUpdate(PATHWAY_ID, 3L, PageRequest.of(0, 2));
+        verify(groupProgressRollupService).rebuild(GROUP_ID, PATHWAY_ID);
+    }
+
+    @Test
+    void failedJobReportsItsErrorAndFreesThePathway() throws InterruptedException {
+        when(pathwayProgressRepository.countByPathwayId(PATHWAY_ID)).thenThrow(new IllegalStateException("database down"));
+
+        ProgressRecalculationService.RecalculationJob job = service.submit(PATHWAY_ID);
+        awaitFinished(job);
+
+        assertEquals(ProgressRecalculationService.JobStatus.FAILED, job.getStatus());
+        assertEquals("database down", job.getError());
+        assertNotSame(job, service.submit(PATHWAY_ID));
+    }
+
+    private static void awaitFinished(ProgressRecalculationService.RecalculationJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (job.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.getFinishedAt() != null, "job did not finish");
+    }
+
+    private static PathwayProgress progress(Long id, Long userId) {
+        Group group = new Group();
+        group.setId(GROUP_ID);
+        User user = new User();
+        user.setId(userId);
+        PathwayProgress progress = new PathwayProgress();
+        progress.setId(id);
+        progress.setGroup(group);
+        progress.setUser(user);
+        return progress;
+    }
+}
@@ -0,0 +1,180 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.models.BadgeClass;
+import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.models.Organization;
+import com.taashee.badger.repositories.BadgeClassRepository;
+import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.repositories.OrganizationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PublicAssertionServiceTest {
+    private static final long INSTANCE_ID = 11L;
+    private static final String BASE_URL = "https://badges.example.org";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BadgeInstanceRepository badgeInstanceRepository;
+    private AssertionSigningService signingService;
+    private BadgeInstance instance;
+
+    @BeforeEach
+    void setUp() {
+        badgeInstanceRepository = mock(BadgeInstanceRepository.class);
+        signingService = mock(AssertionSigningService.class);
+        when(signingService.sign(any(), any())).thenReturn("header.payload.signature");
+
+        Organization organization = new Organization();
+        organization.setId(3L);
+        organization.setNameEnglish("University");
+        BadgeClass badgeClass = new BadgeClass();
+        badgeClass.setId(5L);
+        badgeClass.setName("Data Science");
+        badgeClass.setOrganization(organization);
+        badgeClass.setImage("/api/images/ab12cd");
+        instance = new BadgeInstance();
+        instance.setId(INSTANCE_ID);
+        instance.setBadgeClass(badgeClass);
+        instance.setOrganization(organization);
+        instance.setRecipientIdentifier("ada@example.org");
+        instance.setSalt("pepper");
+        instance.setIssuedOn(LocalDateTime.of(2024, 3, 1, 12, 0));
+        when(badgeInstanceRepository.findById(INSTANCE_ID)).thenReturn(Optional.of(instance));
+        givenRevision(1L);
+    }
+
+    @Test
+    void hostedAssertionPublishesOnlyTheHashedRecipient() throws Exception {
+        PublicAssertionService.RenderedAssertion rendered = service(60_000)
+            .render(INSTANCE_ID, PublicAssertionService.Format.OB2).orElseThrow();
+
+        assertEquals(HttpStatus.OK, rendered.status());
+        String body = new String(rendered.body(), StandardCharsets.UTF_8);
+        assertFalse(body.contains("ada@example.org"));
+        JsonNode assertion = objectMapper.readTree(body);
+        assertEquals(BASE_URL + "/api/public/assertions/11", assertion.get("id").asText());
+        assertEquals(BASE_URL + "/api/public/badge-classes/5", assertion.get("badge").asText());
+        assertEquals("HostedBadge", assertion.get("verification").get("type").asText());
+        assertEquals(BASE_URL + "/api/images/ab12cd", assertion.get("image").asText());
+        assertEquals("sha256$" + sha256Hex("ada@example.orgpepper"), assertion.get("recipient").get("identity").asText());
+    }
+
+    @Test
+    void signedAssertionNamesTheIssuersKey() throws Exception {
+        PublicAssertionService.RenderedAssertion rendered = service(60_000)
+            .render(INSTANCE_ID, PublicAssertionService.Format.OB2_SIGNED).orElseThrow();
+
+        assertEquals("header.payload.signature", new String(rendered.body(), StandardCharsets.US_ASCII));
+        ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+        verify(signingService).sign(payload.capture(), eq(Map.of()));
+        JsonNode verification = objectMapper.readTree(payload.getValue()).get("verification");
+        assertEquals("SignedBadge", verification.get("type").asText());
+        assertEquals(BASE_URL + "/api/public/keys/3", verification.get("creator").asText());
+    }
+
+    @Test
+    void renderedPayloadsAreServedFromTheCacheWithinTheTtl() {
+        PublicAssertionService service = service(60_000);
+
+        PublicAssertionService.RenderedAssertion first = service.render(INSTANCE_ID, PublicAssertionService.Format.OB2).orElseThrow();
+        PublicAssertionService.RenderedAssertion second = service.render(INSTANCE_ID, PublicAssertionService.Format.OB2).orElseThrow();
+
+        assertSame(first, second);
+        verify(badgeInstanceRepository, times(1)).findAssertionRevision(INSTANCE_ID);
+        verify(badgeInstanceRepository, times(1)).findById(INSTANCE_ID);
+    }
+
+    @Test
+    void aNewRevisionIsRenderedAgainAfterTheTtl() {
+        PublicAssertionService service = service(0);
+        PublicAssertionService.RenderedAssertion first = service.render(INSTANCE_ID, PublicAssertionService.Format.OB2).orElseThrow();
+
+        // Same revision: revalidated with one lookup, the payload is reused
+        assertSame(first, service.render(INSTANCE_ID, PublicAssertionService.Format.OB2).orElseThrow());
+        verify(badgeInstanceRepository, times(1)).findById(INSTANCE_ID);
+
+        instance.setNarrative("Completed the capstone");
+        givenRevision(2L);
+        PublicAssertionService.RenderedAssertion updated = service.render(INSTANCE_ID, PublicAssertionService.Format.OB2).orElseThrow();
+
+        assertNotEquals(first.etag(), updated.etag());
+        verify(badgeInstanceRepository, times(2)).findById(INSTANCE_ID);
+    }
+
+    @Test
+    void revokedInstancesAreGone() throws Exception {
+        instance.setRevoked(true);
+        instance.setRevocationReason("Issued in error");
+
+        PublicAssertionService.RenderedAssertion rendered = service(60_000)
+            .render(INSTANCE_ID, PublicAssertionService.Format.OB3_SIGNED).orElseThrow();
+
+        assertEquals(HttpStatus.GONE, rendered.status());
+        JsonNode body = objectMapper.readTree(rendered.body());
+        assertTrue(body.get("revoked").asBoolean());
+        assertEquals("Issued in error", body.get("revocationReason").asText());
+    }
+
+    @Test
+    void evictionOutsideATransactionDropsTheEntryAtOnce() {
+        PublicAssertionService service = service(60_000);
+        service.render(INSTANCE_ID, PublicAssertionService.Format.OB2);
+
+        service.evict(INSTANCE_ID);
+        service.render(INSTANCE_ID, PublicAssertionService.Format.OB2);
+
+        verify(badgeInstanceRepository, times(2)).findAssertionRevision(INSTANCE_ID);
+    }
+
+    @Test
+    void unknownInstancesAreNotFound() {
+        when(badgeInstanceRepository.findAssertionRevision(99L)).thenReturn(Optional.empty());
+
+        assertTrue(service(60_000).render(99L, PublicAssertionService.Format.OB2).isEmpty());
+    }
+
+    private PublicAssertionService service(long ttlMs) {
+        return new PublicAssertionService(badgeInstanceRepository, mock(BadgeClassRepository.class),
+            mock(OrganizationRepository.class), signingService, mock(StatusListService.class), objectMapper,
+            mock(PlatformTransactionManager.class), BASE_URL + "/", ttlMs, 100);
+    }
+
+    private void givenRevision(long revision) {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        BadgeInstanceRepository.AssertionRevision row = new BadgeInstanceRepository.AssertionRevision() {
+            public Long getRevision() { return revision; }
+            public LocalDateTime getBadgeClassUpdatedAt() { return updatedAt; }
+            public LocalDateTime getOrganizationUpdatedAt() { return updatedAt; }
+        };
+        when(badgeInstanceRepository.findAssertionRevision(INSTANCE_ID)).thenReturn(Optional.of(row));
+    }
+
+    private static String sha256Hex(String value) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+}
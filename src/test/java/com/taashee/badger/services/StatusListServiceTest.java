@@ -0,0 +1,139 @@
+package com.taashee.badger.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taashee.badger.models.BadgeInstance;
+import com.taashee.badger.models.Organization;
+import com.taashee.badger.models.StatusList;
+import com.taashee.badger.repositories.BadgeInstanceRepository;
+import com.taashee.badger.repositories.OrganizationRepository;
+import com.taashee.badger.repositories.StatusListRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatusListServiceTest {
+    private static final long ORGANIZATION_ID = 5L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StatusList list = new StatusList();
+    private StatusListService service;
+
+    @BeforeEach
+    void setUp() {
+        list.setOrganizationId(ORGANIZATION_ID);
+        StatusListRepository statusListRepository = mock(StatusListRepository.class);
+        when(statusListRepository.findForUpdate(ORGANIZATION_ID)).thenReturn(Optional.of(list));
+        when(statusListRepository.findByOrganizationId(ORGANIZATION_ID)).thenReturn(Optional.of(list));
+        when(statusListRepository.findRevision(ORGANIZATION_ID)).thenAnswer(invocation -> Optional.of(list.getRevision()));
+        when(statusListRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        OrganizationRepository organizationRepository = mock(OrganizationRepository.class);
+        when(organizationRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        service = new StatusListService(statusListRepository, mock(BadgeInstanceRepository.class),
+            organizationRepository, objectMapper, "https://badges.example/", 60_000);
+    }
+
+    @Test
+    void syncHandsOutIndexesInOrderAndSetsRevokedBits() {
+        BadgeInstance first = instance(false);
+        BadgeInstance second = instance(true);
+        BadgeInstance third = instance(false);
+
+        service.sync(List.of(first, second, third));
+
+        assertEquals(0, first.getStatusListIndex());
+        assertEquals(1, second.getStatusListIndex());
+        assertEquals(2, third.getStatusListIndex());
+        assertEquals(3, list.getNextIndex());
+        assertFalse(list.isSet(0));
+        assertTrue(list.isSet(1));
+        assertFalse(list.isSet(2));
+        assertEquals(1, list.getRevision());
+    }
+
+    @Test
+    void syncKeepsAnAssignedIndexAndOnlyBumpsTheRevisionOnChange() {
+        BadgeInstance instance = instance(false);
+        service.sync(instance);
+        long revision = list.getRevision();
+
+        service.sync(instance);
+        assertEquals(revision, list.getRevision());
+
+        instance.setRevoked(true);
+        service.sync(instance);
+        assertEquals(0, instance.getStatusListIndex());
+        assertTrue(list.isSet(0));
+        assertEquals(revision + 1, list.getRevision());
+    }
+
+    @Test
+    void publishedListIsAGzippedBase64UrlBitstringOfAtLeastSixteenKilobytes() throws IOException {
+        list.set(0, true);
+        list.set(9, true);
+
+        JsonNode document = objectMapper.readTree(service.publish(ORGANIZATION_ID).orElseThrow().json());
+        JsonNode subject = document.get("credentialSubject");
+        assertEquals("StatusList2021", subject.get("type").asText());
+        assertEquals("https://badges.example/api/public/status/5", document.get("id").asText());
+
+        byte[] bits = gunzip(Base64.getUrlDecoder().decode(subject.get("encodedList").asText()));
+        assertEquals(16 * 1024, bits.length);
+        assertEquals((byte) 0x80, bits[0]);
+        assertEquals((byte) 0x40, bits[1]);
+        for (int i = 2; i < bits.length; i++) {
+            assertEquals(0, bits[i]);
+        }
+    }
+
+    @Test
+    void gzipVariantDecompressesToTheJsonDocument() throws IOException {
+        StatusListService.PublishedList published = service.publish(ORGANIZATION_ID).orElseThrow();
+
+        assertArrayEquals(published.json(), gunzip(published.gzip()));
+    }
+
+    @Test
+    void credentialStatusPointsAtTheInstanceBit() {
+        BadgeInstance instance = instance(false);
+        instance.setStatusListIndex(42);
+
+        Map<String, Object> status = service.credentialStatus(instance);
+
+        assertEquals("https://badges.example/api/public/status/5#42", status.get("id"));
+        assertEquals("42", status.get("statusListIndex"));
+        assertEquals("https://badges.example/api/public/status/5", status.get("statusListCredential"));
+    }
+
+    private static BadgeInstance instance(boolean revoked) {
+        Organization organization = new Organization();
+        organization.setId(ORGANIZATION_ID);
+        BadgeInstance instance = new BadgeInstance();
+        instance.setOrganization(organization);
+        instance.setRevoked(revoked);
+        return instance;
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+}
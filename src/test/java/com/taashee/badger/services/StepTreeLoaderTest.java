@@ -0,0 +1,91 @@
+package com.taashee.badger.services;
+
+import com.taashee.badger.models.PathwayStep;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StepTreeLoaderTest {
+
+    // 1 ─┬─ 2 ── 4
+    //    └─ 3
+    // 5
+    private final PathwayStep one = step(1L, null);
+    private final PathwayStep two = step(2L, one);
+    private final PathwayStep three = step(3L, one);
+    private final PathwayStep four = step(4L, two);
+    private final PathwayStep five = step(5L, null);
+    private final StepTreeLoader.StepTree tree = new StepTreeLoader.StepTree(List.of(one, two, three, four, five));
+
+    @Test
+    void aStepIsItsOwnAncestor() {
+        assertTrue(tree.isAncestorOrSelf(4L, 4L));
+    }
+
+    @Test
+    void climbsThroughEveryLevel() {
+        assertTrue(tree.isAncestorOrSelf(2L, 4L));
+        assertTrue(tree.isAncestorOrSelf(1L, 4L));
+    }
+
+    @Test
+    void siblingsDescendantsAndOtherRootsAreNotAncestors() {
+        assertFalse(tree.isAncestorOrSelf(3L, 4L));
+        assertFalse(tree.isAncestorOrSelf(4L, 1L));
+        assertFalse(tree.isAncestorOrSelf(5L, 4L));
+    }
+
+    @Test
+    void unknownStepsAreNeverAncestors() {
+        assertFalse(tree.isAncestorOrSelf(99L, 4L));
+        assertFalse(tree.isAncestorOrSelf(1L, 99L));
+        assertFalse(tree.isAncestorOrSelf(null, 4L));
+    }
+
+    @Test
+    void climbStopsOnACycleInTheData() {
+        PathwayStep a = step(10L, null);
+        PathwayStep b = step(11L, a);
+        PathwayStep c = step(12L, null);
+        a.setParentStep(b);
+        StepTreeLoader.StepTree cyclic = new StepTreeLoader.StepTree(List.of(a, b, c));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            assertFalse(cyclic.isAncestorOrSelf(12L, 10L));
+            assertTrue(cyclic.isAncestorOrSelf(11L, 10L));
+        });
+    }
+
+    @Test
+    void rootsAndChildrenKeepStepOrder() {
+        assertEquals(List.of(one, five), tree.roots());
+        assertEquals(List.of(two, three), tree.children(1L));
+        assertEquals(List.of(four), tree.children(2L));
+        assertEquals(List.of(), tree.children(4L));
+        assertEquals(List.of(), tree.children(99L));
+    }
+
+    @Test
+    void parentOutsideThePathwayMakesARoot() {
+        PathwayStep foreignParent = step(50L, null);
+        PathwayStep orphan = step(51L, foreignParent);
+        StepTreeLoader.StepTree partial = new StepTreeLoader.StepTree(List.of(orphan));
+
+        assertEquals(List.of(orphan), partial.roots());
+        assertFalse(partial.contains(50L));
+        assertFalse(partial.isAncestorOrSelf(50L, 51L));
+    }
+
+    private static PathwayStep step(Long id, PathwayStep parent) {
+        PathwayStep step = new PathwayStep();
+        step.setId(id);
+        step.setParentStep(parent);
+        return step;
+    }
+}